@@ -0,0 +1,78 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Micro-benchmark for writing a 50-recipe list as JSON: plain Jackson, Jackson with the
+ * Blackbird module, and {@link RecipeJsonCache}'s pre-serialized bytes.
+ * Not part of the test suite; {@code mvn test -Pbenchmark} compiles and runs it.
+ */
+@Slf4j
+class RecipeJsonBenchmark {
+    
+    private static final int RECIPES = 50;
+    private static final int LINES_PER_RECIPE = 12;
+    private static final int STEPS_PER_RECIPE = 8;
+    private static final int WARMUP_ITERATIONS = 5_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+    
+    @Test
+    void benchmarkRecipeList_FiftyRecipes() throws IOException {
+        // Arrange
+        List<Recipe> recipes = new ArrayList<>();
+        for (long id = 1; id <= RECIPES; id++) {
+            Recipe recipe = new Recipe("Recipe " + id, "A hearty dish, number " + id, 10, 20, 4, "Easy", "Italian");
+            recipe.setId(id);
+            for (int line = 0; line < LINES_PER_RECIPE; line++) {
+                recipe.getIngredients().add(new RecipeIngredient("Ingredient " + line, 1.5, "cups", "chopped"));
+            }
+            for (int step = 0; step < STEPS_PER_RECIPE; step++) {
+                recipe.getInstructions().add("Step " + step + ": stir everything together and simmer gently");
+            }
+            recipes.add(recipe);
+        }
+        ObjectMapper plain = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectMapper blackbird = new ObjectMapper().registerModule(new BlackbirdModule())
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        RecipeJsonCache jsonCache = new RecipeJsonCache(blackbird);
+        
+        // Run
+        double plainMicros = measure(out -> plain.writeValue(out, recipes));
+        double blackbirdMicros = measure(out -> blackbird.writeValue(out, recipes));
+        double cachedMicros = measure(out -> jsonCache.array(recipes, jsonCache.generation()).writeTo(out));
+        
+        // Report
+        log.info("{}-recipe list: Jackson {} us/op, Blackbird {} us/op, cached bytes {} us/op", RECIPES,
+                String.format("%.1f", plainMicros), String.format("%.1f", blackbirdMicros),
+                String.format("%.1f", cachedMicros));
+    }
+    
+    private static double measure(Write write) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            out.reset();
+            write.to(out);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            out.reset();
+            write.to(out);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ITERATIONS;
+    }
+    
+    private interface Write {
+        void to(ByteArrayOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,67 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro-benchmark for shopping list aggregation over a 50-recipe meal plan.
+ * Benchmarks are not part of the test suite; {@code mvn test -Pbenchmark} compiles and
+ * runs them, with JUnit only as the launcher.
+ */
+@Slf4j
+class ShoppingListBenchmark {
+    
+    private static final int RECIPES = 50;
+    private static final int LINES_PER_RECIPE = 12;
+    private static final int CATALOG_SIZE = 200;
+    private static final String[] UNITS = {"cups", "tablespoons", "teaspoons", "pounds", "ounces", "whole", "cloves"};
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+    
+    @Test
+    void benchmarkCalculate_FiftyRecipePlan() {
+        // Arrange
+        Random random = new Random(42);
+        List<Ingredient> catalog = new ArrayList<>();
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            catalog.add(new Ingredient(id, "Ingredient " + id, "Category " + (id % 9), "cups"));
+        }
+        List<Recipe> plan = new ArrayList<>();
+        for (int r = 0; r < RECIPES; r++) {
+            Recipe recipe = new Recipe("Recipe " + r, null, 10, 20, 4, "Easy", "Italian");
+            for (int line = 0; line < LINES_PER_RECIPE; line++) {
+                Ingredient ingredient = catalog.get(random.nextInt(40)); // overlap like a real week of cooking
+                recipe.getIngredients().add(new RecipeIngredient(ingredient.getName(),
+                        1.0 + random.nextInt(4), UNITS[random.nextInt(UNITS.length)], ""));
+            }
+            plan.add(recipe);
+        }
+        List<UserPantry> pantry = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            pantry.add(new UserPantry(1L, catalog.get(i), 2.0, UNITS[i % UNITS.length]));
+        }
+        
+        // Run
+        int checksum = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            checksum += ShoppingListCalculator.calculate(plan, catalog, pantry).size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksum += ShoppingListCalculator.calculate(plan, catalog, pantry).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        
+        // Report; the checksum keeps the JIT from dropping the calls
+        log.info("Shopping list for {} recipes x {} lines: {} us/op (checksum {})",
+                RECIPES, LINES_PER_RECIPE, String.format("%.1f", elapsed / 1_000.0 / MEASURED_ITERATIONS), checksum);
+    }
+}
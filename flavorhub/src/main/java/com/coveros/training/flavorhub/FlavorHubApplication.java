@@ -2,6 +2,7 @@ package com.coveros.training.flavorhub;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * FlavorHub Application - GitHub Copilot Workshop
@@ -19,7 +20,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication
 public class FlavorHubApplication {
 
+    // Enough for every step of a normal startup; see StartupReport
+    private static final int STARTUP_STEPS = 10_000;
+
     public static void main(String[] args) {
-        SpringApplication.run(FlavorHubApplication.class, args);
+        SpringApplication application = new SpringApplication(FlavorHubApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 }
@@ -0,0 +1,110 @@
+package com.coveros.training.flavorhub.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admission control for the REST API: each request takes a slot from its
+ * {@link EndpointClass}'s adaptive limit before it reaches a controller.
+ *
+ * A request that cannot get a slot within its class's queue wait is answered at once,
+ * without touching the database, with a {@code Retry-After} header: 429 when its endpoint
+ * class is at its limit (other endpoints are still being served), 503 when the server as a
+ * whole is at the capacity its priority may use. This keeps a spike of catalog lists or
+ * meal plan generation from tying up every Tomcat thread while single-recipe reads and
+ * pantry changes wait behind them.
+ *
+ * A request's slot is held until its response is complete. For async responses, such as a
+ * {@code StreamingResponseBody}, the body is written after the controller returns, so the slot
+ * is released, and the latency sampled, when the async request completes, fails or times out.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "flavorhub.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    
+    private final ConcurrencyLimiter limiter;
+    
+    @Autowired
+    public AdmissionControlFilter(@Value("${flavorhub.admission.max-concurrency:150}") int maxConcurrency) {
+        this(new ConcurrencyLimiter(maxConcurrency));
+    }
+    
+    AdmissionControlFilter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(), path);
+        if (endpointClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ConcurrencyLimiter.Admission admission = limiter.acquire(endpointClass);
+        if (!admission.admitted()) {
+            log.debug("Shedding {} {} ({}, {}, limit {})", request.getMethod(), path, endpointClass,
+                    admission.rejection(), limiter.limit(endpointClass));
+            response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(admission.retryAfterSeconds()));
+            response.setStatus(admission.rejection() == ConcurrencyLimiter.Rejection.ENDPOINT_LIMIT
+                    ? HttpStatus.TOO_MANY_REQUESTS.value()
+                    : HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseWhenComplete(admission.permit()));
+            } else {
+                admission.permit().release();
+            }
+        }
+    }
+    
+    /**
+     * Releases an async request's slot once its response is done
+     */
+    private record ReleaseWhenComplete(ConcurrencyLimiter.Permit permit) implements AsyncListener {
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.release();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.release();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Async restarted from a dispatch: listeners must register again to hear its end
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.coveros.training.flavorhub.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive concurrency limits per {@link EndpointClass}, under one server-wide cap.
+ *
+ * Each class's limit follows AIMD on observed latency: a response within the class's target
+ * latency while the limit is in real use raises it by 1/limit (about +1 per limit's worth
+ * of requests), and a slower one cuts it by {@link #BACKOFF}, at most once per target
+ * latency so a burst of slow responses counts as one signal. A request over the limit waits
+ * in a bounded queue for up to the class's maximum wait and is otherwise rejected.
+ *
+ * All state sits behind one lock; it is held for a few field updates per request.
+ */
+public class ConcurrencyLimiter {
+    
+    static final double BACKOFF = 0.9;
+    
+    /**
+     * Why a request was turned away
+     */
+    public enum Rejection {
+        /** Its endpoint class is at its limit; other endpoints are still served */
+        ENDPOINT_LIMIT,
+        /** The server as a whole is at the share of capacity its priority may use */
+        SERVER_LIMIT
+    }
+    
+    private final int maxConcurrency;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Map<EndpointClass, ClassState> states = new EnumMap<>(EndpointClass.class);
+    private int inFlight;
+    
+    public ConcurrencyLimiter(int maxConcurrency) {
+        this(maxConcurrency, System::nanoTime);
+    }
+    
+    ConcurrencyLimiter(int maxConcurrency, LongSupplier nanoClock) {
+        this.maxConcurrency = maxConcurrency;
+        this.nanoClock = nanoClock;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            states.put(endpointClass, new ClassState(endpointClass.initialLimit()));
+        }
+    }
+    
+    /**
+     * Wait for a slot, up to the class's maximum wait
+     * @return a permit to release when the request is done, or why the request was rejected
+     */
+    public Admission acquire(EndpointClass endpointClass) {
+        ClassState state = states.get(endpointClass);
+        lock.lock();
+        try {
+            if (!admissible(endpointClass, state)) {
+                if (state.waiting >= endpointClass.maxQueue()) {
+                    return reject(endpointClass, state);
+                }
+                long remaining = TimeUnit.MILLISECONDS.toNanos(endpointClass.maxWaitMillis());
+                state.waiting++;
+                try {
+                    while (!admissible(endpointClass, state)) {
+                        if (remaining <= 0) {
+                            return reject(endpointClass, state);
+                        }
+                        remaining = released.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return reject(endpointClass, state);
+                } finally {
+                    state.waiting--;
+                }
+            }
+            state.inFlight++;
+            inFlight++;
+            return new Admission(new Permit(endpointClass, nanoClock.getAsLong()), null, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * @return the current limit of a class
+     */
+    public int limit(EndpointClass endpointClass) {
+        lock.lock();
+        try {
+            return (int) states.get(endpointClass).limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean admissible(EndpointClass endpointClass, ClassState state) {
+        int serverCap = Math.max(1, (int) (maxConcurrency * endpointClass.priority().share()));
+        return state.inFlight < (int) state.limit && inFlight < serverCap;
+    }
+    
+    private Admission reject(EndpointClass endpointClass, ClassState state) {
+        Rejection rejection = state.inFlight >= (int) state.limit ? Rejection.ENDPOINT_LIMIT : Rejection.SERVER_LIMIT;
+        // Roughly the time to work off the class's queue at its current limit and average latency
+        double drainMillis = state.averageLatencyMillis * (state.waiting + 1) / Math.max(1, (int) state.limit);
+        return new Admission(null, rejection, (int) Math.max(1, Math.ceil(drainMillis / 1000)));
+    }
+    
+    private void release(Permit permit) {
+        long now = nanoClock.getAsLong();
+        double latencyMillis = (now - permit.startNanos) / 1e6;
+        EndpointClass endpointClass = permit.endpointClass;
+        lock.lock();
+        try {
+            ClassState state = states.get(endpointClass);
+            boolean busy = state.inFlight >= state.limit / 2;
+            state.inFlight--;
+            inFlight--;
+            state.averageLatencyMillis = state.averageLatencyMillis == 0
+                    ? latencyMillis
+                    : state.averageLatencyMillis * 0.9 + latencyMillis * 0.1;
+            if (latencyMillis > endpointClass.targetLatencyMillis()) {
+                long window = TimeUnit.MILLISECONDS.toNanos(endpointClass.targetLatencyMillis());
+                if (state.lastDecreaseNanos == 0 || now - state.lastDecreaseNanos >= window) {
+                    state.limit = Math.max(endpointClass.minLimit(), state.limit * BACKOFF);
+                    state.lastDecreaseNanos = now;
+                }
+            } else if (busy) {
+                // Only grow while the limit is actually being used, or it drifts to the max when idle
+                state.limit = Math.min(endpointClass.maxLimit(), state.limit + 1 / state.limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Outcome of {@link #acquire}: either a permit, or a rejection with a suggested retry delay
+     *
+     * @param permit the slot, if admitted
+     * @param rejection why the request was turned away, if it was
+     * @param retryAfterSeconds when a rejected client should try again, at least one second
+     */
+    public record Admission(Permit permit, Rejection rejection, int retryAfterSeconds) {
+        
+        public boolean admitted() {
+            return permit != null;
+        }
+    }
+    
+    /**
+     * An admitted request's slot; release it when the response is complete (later calls do
+     * nothing, from any thread)
+     */
+    public final class Permit {
+        private final EndpointClass endpointClass;
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        private Permit(EndpointClass endpointClass, long startNanos) {
+            this.endpointClass = endpointClass;
+            this.startNanos = startNanos;
+        }
+        
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ConcurrencyLimiter.this.release(this);
+            }
+        }
+    }
+    
+    private static class ClassState {
+        double limit;
+        int inFlight;
+        int waiting;
+        double averageLatencyMillis;
+        long lastDecreaseNanos;
+        
+        ClassState(int limit) {
+            this.limit = limit;
+        }
+    }
+}
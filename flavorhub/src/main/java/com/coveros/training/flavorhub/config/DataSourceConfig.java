@@ -0,0 +1,69 @@
+package com.coveros.training.flavorhub.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data sources: the primary database plus optional read replicas.
+ *
+ * The application's {@code DataSource} routes {@code @Transactional(readOnly = true)} work
+ * to the replicas listed in {@code flavorhub.datasource.replicas} (comma-separated JDBC
+ * URLs, same credentials as the primary) and all other work to the primary. With no
+ * replicas configured everything goes to the primary. Code that must always see the
+ * latest writes, such as {@code CodeDictionary}, injects {@code primaryDataSource} instead.
+ */
+@Configuration
+public class DataSourceConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            DataSourceProperties properties,
+            SqlStats sqlStats,
+            @Value("${flavorhub.datasource.replicas:}") List<String> replicaUrls) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setReadOnly(true);
+            replicas.add(sqlStats.wrap(replica));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+    
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReadWriteRoutingDataSource routingDataSource,
+                                               @Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                               @Value("${flavorhub.datasource.max-replica-lag-ms:5000}") long maxLagMillis) {
+        return new ReplicaLagMonitor(routingDataSource, primaryDataSource, maxLagMillis);
+    }
+}
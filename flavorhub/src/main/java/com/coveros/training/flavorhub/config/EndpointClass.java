@@ -0,0 +1,119 @@
+package com.coveros.training.flavorhub.config;
+
+import java.util.regex.Pattern;
+
+/**
+ * Groups of API endpoints that share a concurrency limit in {@link ConcurrencyLimiter}.
+ *
+ * Cheap, latency-sensitive calls (single-item reads, pantry changes) get high limits, long
+ * queues and the whole server's capacity; list, search and planning calls get small limits,
+ * short queues and only part of the capacity, so they are shed first under load.
+ */
+public enum EndpointClass {
+    
+    /** Single recipe or ingredient lookups and pantry reads */
+    DETAIL(Priority.CRITICAL, 64, 8, 256, 100, 200, 1000),
+    /** Pantry changes: add, delete, relative quantity changes, cooking */
+    PANTRY_WRITE(Priority.CRITICAL, 32, 4, 128, 200, 200, 1000),
+    /** Anything else under /api, e.g. recipe and meal plan writes */
+    GENERAL(Priority.NORMAL, 32, 4, 128, 500, 50, 500),
+    /** Catalog lists and searches */
+    LIST(Priority.DEGRADABLE, 16, 2, 64, 250, 16, 200),
+    /** Meal plan generation and shopping lists */
+    HEAVY(Priority.DEGRADABLE, 4, 1, 16, 1000, 4, 100);
+    
+    private static final Pattern BY_ID = Pattern.compile("/api/(recipes|ingredients)/\\d+");
+    
+    /**
+     * Share of the server-wide concurrency a class may use: lower priorities are turned away
+     * while there is still room for higher ones
+     */
+    public enum Priority {
+        CRITICAL(1.0), NORMAL(0.8), DEGRADABLE(0.5);
+        
+        private final double share;
+        
+        Priority(double share) {
+            this.share = share;
+        }
+        
+        public double share() {
+            return share;
+        }
+    }
+    
+    private final Priority priority;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyMillis;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    
+    EndpointClass(Priority priority, int initialLimit, int minLimit, int maxLimit,
+                  long targetLatencyMillis, int maxQueue, long maxWaitMillis) {
+        this.priority = priority;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+    
+    /**
+     * @param method the HTTP method
+     * @param path the request path, without the context path
+     * @return the class of an API request, or null for requests that are never limited
+     *         (pages, static files, the H2 console and admin endpoints)
+     */
+    public static EndpointClass of(String method, String path) {
+        if (!path.startsWith("/api/") || path.startsWith("/api/admin/")) {
+            return null;
+        }
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+        if (path.startsWith("/api/pantry")) {
+            return read ? DETAIL : PANTRY_WRITE;
+        }
+        if (path.startsWith("/api/meal-plans/generate") || path.startsWith("/api/meal-plans/shopping-list")) {
+            return HEAVY;
+        }
+        if (read && BY_ID.matcher(path).matches()) {
+            return DETAIL;
+        }
+        if (read && (path.startsWith("/api/recipes") || path.startsWith("/api/ingredients"))) {
+            return LIST;
+        }
+        return GENERAL;
+    }
+    
+    public Priority priority() {
+        return priority;
+    }
+    
+    public int initialLimit() {
+        return initialLimit;
+    }
+    
+    public int minLimit() {
+        return minLimit;
+    }
+    
+    public int maxLimit() {
+        return maxLimit;
+    }
+    
+    /** Responses slower than this make the limit shrink */
+    public long targetLatencyMillis() {
+        return targetLatencyMillis;
+    }
+    
+    /** Requests allowed to wait for a slot; any more are rejected at once */
+    public int maxQueue() {
+        return maxQueue;
+    }
+    
+    public long maxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
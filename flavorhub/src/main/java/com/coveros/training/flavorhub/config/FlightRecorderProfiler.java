@@ -0,0 +1,80 @@
+package com.coveros.training.flavorhub.config;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes Java Flight Recorder recordings on demand, so a live node can be profiled without a
+ * restart or an agent.
+ *
+ * A recording uses the JDK's {@code flavorhub.profiling.jfr-settings} configuration
+ * ({@code profile}: method sampling every 10-20 ms, allocations, locks, GC, I/O) plus the
+ * {@link JfrEvents}, and runs for a fixed time. One recording runs at a time.
+ */
+@Slf4j
+@Component
+public class FlightRecorderProfiler {
+    
+    private final String settings;
+    private final Duration maxDuration;
+    private final AtomicBoolean recording = new AtomicBoolean();
+    
+    public FlightRecorderProfiler(@Value("${flavorhub.profiling.jfr-settings:profile}") String settings,
+                                  @Value("${flavorhub.profiling.max-seconds:300}") long maxSeconds) {
+        this.settings = settings;
+        this.maxDuration = Duration.ofSeconds(maxSeconds);
+    }
+    
+    public boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+    
+    public Duration maxDuration() {
+        return maxDuration;
+    }
+    
+    /**
+     * Record for a while and write the recording to a temporary file, which the caller deletes
+     * @param duration how long to record
+     * @return the recording file
+     * @throws IllegalStateException if a recording is already running
+     */
+    public Path record(Duration duration) throws IOException, InterruptedException {
+        if (!recording.compareAndSet(false, true)) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        try (Recording jfr = new Recording(Configuration.getConfiguration(settings))) {
+            jfr.setName("flavorhub-on-demand");
+            for (Class<?> event : JfrEvents.class.getDeclaredClasses()) {
+                jfr.enable(event.asSubclass(Event.class));
+            }
+            log.info("Starting a {} ms flight recording", duration.toMillis());
+            jfr.start();
+            try {
+                Thread.sleep(duration.toMillis());
+            } finally {
+                jfr.stop();
+            }
+            Path file = Files.createTempFile("flavorhub-", ".jfr");
+            jfr.dump(file);
+            log.info("Flight recording written to {} ({} bytes)", file, Files.size(file));
+            return file;
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Unreadable JFR settings " + settings, e);
+        } finally {
+            recording.set(false);
+        }
+    }
+}
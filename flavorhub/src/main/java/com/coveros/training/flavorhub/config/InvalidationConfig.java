@@ -0,0 +1,52 @@
+package com.coveros.training.flavorhub.config;
+
+import com.coveros.training.flavorhub.service.InvalidationTransport;
+import com.coveros.training.flavorhub.service.LocalInvalidationTransport;
+import com.coveros.training.flavorhub.service.MulticastInvalidationTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+
+/**
+ * The transport of the {@code InvalidationBus}, chosen by {@code flavorhub.invalidation.transport}:
+ * {@code none} (the default, for a single instance), {@code local} for instances in one JVM,
+ * or {@code multicast} for instances on one network.
+ */
+@Configuration
+@ConditionalOnExpression("'${flavorhub.invalidation.transport:none}' != 'none'")
+public class InvalidationConfig {
+    
+    @Bean(destroyMethod = "")
+    public InvalidationTransport invalidationTransport(
+            @Value("${flavorhub.invalidation.transport}") String transport,
+            @Value("${flavorhub.invalidation.channel:flavorhub}") String channel,
+            @Value("${flavorhub.invalidation.multicast.group:239.255.42.99}") String group,
+            @Value("${flavorhub.invalidation.multicast.port:45588}") int port,
+            @Value("${flavorhub.invalidation.multicast.interface:}") String interfaceName,
+            @Value("${flavorhub.invalidation.multicast.ttl:1}") int timeToLive) throws IOException {
+        return switch (transport.strip()) {
+            case "local" -> new LocalInvalidationTransport(channel);
+            case "multicast" -> new MulticastInvalidationTransport(InetAddress.getByName(group), port,
+                    networkInterface(interfaceName), timeToLive);
+            default -> throw new IllegalArgumentException(
+                    "flavorhub.invalidation.transport must be none, local or multicast, not " + transport);
+        };
+    }
+    
+    private static NetworkInterface networkInterface(String name) throws SocketException {
+        if (name.isBlank()) {
+            return null;
+        }
+        NetworkInterface networkInterface = NetworkInterface.getByName(name.strip());
+        if (networkInterface == null) {
+            throw new IllegalArgumentException("No network interface named " + name);
+        }
+        return networkInterface;
+    }
+}
@@ -0,0 +1,25 @@
+package com.coveros.training.flavorhub.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+/**
+ * Jackson modules added to Spring Boot's {@code ObjectMapper}
+ */
+@Configuration
+public class JacksonConfig {
+    
+    /**
+     * Blackbird replaces Jackson's reflective getter and setter calls with generated lambdas,
+     * which the JIT can inline. A native image cannot define classes at runtime, so there the
+     * mapper keeps plain reflection.
+     */
+    @Bean
+    Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule() : new BlackbirdModule();
+    }
+}
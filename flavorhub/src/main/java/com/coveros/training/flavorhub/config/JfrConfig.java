@@ -0,0 +1,55 @@
+package com.coveros.training.flavorhub.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Records a {@link JfrEvents.RepositoryCall} around every call to a repository bean: Spring
+ * Data repositories and classes annotated {@code @Repository}.
+ */
+@Configuration
+public class JfrConfig {
+    
+    @Bean
+    static BeanPostProcessor jfrRepositoryEvents() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof org.springframework.data.repository.Repository<?, ?>)
+                        && !AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), Repository.class)) {
+                    return bean;
+                }
+                MethodInterceptor interceptor = repositoryCalls(StringUtils.capitalize(beanName));
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, interceptor);
+                    return bean;
+                }
+                ProxyFactory factory = new ProxyFactory(bean);
+                factory.setProxyTargetClass(!Proxy.isProxyClass(bean.getClass()));
+                factory.addAdvice(interceptor);
+                return factory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+    
+    private static MethodInterceptor repositoryCalls(String repository) {
+        return invocation -> {
+            JfrEvents.RepositoryCall event = new JfrEvents.RepositoryCall(repository, invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                event.commit();
+            }
+        };
+    }
+}
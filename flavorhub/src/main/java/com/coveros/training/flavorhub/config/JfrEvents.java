@@ -0,0 +1,134 @@
+package com.coveros.training.flavorhub.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for where a request's time goes, shown under "FlavorHub" in
+ * JDK Mission Control.
+ *
+ * Each event starts timing when it is created and ends when it is committed with its results.
+ * While no recording has the event enabled, creating and committing it costs next to nothing,
+ * so the events stay in place in production; {@link FlightRecorderProfiler} records them on
+ * demand, as does any recording started with {@code -XX:StartFlightRecording} or {@code jcmd}.
+ */
+public final class JfrEvents {
+    
+    private static final String CATEGORY = "FlavorHub";
+    
+    private JfrEvents() {
+    }
+    
+    @Name("flavorhub.Request")
+    @Label("Request")
+    @Description("An HTTP request, from the first filter until the response is complete or handed to an async thread")
+    @Category({CATEGORY, "Web"})
+    @StackTrace(false)
+    public static final class Request extends Event {
+        
+        @Label("Method")
+        String method;
+        
+        @Label("Path")
+        String path;
+        
+        @Label("Handler")
+        @Description("Controller method that handled the request, if any")
+        String handler;
+        
+        @Label("Status")
+        int status;
+        
+        public Request(String method, String path) {
+            this.method = method;
+            this.path = path;
+            begin();
+        }
+        
+        public void commit(String handler, int status) {
+            this.handler = handler;
+            this.status = status;
+            commit();
+        }
+    }
+    
+    @Name("flavorhub.RepositoryCall")
+    @Label("Repository Call")
+    @Description("A call to a repository method, including the queries it runs and reading their results")
+    @Category({CATEGORY, "Data"})
+    public static final class RepositoryCall extends Event {
+        
+        @Label("Repository")
+        String repository;
+        
+        @Label("Method")
+        String method;
+        
+        public RepositoryCall(String repository, String method) {
+            this.repository = repository;
+            this.method = method;
+            begin();
+        }
+    }
+    
+    @Name("flavorhub.CacheLookup")
+    @Label("Cache Lookup")
+    @Description("A lookup in an in-memory cache; on a miss, including building the value")
+    @Category({CATEGORY, "Cache"})
+    public static final class CacheLookup extends Event {
+        
+        @Label("Cache")
+        String cache;
+        
+        @Label("Key")
+        String key;
+        
+        @Label("Hit")
+        boolean hit;
+        
+        public CacheLookup(String cache, Object key) {
+            this.cache = cache;
+            this.key = String.valueOf(key);
+            begin();
+        }
+        
+        public void commit(boolean hit) {
+            this.hit = hit;
+            commit();
+        }
+    }
+    
+    @Name("flavorhub.Serialization")
+    @Label("Serialization")
+    @Description("Writing objects as JSON")
+    @Category({CATEGORY, "Web"})
+    @StackTrace(false)
+    public static final class Serialization extends Event {
+        
+        @Label("Type")
+        String type;
+        
+        @Label("Items")
+        int items;
+        
+        @Label("Size")
+        @DataAmount
+        long bytes;
+        
+        public Serialization(String type) {
+            this.type = type;
+            begin();
+        }
+        
+        public void commit(int items, long bytes) {
+            this.items = items;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
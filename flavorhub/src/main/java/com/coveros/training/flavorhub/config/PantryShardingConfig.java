@@ -0,0 +1,47 @@
+package com.coveros.training.flavorhub.config;
+
+import com.coveros.training.flavorhub.repository.PantryShards;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pantry shard databases.
+ *
+ * {@code flavorhub.pantry.shards} lists one JDBC URL per shard (same credentials as the
+ * primary); by default there is a single shard in the primary database. Only the first
+ * {@code flavorhub.pantry.active-shards} of them hold data at startup (0 means all); the
+ * others can be brought in later through the shard admin endpoints, which move the
+ * affected users' rows.
+ */
+@Configuration
+public class PantryShardingConfig {
+    
+    @Bean(destroyMethod = "close")
+    public PantryShards pantryShards(DataSourceProperties properties,
+                                     @Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                     SqlStats sqlStats,
+                                     @Value("${flavorhub.pantry.shards:${spring.datasource.url}}") List<String> shardUrls,
+                                     @Value("${flavorhub.pantry.active-shards:0}") int activeShards) {
+        List<DataSource> shards = new ArrayList<>();
+        for (String url : shardUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource shard = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            shard.setPoolName("pantry-shard-" + shards.size());
+            shards.add(sqlStats.wrap(shard));
+        }
+        return new PantryShards(shards, activeShards == 0 ? shards.size() : activeShards, primaryDataSource);
+    }
+}
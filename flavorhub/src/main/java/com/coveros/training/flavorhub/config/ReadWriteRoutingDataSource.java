@@ -0,0 +1,119 @@
+package com.coveros.training.flavorhub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to read replicas and everything else to the primary.
+ *
+ * A replica is only used while it is known to be within the configured replication lag
+ * (see {@link ReplicaLagMonitor}); until its first successful check, after a failed check,
+ * or when it refuses a connection, reads fall back to the primary. Usable replicas are
+ * picked round-robin.
+ *
+ * The routing decision is made when a connection is requested, so this data source must
+ * be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction manager asks for its connection before the transaction is marked
+ * read-only, and the proxy delays the real request until the first statement.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    
+    static final String PRIMARY = "primary";
+    
+    private final DataSource primary;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final Map<String, Boolean> usable = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.primary = primary;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + (i + 1);
+            replicaKeys.add(key);
+            usable.put(key, false);
+            targets.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+    
+    List<String> replicaKeys() {
+        return replicaKeys;
+    }
+    
+    DataSource replica(String key) {
+        return (DataSource) getResolvedDataSources().get(key);
+    }
+    
+    /**
+     * Record whether a replica is currently close enough to the primary to serve reads
+     */
+    void setUsable(String key, boolean isUsable) {
+        Boolean was = usable.put(key, isUsable);
+        if (was != null && was != isUsable) {
+            log.info("Read replica {} is now {}", key, isUsable ? "in use" : "out of rotation, reading from primary");
+        }
+    }
+    
+    boolean isUsable(String key) {
+        return usable.getOrDefault(key, false);
+    }
+    
+    /**
+     * Close the replica pools; the primary is a bean of its own
+     */
+    @Override
+    public void close() throws Exception {
+        for (String key : replicaKeys) {
+            if (replica(key) instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaKeys.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicaKeys.size());
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get((start + i) % replicaKeys.size());
+            if (isUsable(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        log.trace("Routing connection to {}", key);
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+        try {
+            return replica((String) key).getConnection();
+        } catch (SQLException e) {
+            log.warn("Read replica {} refused a connection, reading from primary", key, e);
+            setUsable((String) key, false);
+            return primary.getConnection();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.coveros.training.flavorhub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures how far each read replica is behind the primary and tells the router which
+ * replicas may serve reads.
+ *
+ * Every check writes the current time to a one-row heartbeat table on the primary and
+ * reads the replicated row back from each replica; the difference from now is the
+ * replica's lag. Because the heartbeat is only written once per check, the measured lag
+ * of a live replica is up to one check interval higher than its real lag, so the
+ * tolerance should be larger than the interval. A replica that cannot be queried counts
+ * as too far behind.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS replication_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+    private static final String UPDATE_BEAT = "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String INSERT_BEAT = "INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, ?)";
+    private static final String SELECT_BEAT = "SELECT beat_millis FROM replication_heartbeat WHERE id = 1";
+    
+    private final ReadWriteRoutingDataSource router;
+    private final DataSource primary;
+    private final long maxLagMillis;
+    private final LongSupplier clock;
+    private boolean tableCreated;
+    
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource router, DataSource primary, long maxLagMillis) {
+        this(router, primary, maxLagMillis, System::currentTimeMillis);
+    }
+    
+    ReplicaLagMonitor(ReadWriteRoutingDataSource router, DataSource primary, long maxLagMillis, LongSupplier clock) {
+        this.router = router;
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+        this.clock = clock;
+    }
+    
+    /**
+     * Write a heartbeat and re-evaluate every replica
+     */
+    @Scheduled(fixedDelayString = "${flavorhub.datasource.lag-check-interval-ms:1000}")
+    public synchronized void check() {
+        if (router.replicaKeys().isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        try {
+            beat(now);
+        } catch (SQLException e) {
+            log.warn("Could not write replication heartbeat to primary", e);
+        }
+        for (String key : router.replicaKeys()) {
+            long lag = lagOf(key, now);
+            router.setUsable(key, lag >= 0 && lag <= maxLagMillis);
+        }
+    }
+    
+    /**
+     * @return how far the replica's heartbeat is behind {@code now}, or -1 if it cannot be read
+     */
+    long lagOf(String key, long now) {
+        try (Connection connection = router.replica(key).getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet beat = statement.executeQuery(SELECT_BEAT)) {
+            return beat.next() ? Math.max(0, now - beat.getLong(1)) : -1;
+        } catch (SQLException e) {
+            log.debug("Could not read replication heartbeat from {}", key, e);
+            return -1;
+        }
+    }
+    
+    private void beat(long now) throws SQLException {
+        try (Connection connection = primary.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!tableCreated) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_TABLE);
+                }
+                tableCreated = true;
+            }
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_BEAT)) {
+                update.setLong(1, now);
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_BEAT)) {
+                insert.setLong(1, now);
+                insert.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.coveros.training.flavorhub.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Enables {@code @Scheduled} background jobs such as the pantry write-behind flush
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    
+    /**
+     * Keeps beans with {@code @Scheduled} methods eager under {@code spring.main.lazy-initialization}
+     * (the {@code fast-startup} profile): their jobs are only registered when the bean is
+     * created, and nothing else would ever ask for some of them
+     */
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansStayEager() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,35 @@
+package com.coveros.training.flavorhub.config;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces SQL to the shape of the statement, so the same query with different values,
+ * different IN-list lengths or different whitespace is counted as one.
+ *
+ * Comments are dropped, string and number literals become {@code ?}, runs of whitespace
+ * become one space, a parenthesized list of placeholders (an IN list or one VALUES row)
+ * becomes {@code (?...)}, a run of such lists becomes one, and the rest is lower-cased.
+ */
+final class SqlFingerprint {
+    
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern STRING = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w$.])\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?(?![\\w$])");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLACEHOLDERS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern ROWS = Pattern.compile("\\(\\?\\.\\.\\.\\)(?:\\s*,\\s*\\(\\?\\.\\.\\.\\))+");
+    
+    private SqlFingerprint() {
+    }
+    
+    static String of(String sql) {
+        String shape = COMMENT.matcher(sql).replaceAll(" ");
+        shape = STRING.matcher(shape).replaceAll("?");
+        shape = NUMBER.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        shape = PLACEHOLDERS.matcher(shape).replaceAll("(?...)");
+        shape = ROWS.matcher(shape).replaceAll("(?...)");
+        return shape.toLowerCase(Locale.ROOT);
+    }
+}
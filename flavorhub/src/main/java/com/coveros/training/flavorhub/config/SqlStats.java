@@ -0,0 +1,168 @@
+package com.coveros.training.flavorhub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution counts and times of SQL statements, per statement shape and per the controller
+ * method that ran them.
+ *
+ * Statements are timed by {@link SqlStatsDataSource} around the JDBC execute call, so the
+ * time is the database's plus the driver's, not the time spent reading a result set.
+ * Statements are grouped by {@link SqlFingerprint}; statements run outside a request, such
+ * as scheduled flushes, are attributed to {@value #BACKGROUND}. Once {@code max-fingerprints}
+ * groups exist, statements of new shapes are counted under {@value #OTHER}.
+ *
+ * A statement taking {@code slow-query-ms} or longer is logged with its bind parameters.
+ */
+@Slf4j
+@Component
+public class SqlStats {
+    
+    static final String BACKGROUND = "(background)";
+    static final String OTHER = "(other statements)";
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+    
+    private final boolean enabled;
+    private final long slowNanos;
+    private final int maxFingerprints;
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Map<Key, Counters> stats = new ConcurrentHashMap<>();
+    
+    public SqlStats(@Value("${flavorhub.sql-stats.enabled:true}") boolean enabled,
+                    @Value("${flavorhub.sql-stats.slow-query-ms:100}") long slowQueryMillis,
+                    @Value("${flavorhub.sql-stats.max-fingerprints:500}") int maxFingerprints) {
+        this.enabled = enabled;
+        this.slowNanos = slowQueryMillis * 1_000_000;
+        this.maxFingerprints = maxFingerprints;
+    }
+    
+    /**
+     * @return the data source with its statements counted here, or the data source itself
+     *         when statistics are disabled
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return enabled ? new SqlStatsDataSource(dataSource, this) : dataSource;
+    }
+    
+    /**
+     * Attribute the current thread's statements to an endpoint, or to {@value #BACKGROUND}
+     * when null
+     */
+    static void attributeTo(String endpoint) {
+        if (endpoint == null) {
+            ENDPOINT.remove();
+        } else {
+            ENDPOINT.set(endpoint);
+        }
+    }
+    
+    /**
+     * Count one execution of a statement
+     * @param sql the statement as sent to the driver
+     * @param nanos how long the execute call took
+     * @param parameters the bind parameters by position, for the slow query log
+     */
+    void record(String sql, long nanos, List<Object> parameters) {
+        String endpoint = ENDPOINT.get() != null ? ENDPOINT.get() : BACKGROUND;
+        String fingerprint = fingerprint(sql);
+        Counters counters = stats.get(new Key(fingerprint, endpoint));
+        if (counters == null) {
+            Key key = stats.size() < maxFingerprints ? new Key(fingerprint, endpoint) : new Key(OTHER, endpoint);
+            counters = stats.computeIfAbsent(key, k -> new Counters());
+        }
+        counters.count.increment();
+        counters.totalNanos.add(nanos);
+        counters.maxNanos.accumulate(nanos);
+        if (nanos >= slowNanos) {
+            log.warn("Slow query ({} ms) from {}: {} with parameters {}",
+                    nanos / 1_000_000, endpoint, sql, parameters.stream().map(SqlStats::abbreviate).toList());
+        }
+    }
+    
+    /**
+     * @param limit how many statement shapes to return at most
+     * @param order what to rank them by
+     * @return the statement shapes costing the most, by endpoint
+     */
+    public List<Fingerprint> top(int limit, Order order) {
+        Comparator<Fingerprint> ranking = switch (order) {
+            case TOTAL -> Comparator.comparingDouble(Fingerprint::totalMillis);
+            case COUNT -> Comparator.comparingLong(Fingerprint::count);
+            case MAX -> Comparator.comparingDouble(Fingerprint::maxMillis);
+        };
+        return stats.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .filter(fingerprint -> fingerprint.count() > 0)
+                .sorted(ranking.reversed())
+                .limit(limit)
+                .toList();
+    }
+    
+    /**
+     * Start counting from zero
+     */
+    public void reset() {
+        stats.clear();
+    }
+    
+    private String fingerprint(String sql) {
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = SqlFingerprint.of(sql);
+            // Statements built with literals can have endless variants; stop remembering them
+            if (fingerprints.size() < 4 * maxFingerprints) {
+                fingerprints.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+    
+    private static String abbreviate(Object parameter) {
+        String text = String.valueOf(parameter);
+        return text.length() <= MAX_PARAMETER_LENGTH ? text : text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+    }
+    
+    /**
+     * What {@link #top} ranks statement shapes by
+     */
+    public enum Order {
+        TOTAL, COUNT, MAX
+    }
+    
+    /**
+     * Counts for one statement shape run by one endpoint
+     *
+     * @param sql the statement's fingerprint
+     * @param endpoint the controller method, e.g. {@code RecipeController.getRecipeById}
+     */
+    public record Fingerprint(String sql, String endpoint, long count, double totalMillis, double maxMillis,
+                              double meanMillis) {
+    }
+    
+    private record Key(String fingerprint, String endpoint) {
+    }
+    
+    private static final class Counters {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        
+        Fingerprint snapshot(Key key) {
+            long executions = count.sum();
+            double totalMillis = totalNanos.sum() / 1e6;
+            return new Fingerprint(key.fingerprint(), key.endpoint(), executions, totalMillis, maxNanos.get() / 1e6,
+                    executions == 0 ? 0 : totalMillis / executions);
+        }
+    }
+}
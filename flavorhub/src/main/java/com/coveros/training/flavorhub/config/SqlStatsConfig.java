@@ -0,0 +1,56 @@
+package com.coveros.training.flavorhub.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires {@link SqlStats} in: connection pools defined as beans have their statements
+ * counted, and statements run while a controller method handles a request are attributed
+ * to that method. Pools built inside other beans (replicas, pantry shards) are wrapped
+ * where they are built.
+ */
+@Configuration
+public class SqlStatsConfig implements WebMvcConfigurer {
+    
+    @Bean
+    static BeanPostProcessor sqlStatsDataSources(ObjectProvider<SqlStats> sqlStats) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource pool ? sqlStats.getObject().wrap(pool) : bean;
+            }
+        };
+    }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod method) {
+                    SqlStats.attributeTo(method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+                }
+                return true;
+            }
+            
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                SqlStats.attributeTo(null);
+            }
+            
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                SqlStats.attributeTo(null);
+            }
+        });
+    }
+}
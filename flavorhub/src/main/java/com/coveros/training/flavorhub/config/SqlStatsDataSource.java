@@ -0,0 +1,155 @@
+package com.coveros.training.flavorhub.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Data source whose statements report their execution times to {@link SqlStats}.
+ *
+ * Connections and statements are wrapped in JDK proxies. A statement remembers its SQL and,
+ * for prepared statements, the parameters set by position; each execute call is timed and
+ * recorded, a batch counting as one execution.
+ */
+final class SqlStatsDataSource extends DelegatingDataSource implements AutoCloseable {
+    
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    
+    private final SqlStats stats;
+    
+    SqlStatsDataSource(DataSource target, SqlStats stats) {
+        super(target);
+        this.stats = stats;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+    
+    /**
+     * Closes the wrapped pool, so owners that close their data sources on shutdown keep working
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+    
+    private Connection connection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object identity = identity(proxy, method, args);
+                    if (identity != null) {
+                        return identity;
+                    }
+                    Object result = call(target, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return statement(statement, (Connection) proxy, sql);
+                    }
+                    return result;
+                });
+    }
+    
+    private Statement statement(Statement target, Connection connection, String sql) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(target, connection, sql));
+    }
+    
+    /**
+     * equals and hashCode by proxy identity, so JDBC objects can be kept in hash maps
+     */
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> args.length == 1 ? proxy == args[0] : null;
+            case "hashCode" -> method.getParameterCount() == 0 ? System.identityHashCode(proxy) : null;
+            default -> null;
+        };
+    }
+    
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private final class StatementHandler implements InvocationHandler {
+        
+        private final Statement target;
+        private final Connection connection;
+        private final String sql;
+        private final List<Object> parameters = new ArrayList<>();
+        private String batchSql;
+        
+        StatementHandler(Statement target, Connection connection, String sql) {
+            this.target = target;
+            this.connection = connection;
+            this.sql = sql;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return connection;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index && index > 0) {
+                setParameter(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch") && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+            if (!EXECUTE_METHODS.contains(name)) {
+                return call(target, method, args);
+            }
+            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text
+                    : sql != null ? sql
+                    : batchSql;
+            long start = System.nanoTime();
+            try {
+                return call(target, method, args);
+            } finally {
+                if (executed != null) {
+                    stats.record(executed, System.nanoTime() - start, parameters);
+                }
+            }
+        }
+        
+        private void setParameter(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.coveros.training.flavorhub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Where startup time goes: from JVM start to the application being ready, to the first
+ * request served, and the slowest steps Spring recorded on the way (bean creation,
+ * configuration class parsing and so on).
+ *
+ * Steps are only recorded when the application was started with a
+ * {@link BufferingApplicationStartup}, as {@code FlavorHubApplication} does; otherwise only
+ * the milestones are reported.
+ */
+@Slf4j
+@Component
+public class StartupReport {
+    
+    static final int SLOWEST_STEPS = 20;
+    
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private volatile Long readyMillis;
+    private volatile Long contextMillis;
+    private volatile Long firstRequestMillis;
+    private volatile List<Step> slowestSteps = List.of();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        readyMillis = System.currentTimeMillis() - jvmStartMillis;
+        contextMillis = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : null;
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup buffering) {
+            slowestSteps = buffering.getBufferedTimeline().getEvents().stream()
+                    .map(timelineEvent -> new Step(
+                            timelineEvent.getStartupStep().getName(),
+                            tags(timelineEvent.getStartupStep()),
+                            timelineEvent.getDuration().toMillis()))
+                    .sorted(Comparator.comparingLong(Step::durationMillis).reversed())
+                    .limit(SLOWEST_STEPS)
+                    .toList();
+        }
+        log.info("Ready {} ms after JVM start (application startup {} ms); slowest steps: {}",
+                readyMillis, contextMillis, slowestSteps.stream().limit(5).map(Step::toString)
+                        .collect(Collectors.joining(", ")));
+    }
+    
+    /**
+     * The dispatcher servlet publishes one of these per request; only the first one matters
+     */
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestMillis == null) {
+            synchronized (this) {
+                if (firstRequestMillis == null) {
+                    firstRequestMillis = System.currentTimeMillis() - jvmStartMillis;
+                    log.info("First request served {} ms after JVM start", firstRequestMillis);
+                }
+            }
+        }
+    }
+    
+    public Timeline timeline() {
+        return new Timeline(readyMillis, contextMillis, firstRequestMillis, slowestSteps);
+    }
+    
+    private static Map<String, String> tags(StartupStep step) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        step.getTags().forEach(tag -> tags.put(tag.getKey(), tag.getValue()));
+        return tags;
+    }
+    
+    /**
+     * Startup milestones, in milliseconds; null until reached
+     *
+     * @param jvmStartToReadyMillis from JVM start until the application was ready to serve
+     * @param applicationStartupMillis the part of that spent in {@code SpringApplication.run}
+     * @param jvmStartToFirstRequestMillis from JVM start until the first request completed
+     * @param slowestSteps the longest recorded startup steps; a step's time includes its nested steps
+     */
+    public record Timeline(Long jvmStartToReadyMillis,
+                           Long applicationStartupMillis,
+                           Long jvmStartToFirstRequestMillis,
+                           List<Step> slowestSteps) {
+    }
+    
+    /**
+     * One recorded startup step
+     *
+     * @param name step name, e.g. {@code spring.beans.instantiate}
+     * @param tags what the step was about, e.g. the bean name
+     * @param durationMillis how long it took
+     */
+    public record Step(String name, Map<String, String> tags, long durationMillis) {
+        
+        @Override
+        public String toString() {
+            return name + tags.values() + " " + durationMillis + " ms";
+        }
+    }
+}
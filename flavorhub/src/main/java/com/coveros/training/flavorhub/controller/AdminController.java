@@ -0,0 +1,124 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.config.FlightRecorderProfiler;
+import com.coveros.training.flavorhub.config.SqlStats;
+import com.coveros.training.flavorhub.config.StartupReport;
+import com.coveros.training.flavorhub.service.RecipeReadCoalescer;
+import com.coveros.training.flavorhub.service.SingleFlight;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * REST Controller for operational statistics
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    
+    static final int MAX_SQL_STATEMENTS = 200;
+    
+    private final RecipeReadCoalescer recipeReadCoalescer;
+    private final StartupReport startupReport;
+    private final SqlStats sqlStats;
+    private final FlightRecorderProfiler profiler;
+    
+    /**
+     * How many recipe reads shared another request's database load
+     */
+    @GetMapping("/request-coalescing")
+    public ResponseEntity<List<SingleFlight.Stats>> getRequestCoalescing() {
+        return ResponseEntity.ok(recipeReadCoalescer.stats());
+    }
+    
+    /**
+     * Time from JVM start to ready and to the first request, with the slowest startup steps
+     */
+    @GetMapping("/startup")
+    public ResponseEntity<StartupReport.Timeline> getStartupTimeline() {
+        return ResponseEntity.ok(startupReport.timeline());
+    }
+    
+    /**
+     * The SQL statements costing the most, grouped by statement shape and the controller
+     * method that ran them
+     * @param limit how many to return (default 20, at most {@value #MAX_SQL_STATEMENTS})
+     * @param sort what to rank by: total (time, the default), count or max (time)
+     */
+    @GetMapping("/sql")
+    public ResponseEntity<List<SqlStats.Fingerprint>> getSqlStats(@RequestParam(defaultValue = "20") int limit,
+                                                                  @RequestParam(defaultValue = "total") String sort) {
+        if (limit < 1 || limit > MAX_SQL_STATEMENTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(sqlStats.top(limit, SqlStats.Order.valueOf(sort.toUpperCase(Locale.ROOT))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Start counting SQL statements from zero, e.g. before measuring a change
+     */
+    @DeleteMapping("/sql")
+    public ResponseEntity<Void> resetSqlStats() {
+        sqlStats.reset();
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Take a Java Flight Recorder recording of this node and download it. The request returns
+     * once the recording is done; open the file in JDK Mission Control.
+     * @param seconds how long to record (default 30, at most {@code flavorhub.profiling.max-seconds})
+     * @return the .jfr file; 409 while another recording is running, 503 if this JVM has no JFR
+     */
+    @PostMapping("/profile")
+    public ResponseEntity<StreamingResponseBody> profile(@RequestParam(defaultValue = "30") int seconds) throws IOException {
+        if (seconds < 1 || seconds > profiler.maxDuration().toSeconds()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!profiler.isAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        Path file;
+        try {
+            file = profiler.record(Duration.ofSeconds(seconds));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(out -> {
+                    try {
+                        Files.copy(file, out);
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                });
+    }
+}
@@ -1,13 +1,24 @@
 package com.coveros.training.flavorhub.controller;
 
 import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.service.RecipeFilter;
+import com.coveros.training.flavorhub.service.RecipePage;
 import com.coveros.training.flavorhub.service.RecipeService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.thymeleaf.context.LazyContextVariable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for serving the main web pages
@@ -16,31 +27,61 @@ import java.util.List;
 @RequiredArgsConstructor
 public class HomeController {
     
+    private static final MediaType HTML = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+    
     private final RecipeService recipeService;
+    private final RecipeRenderCache renderCache;
     
     /**
-     * Display the home page with featured recipes
-     * @param model the model to pass data to the view
-     * @return the index view template
+     * Display the home page with featured recipes. Each recipe card is rendered once per
+     * recipe version, and the whole page is reused for anonymous visitors until a recipe changes.
+     * @return the rendered index page
      */
     @GetMapping("/")
-    public String home(Model model) {
-        // Get all recipes and limit to 6 featured recipes for the home page
-        List<Recipe> allRecipes = recipeService.getAllRecipes();
-        List<Recipe> featuredRecipes = allRecipes.stream()
-                .limit(6)
-                .toList();
-        model.addAttribute("featuredRecipes", featuredRecipes);
-        return "index";
+    public ResponseEntity<String> home(HttpServletRequest request, HttpServletResponse response) {
+        long generation = renderCache.generation();
+        String html = renderCache.homePage(generation, request, () -> {
+            // Get all recipes and limit to 6 featured recipes for the home page
+            List<Recipe> featuredRecipes = recipeService.getAllRecipes().stream()
+                    .limit(6)
+                    .toList();
+            List<String> featuredCards = renderCache.cards(featuredRecipes, generation, request, response);
+            return renderCache.render("index", Map.of("featuredCards", featuredCards), request, response);
+        });
+        return ResponseEntity.ok()
+                .contentType(HTML)
+                .body(html);
     }
     
     /**
-     * Display the recipes browsing page
-     * TODO: Add model attributes for pre-populated data
+     * Display the recipes browsing page with the first page of results and the filter options,
+     * with their counts, already in it. The page is streamed: the results are loaded only when
+     * the template reaches them, after everything before them has been sent, so the browser can
+     * lay out the page while the query runs.
+     * @param filter the filters to show the page with, bound from the query string like the API's
      * @return the recipes view template
      */
     @GetMapping("/recipes")
-    public String recipes() {
+    public String recipes(RecipeFilter filter, Model model, HttpServletResponse response) {
+        model.addAttribute("filter", filter);
+        model.addAttribute("difficulties", recipeService.getDifficultyLevels());
+        model.addAttribute("cuisines", recipeService.getCuisineTypes());
+        model.addAttribute("facets", recipeService.getFacets(filter));
+        model.addAttribute("firstPage", new LazyContextVariable<RecipePage>() {
+            @Override
+            protected RecipePage loadValue() {
+                flush(response);
+                return recipeService.findRecipePage(filter, 0, RecipePage.DEFAULT_SIZE);
+            }
+        });
         return "recipes";
     }
+    
+    private static void flush(HttpServletResponse response) {
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not send the start of the page", e);
+        }
+    }
 }
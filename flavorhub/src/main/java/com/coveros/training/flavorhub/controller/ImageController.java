@@ -0,0 +1,110 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.service.RecipeImageService;
+import com.coveros.training.flavorhub.service.ThumbnailSize;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recipe image thumbnails, made and cached by {@link RecipeImageService}.
+ *
+ * Where Tomcat supports sendfile, the file is handed to it to send straight from the page
+ * cache to the socket; otherwise it is streamed. A thumbnail made by this request is sent
+ * from memory, and a cached file that has gone since it was looked up is looked up once more. A request whose {@code v} matches the
+ * current image's version may be cached by browsers and CDNs for a year, as a new image
+ * gets a new URL; without it, for an hour.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ImageController {
+    
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    private final RecipeImageService recipeImageService;
+    
+    /**
+     * @param size one of {@code small}, {@code card} or {@code large}
+     * @param version the image version from the page, which makes the response cacheable for good
+     * @return the JPEG thumbnail, 404 if the recipe has no image, or 502 if its image could not
+     *         be read
+     */
+    @GetMapping("/img/{recipeId}/{size}")
+    public ResponseEntity<Resource> getThumbnail(@PathVariable Long recipeId,
+                                                 @PathVariable String size,
+                                                 @RequestParam(name = "v", required = false) String version,
+                                                 @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 HttpServletRequest request) throws IOException {
+        Optional<ThumbnailSize> thumbnailSize = ThumbnailSize.fromKey(size);
+        if (thumbnailSize.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return send(recipeId, thumbnailSize.get(), version, ifNoneMatch, request);
+        } catch (NoSuchFileException e) {
+            // Evicted between the lookup and now; the second lookup makes it again
+            return send(recipeId, thumbnailSize.get(), version, ifNoneMatch, request);
+        }
+    }
+    
+    private ResponseEntity<Resource> send(Long recipeId, ThumbnailSize size, String version, String ifNoneMatch,
+                                          HttpServletRequest request) throws IOException {
+        Optional<RecipeImageService.Thumbnail> thumbnail;
+        try {
+            thumbnail = recipeImageService.getThumbnail(recipeId, size);
+        } catch (UncheckedIOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+        if (thumbnail.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        String eTag = "\"" + thumbnail.get().version() + "-" + size.key() + "\"";
+        CacheControl cacheControl = thumbnail.get().version().equals(version)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
+        if (eTag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(eTag)
+                .cacheControl(cacheControl);
+        if (thumbnail.get().content() != null) {
+            return response.contentLength(thumbnail.get().content().length)
+                    .body(new ByteArrayResource(thumbnail.get().content()));
+        }
+        if (request.getMethod().equals("GET") && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            long length = Files.size(thumbnail.get().file());
+            request.setAttribute(SENDFILE_FILENAME, thumbnail.get().file().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return response.contentLength(length).build();
+        }
+        // Opened here rather than when the body is written, so a missing file can still be retried
+        return response.contentLength(Files.size(thumbnail.get().file()))
+                .body(new InputStreamResource(Files.newInputStream(thumbnail.get().file())));
+    }
+}
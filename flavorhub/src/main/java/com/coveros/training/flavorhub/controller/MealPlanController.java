@@ -0,0 +1,74 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.service.GeneratedMealPlan;
+import com.coveros.training.flavorhub.service.MealPlanRequest;
+import com.coveros.training.flavorhub.service.ShoppingList;
+import com.coveros.training.flavorhub.service.UserMealPlanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for managing the user's meal plan and its shopping list
+ */
+@RestController
+@RequestMapping("/api/meal-plans")
+@RequiredArgsConstructor
+public class MealPlanController {
+    
+    private final UserMealPlanService userMealPlanService;
+    
+    /**
+     * Get the recipes in the user's meal plan
+     * For simplicity, we're using a hardcoded userId (1)
+     * In a real application, this would come from authentication
+     */
+    @GetMapping
+    public ResponseEntity<List<Recipe>> getMealPlan() {
+        Long userId = 1L; // Hardcoded for workshop purposes
+        return ResponseEntity.ok(userMealPlanService.getMealPlanForUser(userId));
+    }
+    
+    /**
+     * Replace the user's meal plan
+     * @param recipeIds planned recipe ids in order (an id may repeat)
+     * @return the planned recipes, or 400 if a recipe does not exist
+     */
+    @PutMapping
+    public ResponseEntity<List<Recipe>> saveMealPlan(@RequestBody List<Long> recipeIds) {
+        Long userId = 1L; // Hardcoded for workshop purposes
+        try {
+            return ResponseEntity.ok(userMealPlanService.saveMealPlan(userId, recipeIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Generate a plan that makes the most of what is in the pantry
+     * @param request plan size, optional difficulty/cuisine/total time constraints and time budget
+     * @return the best plan found, or 400 if the request is out of range
+     */
+    @PostMapping("/generate")
+    public ResponseEntity<GeneratedMealPlan> generateMealPlan(@RequestBody MealPlanRequest request) {
+        Long userId = 1L; // Hardcoded for workshop purposes
+        try {
+            return ResponseEntity.ok(userMealPlanService.generateMealPlan(userId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Get what still has to be bought to cook the whole plan
+     * @return the summed ingredients of all planned recipes minus what is in the pantry
+     */
+    @GetMapping("/shopping-list")
+    public ResponseEntity<ShoppingList> getShoppingList() {
+        Long userId = 1L; // Hardcoded for workshop purposes
+        return ResponseEntity.ok(userMealPlanService.getShoppingList(userId));
+    }
+}
@@ -0,0 +1,62 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.service.PantryShardService;
+import com.coveros.training.flavorhub.service.PantryShardStatus;
+import com.coveros.training.flavorhub.service.RebalanceResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.function.Supplier;
+
+/**
+ * REST Controller for operating the pantry shards
+ * Rebalancing runs in the request thread and returns once every affected user has moved
+ */
+@RestController
+@RequestMapping("/api/admin/pantry-shards")
+@RequiredArgsConstructor
+public class PantryShardController {
+    
+    private final PantryShardService pantryShardService;
+    
+    @GetMapping
+    public ResponseEntity<PantryShardStatus> getStatus() {
+        return ResponseEntity.ok(pantryShardService.status());
+    }
+    
+    /**
+     * Start using a configured shard, moving its share of users onto it
+     */
+    @PostMapping("/{index}/activate")
+    public ResponseEntity<RebalanceResult> activateShard(@PathVariable int index) {
+        return rebalance(() -> pantryShardService.activate(index));
+    }
+    
+    /**
+     * Move all users off a shard and stop using it
+     */
+    @PostMapping("/{index}/drain")
+    public ResponseEntity<RebalanceResult> drainShard(@PathVariable int index) {
+        return rebalance(() -> pantryShardService.drain(index));
+    }
+    
+    /**
+     * Finish a rebalance that failed part-way
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<RebalanceResult> resumeRebalance() {
+        return rebalance(pantryShardService::resume);
+    }
+    
+    private ResponseEntity<RebalanceResult> rebalance(Supplier<RebalanceResult> operation) {
+        try {
+            return ResponseEntity.ok(operation.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
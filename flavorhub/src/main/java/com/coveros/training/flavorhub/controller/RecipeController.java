@@ -1,70 +1,124 @@
 package com.coveros.training.flavorhub.controller;
 
 import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.service.RecipeFacets;
+import com.coveros.training.flavorhub.service.RecipeFilter;
+import com.coveros.training.flavorhub.service.RecipePage;
+import com.coveros.training.flavorhub.service.RecipePopularity;
 import com.coveros.training.flavorhub.service.RecipeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
 
 /**
- * REST Controller for managing recipes
+ * REST Controller for managing recipes. Lists of recipes are written from
+ * {@link RecipeJsonCache}'s pre-serialized JSON.
  */
 @RestController
 @RequestMapping("/api/recipes")
 @RequiredArgsConstructor
 public class RecipeController {
     
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final int MAX_SIMILAR = 20;
+    static final int MAX_TRENDING = 50;
+    
     private final RecipeService recipeService;
+    private final RecipePopularity recipePopularity;
+    private final RecipeJsonCache jsonCache;
     
     /**
-     * Get all recipes with optional filtering by difficulty, cuisine, and search term
-     * @param difficulty optional difficulty level filter (Easy, Medium, Hard)
-     * @param cuisine optional cuisine type filter
-     * @param search optional search term to filter by recipe name
-     * @return list of recipes matching the filters
+     * Get all recipes with optional filtering by difficulty, cuisine, search term,
+     * prep/cook/total time limits and minimum servings
+     * @param filter optional filters bound from the query string
+     *               (difficulty, cuisine, search, maxPrepTime, maxCookTime, minServings,
+     *               maxTotalTime for prep + cook minutes, and sort: {@code totalTime}, in any
+     *               letter case, for quickest first; absent or any other value orders by id)
+     * @param page zero-based page to return; without page or size all matches are returned
+     * @param size recipes per page (default {@value RecipePage#DEFAULT_SIZE}, at most {@value RecipePage#MAX_SIZE})
+     * @return list of recipes matching the filters; when paged, the X-Total-Count header holds
+     *         the number of matches on all pages
      */
     @GetMapping
-    public ResponseEntity<List<Recipe>> getAllRecipes(
-            @RequestParam(required = false) String difficulty,
-            @RequestParam(required = false) String cuisine,
-            @RequestParam(required = false) String search) {
-        
-        List<Recipe> recipes = recipeService.getAllRecipes();
-        
-        // Apply difficulty filter if provided
-        if (difficulty != null && !difficulty.isEmpty()) {
-            recipes = recipes.stream()
-                    .filter(r -> difficulty.equalsIgnoreCase(r.getDifficultyLevel()))
-                    .toList();
-        }
-        
-        // Apply cuisine filter if provided
-        if (cuisine != null && !cuisine.isEmpty()) {
-            recipes = recipes.stream()
-                    .filter(r -> cuisine.equalsIgnoreCase(r.getCuisineType()))
-                    .toList();
+    public ResponseEntity<StreamingResponseBody> getAllRecipes(RecipeFilter filter,
+                                                               @RequestParam(required = false) Integer page,
+                                                               @RequestParam(required = false) Integer size) {
+        long loadedAt = jsonCache.generation();
+        if (page == null && size == null) {
+            return json(recipeService.findRecipes(filter), loadedAt);
         }
-        
-        // Apply search filter if provided
-        if (search != null && !search.isEmpty()) {
-            final String searchLower = search.toLowerCase();
-            recipes = recipes.stream()
-                    .filter(r -> r.getName().toLowerCase().contains(searchLower) ||
-                                (r.getDescription() != null && r.getDescription().toLowerCase().contains(searchLower)))
-                    .toList();
+        try {
+            RecipePage recipePage = recipeService.findRecipePage(filter,
+                    page != null ? page : 0,
+                    size != null ? size : RecipePage.DEFAULT_SIZE);
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(recipePage.total()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(jsonCache.array(recipePage.recipes(), loadedAt));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        
-        return ResponseEntity.ok(recipes);
     }
     
+    /**
+     * Count the recipes per difficulty, cuisine, total time and ingredient category for the
+     * recipes browsing filters
+     * @param filter the filters currently chosen, bound like {@link #getAllRecipes}'s
+     * @return the counts; each dimension's counts ignore that dimension's own filter
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<RecipeFacets> getFacets(RecipeFilter filter) {
+        return ResponseEntity.ok(recipeService.getFacets(filter));
+    }
+    
+    /**
+     * Get a recipe by id, counting the view
+     */
     @GetMapping("/{id}")
     public ResponseEntity<Recipe> getRecipeById(@PathVariable Long id) {
         return recipeService.getRecipeById(id)
-                .map(ResponseEntity::ok)
+                .map(recipe -> {
+                    recipePopularity.recordView(id);
+                    return ResponseEntity.ok(recipe);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Get the recipes viewed and cooked most recently
+     * @param limit how many recipes to return (default 10, at most {@value #MAX_TRENDING})
+     * @return the trending recipes, most popular first
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<StreamingResponseBody> getTrendingRecipes(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_TRENDING) {
+            return ResponseEntity.badRequest().build();
+        }
+        long loadedAt = jsonCache.generation();
+        return json(recipeService.getTrendingRecipes(limit), loadedAt);
+    }
+    
+    /**
+     * Get the recipes most similar to a recipe by ingredients and cuisine
+     * @param id the recipe to compare with
+     * @param limit how many recipes to return (default 5, at most {@value #MAX_SIMILAR})
+     * @return the similar recipes, most similar first
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<StreamingResponseBody> getSimilarRecipes(@PathVariable Long id,
+                                                                   @RequestParam(defaultValue = "5") int limit) {
+        if (limit < 1 || limit > MAX_SIMILAR) {
+            return ResponseEntity.badRequest().build();
+        }
+        long loadedAt = jsonCache.generation();
+        return recipeService.getSimilarRecipes(id, limit)
+                .map(recipes -> json(recipes, loadedAt))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -73,8 +127,9 @@ public class RecipeController {
      * NOTE: This endpoint is complete and working
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Recipe>> searchRecipes(@RequestParam String query) {
-        return ResponseEntity.ok(recipeService.searchRecipes(query));
+    public ResponseEntity<StreamingResponseBody> searchRecipes(@RequestParam String query) {
+        long loadedAt = jsonCache.generation();
+        return json(recipeService.searchRecipes(query), loadedAt);
     }
     
     /**
@@ -131,4 +186,10 @@ public class RecipeController {
         }
         return ResponseEntity.ok(recipe);
     }
+    
+    private ResponseEntity<StreamingResponseBody> json(List<Recipe> recipes, long loadedAt) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonCache.array(recipes, loadedAt));
+    }
 }
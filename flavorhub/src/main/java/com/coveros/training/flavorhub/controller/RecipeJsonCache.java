@@ -0,0 +1,133 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.config.JfrEvents;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.service.RecipeChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized JSON for recipes, so list endpoints copy bytes instead of running Jackson.
+ *
+ * Each recipe is serialized once per revision with the application's {@link ObjectMapper},
+ * and a list is written as those bytes between brackets and commas. The revision goes up
+ * with every committed change to the recipe, so a changed recipe simply misses and its old
+ * bytes age out of the LRU.
+ *
+ * Like {@link RecipeRenderCache}, callers read {@link #generation()} before loading recipes,
+ * and JSON serialized from data loaded before a change is returned but not stored.
+ */
+@Component
+public class RecipeJsonCache {
+    
+    static final int MAX_RECIPES = 1024;
+    private static final byte[] OPEN = {'['};
+    private static final byte[] SEPARATOR = {',', ' '};
+    private static final byte[] CLOSE = {']'};
+    
+    private final ObjectWriter writer;
+    
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Long, Long> revisions = new ConcurrentHashMap<>();
+    private final Map<JsonKey, byte[]> recipes = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<JsonKey, byte[]> eldest) {
+            return size() > MAX_RECIPES;
+        }
+    });
+    
+    public RecipeJsonCache(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(Recipe.class);
+    }
+    
+    /**
+     * @return the current generation; read it before loading the recipes to serialize
+     */
+    public long generation() {
+        return generation.get();
+    }
+    
+    /**
+     * Get a recipe's JSON, serializing it on a miss
+     * @param recipe the recipe
+     * @param loadedAt the {@link #generation()} read before the recipe was loaded
+     */
+    public byte[] json(Recipe recipe, long loadedAt) {
+        JfrEvents.CacheLookup lookup = new JfrEvents.CacheLookup("recipe-json", recipe.getId());
+        JsonKey key = new JsonKey(recipe.getId(), revisions.getOrDefault(recipe.getId(), 0L));
+        byte[] json = recipes.get(key);
+        if (json != null) {
+            lookup.commit(true);
+            return json;
+        }
+        JfrEvents.Serialization serialization = new JfrEvents.Serialization("Recipe");
+        try {
+            json = writer.writeValueAsBytes(recipe);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Could not serialize recipe " + recipe.getId(), e);
+        }
+        serialization.commit(1, json.length);
+        if (generation.get() == loadedAt) {
+            recipes.put(key, json);
+        }
+        lookup.commit(false);
+        return json;
+    }
+    
+    /**
+     * Get a list of recipes as a JSON array. Every recipe's JSON is looked up or serialized
+     * here, on the calling thread, so the body only copies bytes when it is written.
+     * @param loadedAt the {@link #generation()} read before the recipes were loaded
+     */
+    public StreamingResponseBody array(List<Recipe> recipes, long loadedAt) {
+        List<byte[]> elements = recipes.stream().map(recipe -> json(recipe, loadedAt)).toList();
+        return out -> {
+            JfrEvents.Serialization serialization = new JfrEvents.Serialization("Recipe list");
+            long bytes = OPEN.length + CLOSE.length;
+            out.write(OPEN);
+            for (int i = 0; i < elements.size(); i++) {
+                if (i > 0) {
+                    out.write(SEPARATOR);
+                    bytes += SEPARATOR.length;
+                }
+                out.write(elements.get(i));
+                bytes += elements.get(i).length;
+            }
+            out.write(CLOSE);
+            serialization.commit(elements.size(), bytes);
+        };
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        revisions.merge(event.recipeId(), 1L, Long::sum);
+        generation.incrementAndGet();
+    }
+    
+    /**
+     * Sample data is loaded straight through the repositories without change events, so
+     * start from scratch once it is in
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void clear() {
+        generation.incrementAndGet();
+        recipes.clear();
+    }
+    
+    private record JsonKey(long recipeId, long revision) {
+    }
+}
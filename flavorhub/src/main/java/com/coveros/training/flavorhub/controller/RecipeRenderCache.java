@@ -0,0 +1,166 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.config.JfrEvents;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.service.RecipeChangedEvent;
+import com.coveros.training.flavorhub.service.RecipeImageService;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Rendered HTML for recipe cards and the anonymous home page.
+ *
+ * Cards are keyed by recipe id and revision, where the revision goes up with every committed
+ * change to the recipe, so a changed recipe simply misses and its old card ages out of the
+ * LRU. The home page is kept as one string and dropped on any recipe change.
+ *
+ * Every change also bumps a generation counter. Callers read it before loading recipes and
+ * pass it in; HTML rendered from data loaded before a change is returned but not stored, so
+ * a render racing with a write cannot put stale HTML back into the cache.
+ */
+@Component
+public class RecipeRenderCache {
+    
+    static final int MAX_CARDS = 1024;
+    private static final String CARD_TEMPLATE = "fragments/recipe-card";
+    private static final Set<String> CARD_FRAGMENT = Set.of("recipe-card");
+    
+    private final ITemplateEngine templateEngine;
+    private final RecipeImageService recipeImageService;
+    private final JakartaServletWebApplication webApplication;
+    
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Long, Long> revisions = new ConcurrentHashMap<>();
+    private final Map<CardKey, String> cards = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CardKey, String> eldest) {
+            return size() > MAX_CARDS;
+        }
+    });
+    private final AtomicReference<CachedPage> homePage = new AtomicReference<>();
+    
+    public RecipeRenderCache(ITemplateEngine templateEngine, RecipeImageService recipeImageService,
+                             ServletContext servletContext) {
+        this.templateEngine = templateEngine;
+        this.recipeImageService = recipeImageService;
+        this.webApplication = JakartaServletWebApplication.buildApplication(servletContext);
+    }
+    
+    /**
+     * @return the current generation; read it before loading the recipes to render
+     */
+    public long generation() {
+        return generation.get();
+    }
+    
+    /**
+     * Get a recipe's card HTML, rendering it on a miss
+     * @param recipe the recipe to show
+     * @param loadedAt the {@link #generation()} read before the recipe was loaded
+     */
+    public String card(Recipe recipe, long loadedAt, HttpServletRequest request, HttpServletResponse response) {
+        JfrEvents.CacheLookup lookup = new JfrEvents.CacheLookup("recipe-card", recipe.getId());
+        CardKey key = new CardKey(recipe.getId(), revisions.getOrDefault(recipe.getId(), 0L));
+        String html = cards.get(key);
+        if (html != null) {
+            lookup.commit(true);
+            return html;
+        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("recipe", recipe);
+        variables.put("imageVersion", recipeImageService.thumbnailVersion(recipe));
+        WebContext context = new WebContext(exchange(request, response), request.getLocale(), variables);
+        html = templateEngine.process(CARD_TEMPLATE, CARD_FRAGMENT, context);
+        if (generation.get() == loadedAt) {
+            cards.put(key, html);
+        }
+        lookup.commit(false);
+        return html;
+    }
+    
+    /**
+     * Get the home page HTML, rendering it on a miss. Only anonymous requests (no session, no
+     * credentials) are served from or stored in the cache.
+     * @param loadedAt the {@link #generation()} read before anything was loaded
+     * @param render renders the page
+     */
+    public String homePage(long loadedAt, HttpServletRequest request, Supplier<String> render) {
+        boolean anonymous = request.getSession(false) == null && request.getHeader(HttpHeaders.AUTHORIZATION) == null;
+        JfrEvents.CacheLookup lookup = new JfrEvents.CacheLookup("home-page", anonymous ? "anonymous" : "signed-in");
+        CachedPage cached = homePage.get();
+        if (anonymous && cached != null && cached.generation() == generation.get()) {
+            lookup.commit(true);
+            return cached.html();
+        }
+        String html = render.get();
+        if (anonymous && generation.get() == loadedAt) {
+            homePage.set(new CachedPage(loadedAt, html));
+        }
+        lookup.commit(false);
+        return html;
+    }
+    
+    /**
+     * Render a whole template to a string
+     */
+    public String render(String template, Map<String, Object> variables,
+                         HttpServletRequest request, HttpServletResponse response) {
+        return templateEngine.process(template, new WebContext(exchange(request, response), request.getLocale(), variables));
+    }
+    
+    /**
+     * Render a list of recipe cards, from the cache where possible
+     */
+    public List<String> cards(List<Recipe> recipes, long loadedAt, HttpServletRequest request, HttpServletResponse response) {
+        return recipes.stream().map(recipe -> card(recipe, loadedAt, request, response)).toList();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        revisions.merge(event.recipeId(), 1L, Long::sum);
+        generation.incrementAndGet();
+        homePage.set(null);
+    }
+    
+    /**
+     * Sample data is loaded straight through the repositories without change events, so
+     * start from scratch once it is in
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void clear() {
+        generation.incrementAndGet();
+        cards.clear();
+        homePage.set(null);
+    }
+    
+    private IWebExchange exchange(HttpServletRequest request, HttpServletResponse response) {
+        return webApplication.buildExchange(request, response);
+    }
+    
+    private record CardKey(long recipeId, long revision) {
+    }
+    
+    private record CachedPage(long generation, String html) {
+    }
+}
@@ -1,8 +1,14 @@
 package com.coveros.training.flavorhub.controller;
 
 import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.service.CookResult;
+import com.coveros.training.flavorhub.service.PantryQuantityChange;
+import com.coveros.training.flavorhub.service.RecipePopularity;
+import com.coveros.training.flavorhub.service.RecipeRecommendation;
 import com.coveros.training.flavorhub.service.UserPantryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,7 +25,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserPantryController {
     
+    static final int MAX_RECOMMENDATIONS = 50;
+    
     private final UserPantryService userPantryService;
+    private final RecipePopularity recipePopularity;
     
     /**
      * Get all pantry items for a specific user
@@ -39,14 +48,22 @@ public class UserPantryController {
     // TODO: Implement GET /api/pantry/{id} endpoint
     
     /**
-     * Add an item to the user's pantry
+     * Add an item to the user's pantry, or replace the item with the given id
+     * Returns 400 if the ingredient does not exist, 404 if the item to replace does not exist
      */
     @PostMapping
     public ResponseEntity<UserPantry> addPantryItem(@Valid @RequestBody UserPantry pantryItem) {
         Long userId = 1L; // Hardcoded for workshop purposes
         pantryItem.setUserId(userId);
-        UserPantry saved = userPantryService.addPantryItem(pantryItem);
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        try {
+            UserPantry saved = userPantryService.addPantryItem(pantryItem);
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException e) {
+            // The repository's IllegalArgumentException arrives translated by @Repository
+            return ResponseEntity.badRequest().build();
+        } catch (IncorrectUpdateSemanticsDataAccessException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
     
     /**
@@ -55,6 +72,53 @@ public class UserPantryController {
      */
     // TODO: Implement PUT /api/pantry/{id} endpoint
     
+    /**
+     * Change the quantity of an ingredient in the user's pantry by a relative amount
+     * Returns 202 if the change was queued for write-behind, 204 if it was written immediately
+     */
+    @PatchMapping("/ingredients/{ingredientId}")
+    public ResponseEntity<Void> adjustQuantity(@PathVariable Long ingredientId,
+                                               @Valid @RequestBody PantryQuantityChange change) {
+        Long userId = 1L; // Hardcoded for workshop purposes
+        if (!Double.isFinite(change.delta())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            boolean queued = userPantryService.adjustQuantity(userId, ingredientId, change.delta());
+            return queued ? ResponseEntity.accepted().build() : ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Cook a recipe: deduct everything it needs from the user's pantry in one step, counting
+     * the cook towards the recipe's popularity
+     */
+    @PostMapping("/cook/{recipeId}")
+    public ResponseEntity<CookResult> cookRecipe(@PathVariable Long recipeId) {
+        Long userId = 1L; // Hardcoded for workshop purposes
+        return userPantryService.cookRecipe(userId, recipeId)
+                .map(result -> {
+                    recipePopularity.recordCook(recipeId);
+                    return ResponseEntity.ok(result);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Recommend recipes by how much of each the user's pantry covers
+     * @param limit how many recipes to return (default 10, at most {@value #MAX_RECOMMENDATIONS})
+     */
+    @GetMapping("/recommendations")
+    public ResponseEntity<List<RecipeRecommendation>> getRecommendations(@RequestParam(defaultValue = "10") int limit) {
+        Long userId = 1L; // Hardcoded for workshop purposes
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userPantryService.getRecommendations(userId, limit));
+    }
+    
     /**
      * Delete a pantry item
      */
@@ -0,0 +1,12 @@
+package com.coveros.training.flavorhub.model;
+
+/**
+ * The low-cardinality string dimensions that are stored as small integer codes
+ * instead of repeating the same free text on every row
+ */
+public enum CodeDimension {
+    CATEGORY,   // Ingredient.category, e.g. "Dairy", "Vegetable"
+    UNIT,       // Ingredient.unit, RecipeIngredient.unit and UserPantry.unit, e.g. "cups"
+    CUISINE,    // Recipe.cuisineType, e.g. "Italian"
+    DIFFICULTY  // Recipe.difficultyLevel, e.g. "Easy"
+}
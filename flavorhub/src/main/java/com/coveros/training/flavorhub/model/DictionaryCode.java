@@ -0,0 +1,39 @@
+package com.coveros.training.flavorhub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lookup table row that maps a small integer code to its display value for one dimension.
+ * Entities only store the code; {@link com.coveros.training.flavorhub.service.CodeDictionary}
+ * keeps the full table in memory and translates in both directions.
+ */
+@Entity
+@Table(name = "dictionary_codes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_dictionary_codes_code", columnNames = {"dimension", "code"}),
+        @UniqueConstraint(name = "uk_dictionary_codes_lookup_key", columnNames = {"dimension", "lookup_key"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DictionaryCode {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CodeDimension dimension;
+    
+    @Column(nullable = false)
+    private Short code;
+    
+    @Column(name = "lookup_key", nullable = false)
+    private String lookupKey; // lower-cased value, used for case-insensitive lookups
+    
+    @Column(name = "display_value", nullable = false)
+    private String value; // the spelling that was first registered, e.g. "Italian"
+}
@@ -0,0 +1,57 @@
+package com.coveros.training.flavorhub.model;
+
+import com.coveros.training.flavorhub.service.CodeDictionary;
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * JPA converters that persist dictionary-encoded string attributes as SMALLINT codes.
+ * 
+ * Hibernate obtains converters from the Spring bean container, so the shared
+ * {@link CodeDictionary} is injected through the constructor. Values seen for the
+ * first time are registered on write; decoded values are the dictionary's canonical
+ * String instances, so every cached entity shares one copy per distinct value.
+ */
+public abstract class DictionaryCodeConverter implements AttributeConverter<String, Short> {
+    
+    private final CodeDictionary codeDictionary;
+    private final CodeDimension dimension;
+    
+    protected DictionaryCodeConverter(CodeDictionary codeDictionary, CodeDimension dimension) {
+        this.codeDictionary = codeDictionary;
+        this.dimension = dimension;
+    }
+    
+    @Override
+    public Short convertToDatabaseColumn(String value) {
+        return value == null ? null : (short) codeDictionary.encode(dimension, value);
+    }
+    
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        return code == null ? null : codeDictionary.decode(dimension, code);
+    }
+    
+    public static class Category extends DictionaryCodeConverter {
+        public Category(CodeDictionary codeDictionary) {
+            super(codeDictionary, CodeDimension.CATEGORY);
+        }
+    }
+    
+    public static class Unit extends DictionaryCodeConverter {
+        public Unit(CodeDictionary codeDictionary) {
+            super(codeDictionary, CodeDimension.UNIT);
+        }
+    }
+    
+    public static class Cuisine extends DictionaryCodeConverter {
+        public Cuisine(CodeDictionary codeDictionary) {
+            super(codeDictionary, CodeDimension.CUISINE);
+        }
+    }
+    
+    public static class Difficulty extends DictionaryCodeConverter {
+        public Difficulty(CodeDictionary codeDictionary) {
+            super(codeDictionary, CodeDimension.DIFFICULTY);
+        }
+    }
+}
@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
  * Represents an ingredient that can be used in recipes
  */
 @Entity
-@Table(name = "ingredients")
+@Table(name = "ingredients", indexes = @Index(name = "idx_ingredients_category_code", columnList = "category_code"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,10 +24,12 @@ public class Ingredient {
     @Column(nullable = false, unique = true)
     private String name;
     
-    @Column(name = "category")
+    @Column(name = "category_code")
+    @Convert(converter = DictionaryCodeConverter.Category.class)
     private String category; // e.g., "Dairy", "Vegetable", "Spice", "Meat"
     
-    @Column(name = "unit")
+    @Column(name = "unit_code")
+    @Convert(converter = DictionaryCodeConverter.Unit.class)
     private String unit; // e.g., "cups", "tablespoons", "grams"
     
     public Ingredient(String name, String category, String unit) {
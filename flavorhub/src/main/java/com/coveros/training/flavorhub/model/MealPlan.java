@@ -0,0 +1,46 @@
+package com.coveros.training.flavorhub.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a user's meal plan: an ordered list of recipes to cook.
+ * A recipe may appear more than once (e.g. cooked twice in the same week).
+ */
+@Entity
+@Table(name = "meal_plans")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MealPlan {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false, unique = true)
+    @NotNull(message = "User ID is required")
+    private Long userId; // In a real app, this would be a relationship to a User entity
+    
+    /**
+     * Planned recipe ids in plan order. Stored as plain ids rather than a relationship so
+     * deleting a recipe is not blocked by plans that reference it; missing recipes are
+     * skipped when the plan is read.
+     */
+    @ElementCollection
+    @CollectionTable(name = "meal_plan_recipes", joinColumns = @JoinColumn(name = "meal_plan_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "recipe_id", nullable = false)
+    private List<Long> recipeIds = new ArrayList<>();
+    
+    public MealPlan(Long userId, List<Long> recipeIds) {
+        this.userId = userId;
+        this.recipeIds = new ArrayList<>(recipeIds);
+    }
+}
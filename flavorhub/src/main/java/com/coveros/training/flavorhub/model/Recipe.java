@@ -15,7 +15,11 @@ import java.util.List;
  * Represents a recipe with its ingredients and instructions
  */
 @Entity
-@Table(name = "recipes")
+@Table(name = "recipes", indexes = {
+        @Index(name = "idx_recipes_difficulty_code", columnList = "difficulty_code"),
+        @Index(name = "idx_recipes_cuisine_code", columnList = "cuisine_code"),
+        @Index(name = "idx_recipes_total_time", columnList = "total_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,14 +44,23 @@ public class Recipe {
     @Min(value = 0, message = "Cook time must be positive")
     private Integer cookTime; // in minutes
     
+    /**
+     * Prep time plus cook time, stored so "under N minutes" queries can use an index.
+     * Maintained by {@link #updateTotalTime()}; any value set by a client is overwritten.
+     */
+    @Column(name = "total_time")
+    private Integer totalTime; // in minutes
+    
     @Column(name = "servings")
     @Min(value = 1, message = "Servings must be at least 1")
     private Integer servings;
     
-    @Column(name = "difficulty_level")
+    @Column(name = "difficulty_code")
+    @Convert(converter = DictionaryCodeConverter.Difficulty.class)
     private String difficultyLevel; // e.g., "Easy", "Medium", "Hard"
     
-    @Column(name = "cuisine_type")
+    @Column(name = "cuisine_code")
+    @Convert(converter = DictionaryCodeConverter.Cuisine.class)
     private String cuisineType; // e.g., "Italian", "Mexican", "Asian"
     
     @ElementCollection
@@ -72,4 +85,10 @@ public class Recipe {
         this.difficultyLevel = difficultyLevel;
         this.cuisineType = cuisineType;
     }
+    
+    @PrePersist
+    @PreUpdate
+    void updateTotalTime() {
+        totalTime = (prepTime != null ? prepTime : 0) + (cookTime != null ? cookTime : 0);
+    }
 }
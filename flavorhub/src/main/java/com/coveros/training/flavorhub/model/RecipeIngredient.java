@@ -1,6 +1,7 @@
 package com.coveros.training.flavorhub.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -21,7 +22,8 @@ public class RecipeIngredient {
     @Column(name = "quantity")
     private Double quantity;
     
-    @Column(name = "unit")
+    @Column(name = "unit_code")
+    @Convert(converter = DictionaryCodeConverter.Unit.class)
     private String unit;
     
     @Column(name = "notes")
@@ -0,0 +1,29 @@
+package com.coveros.training.flavorhub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How often a recipe has been viewed and cooked. Rows are written in batches by
+ * {@link com.coveros.training.flavorhub.service.RecipePopularity}, which counts in memory
+ * between flushes.
+ */
+@Entity
+@Table(name = "recipe_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeStats {
+    
+    @Id
+    @Column(name = "recipe_id")
+    private Long recipeId;
+    
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+    
+    @Column(name = "cook_count", nullable = false)
+    private long cookCount;
+}
@@ -0,0 +1,21 @@
+package com.coveros.training.flavorhub.repository;
+
+import com.coveros.training.flavorhub.model.MealPlan;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for managing MealPlan entities
+ */
+@Repository
+public interface MealPlanRepository extends JpaRepository<MealPlan, Long> {
+    
+    /**
+     * Find a user's meal plan together with its recipe ids in a single query
+     */
+    @EntityGraph(attributePaths = "recipeIds")
+    Optional<MealPlan> findByUserId(Long userId);
+}
@@ -0,0 +1,267 @@
+package com.coveros.training.flavorhub.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The pantry shard databases and which users live on which.
+ *
+ * Each shard holds a {@code user_pantry} table for the users its {@link ShardMap} assigns to
+ * it. Every pantry operation for a user runs under that user's (striped) read lock, so a
+ * rebalance, which takes the write lock while it moves the user's rows, never runs
+ * concurrently with it.
+ *
+ * While a rebalance is in progress there are two maps: users already moved are looked up
+ * in the target map, everyone else in the current one. Finishing the rebalance briefly
+ * takes every write lock, moves any stragglers and makes the target map current.
+ *
+ * Row ids come from a sequence on the primary database in blocks of {@link #ID_BLOCK}, so
+ * they stay unique when rows move between shards.
+ */
+@Slf4j
+public class PantryShards implements AutoCloseable {
+    
+    static final int ID_BLOCK = 50;
+    private static final int LOCK_STRIPES = 64;
+    
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS user_pantry (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "ingredient_id BIGINT NOT NULL, quantity DOUBLE PRECISION, unit_code SMALLINT, notes VARCHAR(255))",
+            "CREATE INDEX IF NOT EXISTS idx_user_pantry_user_ingredient ON user_pantry (user_id, ingredient_id)"
+    };
+    private static final String CREATE_SEQUENCE =
+            "CREATE SEQUENCE IF NOT EXISTS user_pantry_ids START WITH 1 INCREMENT BY " + ID_BLOCK;
+    private static final String NEXT_ID_BLOCK = "SELECT NEXT VALUE FOR user_pantry_ids";
+    
+    private final List<Shard> shards;
+    private final JdbcTemplate sequenceJdbc;
+    private final ReentrantReadWriteLock[] userLocks = new ReentrantReadWriteLock[LOCK_STRIPES];
+    
+    private volatile ShardMap current;
+    private volatile ShardMap target;  // non-null while rebalancing
+    private final Set<Long> moved = ConcurrentHashMap.newKeySet();
+    
+    private long nextId;
+    private long idLimit;
+    
+    /**
+     * @param shardDataSources one data source per shard, in shard index order
+     * @param activeShards how many of them (from index 0) currently hold data
+     * @param sequenceDataSource database providing row ids (the primary)
+     */
+    public PantryShards(List<? extends DataSource> shardDataSources, int activeShards, DataSource sequenceDataSource) {
+        if (activeShards < 1 || activeShards > shardDataSources.size()) {
+            throw new IllegalArgumentException("Active shards must be between 1 and " + shardDataSources.size());
+        }
+        List<Shard> all = new ArrayList<>();
+        List<Integer> active = new ArrayList<>();
+        for (int i = 0; i < shardDataSources.size(); i++) {
+            DataSource dataSource = shardDataSources.get(i);
+            createSchema(dataSource);
+            all.add(new Shard(i, dataSource, new JdbcTemplate(dataSource),
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource))));
+            if (i < activeShards) {
+                active.add(i);
+            }
+        }
+        this.shards = List.copyOf(all);
+        this.current = ShardMap.of(active);
+        this.sequenceJdbc = new JdbcTemplate(sequenceDataSource);
+        sequenceJdbc.execute(CREATE_SEQUENCE);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+    
+    public List<Shard> all() {
+        return shards;
+    }
+    
+    public Shard get(int index) {
+        return shards.get(index);
+    }
+    
+    /**
+     * The map new rebalances start from, or the target of the one in progress
+     */
+    public ShardMap map() {
+        ShardMap pending = target;
+        return pending != null ? pending : current;
+    }
+    
+    /**
+     * @return the shard that holds a user's rows right now
+     */
+    public int shardFor(long userId) {
+        ShardMap pending = target;
+        if (pending != null && moved.contains(userId)) {
+            return pending.shardFor(userId);
+        }
+        return current.shardFor(userId);
+    }
+    
+    /**
+     * Run a single-user operation on the user's shard
+     */
+    public <T> T withUser(long userId, Function<Shard, T> operation) {
+        ReentrantReadWriteLock.ReadLock lock = lockFor(userId).readLock();
+        lock.lock();
+        try {
+            return operation.apply(shards.get(shardFor(userId)));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Run an operation on every shard; used for the rare queries that are not by user
+     */
+    public <T> List<T> scatter(Function<Shard, T> operation) {
+        return shards.parallelStream().map(operation).toList();
+    }
+    
+    /**
+     * Start moving users towards a new map. Users whose shard does not change are unaffected.
+     * @throws IllegalStateException if a rebalance is already in progress
+     */
+    public synchronized void beginRebalance(ShardMap newMap) {
+        if (target != null) {
+            throw new IllegalStateException("A rebalance is already in progress");
+        }
+        moved.clear();
+        target = newMap;
+    }
+    
+    /**
+     * @return the shard a user belongs on under the rebalance target, if it is not where they are now
+     */
+    public Integer misplaced(long userId) {
+        ShardMap pending = target;
+        if (pending == null) {
+            return null;
+        }
+        int destination = pending.shardFor(userId);
+        return destination == shardFor(userId) ? null : destination;
+    }
+    
+    /**
+     * Move one user while holding their write lock
+     * @param mover copies the user's rows from the first shard to the second and deletes the originals
+     * @return what the mover returned, or 0 if the user no longer needs moving
+     */
+    public int move(long userId, MoveOperation mover) {
+        ReentrantReadWriteLock.WriteLock lock = lockFor(userId).writeLock();
+        lock.lock();
+        try {
+            Integer destination = misplaced(userId);
+            if (destination == null) {
+                return 0;
+            }
+            int rows = mover.move(shards.get(shardFor(userId)), shards.get(destination));
+            moved.add(userId);
+            return rows;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Finish the rebalance: with all pantry operations paused, run a last pass to move anyone
+     * who arrived since the main pass, then switch to the new map
+     * @param finalPass the last pass, returning the number of rows it moved
+     */
+    public synchronized int finishRebalance(Supplier<Integer> finalPass) {
+        for (ReentrantReadWriteLock lock : userLocks) {
+            lock.writeLock().lock();
+        }
+        try {
+            int rows = finalPass.get();
+            current = target;
+            target = null;
+            moved.clear();
+            return rows;
+        } finally {
+            for (ReentrantReadWriteLock lock : userLocks) {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * A rebalance that failed part-way stays in progress, with its target map, until it is
+     * run again to completion
+     */
+    public boolean isRebalancing() {
+        return target != null;
+    }
+    
+    /**
+     * @return a new row id, unique across all shards
+     */
+    public synchronized long nextId() {
+        if (nextId == idLimit) {
+            Long blockStart = sequenceJdbc.queryForObject(NEXT_ID_BLOCK, Long.class);
+            nextId = blockStart;
+            idLimit = blockStart + ID_BLOCK;
+        }
+        return nextId++;
+    }
+    
+    @Override
+    public void close() throws Exception {
+        for (Shard shard : shards) {
+            if (shard.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+    
+    private ReentrantReadWriteLock lockFor(long userId) {
+        int hash = Long.hashCode(userId) * 0x9E3779B9;
+        return userLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+    
+    private static void createSchema(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the pantry schema on a shard", e);
+        }
+    }
+    
+    /**
+     * One shard database with its helpers
+     *
+     * @param index position in the shard list, as used by {@link ShardMap}
+     * @param dataSource the shard's connection pool
+     * @param jdbc template for single statements
+     * @param transactions template for multi-statement work on this shard
+     */
+    public record Shard(int index, DataSource dataSource, JdbcTemplate jdbc, TransactionTemplate transactions) {
+    }
+    
+    /**
+     * Copies a user's rows between two shards
+     */
+    @FunctionalInterface
+    public interface MoveOperation {
+        int move(Shard from, Shard to);
+    }
+}
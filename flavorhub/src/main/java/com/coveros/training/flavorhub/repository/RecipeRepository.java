@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,11 +31,16 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     List<Recipe> findByNameContainingIgnoreCase(String searchTerm);
     
     /**
-     * Find recipes that can be made in a specific time (total time = prep + cook)
-     * NOTE: This method is intentionally left incomplete for workshop participants to implement
-     * They will use Copilot to complete this query
+     * Load every recipe together with its ingredient lines in a single query
      */
-    // TODO: Implement method to find recipes by max total time
+    @Query("SELECT DISTINCT r FROM Recipe r LEFT JOIN FETCH r.ingredients")
+    List<Recipe> findAllWithIngredients();
+    
+    /**
+     * Load recipes together with their ingredient lines in a single query
+     */
+    @Query("SELECT DISTINCT r FROM Recipe r LEFT JOIN FETCH r.ingredients WHERE r.id IN :ids")
+    List<Recipe> findAllWithIngredientsByIdIn(@Param("ids") Collection<Long> ids);
     
     /**
      * Find recipes that contain a specific ingredient
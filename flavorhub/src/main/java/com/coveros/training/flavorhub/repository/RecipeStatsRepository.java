@@ -0,0 +1,59 @@
+package com.coveros.training.flavorhub.repository;
+
+import com.coveros.training.flavorhub.model.RecipeStats;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link RecipeStats} rows, in plain JDBC so a flush of many counters is one batch of
+ * upserts instead of a read and a write per recipe.
+ */
+@Repository
+public class RecipeStatsRepository {
+    
+    private static final String ADD_COUNTS = "MERGE INTO recipe_stats s "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) d (recipe_id, views, cooks) "
+            + "ON s.recipe_id = d.recipe_id "
+            + "WHEN MATCHED THEN UPDATE SET view_count = s.view_count + d.views, cook_count = s.cook_count + d.cooks "
+            + "WHEN NOT MATCHED THEN INSERT (recipe_id, view_count, cook_count) VALUES (d.recipe_id, d.views, d.cooks)";
+    
+    private final JdbcTemplate jdbc;
+    
+    /**
+     * @param dataSource the primary database; counts are written, never read from a replica
+     */
+    public RecipeStatsRepository(@Qualifier("primaryDataSource") DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+    
+    /**
+     * Add view and cook counts to the stored totals, creating rows as needed
+     * @param deltas counts to add, one per recipe
+     */
+    public void addCounts(Collection<RecipeStats> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(ADD_COUNTS, deltas.stream()
+                .map(delta -> new Object[] {delta.getRecipeId(), delta.getViewCount(), delta.getCookCount()})
+                .toList());
+    }
+    
+    public Optional<RecipeStats> findById(Long recipeId) {
+        List<RecipeStats> found = jdbc.query(
+                "SELECT recipe_id, view_count, cook_count FROM recipe_stats WHERE recipe_id = ?",
+                (rs, rowNum) -> new RecipeStats(rs.getLong("recipe_id"), rs.getLong("view_count"), rs.getLong("cook_count")),
+                recipeId);
+        return found.stream().findFirst();
+    }
+    
+    public void deleteById(Long recipeId) {
+        jdbc.update("DELETE FROM recipe_stats WHERE recipe_id = ?", recipeId);
+    }
+}
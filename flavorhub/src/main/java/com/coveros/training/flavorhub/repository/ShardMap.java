@@ -0,0 +1,100 @@
+package com.coveros.training.flavorhub.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Consistent-hash ring assigning users to shards.
+ *
+ * Every active shard owns {@link #VIRTUAL_NODES} points on a 64-bit ring and a user belongs
+ * to the owner of the first point at or after the hash of their id. Adding or removing a
+ * shard therefore only moves the users between that shard's points and their predecessors,
+ * about 1/N of all users, instead of reshuffling everyone as {@code userId % N} would.
+ *
+ * Instances are immutable; {@link #with(int)} and {@link #without(int)} return new maps.
+ */
+public final class ShardMap {
+    
+    static final int VIRTUAL_NODES = 128;
+    
+    private final SortedSet<Integer> shards;
+    private final long[] points;  // ascending ring positions
+    private final int[] owners;   // shard owning each point
+    
+    private ShardMap(SortedSet<Integer> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A shard map needs at least one shard");
+        }
+        this.shards = Collections.unmodifiableSortedSet(shards);
+        long[] packed = new long[shards.size() * VIRTUAL_NODES];
+        int i = 0;
+        for (int shard : shards) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                // Hashed twice: hash(node) alone would equal hash(userId) for users 0..127 of shard 0
+                packed[i++] = hash(hash(((long) shard << 32) | node));
+            }
+        }
+        // Sort positions while keeping track of their owners
+        Integer[] order = new Integer[packed.length];
+        for (int p = 0; p < order.length; p++) {
+            order[p] = p;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(packed[a], packed[b]));
+        Integer[] shardOf = shards.stream()
+                .flatMap(shard -> Collections.nCopies(VIRTUAL_NODES, shard).stream())
+                .toArray(Integer[]::new);
+        this.points = new long[packed.length];
+        this.owners = new int[packed.length];
+        for (int p = 0; p < order.length; p++) {
+            points[p] = packed[order[p]];
+            owners[p] = shardOf[order[p]];
+        }
+    }
+    
+    /**
+     * @param shards indexes of the shards that take part
+     */
+    public static ShardMap of(Collection<Integer> shards) {
+        return new ShardMap(new TreeSet<>(shards));
+    }
+    
+    /**
+     * @return the shard index holding a user's data
+     */
+    public int shardFor(long userId) {
+        int position = Arrays.binarySearch(points, hash(userId));
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return owners[position == points.length ? 0 : position];
+    }
+    
+    public ShardMap with(int shard) {
+        SortedSet<Integer> grown = new TreeSet<>(shards);
+        grown.add(shard);
+        return new ShardMap(grown);
+    }
+    
+    public ShardMap without(int shard) {
+        SortedSet<Integer> shrunk = new TreeSet<>(shards);
+        shrunk.remove(shard);
+        return new ShardMap(shrunk);
+    }
+    
+    public SortedSet<Integer> shards() {
+        return shards;
+    }
+    
+    /**
+     * SplitMix64 finalizer: spreads sequential ids evenly over the ring
+     */
+    private static long hash(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
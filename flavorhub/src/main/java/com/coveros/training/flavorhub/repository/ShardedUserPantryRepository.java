@@ -0,0 +1,257 @@
+package com.coveros.training.flavorhub.repository;
+
+import com.coveros.training.flavorhub.model.CodeDimension;
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.service.CodeDictionary;
+import com.coveros.training.flavorhub.service.IngredientDictionary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * {@link UserPantryRepository} over the pantry shards, in plain JDBC.
+ *
+ * Units are stored as dictionary codes like the JPA entities' units. Ingredients live in the
+ * primary database, so they are looked up in the in-memory {@link IngredientDictionary} and
+ * attached to the rows; a row whose ingredient has since been deleted is left out.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShardedUserPantryRepository implements UserPantryRepository {
+    
+    private static final String SELECT = "SELECT id, user_id, ingredient_id, quantity, unit_code, notes FROM user_pantry ";
+    private static final String INSERT =
+            "INSERT INTO user_pantry (id, user_id, ingredient_id, quantity, unit_code, notes) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE =
+            "UPDATE user_pantry SET ingredient_id = ?, quantity = ?, unit_code = ?, notes = ? WHERE id = ? AND user_id = ?";
+    private static final String ADD_TO_QUANTITY = "UPDATE user_pantry SET quantity = CASE "
+            + "WHEN COALESCE(quantity, 0) + ? < 0 THEN 0 ELSE COALESCE(quantity, 0) + ? END "
+            + "WHERE user_id = ? AND ingredient_id = ?";
+    
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getLong("ingredient_id"),
+            rs.getObject("quantity", Double.class),
+            rs.getInt("unit_code"),
+            rs.getString("notes"));
+    
+    private final PantryShards shards;
+    private final IngredientDictionary ingredientDictionary;
+    private final CodeDictionary codeDictionary;
+    
+    @Override
+    public List<UserPantry> findByUserId(Long userId) {
+        return hydrate(shards.withUser(userId, shard ->
+                shard.jdbc().query(SELECT + "WHERE user_id = ? ORDER BY id", ROW_MAPPER, userId)));
+    }
+    
+    @Override
+    public Optional<UserPantry> findByUserIdAndIngredientId(Long userId, Long ingredientId) {
+        return hydrate(shards.withUser(userId, shard -> shard.jdbc().query(
+                SELECT + "WHERE user_id = ? AND ingredient_id = ? ORDER BY id", ROW_MAPPER, userId, ingredientId)))
+                .stream()
+                .findFirst();
+    }
+    
+    @Override
+    public List<UserPantry> findByUserIdAndIngredientIdIn(Long userId, Collection<Long> ingredientIds) {
+        if (ingredientIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = ingredientIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.addAll(ingredientIds);
+        return hydrate(shards.withUser(userId, shard -> shard.jdbc().query(
+                SELECT + "WHERE user_id = ? AND ingredient_id IN (" + placeholders + ") ORDER BY id",
+                ROW_MAPPER, args.toArray())));
+    }
+    
+    /**
+     * Asks every shard. A row is only on two shards while its user is being moved; the copy on
+     * the shard the user is routed to wins.
+     */
+    @Override
+    public Optional<UserPantry> findById(Long id) {
+        List<Row> found = shards.scatter(shard -> shard.jdbc().query(SELECT + "WHERE id = ?", ROW_MAPPER, id)
+                        .stream()
+                        .map(row -> row.onShard(shard.index()))
+                        .toList())
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(row -> row.shard() != shards.shardFor(row.userId())))
+                .toList();
+        return hydrate(found.isEmpty() ? List.of() : List.of(found.get(0))).stream().findFirst();
+    }
+    
+    /**
+     * @return the row as stored, with its ingredient from the dictionary rather than the
+     *         caller's, which may carry no more than an id
+     */
+    @Override
+    public UserPantry save(UserPantry pantryItem) {
+        Long userId = pantryItem.getUserId();
+        saveAll(userId, List.of(pantryItem));
+        return hydrate(shards.withUser(userId, shard -> shard.jdbc().query(
+                SELECT + "WHERE id = ? AND user_id = ?", ROW_MAPPER, pantryItem.getId(), userId)))
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new EmptyResultDataAccessException("Pantry item " + pantryItem.getId() + " is gone", 1));
+    }
+    
+    /**
+     * Updates the items with an id and inserts the rest, assigning their ids. An item whose
+     * row has gone, e.g. deleted while the caller held it, fails the whole call rather than
+     * coming back under a new id. The shards have no foreign key to the ingredients, so
+     * ingredient ids are checked against the {@link IngredientDictionary} first.
+     * @throws IllegalArgumentException if an item belongs to another user or its ingredient does not exist
+     * @throws JdbcUpdateAffectedIncorrectNumberOfRowsException if an item with an id no longer exists
+     */
+    @Override
+    public List<UserPantry> saveAll(Long userId, Collection<UserPantry> pantryItems) {
+        for (UserPantry item : pantryItems) {
+            if (!Objects.equals(item.getUserId(), userId)) {
+                throw new IllegalArgumentException("Pantry item " + item.getId() + " does not belong to user " + userId);
+            }
+        }
+        Map<Long, Ingredient> ingredients = ingredientDictionary.getByIds(
+                pantryItems.stream().map(ShardedUserPantryRepository::ingredientId).distinct().toList());
+        for (UserPantry item : pantryItems) {
+            if (!ingredients.containsKey(ingredientId(item))) {
+                throw new IllegalArgumentException("Ingredient " + ingredientId(item) + " does not exist");
+            }
+        }
+        List<UserPantry> existing = pantryItems.stream().filter(item -> item.getId() != null).toList();
+        shards.withUser(userId, shard -> shard.transactions().execute(status -> {
+            int[] updated = shard.jdbc().batchUpdate(UPDATE, existing.stream()
+                    .map(item -> new Object[] {ingredientId(item), item.getQuantity(), unitCode(item.getUnit()),
+                            item.getNotes(), item.getId(), userId})
+                    .toList());
+            for (int i = 0; i < existing.size(); i++) {
+                if (updated[i] == 0) {
+                    // Rolls back the updates already made in this batch
+                    throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(UPDATE, 1, 0);
+                }
+            }
+            List<UserPantry> inserts = pantryItems.stream().filter(item -> item.getId() == null).toList();
+            for (UserPantry item : inserts) {
+                // Ids come from the shared sequence; one the caller made up could collide later
+                item.setId(shards.nextId());
+            }
+            return shard.jdbc().batchUpdate(INSERT, inserts.stream()
+                    .map(item -> new Object[] {item.getId(), userId, ingredientId(item), item.getQuantity(),
+                            unitCode(item.getUnit()), item.getNotes()})
+                    .toList());
+        }));
+        return List.copyOf(pantryItems);
+    }
+    
+    @Override
+    public int addToQuantity(Long userId, Long ingredientId, double delta) {
+        return shards.withUser(userId, shard ->
+                shard.jdbc().update(ADD_TO_QUANTITY, delta, delta, userId, ingredientId));
+    }
+    
+    @Override
+    public void deleteById(Long id) {
+        findById(id).ifPresent(item -> shards.withUser(item.getUserId(), shard ->
+                shard.jdbc().update("DELETE FROM user_pantry WHERE id = ?", id)));
+    }
+    
+    @Override
+    public void deleteByUserId(Long userId) {
+        shards.withUser(userId, shard -> shard.jdbc().update("DELETE FROM user_pantry WHERE user_id = ?", userId));
+    }
+    
+    @Override
+    public long count() {
+        return shards.scatter(shard -> countOn(shard.index())).stream().mapToLong(Long::longValue).sum();
+    }
+    
+    @Override
+    public long countOn(int shard) {
+        Long rows = shards.get(shard).jdbc().queryForObject("SELECT COUNT(*) FROM user_pantry", Long.class);
+        return rows != null ? rows : 0;
+    }
+    
+    @Override
+    public List<Long> findUserIdsOn(int shard) {
+        return shards.get(shard).jdbc().queryForList("SELECT DISTINCT user_id FROM user_pantry ORDER BY user_id", Long.class);
+    }
+    
+    /**
+     * Copies into the target in one transaction, replacing anything left there by an earlier
+     * interrupted move, then deletes the originals. A failure in between leaves the user on
+     * the source shard, complete, so the move can simply be retried.
+     */
+    @Override
+    public int moveUser(Long userId, int fromShard, int toShard) {
+        PantryShards.Shard from = shards.get(fromShard);
+        PantryShards.Shard to = shards.get(toShard);
+        List<Row> rows = from.jdbc().query(SELECT + "WHERE user_id = ? ORDER BY id", ROW_MAPPER, userId);
+        to.transactions().executeWithoutResult(status -> {
+            to.jdbc().update("DELETE FROM user_pantry WHERE user_id = ?", userId);
+            to.jdbc().batchUpdate(INSERT, rows.stream()
+                    .map(row -> new Object[] {row.id(), row.userId(), row.ingredientId(), row.quantity(),
+                            row.unitCode() == CodeDictionary.NO_CODE ? null : row.unitCode(), row.notes()})
+                    .toList());
+        });
+        from.jdbc().update("DELETE FROM user_pantry WHERE user_id = ?", userId);
+        return rows.size();
+    }
+    
+    private List<UserPantry> hydrate(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Ingredient> ingredients = ingredientDictionary.getByIds(
+                rows.stream().map(Row::ingredientId).distinct().toList());
+        List<UserPantry> items = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Ingredient ingredient = ingredients.get(row.ingredientId());
+            if (ingredient != null) {
+                items.add(new UserPantry(row.id(), row.userId(), ingredient, row.quantity(),
+                        codeDictionary.decode(CodeDimension.UNIT, row.unitCode()), row.notes()));
+            }
+        }
+        return items;
+    }
+    
+    private Short unitCode(String unit) {
+        return unit == null ? null : (short) codeDictionary.encode(CodeDimension.UNIT, unit);
+    }
+    
+    private static Long ingredientId(UserPantry item) {
+        if (item.getIngredient() == null || item.getIngredient().getId() == null) {
+            throw new IllegalArgumentException("Pantry item needs an existing ingredient");
+        }
+        return item.getIngredient().getId();
+    }
+    
+    /**
+     * A stored row, before its ingredient is attached
+     */
+    private record Row(long id, long userId, long ingredientId, Double quantity, int unitCode, String notes, int shard) {
+        
+        Row(long id, long userId, long ingredientId, Double quantity, int unitCode, String notes) {
+            this(id, userId, ingredientId, quantity, unitCode, notes, -1);
+        }
+        
+        Row onShard(int index) {
+            return new Row(id, userId, ingredientId, quantity, unitCode, notes, index);
+        }
+    }
+}
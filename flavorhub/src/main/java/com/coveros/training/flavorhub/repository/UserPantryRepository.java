@@ -1,17 +1,20 @@
 package com.coveros.training.flavorhub.repository;
 
 import com.coveros.training.flavorhub.model.UserPantry;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * Repository for managing UserPantry entities
+ * Repository for managing UserPantry items.
+ *
+ * Pantry rows are spread over several databases by user (see {@link PantryShards}), so this
+ * is not a JPA repository: operations that name a user go to that user's shard, and the
+ * few that do not (by item id, counts) ask every shard. Items are returned with their
+ * {@code Ingredient} loaded.
  */
-@Repository
-public interface UserPantryRepository extends JpaRepository<UserPantry, Long> {
+public interface UserPantryRepository {
     
     /**
      * Find all pantry items for a specific user
@@ -23,8 +26,66 @@ public interface UserPantryRepository extends JpaRepository<UserPantry, Long> {
      */
     Optional<UserPantry> findByUserIdAndIngredientId(Long userId, Long ingredientId);
     
+    /**
+     * Find a user's pantry items for several ingredients at once
+     */
+    List<UserPantry> findByUserIdAndIngredientIdIn(Long userId, Collection<Long> ingredientIds);
+    
+    /**
+     * Find a pantry item by id; searches every shard
+     */
+    Optional<UserPantry> findById(Long id);
+    
+    /**
+     * Insert a new item (assigning its id) or update an existing one; an item with an id
+     * whose row no longer exists is not inserted again, the call fails instead
+     * @return the item as stored, with its ingredient loaded
+     * @throws IllegalArgumentException if the ingredient does not exist
+     */
+    UserPantry save(UserPantry pantryItem);
+    
+    /**
+     * Insert or update several items of one user in a single transaction and JDBC batch;
+     * if an item with an id no longer exists, nothing is written and the call fails
+     * @throws IllegalArgumentException if an ingredient does not exist
+     */
+    List<UserPantry> saveAll(Long userId, Collection<UserPantry> pantryItems);
+    
+    /**
+     * Add to the quantity of a pantry item in a single statement, never going below zero
+     * @return number of rows updated (0 if the user has no such item)
+     */
+    int addToQuantity(Long userId, Long ingredientId, double delta);
+    
+    /**
+     * Delete a pantry item by id
+     */
+    void deleteById(Long id);
+    
     /**
      * Delete all pantry items for a specific user
      */
     void deleteByUserId(Long userId);
+    
+    /**
+     * Count pantry items on every shard
+     */
+    long count();
+    
+    /**
+     * Count pantry items on one shard
+     */
+    long countOn(int shard);
+    
+    /**
+     * Find the users that have pantry items on one shard
+     */
+    List<Long> findUserIdsOn(int shard);
+    
+    /**
+     * Move all of a user's pantry items from one shard to another. Only for the rebalancer,
+     * which must hold the user's lock (see {@link PantryShards#move})
+     * @return number of items moved
+     */
+    int moveUser(Long userId, int fromShard, int toShard);
 }
@@ -0,0 +1,235 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.CodeDimension;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory, case-insensitive dictionary for the dictionary-encoded dimensions
+ * (ingredient category, units, cuisine type and difficulty level).
+ *
+ * Rows only store a small integer code; this class translates codes to the canonical
+ * display value and back. Code 0 is reserved to mean "no value / unknown", so callers
+ * can compare codes with plain int equality without null checks.
+ *
+ * NOTE: The table is read and written with plain JDBC on its own connection because
+ * new codes are registered from inside a Hibernate flush (via the JPA converters),
+ * where going back through the EntityManager is not allowed. Codes are append-only,
+ * so committing them independently of the caller's transaction is safe.
+ *
+ * Several instances may register values at once. A new value takes the next code this
+ * instance knows to be free; if another instance took that code (or registered the same
+ * value) first, the unique constraints reject the insert, and the table is reloaded and the
+ * next free code tried, up to {@value #MAX_REGISTER_ATTEMPTS} times. A code this instance
+ * does not know reloads the table, since another instance may have just registered it, but
+ * at most once per {@link #UNKNOWN_CODE_RELOAD_INTERVAL} for the same code.
+ */
+@Slf4j
+@Service
+public class CodeDictionary {
+    
+    public static final int NO_CODE = 0;
+    
+    static final int MAX_REGISTER_ATTEMPTS = 5;
+    static final Duration UNKNOWN_CODE_RELOAD_INTERVAL = Duration.ofSeconds(1);
+    
+    private static final String SELECT_ALL =
+            "SELECT dimension, code, display_value FROM dictionary_codes";
+    private static final String INSERT =
+            "INSERT INTO dictionary_codes (dimension, code, lookup_key, display_value) VALUES (?, ?, ?, ?)";
+    
+    private final DataSource dataSource;
+    
+    private volatile Map<CodeDimension, Entries> entries; // null until first loaded
+    private final Map<UnknownCode, Long> unknownCodesReloadedAt = new ConcurrentHashMap<>();
+    
+    /**
+     * @param dataSource the primary database; a read replica could miss codes that were just registered
+     */
+    public CodeDictionary(@Qualifier("primaryDataSource") DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+    
+    /**
+     * Look up the canonical spelling of a value without registering it
+     * @param dimension the dimension to search
+     * @param value the value in any letter case
+     * @return the canonical value, or empty if it has never been stored
+     */
+    public Optional<String> canonical(CodeDimension dimension, String value) {
+        int code = codeOf(dimension, value);
+        return code == NO_CODE ? Optional.empty() : Optional.of(decode(dimension, code));
+    }
+    
+    /**
+     * Look up the code of a value without registering it
+     * @param dimension the dimension to search
+     * @param value the value in any letter case (may be null)
+     * @return the code, or {@link #NO_CODE} if the value is null or unknown
+     */
+    public int codeOf(CodeDimension dimension, String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        Integer code = entries(dimension).byKey.get(lookupKey(value));
+        return code == null ? NO_CODE : code;
+    }
+    
+    /**
+     * Get the code for a value, registering it in the lookup table if it is new
+     * @param dimension the dimension the value belongs to
+     * @param value the value to encode
+     * @return the (possibly newly assigned) code
+     */
+    public int encode(CodeDimension dimension, String value) {
+        int code = codeOf(dimension, value);
+        return code != NO_CODE ? code : register(dimension, value);
+    }
+    
+    /**
+     * Translate a code back to its canonical value
+     * @param dimension the dimension the code belongs to
+     * @param code the stored code
+     * @return the canonical value, or null for {@link #NO_CODE}
+     * @throws IllegalStateException if the code is not in the lookup table
+     */
+    public String decode(CodeDimension dimension, int code) {
+        if (code == NO_CODE) {
+            return null;
+        }
+        String[] values = entries(dimension).values;
+        if (code < values.length && values[code] != null) {
+            return values[code];
+        }
+        // Another writer may have registered the code since we last loaded
+        UnknownCode unknown = new UnknownCode(dimension, code);
+        long now = System.nanoTime();
+        Long reloadedAt = unknownCodesReloadedAt.get(unknown);
+        if (reloadedAt == null || now - reloadedAt >= UNKNOWN_CODE_RELOAD_INTERVAL.toNanos()) {
+            unknownCodesReloadedAt.put(unknown, now);
+            reload();
+            values = entries(dimension).values;
+            if (code < values.length && values[code] != null) {
+                unknownCodesReloadedAt.remove(unknown);
+                return values[code];
+            }
+        }
+        throw new IllegalStateException("Unknown " + dimension + " code: " + code);
+    }
+    
+    /**
+     * Get all known values of a dimension, ordered by code (i.e. registration order)
+     * @param dimension the dimension to list
+     * @return the canonical values
+     */
+    public List<String> values(CodeDimension dimension) {
+        String[] values = entries(dimension).values;
+        List<String> result = new ArrayList<>(values.length);
+        for (int code = 1; code < values.length; code++) {
+            if (values[code] != null) {
+                result.add(values[code]);
+            }
+        }
+        return result;
+    }
+    
+    private Entries entries(CodeDimension dimension) {
+        Map<CodeDimension, Entries> current = entries;
+        if (current == null) {
+            reload();
+            current = entries;
+        }
+        return current.get(dimension);
+    }
+    
+    private synchronized int register(CodeDimension dimension, String value) {
+        String canonical = value.trim();
+        String key = lookupKey(canonical);
+        SQLException failure = null;
+        for (int attempt = 0; attempt < MAX_REGISTER_ATTEMPTS; attempt++) {
+            Entries dimensionEntries = entries(dimension);
+            Integer existing = dimensionEntries.byKey.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int code = dimensionEntries.values.length;
+            if (code > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct " + dimension + " values");
+            }
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                connection.setAutoCommit(true);
+                statement.setString(1, dimension.name());
+                statement.setShort(2, (short) code);
+                statement.setString(3, key);
+                statement.setString(4, canonical);
+                statement.executeUpdate();
+                dimensionEntries.put(code, canonical);
+                return code;
+            } catch (SQLException e) {
+                // Another instance registered the value or took the code; see what it wrote
+                log.debug("Registering {} value '{}' as code {} failed, reloading dictionary", dimension, value, code, e);
+                failure = e;
+                reload();
+            }
+        }
+        throw new IllegalStateException("Could not register " + dimension + " value: " + value, failure);
+    }
+    
+    private synchronized void reload() {
+        Map<CodeDimension, Entries> fresh = new EnumMap<>(CodeDimension.class);
+        for (CodeDimension dimension : CodeDimension.values()) {
+            fresh.put(dimension, new Entries());
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ALL);
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                fresh.get(CodeDimension.valueOf(rows.getString(1)))
+                        .put(rows.getShort(2), rows.getString(3));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load dictionary codes", e);
+        }
+        entries = fresh;
+    }
+    
+    private static String lookupKey(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private record UnknownCode(CodeDimension dimension, int code) {
+    }
+    
+    /**
+     * Codes and values of one dimension. Readers never lock: the value array is
+     * replaced (copy-on-write) and the key map is concurrent.
+     */
+    private static class Entries {
+        private final Map<String, Integer> byKey = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[1]; // index 0 is NO_CODE
+        
+        private void put(int code, String value) {
+            String[] grown = values.length > code ? values.clone() : Arrays.copyOf(values, code + 1);
+            grown[code] = value;
+            values = grown;
+            byKey.put(lookupKey(value), code);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.List;
+
+/**
+ * Outcome of cooking a recipe from the pantry
+ *
+ * @param recipeId the cooked recipe
+ * @param recipeName its name
+ * @param deductions what was taken from each pantry item
+ * @param missingIngredients recipe ingredients the pantry has none of, not enough of, or only
+ *                           in a unit that cannot be converted
+ */
+public record CookResult(Long recipeId,
+                         String recipeName,
+                         List<PantryDeduction> deductions,
+                         List<String> missingIngredients) {
+    
+    /**
+     * An amount taken from one pantry item, in that item's unit
+     *
+     * @param ingredientName the pantry ingredient
+     * @param amount how much was taken
+     * @param unit the pantry item's unit
+     * @param remaining how much is left
+     */
+    public record PantryDeduction(String ingredientName, double amount, String unit, double remaining) {
+    }
+}
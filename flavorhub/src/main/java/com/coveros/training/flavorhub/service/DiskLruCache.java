@@ -0,0 +1,201 @@
+package com.coveros.training.flavorhub.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Files in a directory, limited to a total size by removing the least recently used.
+ *
+ * Entries are named by relative paths such as {@code 12/card-3f2a.jpg}. Each is written to
+ * a temporary file and moved into place, so a reader never sees part of a file. Recency is
+ * kept in memory; at startup the files already in the directory are taken over, oldest
+ * modified first, so a restart keeps what was cached.
+ *
+ * A removed entry leaves the cache at once, but its file is deleted only after the retention
+ * period given to the constructor. A file returned by {@link #get} or {@link #put} therefore
+ * stays readable for that long even if other puts evict it, which is time enough for a
+ * caller to open it; once open, it can be read to the end whatever happens to the name.
+ */
+@Slf4j
+public class DiskLruCache {
+    
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    
+    private final Path directory;
+    private final long maxBytes;
+    private final long retainNanos;
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private final ArrayDeque<Retired> retired = new ArrayDeque<>();
+    private long totalBytes;
+    
+    /**
+     * A cache whose removed files are deleted at once
+     */
+    public DiskLruCache(Path directory, long maxBytes) {
+        this(directory, maxBytes, Duration.ZERO);
+    }
+    
+    /**
+     * @param retention how long the file of a removed entry is kept before it is deleted
+     */
+    public DiskLruCache(Path directory, long maxBytes, Duration retention) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.retainNanos = retention.toNanos();
+        try {
+            Files.createDirectories(this.directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot use " + this.directory + " as a cache directory", e);
+        }
+    }
+    
+    /**
+     * @return the entry's file, or null if it is not cached
+     */
+    public synchronized Path get(String name) {
+        return sizes.get(name) != null ? directory.resolve(name) : null;
+    }
+    
+    /**
+     * Store an entry, replacing any entry of the same name, and remove the least recently
+     * used entries while the total is over the limit. The entry stored is not removed by its
+     * own put, even if it alone is over the limit, so its file can always be served.
+     * @return the entry's file
+     */
+    public Path put(String name, byte[] content) throws IOException {
+        Path file = resolve(name);
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), TEMPORARY_SUFFIX);
+        try {
+            Files.write(temporary, content);
+            synchronized (this) {
+                // A retired file of the same name must not be deleted once this one replaces it
+                retired.removeIf(entry -> entry.name().equals(name));
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Long replaced = sizes.put(name, (long) content.length);
+                totalBytes += content.length - (replaced != null ? replaced : 0);
+                evict(name);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return file;
+    }
+    
+    /**
+     * Remove the entries whose names match
+     * @return how many were removed
+     */
+    public synchronized int removeIf(Predicate<String> names) {
+        List<String> matching = sizes.keySet().stream().filter(names).toList();
+        matching.forEach(this::remove);
+        deleteRetired();
+        return matching.size();
+    }
+    
+    /**
+     * @return the total size of the cached files in bytes
+     */
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+    
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+        List<String> evicted = new ArrayList<>();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (!entry.getKey().equals(keep)) {
+                evicted.add(entry.getKey());
+                totalBytes -= entry.getValue();
+            }
+        }
+        for (String name : evicted) {
+            sizes.remove(name);
+            retire(name);
+        }
+        deleteRetired();
+    }
+    
+    private void remove(String name) {
+        Long size = sizes.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+            retire(name);
+        }
+    }
+    
+    private void retire(String name) {
+        retired.add(new Retired(name, System.nanoTime() + retainNanos));
+    }
+    
+    private void deleteRetired() {
+        long now = System.nanoTime();
+        while (!retired.isEmpty() && now - retired.peek().deleteAt() >= 0) {
+            delete(retired.poll().name());
+        }
+    }
+    
+    private void delete(String name) {
+        try {
+            Files.deleteIfExists(directory.resolve(name));
+        } catch (IOException e) {
+            log.warn("Could not delete cached file {}", name, e);
+        }
+    }
+    
+    private Path resolve(String name) {
+        Path file = directory.resolve(name).normalize();
+        if (!file.startsWith(directory) || file.equals(directory)) {
+            throw new IllegalArgumentException("Not a cache entry name: " + name);
+        }
+        return file;
+    }
+    
+    private void load() throws IOException {
+        record Found(String name, long size, FileTime modified) {
+        }
+        List<Found> found = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                if (file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                    Files.deleteIfExists(file); // left by a crash mid-write
+                    continue;
+                }
+                String name = directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                found.add(new Found(name, attributes.size(), attributes.lastModifiedTime()));
+            }
+        }
+        found.sort(Comparator.comparing(Found::modified));
+        for (Found file : found) {
+            sizes.put(file.name(), file.size());
+            totalBytes += file.size();
+        }
+        evict(null);
+    }
+    
+    private record Retired(String name, long deleteAt) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+
+import java.util.List;
+
+/**
+ * A meal plan chosen by {@link UserMealPlanService#generateMealPlan}
+ *
+ * @param recipes the chosen recipes
+ * @param pantryItemsUsed distinct pantry ingredients the plan uses
+ * @param itemsToBuy distinct ingredients the plan needs that are not in the pantry
+ * @param candidates number of recipes that matched the constraints
+ * @param searchCompleted false if the time budget ran out and the best plan found so far was returned
+ * @param saved whether the plan was stored as the user's meal plan
+ */
+public record GeneratedMealPlan(List<Recipe> recipes,
+                                int pantryItemsUsed,
+                                int itemsToBuy,
+                                int candidates,
+                                boolean searchCompleted,
+                                boolean saved) {
+}
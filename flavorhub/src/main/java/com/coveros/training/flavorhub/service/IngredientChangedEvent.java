@@ -0,0 +1,18 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+
+/**
+ * Published by {@link IngredientService} whenever an ingredient is created, updated or
+ * deleted, so in-memory views of the ingredients can update themselves incrementally.
+ * Listeners normally use {@code @TransactionalEventListener} to run only after commit.
+ *
+ * @param ingredientId the id of the changed ingredient
+ * @param ingredient the saved ingredient, or null when the ingredient was deleted
+ */
+public record IngredientChangedEvent(Long ingredientId, Ingredient ingredient) {
+    
+    public boolean isDeletion() {
+        return ingredient == null;
+    }
+}
@@ -0,0 +1,133 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * All ingredients in memory, for lookups by id, name (ignoring case) and category without
+ * a query.
+ *
+ * The ingredient list is small and rarely changes, so it is read once the application is
+ * ready and each committed {@link IngredientChangedEvent} swaps in a new immutable
+ * {@link IngredientDictionarySnapshot}; readers never lock and never see a half-applied change.
+ * {@link RebuildableSnapshot} keeps changes that commit while a reload runs.
+ * Ingredients are returned as copies, so callers may change them, e.g. to save an update,
+ * without affecting the dictionary.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngredientDictionary {
+    
+    private final IngredientRepository ingredientRepository;
+    
+    private final RebuildableSnapshot<IngredientDictionarySnapshot, IngredientChangedEvent> snapshot =
+            new RebuildableSnapshot<>(this::load, IngredientDictionary::apply);
+    
+    /**
+     * Reload all ingredients from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        IngredientDictionarySnapshot fresh = snapshot.rebuild();
+        log.debug("Ingredient dictionary rebuilt with {} ingredients", fresh.size());
+    }
+    
+    /**
+     * Apply a committed ingredient change
+     * @param event the change published by {@link IngredientService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        snapshot.apply(event);
+    }
+    
+    /**
+     * @return all ingredients, ordered by id
+     */
+    public List<Ingredient> getAll() {
+        return copies(current().all());
+    }
+    
+    public Optional<Ingredient> getById(Long id) {
+        return Optional.ofNullable(current().byId(id)).map(IngredientDictionarySnapshot::copy);
+    }
+    
+    /**
+     * @return the ingredient with this name, ignoring case
+     */
+    public Optional<Ingredient> getByName(String name) {
+        return Optional.ofNullable(current().byName(name)).map(IngredientDictionarySnapshot::copy);
+    }
+    
+    /**
+     * @param category the category exactly as stored, e.g. {@code Dairy}
+     * @return the category's ingredients, ordered by id
+     */
+    public List<Ingredient> getByCategory(String category) {
+        return copies(current().byCategory(category));
+    }
+    
+    /**
+     * @return the ingredients found, by id; ids without an ingredient are left out
+     */
+    public Map<Long, Ingredient> getByIds(Collection<Long> ids) {
+        IngredientDictionarySnapshot current = current();
+        Map<Long, Ingredient> found = new HashMap<>();
+        for (Long id : ids) {
+            Ingredient ingredient = current.byId(id);
+            if (ingredient != null) {
+                found.put(id, IngredientDictionarySnapshot.copy(ingredient));
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * @return the ingredients with these names, ignoring case; names without an ingredient
+     *         are left out
+     */
+    public List<Ingredient> getByNames(Collection<String> names) {
+        IngredientDictionarySnapshot current = current();
+        Map<Long, Ingredient> found = new LinkedHashMap<>();
+        for (String name : names) {
+            Ingredient ingredient = current.byName(name);
+            if (ingredient != null) {
+                found.putIfAbsent(ingredient.getId(), IngredientDictionarySnapshot.copy(ingredient));
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+    
+    private static List<Ingredient> copies(List<Ingredient> ingredients) {
+        return ingredients.stream().map(IngredientDictionarySnapshot::copy).toList();
+    }
+    
+    private IngredientDictionarySnapshot current() {
+        return snapshot.get();
+    }
+    
+    private IngredientDictionarySnapshot load() {
+        return IngredientDictionarySnapshot.of(ingredientRepository.findAll());
+    }
+    
+    private static IngredientDictionarySnapshot apply(IngredientDictionarySnapshot current, IngredientChangedEvent event) {
+        return event.isDeletion()
+                ? current.withoutIngredient(event.ingredientId())
+                : current.withIngredient(event.ingredient());
+    }
+}
@@ -0,0 +1,106 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable set of all ingredients, indexed by id, lower-cased name and category.
+ *
+ * The snapshot holds its own copies of the ingredients, which nothing outside it sees or
+ * changes; {@link IngredientDictionary} hands out copies of them. Like
+ * {@link IngredientNameSnapshot}, changes produce a new snapshot instead of modifying this one.
+ * Should two names differ only in case, the name index keeps the one with the lower id.
+ */
+final class IngredientDictionarySnapshot {
+    
+    private final List<Ingredient> all;             // ordered by id
+    private final Map<Long, Ingredient> byId;
+    private final Map<String, Ingredient> byName;   // lower-cased name
+    private final Map<String, List<Ingredient>> byCategory;
+    
+    private IngredientDictionarySnapshot(List<Ingredient> all) {
+        this.all = all;
+        Map<Long, Ingredient> ids = new HashMap<>();
+        Map<String, Ingredient> names = new HashMap<>();
+        Map<String, List<Ingredient>> categories = new HashMap<>();
+        for (Ingredient ingredient : all) {
+            ids.put(ingredient.getId(), ingredient);
+            if (ingredient.getName() != null) {
+                names.putIfAbsent(key(ingredient.getName()), ingredient);
+            }
+            if (ingredient.getCategory() != null) {
+                categories.computeIfAbsent(ingredient.getCategory(), c -> new ArrayList<>()).add(ingredient);
+            }
+        }
+        categories.replaceAll((category, ingredients) -> List.copyOf(ingredients));
+        this.byId = Map.copyOf(ids);
+        this.byName = Map.copyOf(names);
+        this.byCategory = Map.copyOf(categories);
+    }
+    
+    static IngredientDictionarySnapshot of(Collection<Ingredient> ingredients) {
+        return new IngredientDictionarySnapshot(ingredients.stream()
+                .filter(ingredient -> ingredient.getId() != null)
+                .map(IngredientDictionarySnapshot::copy)
+                .sorted(Comparator.comparing(Ingredient::getId))
+                .toList());
+    }
+    
+    /**
+     * @return a snapshot with the ingredient added, or replacing the one with its id
+     */
+    IngredientDictionarySnapshot withIngredient(Ingredient ingredient) {
+        List<Ingredient> changed = new ArrayList<>(all.size() + 1);
+        for (Ingredient existing : all) {
+            if (!existing.getId().equals(ingredient.getId())) {
+                changed.add(existing);
+            }
+        }
+        changed.add(ingredient);
+        return of(changed);
+    }
+    
+    /**
+     * @return a snapshot without the ingredient with this id
+     */
+    IngredientDictionarySnapshot withoutIngredient(Long id) {
+        return byId.containsKey(id)
+                ? new IngredientDictionarySnapshot(all.stream().filter(ingredient -> !ingredient.getId().equals(id)).toList())
+                : this;
+    }
+    
+    List<Ingredient> all() {
+        return all;
+    }
+    
+    Ingredient byId(Long id) {
+        return id == null ? null : byId.get(id);
+    }
+    
+    Ingredient byName(String name) {
+        return name == null ? null : byName.get(key(name));
+    }
+    
+    List<Ingredient> byCategory(String category) {
+        return category == null ? List.of() : byCategory.getOrDefault(category, List.of());
+    }
+    
+    int size() {
+        return all.size();
+    }
+    
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+    
+    static Ingredient copy(Ingredient ingredient) {
+        return new Ingredient(ingredient.getId(), ingredient.getName(), ingredient.getCategory(), ingredient.getUnit());
+    }
+}
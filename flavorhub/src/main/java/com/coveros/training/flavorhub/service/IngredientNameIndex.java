@@ -0,0 +1,66 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory, typo-tolerant search index over ingredient names.
+ *
+ * Loaded once the application is ready (after {@code DataLoader} has run) and then kept
+ * current from {@link IngredientChangedEvent}s, swapping in a new immutable
+ * {@link IngredientNameSnapshot} per committed change; {@link RebuildableSnapshot} keeps the
+ * changes that commit while a reload runs. Searching never touches the database; callers
+ * load the returned ids.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngredientNameIndex {
+    
+    private final IngredientRepository ingredientRepository;
+    
+    private final RebuildableSnapshot<IngredientNameSnapshot, IngredientChangedEvent> snapshot =
+            new RebuildableSnapshot<>(this::load, IngredientNameIndex::apply);
+    
+    /**
+     * Reload the whole index from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        IngredientNameSnapshot fresh = snapshot.rebuild();
+        log.debug("Ingredient name index rebuilt with {} ingredients", fresh.size());
+    }
+    
+    /**
+     * Apply a committed ingredient change to the index
+     * @param event the change published by {@link IngredientService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        snapshot.apply(event);
+    }
+    
+    /**
+     * Find ingredients by name, allowing for typos and missing accents
+     * @param query what the user typed
+     * @return matching ingredient ids, best match first
+     */
+    public long[] search(String query) {
+        return snapshot.get().search(query);
+    }
+    
+    private IngredientNameSnapshot load() {
+        return IngredientNameSnapshot.of(ingredientRepository.findAll());
+    }
+    
+    private static IngredientNameSnapshot apply(IngredientNameSnapshot current, IngredientChangedEvent event) {
+        return event.isDeletion()
+                ? current.withoutIngredient(event.ingredientId())
+                : current.withIngredient(event.ingredientId(), event.ingredient().getName());
+    }
+}
@@ -0,0 +1,323 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable search index over ingredient names, tolerant of typos and accents.
+ *
+ * Names are folded before indexing and searching: accents are stripped, case is ignored and
+ * punctuation counts as a space, so "jalapeno" finds "Jalapeño". Two trigram posting lists are
+ * kept. One maps each trigram to the names containing it, so substring matches only check
+ * names that contain all of the query's trigrams. The other maps padded trigrams to the
+ * dictionary of terms (whole names and their single words) for fuzzy matching: an edit
+ * touches at most four trigrams (a swap of adjacent letters does), so a term within k edits of
+ * the query shares all but at most 4k of the query's trigrams, and only terms passing that
+ * count are checked with a bounded edit distance.
+ *
+ * Results are ranked: exact name, name prefix, word prefix, substring, then fuzzy matches by
+ * edit distance; ties go to the shorter name. Like {@link RecipeCatalogSnapshot}, changes
+ * produce a new snapshot instead of modifying this one.
+ */
+final class IngredientNameSnapshot {
+    
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int[] NONE = new int[0];
+    private static final int GRAMS_PER_EDIT = 4;
+    
+    // Match classes, best first; fuzzy matches rank FUZZY + their edit distance
+    private static final int EXACT = 0;
+    private static final int NAME_PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+    private static final int FUZZY = 4;
+    
+    private final long[] ids;           // rows ordered by id
+    private final String[] names;       // folded name of each row
+    private final Map<String, int[]> rowsByGram;
+    private final String[] terms;       // distinct folded names and name words
+    private final int[][] termRows;     // rows each term appears in
+    private final Map<String, int[]> termsByGram;
+    
+    private IngredientNameSnapshot(long[] ids, String[] names) {
+        this.ids = ids;
+        this.names = names;
+        
+        Map<String, List<Integer>> rowGrams = new HashMap<>();
+        Map<String, List<Integer>> rowsOfTerm = new LinkedHashMap<>();
+        for (int row = 0; row < names.length; row++) {
+            for (String gram : grams(names[row], false)) {
+                rowGrams.computeIfAbsent(gram, g -> new ArrayList<>()).add(row);
+            }
+            Set<String> rowTerms = new LinkedHashSet<>();
+            rowTerms.add(names[row]);
+            rowTerms.addAll(Arrays.asList(names[row].split(" ")));
+            for (String term : rowTerms) {
+                if (!term.isEmpty()) {
+                    rowsOfTerm.computeIfAbsent(term, t -> new ArrayList<>()).add(row);
+                }
+            }
+        }
+        this.rowsByGram = toArrays(rowGrams);
+        
+        this.terms = rowsOfTerm.keySet().toArray(String[]::new);
+        this.termRows = new int[terms.length][];
+        Map<String, List<Integer>> termGrams = new HashMap<>();
+        for (int term = 0; term < terms.length; term++) {
+            termRows[term] = rowsOfTerm.get(terms[term]).stream().mapToInt(Integer::intValue).toArray();
+            for (String gram : grams(terms[term], true)) {
+                termGrams.computeIfAbsent(gram, g -> new ArrayList<>()).add(term);
+            }
+        }
+        this.termsByGram = toArrays(termGrams);
+    }
+    
+    /**
+     * Build an index of the given ingredients
+     * @param ingredients persisted ingredients (ingredients without an id or name are ignored)
+     * @return the new snapshot
+     */
+    static IngredientNameSnapshot of(Collection<Ingredient> ingredients) {
+        List<Ingredient> sorted = ingredients.stream()
+                .filter(ingredient -> ingredient.getId() != null && ingredient.getName() != null)
+                .sorted(Comparator.comparing(Ingredient::getId))
+                .toList();
+        long[] ids = new long[sorted.size()];
+        String[] names = new String[sorted.size()];
+        for (int row = 0; row < ids.length; row++) {
+            ids[row] = sorted.get(row).getId();
+            names[row] = fold(sorted.get(row).getName());
+        }
+        return new IngredientNameSnapshot(ids, names);
+    }
+    
+    /**
+     * Copy of this snapshot with one ingredient added or renamed
+     */
+    IngredientNameSnapshot withIngredient(long id, String name) {
+        int row = Arrays.binarySearch(ids, id);
+        if (row >= 0) {
+            String[] renamed = names.clone();
+            renamed[row] = fold(name);
+            return new IngredientNameSnapshot(ids, renamed);
+        }
+        row = -row - 1;
+        long[] newIds = new long[ids.length + 1];
+        String[] newNames = new String[names.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, row);
+        System.arraycopy(names, 0, newNames, 0, row);
+        newIds[row] = id;
+        newNames[row] = fold(name);
+        System.arraycopy(ids, row, newIds, row + 1, ids.length - row);
+        System.arraycopy(names, row, newNames, row + 1, names.length - row);
+        return new IngredientNameSnapshot(newIds, newNames);
+    }
+    
+    /**
+     * Copy of this snapshot without the given ingredient
+     * @return the new snapshot, or this snapshot if the ingredient was not present
+     */
+    IngredientNameSnapshot withoutIngredient(long id) {
+        int row = Arrays.binarySearch(ids, id);
+        if (row < 0) {
+            return this;
+        }
+        long[] newIds = new long[ids.length - 1];
+        String[] newNames = new String[names.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, row);
+        System.arraycopy(names, 0, newNames, 0, row);
+        System.arraycopy(ids, row + 1, newIds, row, ids.length - row - 1);
+        System.arraycopy(names, row + 1, newNames, row, names.length - row - 1);
+        return new IngredientNameSnapshot(newIds, newNames);
+    }
+    
+    int size() {
+        return ids.length;
+    }
+    
+    /**
+     * Find ingredients whose name contains the query or is within a few typos of it, or of one
+     * of its words. Queries of up to 3 characters must match exactly, up to 6 may have one
+     * edit and longer ones two.
+     * @param query what the user typed
+     * @return matching ingredient ids, best match first
+     */
+    long[] search(String query) {
+        String folded = fold(query);
+        if (folded.isEmpty()) {
+            return ids.clone();
+        }
+        int[] rank = new int[ids.length];
+        Arrays.fill(rank, Integer.MAX_VALUE);
+        findSubstrings(folded, rank);
+        int maxEdits = folded.length() <= 3 ? 0 : folded.length() <= 6 ? 1 : 2;
+        if (maxEdits > 0) {
+            findSimilarTerms(folded, maxEdits, rank);
+        }
+        
+        List<Integer> matches = new ArrayList<>();
+        for (int row = 0; row < rank.length; row++) {
+            if (rank[row] != Integer.MAX_VALUE) {
+                matches.add(row);
+            }
+        }
+        return matches.stream()
+                .sorted(Comparator.<Integer>comparingInt(row -> rank[row])
+                        .thenComparingInt(row -> names[row].length())
+                        .thenComparing(row -> names[row]))
+                .mapToLong(row -> ids[row])
+                .toArray();
+    }
+    
+    private void findSubstrings(String query, int[] rank) {
+        for (int row : rowsContainingGramsOf(query)) {
+            String name = names[row];
+            if (name.equals(query)) {
+                rank[row] = EXACT;
+            } else if (name.startsWith(query)) {
+                rank[row] = NAME_PREFIX;
+            } else if (name.contains(" " + query)) {
+                rank[row] = WORD_PREFIX;
+            } else if (name.contains(query)) {
+                rank[row] = SUBSTRING;
+            }
+        }
+    }
+    
+    /**
+     * Rows that contain all of the query's trigrams, or every row for queries too short to have any
+     */
+    private int[] rowsContainingGramsOf(String query) {
+        Set<String> grams = grams(query, false);
+        if (grams.isEmpty()) {
+            int[] all = new int[ids.length];
+            Arrays.setAll(all, row -> row);
+            return all;
+        }
+        int[] candidates = null;
+        for (String gram : grams) {
+            int[] rows = rowsByGram.getOrDefault(gram, NONE);
+            candidates = candidates == null ? rows : intersect(candidates, rows);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+        return candidates;
+    }
+    
+    private void findSimilarTerms(String query, int maxEdits, int[] rank) {
+        Set<String> grams = grams(query, true);
+        int[] shared = new int[terms.length];
+        for (String gram : grams) {
+            for (int term : termsByGram.getOrDefault(gram, NONE)) {
+                shared[term]++;
+            }
+        }
+        int minShared = Math.max(1, grams.size() - GRAMS_PER_EDIT * maxEdits);
+        for (int term = 0; term < terms.length; term++) {
+            if (shared[term] < minShared || Math.abs(terms[term].length() - query.length()) > maxEdits) {
+                continue;
+            }
+            int edits = distance(query, terms[term], maxEdits);
+            if (edits <= maxEdits) {
+                for (int row : termRows[term]) {
+                    rank[row] = Math.min(rank[row], FUZZY + edits);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Lower-case, strip accents and turn runs of anything but letters and digits into one space
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = ACCENTS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+    
+    /**
+     * Optimal string alignment distance (insertions, deletions, substitutions and swaps of
+     * adjacent characters), giving up as soon as it must exceed the limit
+     * @return the distance, or {@code max + 1} if it is larger than {@code max}
+     */
+    static int distance(String a, String b, int max) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+    
+    /**
+     * Distinct trigrams of a folded string; padded ones also cover its start and end, so
+     * short terms still have some
+     */
+    private static Set<String> grams(String text, boolean padded) {
+        String source = padded ? "\u0000\u0000" + text + "\u0000" : text;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= source.length(); i++) {
+            grams.add(source.substring(i, i + 3));
+        }
+        return grams;
+    }
+    
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> postings) {
+        Map<String, int[]> arrays = new HashMap<>(postings.size() * 2);
+        postings.forEach((gram, list) -> arrays.put(gram, list.stream().mapToInt(Integer::intValue).distinct().toArray()));
+        return arrays;
+    }
+    
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                result[count++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -1,16 +1,24 @@
 package com.coveros.training.flavorhub.service;
 
+import com.coveros.training.flavorhub.model.CodeDimension;
 import com.coveros.training.flavorhub.model.Ingredient;
 import com.coveros.training.flavorhub.repository.IngredientRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
- * Service for managing ingredients
+ * Service for managing ingredients. Reads are answered from the in-memory
+ * {@link IngredientDictionary}; writes go to the database and reach the dictionary through
+ * {@link IngredientChangedEvent} once they commit.
  */
 @Service
 @RequiredArgsConstructor
@@ -18,32 +26,63 @@ import java.util.Optional;
 public class IngredientService {
     
     private final IngredientRepository ingredientRepository;
+    private final IngredientDictionary ingredientDictionary;
+    private final CodeDictionary codeDictionary;
+    private final IngredientNameIndex ingredientNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Ingredient> getAllIngredients() {
-        return ingredientRepository.findAll();
+        return ingredientDictionary.getAll();
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<Ingredient> getIngredientById(Long id) {
-        return ingredientRepository.findById(id);
+        return ingredientDictionary.getById(id);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<Ingredient> getIngredientByName(String name) {
-        return ingredientRepository.findByNameIgnoreCase(name);
+        return ingredientDictionary.getByName(name);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Ingredient> getIngredientsByCategory(String category) {
-        return ingredientRepository.findByCategory(category);
+        // Case-insensitive: "dairy" resolves to the stored "Dairy" code
+        return codeDictionary.canonical(CodeDimension.CATEGORY, category)
+                .map(ingredientDictionary::getByCategory)
+                .orElseGet(List::of);
     }
     
+    /**
+     * Search ingredients by name, tolerating typos and missing accents
+     * (e.g. "tomatoe", "jalapeno", "mozarella"). The matching runs against the in-memory
+     * {@link IngredientNameIndex} and the matches come from the {@link IngredientDictionary}.
+     * @param searchTerm what the user typed
+     * @return matching ingredients, best match first
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Ingredient> searchIngredients(String searchTerm) {
-        return ingredientRepository.findByNameContainingIgnoreCase(searchTerm);
+        long[] ids = ingredientNameIndex.search(searchTerm);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        Map<Long, Ingredient> byId = ingredientDictionary.getByIds(idList);
+        return idList.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
     
     public Ingredient saveIngredient(Ingredient ingredient) {
-        return ingredientRepository.save(ingredient);
+        Ingredient saved = ingredientRepository.save(ingredient);
+        eventPublisher.publishEvent(new IngredientChangedEvent(saved.getId(), saved));
+        return saved;
     }
     
     public void deleteIngredient(Long id) {
         ingredientRepository.deleteById(id);
+        eventPublisher.publishEvent(new IngredientChangedEvent(id, null));
     }
 }
@@ -0,0 +1,197 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import com.coveros.training.flavorhub.service.InvalidationMessage.EntityType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the in-memory views of several instances sharing one database in step.
+ *
+ * Every recipe, ingredient and pantry change made through the services on this instance is
+ * sent to the others over the {@link InvalidationTransport} as an {@link InvalidationMessage}.
+ * An instance receiving one loads the entity from the database and publishes the same
+ * {@link RecipeChangedEvent}, {@link IngredientChangedEvent} or {@link PantryChangedEvent}
+ * a local change would, so every cache and index updates itself the usual way; changes it
+ * applies this way are not sent on again.
+ *
+ * Messages may arrive late, twice or out of order. Each node numbers its messages, starting
+ * from the clock so a restarted node's numbers are higher than before, and a message older
+ * than one already applied for the same entity from the same node is dropped. Because the
+ * entity is read from the database rather than from the message, applying any message leaves
+ * the latest committed state; should a local change to the entity be applied while it is
+ * being read, it is read again, so the older read cannot overwrite the newer change.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${flavorhub.invalidation.transport:none}' != 'none'")
+public class InvalidationBus {
+    
+    static final int MAX_TRACKED_ENTITIES = 10_000;
+    private static final int MAX_READS = 3;
+    private static final ThreadLocal<Boolean> APPLYING = new ThreadLocal<>();
+    
+    private final InvalidationTransport transport;
+    private final String node;
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() << 20);
+    private final Map<Source, Long> lastApplied = lruMap();
+    private final Map<Entity, Long> generations = lruMap();
+    
+    @Autowired
+    public InvalidationBus(InvalidationTransport transport,
+                           @Value("${flavorhub.invalidation.node-id:}") String node,
+                           RecipeRepository recipeRepository,
+                           IngredientRepository ingredientRepository,
+                           ApplicationEventPublisher eventPublisher) {
+        this.transport = transport;
+        this.node = node.isBlank() ? UUID.randomUUID().toString() : node.strip().replaceAll("\\s+", "-");
+        this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Start receiving once the caches have been built, so a change is never applied to a
+     * cache that is about to be replaced
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        transport.start(this::receive);
+        log.info("Invalidation bus started as node {}", node);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        transport.close();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        changed(EntityType.RECIPE, event.recipeId());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        changed(EntityType.INGREDIENT, event.ingredientId());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPantryChanged(PantryChangedEvent event) {
+        changed(EntityType.PANTRY, event.userId());
+    }
+    
+    String node() {
+        return node;
+    }
+    
+    /**
+     * Apply a message from another instance
+     */
+    void receive(byte[] bytes) {
+        InvalidationMessage message = InvalidationMessage.decode(bytes);
+        if (message == null || message.node().equals(node) || !isNewest(message)) {
+            return;
+        }
+        APPLYING.set(true);
+        try {
+            long id = message.id();
+            switch (message.type()) {
+                case RECIPE -> reload(new Entity(EntityType.RECIPE, id),
+                        () -> recipeRepository.findAllWithIngredientsByIdIn(List.of(id)).stream().findFirst().orElse(null),
+                        recipe -> new RecipeChangedEvent(id, recipe));
+                case INGREDIENT -> reload(new Entity(EntityType.INGREDIENT, id),
+                        () -> ingredientRepository.findById(id).orElse(null),
+                        ingredient -> new IngredientChangedEvent(id, ingredient));
+                case PANTRY -> eventPublisher.publishEvent(PantryChangedEvent.wholePantry(id));
+            }
+        } finally {
+            APPLYING.remove();
+        }
+    }
+    
+    private void changed(EntityType type, Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (generations) {
+            generations.merge(new Entity(type, id), 1L, Long::sum);
+        }
+        if (APPLYING.get() != null) {
+            return;
+        }
+        InvalidationMessage message = new InvalidationMessage(node, sequence.incrementAndGet(), type, id);
+        try {
+            transport.send(message.encode());
+        } catch (IOException | RuntimeException e) {
+            // The change is committed; failing to announce it must not fail the caller
+            log.warn("Could not send invalidation of {} {}; other instances may serve it stale until it changes again",
+                    type, id, e);
+        }
+    }
+    
+    private boolean isNewest(InvalidationMessage message) {
+        Source source = new Source(message.node(), message.type(), message.id());
+        synchronized (lastApplied) {
+            Long last = lastApplied.get(source);
+            if (last != null && last >= message.sequence()) {
+                return false;
+            }
+            lastApplied.put(source, message.sequence());
+            return true;
+        }
+    }
+    
+    private <T> void reload(Entity entity, Supplier<T> read, Function<T, Object> event) {
+        T loaded = null;
+        for (int reads = 0; reads < MAX_READS; reads++) {
+            long generation = generation(entity);
+            loaded = read.get();
+            if (generation(entity) == generation) {
+                break;
+            }
+        }
+        eventPublisher.publishEvent(event.apply(loaded));
+    }
+    
+    private long generation(Entity entity) {
+        synchronized (generations) {
+            return generations.getOrDefault(entity, 0L);
+        }
+    }
+    
+    private static <K> Map<K, Long> lruMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                return size() > MAX_TRACKED_ENTITIES;
+            }
+        };
+    }
+    
+    private record Entity(EntityType type, long id) {
+    }
+    
+    private record Source(String node, EntityType type, long id) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.coveros.training.flavorhub.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One entity change, as sent between instances by the {@link InvalidationBus}. Only the id
+ * travels; receivers load the entity from the shared database.
+ *
+ * @param node the instance where the change was made
+ * @param sequence increases with every message the node sends, so receivers can tell an
+ *                 older message about an entity from a newer one
+ * @param type what kind of entity changed
+ * @param id the entity's id; for pantries, the owner's user id
+ */
+public record InvalidationMessage(String node, long sequence, EntityType type, long id) {
+    
+    private static final String PREFIX = "flavorhub-invalidation/1";
+    private static final String SEPARATOR = " ";
+    
+    public enum EntityType {
+        RECIPE, INGREDIENT, PANTRY
+    }
+    
+    public byte[] encode() {
+        return String.join(SEPARATOR, PREFIX, node, Long.toString(sequence), type.name(), Long.toString(id))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * @return the message, or null when the bytes are not a message of this version, such as
+     *         another application's datagram on the same multicast group
+     */
+    public static InvalidationMessage decode(byte[] bytes) {
+        String[] parts = new String(bytes, StandardCharsets.UTF_8).split(SEPARATOR);
+        if (parts.length != 5 || !parts[0].equals(PREFIX)) {
+            return null;
+        }
+        try {
+            return new InvalidationMessage(parts[1], Long.parseLong(parts[2]), EntityType.valueOf(parts[3]),
+                    Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.coveros.training.flavorhub.service;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link InvalidationBus} messages between instances. Delivery is best effort:
+ * messages may be lost, duplicated or reordered, which the bus tolerates.
+ */
+public interface InvalidationTransport extends AutoCloseable {
+    
+    /**
+     * Start receiving. Messages are handed to the receiver one at a time, on a thread of the
+     * transport's own; a transport may or may not deliver an instance's own messages back to it.
+     */
+    void start(Consumer<byte[]> receiver) throws IOException;
+    
+    /**
+     * Send a message to the other instances
+     */
+    void send(byte[] message) throws IOException;
+    
+    /**
+     * Stop receiving and release the transport's resources
+     */
+    @Override
+    void close();
+}
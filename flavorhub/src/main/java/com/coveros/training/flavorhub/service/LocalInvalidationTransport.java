@@ -0,0 +1,66 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Transport between application contexts in the same JVM, such as several instances started
+ * by one test. Transports on the same channel receive each other's messages, each on its own
+ * delivery thread, as they would from the network.
+ */
+public class LocalInvalidationTransport implements InvalidationTransport {
+    
+    private static final Map<String, Set<LocalInvalidationTransport>> CHANNELS = new ConcurrentHashMap<>();
+    
+    private final String channel;
+    private ExecutorService delivery;
+    private Consumer<byte[]> receiver;
+    
+    public LocalInvalidationTransport(String channel) {
+        this.channel = channel;
+    }
+    
+    @Override
+    public synchronized void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        this.delivery = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-" + channel);
+            thread.setDaemon(true);
+            return thread;
+        });
+        CHANNELS.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+    
+    @Override
+    public void send(byte[] message) {
+        for (LocalInvalidationTransport member : CHANNELS.getOrDefault(channel, Set.of())) {
+            if (member != this) {
+                member.deliver(message.clone());
+            }
+        }
+    }
+    
+    @Override
+    public synchronized void close() {
+        Set<LocalInvalidationTransport> members = CHANNELS.get(channel);
+        if (members != null) {
+            members.remove(this);
+        }
+        if (delivery != null) {
+            delivery.shutdown();
+        }
+    }
+    
+    private synchronized void deliver(byte[] message) {
+        try {
+            delivery.execute(() -> receiver.accept(message));
+        } catch (RejectedExecutionException e) {
+            // Closed while the message was on its way
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Chooses a fixed number of recipes whose combined ingredients make the most use of the
+ * pantry while needing the fewest other ingredients.
+ *
+ * Each candidate recipe is an ingredient bitset and a plan is scored on the union of its
+ * recipes' bitsets: +1 for every pantry ingredient it uses, -1 for every ingredient that
+ * has to be bought (ties go to the plan that buys less). Picking the best subset is a
+ * combinatorial problem, so the search is heuristic:
+ * <ol>
+ *   <li>Beam search grows the best {@link #BEAM_WIDTH} partial plans one recipe at a time,
+ *       scoring each level's expansions in parallel on the fork-join pool.</li>
+ *   <li>Local search then improves every finished plan in parallel, swapping one recipe
+ *       for an unused candidate for as long as that raises the score.</li>
+ * </ol>
+ * Both phases stop at the deadline. A beam that has not reached the plan size by then is
+ * completed greedily, so a full plan is always returned.
+ *
+ * Scoring only looks at which ingredients appear, not how much of each; the shopping list
+ * does the exact arithmetic for the chosen plan.
+ */
+final class MealPlanOptimizer {
+    
+    static final int BEAM_WIDTH = 32;
+    // Levels with fewer (plan, candidate) pairs than this are scored on the calling thread
+    private static final int PARALLEL_THRESHOLD = 4_096;
+    
+    private static final Comparator<Plan> BEST_FIRST = Comparator.comparingInt(Plan::score).reversed()
+            .thenComparingInt(Plan::toBuy)
+            .thenComparing(Plan::members, Arrays::compare);
+    
+    private final long[][] recipes;
+    private final long[] pantry;
+    private final int words;
+    private final long deadline;
+    private volatile boolean timedOut;
+    
+    private MealPlanOptimizer(long[][] recipes, long[] pantry, long deadline) {
+        int width = pantry.length;
+        for (long[] recipe : recipes) {
+            width = Math.max(width, recipe.length);
+        }
+        this.words = width;
+        this.recipes = new long[recipes.length][];
+        for (int i = 0; i < recipes.length; i++) {
+            this.recipes[i] = recipes[i].length == width ? recipes[i] : Arrays.copyOf(recipes[i], width);
+        }
+        this.pantry = Arrays.copyOf(pantry, width);
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Search for the best plan
+     * @param recipes ingredient bitset of each candidate recipe
+     * @param pantry bitset of the ingredients in the pantry
+     * @param planSize number of recipes to choose (fewer if there are fewer candidates)
+     * @param deadlineNanos {@link System#nanoTime()} value at which to stop searching
+     * @return the best plan found
+     */
+    static Result optimize(long[][] recipes, long[] pantry, int planSize, long deadlineNanos) {
+        return new MealPlanOptimizer(recipes, pantry, deadlineNanos).optimize(Math.min(planSize, recipes.length));
+    }
+    
+    private Result optimize(int planSize) {
+        List<Plan> beam = List.of(new Plan(new int[0], new long[words], 0, 0));
+        while (beam.get(0).members().length < planSize && !isTimedOut()) {
+            beam = expand(beam);
+        }
+        
+        Plan best;
+        if (beam.get(0).members().length < planSize) {
+            best = beam.get(0);
+            while (best.members().length < planSize) {
+                best = bestChildren(best, 1).get(0);
+            }
+        } else {
+            List<Plan> finished = beam;
+            best = IntStream.range(0, finished.size())
+                    .parallel()
+                    .mapToObj(i -> improve(finished.get(i)))
+                    .min(BEST_FIRST)
+                    .orElseThrow();
+        }
+        return new Result(best.members(), best.used(), best.toBuy(), !timedOut);
+    }
+    
+    /**
+     * One beam level: every plan is extended by every candidate it does not contain,
+     * and the best distinct plans survive
+     */
+    private List<Plan> expand(List<Plan> beam) {
+        IntStream plans = IntStream.range(0, beam.size());
+        if ((long) beam.size() * recipes.length >= PARALLEL_THRESHOLD) {
+            plans = plans.parallel();
+        }
+        List<Plan> children = plans.mapToObj(i -> bestChildren(beam.get(i), BEAM_WIDTH))
+                .flatMap(List::stream)
+                .sorted(BEST_FIRST)
+                .toList();
+        
+        List<Plan> next = new ArrayList<>(BEAM_WIDTH);
+        Set<Members> seen = new HashSet<>();
+        for (Plan child : children) {
+            if (seen.add(new Members(child.members()))) {
+                next.add(child);
+                if (next.size() == BEAM_WIDTH) {
+                    break;
+                }
+            }
+        }
+        return next;
+    }
+    
+    /**
+     * Score all one-recipe extensions of a plan and keep the best {@code limit}
+     */
+    private List<Plan> bestChildren(Plan parent, int limit) {
+        // Worst kept child on top; children are only allocated when they make the cut
+        PriorityQueue<Plan> kept = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        long[] union = parent.union();
+        for (int candidate = 0; candidate < recipes.length; candidate++) {
+            if (Arrays.binarySearch(parent.members(), candidate) >= 0) {
+                continue;
+            }
+            long[] recipe = recipes[candidate];
+            int used = 0;
+            int toBuy = 0;
+            for (int w = 0; w < words; w++) {
+                long combined = union[w] | recipe[w];
+                used += Long.bitCount(combined & pantry[w]);
+                toBuy += Long.bitCount(combined & ~pantry[w]);
+            }
+            if (kept.size() == limit && !isBetter(used, toBuy, kept.peek())) {
+                continue;
+            }
+            kept.add(parent.with(candidate, recipe, used, toBuy));
+            if (kept.size() > limit) {
+                kept.poll();
+            }
+        }
+        List<Plan> best = new ArrayList<>(kept);
+        best.sort(BEST_FIRST);
+        return best;
+    }
+    
+    /**
+     * Steepest-ascent local search: apply the best single swap until none improves the plan
+     */
+    private Plan improve(Plan plan) {
+        Plan current = plan;
+        long[] rest = new long[words];
+        while (!isTimedOut()) {
+            int[] members = current.members();
+            int bestOut = -1;
+            int bestIn = -1;
+            int bestUsed = current.used();
+            int bestToBuy = current.toBuy();
+            for (int out = 0; out < members.length && !isTimedOut(); out++) {
+                Arrays.fill(rest, 0);
+                for (int m = 0; m < members.length; m++) {
+                    if (m != out) {
+                        long[] recipe = recipes[members[m]];
+                        for (int w = 0; w < words; w++) {
+                            rest[w] |= recipe[w];
+                        }
+                    }
+                }
+                for (int candidate = 0; candidate < recipes.length; candidate++) {
+                    if (Arrays.binarySearch(members, candidate) >= 0) {
+                        continue;
+                    }
+                    long[] recipe = recipes[candidate];
+                    int used = 0;
+                    int toBuy = 0;
+                    for (int w = 0; w < words; w++) {
+                        long combined = rest[w] | recipe[w];
+                        used += Long.bitCount(combined & pantry[w]);
+                        toBuy += Long.bitCount(combined & ~pantry[w]);
+                    }
+                    if (used - toBuy > bestUsed - bestToBuy
+                            || (used - toBuy == bestUsed - bestToBuy && toBuy < bestToBuy)) {
+                        bestOut = out;
+                        bestIn = candidate;
+                        bestUsed = used;
+                        bestToBuy = toBuy;
+                    }
+                }
+            }
+            if (bestOut < 0) {
+                break;
+            }
+            current = swap(current, bestOut, bestIn, bestUsed, bestToBuy);
+        }
+        return current;
+    }
+    
+    private Plan swap(Plan plan, int out, int in, int used, int toBuy) {
+        int[] members = plan.members().clone();
+        members[out] = in;
+        Arrays.sort(members);
+        long[] union = new long[words];
+        for (int member : members) {
+            for (int w = 0; w < words; w++) {
+                union[w] |= recipes[member][w];
+            }
+        }
+        return new Plan(members, union, used, toBuy);
+    }
+    
+    private boolean isTimedOut() {
+        if (!timedOut && System.nanoTime() - deadline > 0) {
+            timedOut = true;
+        }
+        return timedOut;
+    }
+    
+    private static boolean isBetter(int used, int toBuy, Plan than) {
+        int score = used - toBuy;
+        return score > than.score() || (score == than.score() && toBuy < than.toBuy());
+    }
+    
+    /**
+     * The chosen plan
+     *
+     * @param recipes indexes of the chosen candidates, ascending
+     * @param pantryItemsUsed distinct pantry ingredients the plan uses
+     * @param itemsToBuy distinct ingredients the plan needs that are not in the pantry
+     * @param complete false if the time budget ran out before the search finished
+     */
+    record Result(int[] recipes, int pantryItemsUsed, int itemsToBuy, boolean complete) {
+    }
+    
+    /**
+     * A (partial) plan: sorted candidate indexes and the union of their ingredient bits
+     */
+    private record Plan(int[] members, long[] union, int used, int toBuy) {
+        
+        int score() {
+            return used - toBuy;
+        }
+        
+        Plan with(int candidate, long[] recipe, int used, int toBuy) {
+            int position = -Arrays.binarySearch(members, candidate) - 1;
+            int[] grown = new int[members.length + 1];
+            System.arraycopy(members, 0, grown, 0, position);
+            grown[position] = candidate;
+            System.arraycopy(members, position, grown, position + 1, members.length - position);
+            long[] combined = union.clone();
+            for (int w = 0; w < combined.length; w++) {
+                combined[w] |= recipe[w];
+            }
+            return new Plan(grown, combined, used, toBuy);
+        }
+    }
+    
+    /**
+     * Set identity of a plan, used to drop duplicates reached in a different order
+     */
+    private record Members(int[] ids) {
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Members that && Arrays.equals(ids, that.ids);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(ids);
+        }
+    }
+}
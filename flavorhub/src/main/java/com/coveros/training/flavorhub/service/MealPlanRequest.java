@@ -0,0 +1,22 @@
+package com.coveros.training.flavorhub.service;
+
+import lombok.Builder;
+
+/**
+ * Parameters for generating a meal plan automatically. Null means "default" or "any".
+ *
+ * @param recipeCount number of recipes to plan (default 7)
+ * @param difficulty only plan recipes of this difficulty level
+ * @param cuisine only plan recipes of this cuisine type
+ * @param maxTotalTime only plan recipes that take at most this many minutes in total
+ * @param timeBudgetMillis how long the search may run (default 200, at most 2000)
+ * @param save whether to store the generated plan as the user's meal plan
+ */
+@Builder
+public record MealPlanRequest(Integer recipeCount,
+                              String difficulty,
+                              String cuisine,
+                              Integer maxTotalTime,
+                              Long timeBudgetMillis,
+                              boolean save) {
+}
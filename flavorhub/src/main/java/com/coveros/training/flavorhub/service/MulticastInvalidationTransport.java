@@ -0,0 +1,100 @@
+package com.coveros.training.flavorhub.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.StandardSocketOptions;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Transport over UDP multicast, for instances on the same network segment; no broker is
+ * needed. Every instance joins the same group and port; loopback is enabled, so several
+ * instances on one machine, such as a local multi-JVM test, reach each other too.
+ *
+ * Messages sent before {@link #start} or after {@link #close} are dropped with a warning.
+ */
+@Slf4j
+public class MulticastInvalidationTransport implements InvalidationTransport {
+    
+    private static final int MAX_MESSAGE_BYTES = 512;
+    
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final int timeToLive;
+    private volatile MulticastSocket socket;
+    private volatile boolean closed;
+    
+    /**
+     * @param networkInterface the interface to join the group on, or null for the system default
+     * @param timeToLive how many routers a message may cross; 1 keeps it on the local network
+     */
+    public MulticastInvalidationTransport(InetAddress group, int port, NetworkInterface networkInterface,
+                                          int timeToLive) {
+        this.group = new InetSocketAddress(group, port);
+        this.networkInterface = networkInterface;
+        this.timeToLive = timeToLive;
+    }
+    
+    @Override
+    public synchronized void start(Consumer<byte[]> receiver) throws IOException {
+        MulticastSocket joined = new MulticastSocket(null);
+        try {
+            joined.setReuseAddress(true);
+            joined.bind(new InetSocketAddress(group.getPort()));
+            joined.setTimeToLive(timeToLive);
+            joined.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            if (networkInterface != null) {
+                joined.setNetworkInterface(networkInterface);
+            }
+            joined.joinGroup(group, networkInterface);
+        } catch (IOException | RuntimeException e) {
+            joined.close();
+            throw e;
+        }
+        socket = joined;
+        Thread thread = new Thread(() -> receive(joined, receiver), "invalidation-multicast");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @Override
+    public void send(byte[] message) throws IOException {
+        MulticastSocket current = socket;
+        if (current == null || closed) {
+            log.warn("Dropped an invalidation for {}; the transport is {}", group, closed ? "closed" : "not started");
+            return;
+        }
+        current.send(new DatagramPacket(message, message.length, group));
+    }
+    
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+    
+    private void receive(MulticastSocket socket, Consumer<byte[]> receiver) {
+        byte[] buffer = new byte[MAX_MESSAGE_BYTES];
+        while (!closed) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                receiver.accept(Arrays.copyOf(packet.getData(), packet.getLength()));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Receiving invalidations from {} failed", group, e);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Applying an invalidation from {} failed", group, e);
+            }
+        }
+    }
+}
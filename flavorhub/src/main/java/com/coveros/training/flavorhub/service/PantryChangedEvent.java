@@ -0,0 +1,21 @@
+package com.coveros.training.flavorhub.service;
+
+/**
+ * Published by {@link UserPantryService} when an ingredient enters or leaves a user's pantry.
+ * Quantity changes are not published; they do not change which ingredients the user has.
+ * 
+ * @param userId the pantry's owner
+ * @param ingredientName the ingredient added or removed, or null when the whole pantry may
+ *                       have changed (e.g. it was cleared)
+ * @param added true if the ingredient was added, false if it was removed
+ */
+public record PantryChangedEvent(Long userId, String ingredientName, boolean added) {
+    
+    public static PantryChangedEvent wholePantry(Long userId) {
+        return new PantryChangedEvent(userId, null, false);
+    }
+    
+    public boolean isWholePantry() {
+        return ingredientName == null;
+    }
+}
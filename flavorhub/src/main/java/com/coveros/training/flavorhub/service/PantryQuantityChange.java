@@ -0,0 +1,11 @@
+package com.coveros.training.flavorhub.service;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * A relative change to a pantry quantity, e.g. +6 after shopping or -2 after cooking
+ *
+ * @param delta amount to add (negative to use up)
+ */
+public record PantryQuantityChange(@NotNull Double delta) {
+}
@@ -0,0 +1,276 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user recipe match counts against the pantry, kept current by deltas.
+ *
+ * For each recipe the index knows its distinct ingredient names, and for each name the
+ * recipes using it (its posting list) and the tracked users holding it. A user's counts
+ * are built from their pantry the first time they are asked for; after that:
+ * <ul>
+ *   <li>an ingredient entering or leaving the pantry adjusts only the recipes on that
+ *       ingredient's posting list, by one;</li>
+ *   <li>a changed recipe is recounted only for users holding one of its old or new
+ *       ingredients.</li>
+ * </ul>
+ * Pantry membership is a set, so applying the same change twice (e.g. to counts that were
+ * just loaded and already include it) has no further effect. Ranked results are cached per
+ * user until their counts change. At most {@link #MAX_USERS} users are tracked; the least
+ * recently asked for is dropped and rebuilt when next needed.
+ *
+ * Everything is guarded by this object's monitor: changes are rare next to reads, and most
+ * reads are served from the cached ranking.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PantryRecommendations {
+    
+    static final int MAX_USERS = 10_000;
+    
+    private final RecipeRepository recipeRepository;
+    private final UserPantryRepository userPantryRepository;
+    
+    private final Map<Long, Set<String>> ingredientsByRecipe = new HashMap<>();
+    private final Map<String, Set<Long>> recipesByIngredient = new HashMap<>();
+    private final Map<String, Set<Long>> usersByIngredient = new HashMap<>();
+    private final Map<Long, UserState> users = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UserState> eldest) {
+            if (size() > MAX_USERS) {
+                forgetUser(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private boolean loaded;
+    
+    /**
+     * Reload the recipes and forget all users' counts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        ingredientsByRecipe.clear();
+        recipesByIngredient.clear();
+        usersByIngredient.clear();
+        users.clear();
+        for (Recipe recipe : recipeRepository.findAllWithIngredients()) {
+            index(recipe.getId(), names(recipe));
+        }
+        loaded = true;
+        log.debug("Pantry recommendation index rebuilt with {} recipes and {} ingredients",
+                ingredientsByRecipe.size(), recipesByIngredient.size());
+    }
+    
+    /**
+     * Recipes the user can make the largest part of with what is in their pantry
+     * @param userId the user
+     * @param limit how many recipes to return at most
+     * @return recipes sharing at least one ingredient with the pantry: the largest share of
+     *         their ingredients first, then the most matched ingredients, then by id
+     */
+    public synchronized List<Match> recommend(Long userId, int limit) {
+        ensureLoaded();
+        UserState state = users.get(userId);
+        if (state == null) {
+            state = track(userId);
+        }
+        if (state.ranked == null) {
+            state.ranked = state.matched.entrySet().stream()
+                    .map(entry -> new Match(entry.getKey(), entry.getValue(), ingredientsByRecipe.get(entry.getKey()).size()))
+                    .sorted(Comparator.comparingDouble(Match::coverage).reversed()
+                            .thenComparing(Comparator.comparingInt(Match::matchedIngredients).reversed())
+                            .thenComparingLong(Match::recipeId))
+                    .toList();
+        }
+        return state.ranked.subList(0, Math.min(limit, state.ranked.size()));
+    }
+    
+    /**
+     * Adjust the counts of a tracked user for an ingredient entering or leaving their pantry
+     * @param event the change published by {@link UserPantryService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPantryChanged(PantryChangedEvent event) {
+        UserState state = users.get(event.userId());
+        if (state == null) {
+            return; // counted from the pantry when first asked for
+        }
+        if (event.isWholePantry()) {
+            users.remove(event.userId());
+            forgetUser(event.userId(), state);
+            return;
+        }
+        String name = key(event.ingredientName());
+        if (event.added() ? state.pantry.add(name) : state.pantry.remove(name)) {
+            applyIngredient(event.userId(), state, name, event.added() ? 1 : -1);
+        }
+    }
+    
+    /**
+     * Re-index a changed recipe and recount it for the users it concerns
+     * @param event the change published by {@link RecipeService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        if (!loaded) {
+            return; // the whole catalog is read when first needed
+        }
+        Long recipeId = event.recipeId();
+        Set<String> oldNames = unindex(recipeId);
+        Set<String> newNames = event.isDeletion() ? Set.of() : names(event.recipe());
+        index(recipeId, newNames);
+        
+        Set<Long> affected = new HashSet<>();
+        for (String name : oldNames) {
+            affected.addAll(usersByIngredient.getOrDefault(name, Set.of()));
+        }
+        for (String name : newNames) {
+            affected.addAll(usersByIngredient.getOrDefault(name, Set.of()));
+        }
+        for (Long userId : affected) {
+            UserState state = users.get(userId);
+            int matched = 0;
+            for (String name : newNames) {
+                if (state.pantry.contains(name)) {
+                    matched++;
+                }
+            }
+            if (matched > 0) {
+                state.matched.put(recipeId, matched);
+            } else {
+                state.matched.remove(recipeId);
+            }
+            state.ranked = null;
+        }
+    }
+    
+    /**
+     * Forget all users' counts, since a renamed ingredient changes what their pantries hold
+     * @param event the change published by {@link IngredientService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onIngredientChanged(IngredientChangedEvent event) {
+        users.clear();
+        usersByIngredient.clear();
+    }
+    
+    private UserState track(Long userId) {
+        UserState state = new UserState();
+        users.put(userId, state);
+        for (UserPantry item : userPantryRepository.findByUserId(userId)) {
+            if (item.getIngredient() != null && item.getIngredient().getName() != null) {
+                String name = key(item.getIngredient().getName());
+                if (state.pantry.add(name)) {
+                    applyIngredient(userId, state, name, 1);
+                }
+            }
+        }
+        return state;
+    }
+    
+    private void applyIngredient(Long userId, UserState state, String name, int delta) {
+        for (Long recipeId : recipesByIngredient.getOrDefault(name, Set.of())) {
+            state.matched.merge(recipeId, delta, (count, change) -> count + change == 0 ? null : count + change);
+        }
+        if (delta > 0) {
+            usersByIngredient.computeIfAbsent(name, n -> new HashSet<>()).add(userId);
+        } else {
+            removeFromPosting(usersByIngredient, name, userId);
+        }
+        state.ranked = null;
+    }
+    
+    private void forgetUser(Long userId, UserState state) {
+        for (String name : state.pantry) {
+            removeFromPosting(usersByIngredient, name, userId);
+        }
+    }
+    
+    private void index(Long recipeId, Set<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        ingredientsByRecipe.put(recipeId, names);
+        for (String name : names) {
+            recipesByIngredient.computeIfAbsent(name, n -> new HashSet<>()).add(recipeId);
+        }
+    }
+    
+    private Set<String> unindex(Long recipeId) {
+        Set<String> names = ingredientsByRecipe.remove(recipeId);
+        if (names == null) {
+            return Set.of();
+        }
+        for (String name : names) {
+            removeFromPosting(recipesByIngredient, name, recipeId);
+        }
+        return names;
+    }
+    
+    private void ensureLoaded() {
+        if (!loaded) {
+            // A request arrived before the application was ready
+            rebuild();
+        }
+    }
+    
+    private static void removeFromPosting(Map<String, Set<Long>> postings, String name, Long id) {
+        postings.computeIfPresent(name, (n, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+    }
+    
+    private static Set<String> names(Recipe recipe) {
+        Set<String> names = new HashSet<>();
+        for (RecipeIngredient line : recipe.getIngredients()) {
+            if (line != null && line.getIngredientName() != null) {
+                names.add(key(line.getIngredientName()));
+            }
+        }
+        return names;
+    }
+    
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * A recipe's match count against one pantry
+     *
+     * @param recipeId the recipe
+     * @param matchedIngredients how many of its distinct ingredients the pantry holds
+     * @param totalIngredients how many distinct ingredients it uses
+     */
+    public record Match(long recipeId, int matchedIngredients, int totalIngredients) {
+        
+        double coverage() {
+            return (double) matchedIngredients / totalIngredients;
+        }
+    }
+    
+    private static final class UserState {
+        final Set<String> pantry = new HashSet<>();
+        final Map<Long, Integer> matched = new HashMap<>();
+        List<Match> ranked; // null until asked for after a change
+    }
+}
@@ -0,0 +1,119 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.repository.PantryShards;
+import com.coveros.training.flavorhub.repository.ShardMap;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adds shards to and removes shards from the pantry's shard map, moving the affected users.
+ *
+ * Users are moved one at a time while pantry requests keep being served; each move only
+ * blocks requests for users sharing that user's lock stripe. If a rebalance fails part-way
+ * (e.g. a shard is unreachable) it stays in progress: users already moved are read from
+ * their new shard, and {@link #resume()} finishes the job.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PantryShardService {
+    
+    private final PantryShards shards;
+    private final UserPantryRepository userPantryRepository;
+    
+    public PantryShardStatus status() {
+        ShardMap map = shards.map();
+        List<PantryShardStatus.Shard> perShard = shards.all().stream()
+                .map(shard -> new PantryShardStatus.Shard(shard.index(), map.shards().contains(shard.index()),
+                        userPantryRepository.findUserIdsOn(shard.index()).size(),
+                        userPantryRepository.countOn(shard.index())))
+                .toList();
+        return new PantryShardStatus(shards.isRebalancing(), perShard);
+    }
+    
+    /**
+     * Start using a configured shard and move its share of the users onto it
+     * @throws IllegalArgumentException if there is no such shard
+     * @throws IllegalStateException if it is already active or another rebalance is unfinished
+     */
+    public synchronized RebalanceResult activate(int shard) {
+        checkCanStart(shard);
+        if (shards.map().shards().contains(shard)) {
+            throw new IllegalStateException("Pantry shard " + shard + " is already active");
+        }
+        shards.beginRebalance(shards.map().with(shard));
+        return finish();
+    }
+    
+    /**
+     * Stop using a shard, moving its users to the remaining ones
+     * @throws IllegalArgumentException if there is no such shard
+     * @throws IllegalStateException if it is not active, is the last one, or another rebalance is unfinished
+     */
+    public synchronized RebalanceResult drain(int shard) {
+        checkCanStart(shard);
+        if (!shards.map().shards().contains(shard)) {
+            throw new IllegalStateException("Pantry shard " + shard + " is not active");
+        }
+        if (shards.map().shards().size() == 1) {
+            throw new IllegalStateException("Cannot drain the last active pantry shard");
+        }
+        shards.beginRebalance(shards.map().without(shard));
+        return finish();
+    }
+    
+    /**
+     * Finish a rebalance that failed part-way
+     * @throws IllegalStateException if no rebalance is in progress
+     */
+    public synchronized RebalanceResult resume() {
+        if (!shards.isRebalancing()) {
+            throw new IllegalStateException("No pantry rebalance is in progress");
+        }
+        return finish();
+    }
+    
+    private void checkCanStart(int shard) {
+        if (shard < 0 || shard >= shards.all().size()) {
+            throw new IllegalArgumentException("No pantry shard " + shard);
+        }
+        if (shards.isRebalancing()) {
+            throw new IllegalStateException("A pantry rebalance is already in progress; resume it first");
+        }
+    }
+    
+    private RebalanceResult finish() {
+        long start = System.currentTimeMillis();
+        AtomicInteger users = new AtomicInteger();
+        AtomicInteger items = new AtomicInteger();
+        pass(users, items);
+        // Users who got their first item on the old shard during the pass
+        shards.finishRebalance(() -> pass(users, items));
+        RebalanceResult result = new RebalanceResult(shards.map().shards(), users.get(), items.get(),
+                System.currentTimeMillis() - start);
+        log.info("Pantry rebalance finished: {}", result);
+        return result;
+    }
+    
+    private int pass(AtomicInteger users, AtomicInteger items) {
+        int before = items.get();
+        for (PantryShards.Shard shard : shards.all()) {
+            for (Long userId : userPantryRepository.findUserIdsOn(shard.index())) {
+                if (shards.misplaced(userId) == null) {
+                    continue;
+                }
+                int moved = shards.move(userId, (from, to) -> userPantryRepository.moveUser(userId, from.index(), to.index()));
+                if (moved > 0) {
+                    users.incrementAndGet();
+                    items.addAndGet(moved);
+                }
+            }
+        }
+        return items.get() - before;
+    }
+}
@@ -0,0 +1,21 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.List;
+
+/**
+ * Where pantry data lives
+ *
+ * @param rebalancing whether a rebalance has been started and not yet finished
+ * @param shards one entry per configured shard database
+ */
+public record PantryShardStatus(boolean rebalancing, List<Shard> shards) {
+    
+    /**
+     * @param index the shard's position in {@code flavorhub.pantry.shards}
+     * @param active whether new users are assigned to it (the rebalance target, while rebalancing)
+     * @param users number of users with pantry items on it
+     * @param items number of pantry items on it
+     */
+    public record Shard(int index, boolean active, int users, long items) {
+    }
+}
@@ -0,0 +1,238 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Optional write-behind buffer for pantry quantity changes.
+ *
+ * When enabled ({@code flavorhub.pantry.write-behind.enabled=true}), quantity deltas are
+ * held in memory per user and coalesced per ingredient, so ten "+1"s become one "+10".
+ * A background job writes everything pending every {@code flush-interval-ms}, one JDBC
+ * batch in one transaction per user (users may live on different shards). A crash loses at most one
+ * interval of deltas. The buffer is also flushed early once it holds {@code max-pending}
+ * entries, and on shutdown.
+ *
+ * Reads through {@link #withPending(Supplier)} add the owner's pending deltas to what
+ * was loaded, so the user sees their own changes before they are flushed. A flush holds the
+ * write lock from draining the buffer until its writes commit, so a reader never sees
+ * a delta both in the database and in the buffer, or in neither.
+ */
+@Slf4j
+@Service
+public class PantryWriteBehindBuffer {
+    
+    private final UserPantryRepository userPantryRepository;
+    private final boolean enabled;
+    private final int maxPending;
+    
+    // user id -> ingredient id -> summed delta; each user's map is only touched inside compute()
+    private final Map<Long, Map<Long, Double>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    
+    public PantryWriteBehindBuffer(UserPantryRepository userPantryRepository,
+                                   @Value("${flavorhub.pantry.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${flavorhub.pantry.write-behind.max-pending:10000}") int maxPending) {
+        this.userPantryRepository = userPantryRepository;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Queue a quantity change, merging it with any pending change to the same item
+     * @param userId the owning user
+     * @param ingredientId the pantry ingredient
+     * @param delta amount to add (negative to use up)
+     */
+    public void add(Long userId, Long ingredientId, double delta) {
+        merge(userId, ingredientId, delta);
+        if (pendingCount.get() >= maxPending) {
+            flush();
+        }
+    }
+    
+    /**
+     * Drop pending changes to one item, e.g. because its quantity is being overwritten or it
+     * is being deleted. Waits for a flush in progress so that flush cannot land afterwards.
+     */
+    public void discard(Long userId, Long ingredientId) {
+        flushLock.writeLock().lock();
+        try {
+            pending.computeIfPresent(userId, (user, deltas) -> {
+                if (deltas.remove(ingredientId) != null) {
+                    pendingCount.decrementAndGet();
+                }
+                return deltas.isEmpty() ? null : deltas;
+            });
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Drop all of a user's pending changes
+     */
+    public void discardUser(Long userId) {
+        flushLock.writeLock().lock();
+        try {
+            Map<Long, Double> removed = pending.remove(userId);
+            if (removed != null) {
+                pendingCount.addAndGet(-removed.size());
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Load pantry items and apply their owners' pending deltas to detached copies
+     * @param loader database read of the items
+     * @return the items as they will be once flushed
+     */
+    public List<UserPantry> withPending(Supplier<List<UserPantry>> loader) {
+        flushLock.readLock().lock();
+        try {
+            List<UserPantry> items = loader.get();
+            if (pending.isEmpty()) {
+                return items;
+            }
+            Map<Long, Map<Long, Double>> deltasByUser = new HashMap<>();
+            return items.stream()
+                    .map(item -> {
+                        Map<Long, Double> deltas = deltasByUser.computeIfAbsent(item.getUserId(), this::snapshot);
+                        Double delta = item.getIngredient() != null ? deltas.get(item.getIngredient().getId()) : null;
+                        if (delta == null) {
+                            return item;
+                        }
+                        // A copy, so the loaded item keeps its stored quantity
+                        return new UserPantry(item.getId(), item.getUserId(), item.getIngredient(),
+                                applyDelta(item.getQuantity(), delta), item.getUnit(), item.getNotes());
+                    })
+                    .toList();
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Write all pending deltas. A user whose write fails keeps their deltas for the next flush.
+     * @return number of pantry items updated
+     */
+    @Scheduled(fixedDelayString = "${flavorhub.pantry.write-behind.flush-interval-ms:500}")
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        flushLock.writeLock().lock();
+        try {
+            Map<Long, Map<Long, Double>> batch = drain();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            int updated = 0;
+            for (Map.Entry<Long, Map<Long, Double>> entry : batch.entrySet()) {
+                try {
+                    updated += write(entry.getKey(), entry.getValue());
+                } catch (RuntimeException e) {
+                    // Keep the deltas and try again on the next tick
+                    entry.getValue().forEach((ingredientId, delta) -> merge(entry.getKey(), ingredientId, delta));
+                    log.error("Pantry write-behind flush failed for user {}, updates requeued", entry.getKey(), e);
+                }
+            }
+            log.debug("Flushed {} pending pantry updates", updated);
+            return updated;
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+    
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+    
+    int pendingCount() {
+        return pendingCount.get();
+    }
+    
+    private void merge(Long userId, Long ingredientId, double delta) {
+        pending.compute(userId, (user, deltas) -> {
+            Map<Long, Double> merged = deltas != null ? deltas : new HashMap<>();
+            if (merged.putIfAbsent(ingredientId, delta) == null) {
+                pendingCount.incrementAndGet();
+            } else {
+                merged.merge(ingredientId, delta, Double::sum);
+            }
+            return merged;
+        });
+    }
+    
+    private Map<Long, Map<Long, Double>> drain() {
+        Map<Long, Map<Long, Double>> batch = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            Map<Long, Double> deltas = pending.remove(userId);
+            if (deltas != null) {
+                pendingCount.addAndGet(-deltas.size());
+                batch.put(userId, deltas);
+            }
+        }
+        return batch;
+    }
+    
+    private int write(Long userId, Map<Long, Double> deltas) {
+        List<UserPantry> items = userPantryRepository.findByUserIdAndIngredientIdIn(userId, deltas.keySet());
+        List<UserPantry> changed = new ArrayList<>();
+        Set<Long> missing = new HashSet<>(deltas.keySet());
+        for (UserPantry item : items) {
+            Long ingredientId = item.getIngredient().getId();
+            missing.remove(ingredientId);
+            double delta = deltas.getOrDefault(ingredientId, 0.0);
+            if (delta != 0) {
+                item.setQuantity(applyDelta(item.getQuantity(), delta));
+                changed.add(item);
+            }
+        }
+        if (!missing.isEmpty()) {
+            log.warn("Dropping pending pantry updates for user {}: no pantry items for ingredients {}", userId, missing);
+        }
+        if (!changed.isEmpty()) {
+            userPantryRepository.saveAll(userId, changed);
+        }
+        return changed.size();
+    }
+    
+    private Map<Long, Double> snapshot(Long userId) {
+        Map<Long, Double> copy = new HashMap<>();
+        pending.computeIfPresent(userId, (user, deltas) -> {
+            copy.putAll(deltas);
+            return deltas;
+        });
+        return copy;
+    }
+    
+    static double applyDelta(Double quantity, double delta) {
+        return Math.max(0, (quantity != null ? quantity : 0) + delta);
+    }
+}
@@ -0,0 +1,108 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to summed {@code double}
+ * quantities. Adding to an existing key never allocates, so summing thousands of
+ * recipe lines costs a few array reads and writes per line instead of boxing a
+ * {@code Long} and a {@code Double} each time.
+ *
+ * Iterate with {@link #slots()}, {@link #isOccupied(int)}, {@link #keyAt(int)} and
+ * {@link #valueAt(int)}. Not thread-safe; meant to live for one computation.
+ */
+final class QuantityAccumulator {
+    
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    private long[] keys;
+    private double[] values;
+    private int size;
+    
+    /**
+     * @param expectedKeys number of distinct keys expected; the table grows if exceeded
+     */
+    QuantityAccumulator(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedKeys) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+    
+    /**
+     * Add an amount to the total of a key
+     * @param key any key except {@link Long#MIN_VALUE}
+     * @param amount the amount to add
+     */
+    void add(long key, double amount) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key " + EMPTY + " is reserved");
+        }
+        int slot = slotOf(keys, key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                values[slot] = amount;
+                grow();
+                return;
+            }
+        }
+        values[slot] += amount;
+    }
+    
+    /**
+     * @return the total of a key, or 0 if nothing was added for it
+     */
+    double get(long key) {
+        int slot = slotOf(keys, key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int slots() {
+        return keys.length;
+    }
+    
+    boolean isOccupied(int slot) {
+        return keys[slot] != EMPTY;
+    }
+    
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+    
+    double valueAt(int slot) {
+        return values[slot];
+    }
+    
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new double[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    /**
+     * Linear probing from a mixed hash; returns the key's slot or the empty slot it belongs in
+     */
+    private static int slotOf(long[] table, long key) {
+        int mask = table.length - 1;
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,14 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.Set;
+
+/**
+ * Outcome of moving pantry data to a new set of shards
+ *
+ * @param activeShards the shards in use afterwards
+ * @param usersMoved users whose items changed shard
+ * @param itemsMoved pantry items copied to another shard
+ * @param durationMillis how long the rebalance took
+ */
+public record RebalanceResult(Set<Integer> activeShards, int usersMoved, int itemsMoved, long durationMillis) {
+}
@@ -0,0 +1,89 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * The current snapshot of an in-memory view, kept up to date from change events and
+ * reloaded in full now and then, without a full reload losing the changes that arrive
+ * while it runs.
+ *
+ * A reload reads the database and only then replaces the snapshot, so a change committed
+ * after the read started may be missing from what it read, while its event was applied to
+ * the snapshot about to be replaced. Changes are therefore also recorded while a reload
+ * runs and applied again to the reloaded snapshot before it is published. A change the
+ * reload did read is applied twice, so applying a change must give the same result when
+ * repeated. Readers do not lock; changes and publishing a reload take a short lock.
+ *
+ * @param <S> the snapshot type
+ * @param <C> the change type
+ */
+final class RebuildableSnapshot<S, C> {
+    
+    private final Supplier<S> loader;
+    private final BiFunction<S, C, S> applier;
+    private final List<C> changesDuringRebuild = new ArrayList<>();
+    private int rebuildsRunning;
+    private volatile S current;
+    
+    /**
+     * @param loader reads a complete snapshot, usually from the database
+     * @param applier returns the snapshot with a change applied; it may modify and return
+     *                its argument if readers can safely see that happen
+     */
+    RebuildableSnapshot(Supplier<S> loader, BiFunction<S, C, S> applier) {
+        this.loader = loader;
+        this.applier = applier;
+    }
+    
+    /**
+     * @return the current snapshot, loading it first if there is none yet
+     */
+    S get() {
+        S snapshot = current;
+        return snapshot != null ? snapshot : rebuild();
+    }
+    
+    /**
+     * Load a complete snapshot and publish it, with the changes that arrived meanwhile applied
+     * @return the published snapshot
+     */
+    S rebuild() {
+        int firstChange;
+        synchronized (this) {
+            firstChange = changesDuringRebuild.size();
+            rebuildsRunning++;
+        }
+        try {
+            S fresh = loader.get();
+            synchronized (this) {
+                for (C change : changesDuringRebuild.subList(firstChange, changesDuringRebuild.size())) {
+                    fresh = applier.apply(fresh, change);
+                }
+                current = fresh;
+                return fresh;
+            }
+        } finally {
+            synchronized (this) {
+                if (--rebuildsRunning == 0) {
+                    changesDuringRebuild.clear();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Apply a committed change. Before the first load there is nothing to apply it to, and
+     * the load will read it.
+     */
+    synchronized void apply(C change) {
+        if (rebuildsRunning > 0) {
+            changesDuringRebuild.add(change);
+        }
+        if (current != null) {
+            current = applier.apply(current, change);
+        }
+    }
+}
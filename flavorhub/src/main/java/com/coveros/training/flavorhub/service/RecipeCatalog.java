@@ -0,0 +1,169 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.CodeDimension;
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory columnar view of the recipe catalog used for filter-heavy browsing.
+ *
+ * The snapshot is loaded once the application is ready (after {@code DataLoader} has run)
+ * and then kept current from {@link RecipeChangedEvent}s: each committed write produces a
+ * new immutable snapshot that replaces the old one atomically. Filtering therefore never
+ * touches the database; callers hydrate the returned ids into entities. A reload keeps the
+ * recipe changes committed while it reads (see {@link RebuildableSnapshot}).
+ *
+ * Ingredient categories are looked up when a recipe enters the snapshot, so an
+ * {@link IngredientChangedEvent} reloads the whole catalog; ingredients change far less
+ * often than recipes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeCatalog {
+    
+    private static final long[] NO_IDS = new long[0];
+    // Stands in for a filter value we have never stored, so it matches no row
+    private static final int UNKNOWN_CODE = -1;
+    
+    private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final CodeDictionary codeDictionary;
+    
+    private final RebuildableSnapshot<RecipeCatalogSnapshot, RecipeChangedEvent> snapshot =
+            new RebuildableSnapshot<>(this::load, this::apply);
+    
+    /**
+     * Reload the whole catalog from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        RecipeCatalogSnapshot fresh = snapshot.rebuild();
+        log.debug("Recipe catalog snapshot rebuilt with {} recipes", fresh.size());
+    }
+    
+    /**
+     * Apply a committed recipe change to the snapshot
+     * @param event the change published by {@link RecipeService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        snapshot.apply(event);
+    }
+    
+    /**
+     * Reload the catalog with the changed ingredient's category
+     * @param event the change published by {@link IngredientService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        rebuild();
+    }
+    
+    /**
+     * Find the ids of recipes matching a filter
+     * @param filter the filter criteria
+     * @return matching recipe ids, quickest first when sorting by total time, otherwise ascending
+     */
+    public long[] findIds(RecipeFilter filter) {
+        RecipeCatalogSnapshot.Criteria criteria = criteria(filter);
+        if (criteria.difficultyCode() == UNKNOWN_CODE || criteria.cuisineCode() == UNKNOWN_CODE) {
+            return NO_IDS; // a value we have never stored cannot match anything
+        }
+        return current().select(criteria);
+    }
+    
+    /**
+     * Count the recipes matching a filter per difficulty, cuisine, total time and ingredient
+     * category. The difficulty, cuisine and total time counts each ignore that dimension's own
+     * filter, so they show what choosing another value would match. Counts are cached until
+     * the next recipe or ingredient change.
+     * @param filter the filter criteria; the sort order is ignored
+     * @return the counts, leaving out values without matches
+     */
+    public RecipeFacets facets(RecipeFilter filter) {
+        RecipeCatalogSnapshot.FacetCounts counts = current().facets(criteria(filter));
+        Map<String, Integer> totalTimes = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < RecipeCatalogSnapshot.TOTAL_TIME_BOUNDS.length; bucket++) {
+            totalTimes.put(String.valueOf(RecipeCatalogSnapshot.TOTAL_TIME_BOUNDS[bucket]), counts.totalTimes()[bucket]);
+        }
+        return new RecipeFacets(counts.total(),
+                decode(CodeDimension.DIFFICULTY, counts.difficulties()),
+                decode(CodeDimension.CUISINE, counts.cuisines()),
+                totalTimes,
+                decode(CodeDimension.CATEGORY, counts.categories()));
+    }
+    
+    /**
+     * @return the number of recipes in the current snapshot
+     */
+    public int size() {
+        return current().size();
+    }
+    
+    private Map<String, Integer> decode(CodeDimension dimension, int[] countsByCode) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int code = CodeDictionary.NO_CODE + 1; code < countsByCode.length; code++) {
+            if (countsByCode[code] > 0) {
+                counts.put(codeDictionary.decode(dimension, code), countsByCode[code]);
+            }
+        }
+        return counts;
+    }
+    
+    private RecipeCatalogSnapshot.Criteria criteria(RecipeFilter filter) {
+        return new RecipeCatalogSnapshot.Criteria(
+                codeOrAny(CodeDimension.DIFFICULTY, filter.difficulty()),
+                codeOrAny(CodeDimension.CUISINE, filter.cuisine()),
+                hasText(filter.search()) ? filter.search().toLowerCase(Locale.ROOT) : null,
+                filter.maxPrepTime() != null ? filter.maxPrepTime() : Integer.MAX_VALUE,
+                filter.maxCookTime() != null ? filter.maxCookTime() : Integer.MAX_VALUE,
+                filter.minServings() != null ? filter.minServings() : 0,
+                filter.maxTotalTime() != null ? filter.maxTotalTime() : Integer.MAX_VALUE,
+                filter.sortByTotalTime());
+    }
+    
+    private int codeOrAny(CodeDimension dimension, String value) {
+        if (!hasText(value)) {
+            return CodeDictionary.NO_CODE;
+        }
+        int code = codeDictionary.codeOf(dimension, value);
+        return code == CodeDictionary.NO_CODE ? UNKNOWN_CODE : code;
+    }
+    
+    private RecipeCatalogSnapshot load() {
+        Map<String, Integer> categoriesByIngredient = new HashMap<>();
+        for (Ingredient ingredient : ingredientRepository.findAll()) {
+            categoriesByIngredient.put(ingredient.getName().toLowerCase(Locale.ROOT),
+                    codeDictionary.codeOf(CodeDimension.CATEGORY, ingredient.getCategory()));
+        }
+        return RecipeCatalogSnapshot.of(recipeRepository.findAllWithIngredients(), codeDictionary, categoriesByIngredient);
+    }
+    
+    private RecipeCatalogSnapshot apply(RecipeCatalogSnapshot current, RecipeChangedEvent event) {
+        return event.isDeletion()
+                ? current.withoutRecipe(event.recipeId())
+                : current.withRecipe(event.recipe(), codeDictionary);
+    }
+    
+    private RecipeCatalogSnapshot current() {
+        // Loads the catalog if a request arrives before the application is ready
+        return snapshot.get();
+    }
+    
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,454 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.CodeDimension;
+import com.coveros.training.flavorhub.model.Recipe;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Immutable, column-oriented copy of the fields used to filter recipes.
+ *
+ * Each attribute lives in its own primitive array indexed by row, with rows ordered by
+ * recipe id. Filtering walks the arrays without creating objects per row, and large
+ * catalogs are split across the fork-join pool. Changes never modify a snapshot in place;
+ * they produce a new one that {@link RecipeCatalog} swaps in atomically, so readers can
+ * keep scanning the snapshot they started with.
+ *
+ * A secondary index orders the rows by total time (prep + cook), so "under N minutes"
+ * is a binary search for the end of a prefix, and results can be returned quickest-first
+ * without a separate sort.
+ *
+ * Facet counts are memoized per snapshot. A write publishes a new snapshot with an empty
+ * memo, so cached counts never outlive the data they were counted from.
+ */
+final class RecipeCatalogSnapshot {
+    
+    // Below this many rows a single thread finishes before fork-join pays for itself
+    static final int PARALLEL_THRESHOLD = 8_192;
+    // Leaf size of the parallel scan; a multiple of 64 so no two tasks share a bitmap word
+    static final int LEAF_SIZE = 4_096;
+    // Upper bounds (minutes) of the total time facet; each counts recipes of at most that long
+    static final int[] TOTAL_TIME_BOUNDS = {15, 30, 60};
+    // Distinct filters whose facet counts are kept per snapshot
+    static final int MAX_CACHED_FACETS = 256;
+    
+    private final long[] ids;
+    private final int[] prepTimes;
+    private final int[] cookTimes;
+    private final int[] totalTimes;
+    private final int[] servings;
+    private final int[] difficultyCodes;
+    private final int[] cuisineCodes;
+    private final String[] searchTexts; // lower-cased "name \0 description"
+    private final int[][] categoryCodes; // distinct ingredient category codes of each recipe
+    private final Map<String, Integer> categoriesByIngredient; // lower-cased ingredient name to category code
+    private final Map<Criteria, FacetCounts> facets = new ConcurrentHashMap<>();
+    
+    // Filled in by index() once all rows are set, before the snapshot is published
+    private int[] rowsByTotalTime;  // row numbers ordered by (total time, row)
+    private int[] sortedTotalTimes; // total time of each entry of rowsByTotalTime
+    private int codeLimit;          // one more than the largest code in any code column
+    
+    private RecipeCatalogSnapshot(long[] ids, int[] prepTimes, int[] cookTimes, int[] totalTimes, int[] servings,
+                                  int[] difficultyCodes, int[] cuisineCodes, String[] searchTexts,
+                                  int[][] categoryCodes, Map<String, Integer> categoriesByIngredient) {
+        this.ids = ids;
+        this.prepTimes = prepTimes;
+        this.cookTimes = cookTimes;
+        this.totalTimes = totalTimes;
+        this.servings = servings;
+        this.difficultyCodes = difficultyCodes;
+        this.cuisineCodes = cuisineCodes;
+        this.searchTexts = searchTexts;
+        this.categoryCodes = categoryCodes;
+        this.categoriesByIngredient = categoriesByIngredient;
+    }
+    
+    /**
+     * Build a snapshot of the given recipes, without ingredient categories
+     * @param recipes persisted recipes (recipes without an id are ignored)
+     * @param codeDictionary dictionary used to encode cuisine and difficulty
+     * @return the new snapshot
+     */
+    static RecipeCatalogSnapshot of(Collection<Recipe> recipes, CodeDictionary codeDictionary) {
+        return of(recipes, codeDictionary, Map.of());
+    }
+    
+    /**
+     * Build a snapshot of the given recipes
+     * @param recipes persisted recipes with their ingredients (recipes without an id are ignored)
+     * @param codeDictionary dictionary used to encode cuisine and difficulty
+     * @param categoriesByIngredient category code of each known ingredient, by lower-cased name;
+     *                               later snapshots derived from this one keep using it
+     * @return the new snapshot
+     */
+    static RecipeCatalogSnapshot of(Collection<Recipe> recipes, CodeDictionary codeDictionary,
+                                    Map<String, Integer> categoriesByIngredient) {
+        List<Recipe> sorted = recipes.stream()
+                .filter(recipe -> recipe.getId() != null)
+                .sorted(Comparator.comparing(Recipe::getId))
+                .toList();
+        int size = sorted.size();
+        RecipeCatalogSnapshot snapshot = new RecipeCatalogSnapshot(new long[size], new int[size],
+                new int[size], new int[size], new int[size], new int[size], new int[size], new String[size],
+                new int[size][], categoriesByIngredient);
+        for (int row = 0; row < size; row++) {
+            snapshot.setRow(row, sorted.get(row), codeDictionary);
+        }
+        return snapshot.index();
+    }
+    
+    /**
+     * Copy of this snapshot with one recipe added or replaced
+     * @param recipe the saved recipe
+     * @param codeDictionary dictionary used to encode cuisine and difficulty
+     * @return the new snapshot
+     */
+    RecipeCatalogSnapshot withRecipe(Recipe recipe, CodeDictionary codeDictionary) {
+        int row = Arrays.binarySearch(ids, recipe.getId());
+        RecipeCatalogSnapshot copy;
+        if (row >= 0) {
+            copy = new RecipeCatalogSnapshot(ids.clone(), prepTimes.clone(), cookTimes.clone(),
+                    totalTimes.clone(), servings.clone(), difficultyCodes.clone(), cuisineCodes.clone(), searchTexts.clone(),
+                    categoryCodes.clone(), categoriesByIngredient);
+        } else {
+            row = -row - 1;
+            copy = new RecipeCatalogSnapshot(insertGap(ids, row), insertGap(prepTimes, row),
+                    insertGap(cookTimes, row), insertGap(totalTimes, row), insertGap(servings, row), insertGap(difficultyCodes, row),
+                    insertGap(cuisineCodes, row), insertGap(searchTexts, row), insertGap(categoryCodes, row),
+                    categoriesByIngredient);
+        }
+        copy.setRow(row, recipe, codeDictionary);
+        return copy.index();
+    }
+    
+    /**
+     * Copy of this snapshot without the given recipe
+     * @param recipeId id of the deleted recipe
+     * @return the new snapshot, or this snapshot if the recipe was not present
+     */
+    RecipeCatalogSnapshot withoutRecipe(long recipeId) {
+        int row = Arrays.binarySearch(ids, recipeId);
+        if (row < 0) {
+            return this;
+        }
+        return new RecipeCatalogSnapshot(removeRow(ids, row), removeRow(prepTimes, row),
+                removeRow(cookTimes, row), removeRow(totalTimes, row), removeRow(servings, row),
+                removeRow(difficultyCodes, row), removeRow(cuisineCodes, row), removeRow(searchTexts, row),
+                removeRow(categoryCodes, row), categoriesByIngredient).index();
+    }
+    
+    int size() {
+        return ids.length;
+    }
+    
+    /**
+     * Find the ids of all recipes matching the criteria
+     * @param criteria the compiled filter
+     * @return matching recipe ids, quickest first if requested, otherwise in ascending order
+     */
+    long[] select(Criteria criteria) {
+        // With a total time bound only the matching prefix of the index needs scanning
+        boolean useTimeIndex = criteria.sortByTotalTime() || criteria.maxTotalTime() < Integer.MAX_VALUE;
+        int[] order = useTimeIndex ? rowsByTotalTime : null;
+        int size = useTimeIndex ? upperBound(sortedTotalTimes, criteria.maxTotalTime()) : ids.length;
+        long[] matches = new long[(size + 63) >>> 6];
+        if (size >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new ScanTask(criteria, order, matches, 0, size));
+        } else {
+            scan(criteria, order, matches, 0, size);
+        }
+        
+        int count = 0;
+        for (long word : matches) {
+            count += Long.bitCount(word);
+        }
+        long[] result = new long[count];
+        int next = 0;
+        for (int w = 0; w < matches.length; w++) {
+            long word = matches[w];
+            while (word != 0) {
+                int position = (w << 6) + Long.numberOfTrailingZeros(word);
+                result[next++] = ids[order == null ? position : order[position]];
+                word &= word - 1;
+            }
+        }
+        if (useTimeIndex && !criteria.sortByTotalTime()) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+    
+    /**
+     * Count the recipes matching the criteria per difficulty, cuisine, total time bound and
+     * ingredient category. Each of the first three ignores its own criterion, so the counts
+     * say how many recipes the filter would match with that one value changed; the category
+     * counts, which have no criterion of their own, apply all of them.
+     * @param criteria the compiled filter; its sort order does not matter
+     * @return the counts, indexed by code or by {@link #TOTAL_TIME_BOUNDS} position (do not modify)
+     */
+    FacetCounts facets(Criteria criteria) {
+        Criteria key = criteria.sortByTotalTime() ? criteria.unsorted() : criteria;
+        FacetCounts cached = facets.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        FacetCounts counts = countFacets(key);
+        if (facets.size() >= MAX_CACHED_FACETS) {
+            facets.clear();
+        }
+        facets.put(key, counts);
+        return counts;
+    }
+    
+    private FacetCounts countFacets(Criteria criteria) {
+        int[] difficulties = new int[codeLimit];
+        int[] cuisines = new int[codeLimit];
+        int[] timeBuckets = new int[TOTAL_TIME_BOUNDS.length + 1];
+        int[] categories = new int[codeLimit];
+        int total = 0;
+        for (int row = 0; row < ids.length; row++) {
+            if (prepTimes[row] > criteria.maxPrepTime()
+                    || cookTimes[row] > criteria.maxCookTime()
+                    || servings[row] < criteria.minServings()
+                    || (criteria.search() != null && !searchTexts[row].contains(criteria.search()))) {
+                continue;
+            }
+            boolean difficulty = criteria.difficultyCode() == CodeDictionary.NO_CODE
+                    || difficultyCodes[row] == criteria.difficultyCode();
+            boolean cuisine = criteria.cuisineCode() == CodeDictionary.NO_CODE
+                    || cuisineCodes[row] == criteria.cuisineCode();
+            boolean totalTime = totalTimes[row] <= criteria.maxTotalTime();
+            if (cuisine && totalTime) {
+                difficulties[difficultyCodes[row]]++;
+            }
+            if (difficulty && totalTime) {
+                cuisines[cuisineCodes[row]]++;
+            }
+            if (difficulty && cuisine) {
+                timeBuckets[timeBucket(totalTimes[row])]++;
+            }
+            if (difficulty && cuisine && totalTime) {
+                total++;
+                for (int category : categoryCodes[row]) {
+                    categories[category]++;
+                }
+            }
+        }
+        // Bounds are cumulative: a 10 minute recipe counts towards "at most 15" and "at most 30"
+        for (int bucket = 1; bucket < TOTAL_TIME_BOUNDS.length; bucket++) {
+            timeBuckets[bucket] += timeBuckets[bucket - 1];
+        }
+        return new FacetCounts(total, difficulties, cuisines,
+                Arrays.copyOf(timeBuckets, TOTAL_TIME_BOUNDS.length), categories);
+    }
+    
+    private static int timeBucket(int totalTime) {
+        int bucket = 0;
+        while (bucket < TOTAL_TIME_BOUNDS.length && totalTime > TOTAL_TIME_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+    
+    /**
+     * Test positions [from, to) and set a bit for each match. A position is the row itself,
+     * or an index into {@code order} when scanning in total time order.
+     */
+    private void scan(Criteria criteria, int[] order, long[] matches, int from, int to) {
+        for (int position = from; position < to; position++) {
+            if (matches(criteria, order == null ? position : order[position])) {
+                matches[position >>> 6] |= 1L << position;
+            }
+        }
+    }
+    
+    private boolean matches(Criteria criteria, int row) {
+        return (criteria.difficultyCode() == CodeDictionary.NO_CODE || difficultyCodes[row] == criteria.difficultyCode())
+                && (criteria.cuisineCode() == CodeDictionary.NO_CODE || cuisineCodes[row] == criteria.cuisineCode())
+                && prepTimes[row] <= criteria.maxPrepTime()
+                && cookTimes[row] <= criteria.maxCookTime()
+                && servings[row] >= criteria.minServings()
+                && (criteria.search() == null || searchTexts[row].contains(criteria.search()));
+    }
+    
+    private void setRow(int row, Recipe recipe, CodeDictionary codeDictionary) {
+        ids[row] = recipe.getId();
+        prepTimes[row] = valueOrZero(recipe.getPrepTime());
+        cookTimes[row] = valueOrZero(recipe.getCookTime());
+        totalTimes[row] = Math.max(0, prepTimes[row] + cookTimes[row]);
+        servings[row] = valueOrZero(recipe.getServings());
+        difficultyCodes[row] = codeDictionary.codeOf(CodeDimension.DIFFICULTY, recipe.getDifficultyLevel());
+        cuisineCodes[row] = codeDictionary.codeOf(CodeDimension.CUISINE, recipe.getCuisineType());
+        String description = recipe.getDescription() == null ? "" : recipe.getDescription();
+        searchTexts[row] = (recipe.getName() + '\0' + description).toLowerCase(Locale.ROOT);
+        categoryCodes[row] = recipe.getIngredients().stream()
+                .filter(line -> line != null && line.getIngredientName() != null)
+                .map(line -> categoriesByIngredient.get(line.getIngredientName().toLowerCase(Locale.ROOT)))
+                .filter(code -> code != null && code != CodeDictionary.NO_CODE)
+                .mapToInt(Integer::intValue)
+                .distinct()
+                .toArray();
+    }
+    
+    /**
+     * Build the total time index and size the facet counters. (totalTime, row) pairs are
+     * packed into longs so the sort runs on primitives.
+     */
+    private RecipeCatalogSnapshot index() {
+        int size = ids.length;
+        long[] packed = new long[size];
+        int maxCode = CodeDictionary.NO_CODE;
+        for (int row = 0; row < size; row++) {
+            packed[row] = ((long) totalTimes[row] << 32) | row;
+            maxCode = Math.max(maxCode, Math.max(difficultyCodes[row], cuisineCodes[row]));
+            for (int category : categoryCodes[row]) {
+                maxCode = Math.max(maxCode, category);
+            }
+        }
+        codeLimit = maxCode + 1;
+        Arrays.sort(packed);
+        rowsByTotalTime = new int[size];
+        sortedTotalTimes = new int[size];
+        for (int i = 0; i < size; i++) {
+            rowsByTotalTime[i] = (int) packed[i];
+            sortedTotalTimes[i] = (int) (packed[i] >>> 32);
+        }
+        return this;
+    }
+    
+    /**
+     * @return the number of leading entries of the sorted array that are {@code <= max}
+     */
+    private static int upperBound(int[] sorted, int max) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= max) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    private static int valueOrZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+    
+    private static long[] insertGap(long[] column, int row) {
+        long[] copy = new long[column.length + 1];
+        System.arraycopy(column, 0, copy, 0, row);
+        System.arraycopy(column, row, copy, row + 1, column.length - row);
+        return copy;
+    }
+    
+    private static int[] insertGap(int[] column, int row) {
+        int[] copy = new int[column.length + 1];
+        System.arraycopy(column, 0, copy, 0, row);
+        System.arraycopy(column, row, copy, row + 1, column.length - row);
+        return copy;
+    }
+    
+    private static <T> T[] insertGap(T[] column, int row) {
+        T[] copy = Arrays.copyOf(column, column.length + 1);
+        System.arraycopy(column, row, copy, row + 1, column.length - row);
+        return copy;
+    }
+    
+    private static long[] removeRow(long[] column, int row) {
+        long[] copy = new long[column.length - 1];
+        System.arraycopy(column, 0, copy, 0, row);
+        System.arraycopy(column, row + 1, copy, row, column.length - row - 1);
+        return copy;
+    }
+    
+    private static int[] removeRow(int[] column, int row) {
+        int[] copy = new int[column.length - 1];
+        System.arraycopy(column, 0, copy, 0, row);
+        System.arraycopy(column, row + 1, copy, row, column.length - row - 1);
+        return copy;
+    }
+    
+    private static <T> T[] removeRow(T[] column, int row) {
+        T[] copy = Arrays.copyOf(column, column.length - 1);
+        System.arraycopy(column, row + 1, copy, row, column.length - row - 1);
+        return copy;
+    }
+    
+    /**
+     * A {@link RecipeFilter} with its strings resolved to dictionary codes and its
+     * optional bounds replaced by values that always pass, so the scan has no null checks.
+     *
+     * @param difficultyCode required difficulty code, or {@link CodeDictionary#NO_CODE} for any
+     * @param cuisineCode required cuisine code, or {@link CodeDictionary#NO_CODE} for any
+     * @param search lower-cased search term, or null for any
+     * @param maxPrepTime maximum prep time ({@link Integer#MAX_VALUE} for any)
+     * @param maxCookTime maximum cook time ({@link Integer#MAX_VALUE} for any)
+     * @param minServings minimum servings (0 for any)
+     * @param maxTotalTime maximum prep + cook time ({@link Integer#MAX_VALUE} for any)
+     * @param sortByTotalTime order the result quickest first instead of by id
+     */
+    record Criteria(int difficultyCode, int cuisineCode, String search,
+                    int maxPrepTime, int maxCookTime, int minServings,
+                    int maxTotalTime, boolean sortByTotalTime) {
+        
+        Criteria unsorted() {
+            return new Criteria(difficultyCode, cuisineCode, search, maxPrepTime, maxCookTime, minServings, maxTotalTime, false);
+        }
+    }
+    
+    /**
+     * Facet counts of one {@link Criteria}
+     *
+     * @param total recipes matching all criteria
+     * @param difficulties matches per difficulty code, ignoring the difficulty criterion
+     * @param cuisines matches per cuisine code, ignoring the cuisine criterion
+     * @param totalTimes matches of at most each {@link #TOTAL_TIME_BOUNDS} bound, ignoring the total time criterion
+     * @param categories matches using at least one ingredient of each category code
+     */
+    record FacetCounts(int total, int[] difficulties, int[] cuisines, int[] totalTimes, int[] categories) {
+    }
+    
+    /**
+     * Splits the position range in halves until it is small enough to scan directly.
+     * Split points are multiples of 64, so each task owns whole words of the bitmap.
+     */
+    private final class ScanTask extends RecursiveAction {
+        
+        private final Criteria criteria;
+        private final int[] order;
+        private final long[] matches;
+        private final int from;
+        private final int to;
+        
+        private ScanTask(Criteria criteria, int[] order, long[] matches, int from, int to) {
+            this.criteria = criteria;
+            this.order = order;
+            this.matches = matches;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            int middle = ((from + to) >>> 1) & ~63;
+            if (to - from <= LEAF_SIZE || middle <= from) {
+                scan(criteria, order, matches, from, to);
+                return;
+            }
+            invokeAll(new ScanTask(criteria, order, matches, from, middle),
+                    new ScanTask(criteria, order, matches, middle, to));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+
+/**
+ * Published by {@link RecipeService} whenever a recipe is created, updated or deleted,
+ * so in-memory views of the catalog can update themselves incrementally.
+ * Listeners normally use {@code @TransactionalEventListener} to run only after commit.
+ * 
+ * @param recipeId the id of the changed recipe
+ * @param recipe the saved recipe, or null when the recipe was deleted
+ */
+public record RecipeChangedEvent(Long recipeId, Recipe recipe) {
+    
+    public boolean isDeletion() {
+        return recipe == null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.Map;
+
+/**
+ * Recipe counts for the browsing filters, given the filters currently chosen.
+ * Each map leaves out values without matching recipes.
+ *
+ * @param total recipes matching all the filters
+ * @param difficulties matches per difficulty level, as if no difficulty were chosen
+ * @param cuisines matches per cuisine type, as if no cuisine were chosen
+ * @param totalTimes matches per maximum total time in minutes ("15", "30", "60"), as if no
+ *                   maximum total time were chosen; usable as the {@code maxTotalTime} filter
+ * @param ingredientCategories matches using at least one ingredient of each category
+ */
+public record RecipeFacets(int total,
+                           Map<String, Integer> difficulties,
+                           Map<String, Integer> cuisines,
+                           Map<String, Integer> totalTimes,
+                           Map<String, Integer> ingredientCategories) {
+}
@@ -0,0 +1,33 @@
+package com.coveros.training.flavorhub.service;
+
+import lombok.Builder;
+
+/**
+ * Optional criteria for browsing the recipe catalog.
+ * Bound directly from the query parameters of {@code GET /api/recipes}; null means "any".
+ * 
+ * @param difficulty difficulty level, matched case-insensitively (e.g. "easy")
+ * @param cuisine cuisine type, matched case-insensitively (e.g. "Italian")
+ * @param search term that must appear in the recipe name or description
+ * @param maxPrepTime maximum preparation time in minutes
+ * @param maxCookTime maximum cooking time in minutes
+ * @param minServings minimum number of servings
+ * @param maxTotalTime maximum prep + cook time in minutes
+ * @param sort result order: {@value #SORT_BY_TOTAL_TIME} for quickest first, otherwise by id
+ */
+@Builder
+public record RecipeFilter(String difficulty,
+                           String cuisine,
+                           String search,
+                           Integer maxPrepTime,
+                           Integer maxCookTime,
+                           Integer minServings,
+                           Integer maxTotalTime,
+                           String sort) {
+    
+    public static final String SORT_BY_TOTAL_TIME = "totalTime";
+    
+    public boolean sortByTotalTime() {
+        return SORT_BY_TOTAL_TIME.equalsIgnoreCase(sort);
+    }
+}
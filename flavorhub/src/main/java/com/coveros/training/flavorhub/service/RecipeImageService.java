@@ -0,0 +1,303 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Recipe images at the {@link ThumbnailSize}s the pages show them at, from a disk cache.
+ *
+ * On a miss the recipe's {@code imageUrl} is read once, from http(s) or, for any other
+ * value, as a path in {@code flavorhub.images.origin-dir}, and every size is made from it
+ * and stored in a {@link DiskLruCache} of at most {@code max-cache-mb}. File names include a
+ * {@link #imageVersion} of the image URL, so a recipe given a new image gets new thumbnails and its
+ * old ones are deleted. Evicted files stay on disk for {@code file-retention-seconds}, so a file looked
+ * up just before its eviction can still be sent, and thumbnails made by a miss are returned
+ * from memory, so a small cache evicting one size while storing the next does not matter.
+ * Concurrent misses for one recipe read the source once. Sources over {@code max-source-mb}
+ * or {@code max-source-megapixels} are refused before they are decoded. A source that
+ * cannot be read or decoded is not tried again for {@value #RETRY_AFTER_SECONDS} seconds.
+ *
+ * Anyone who can save a recipe chooses its image URL, so remote fetching is off unless
+ * {@code flavorhub.images.allowed-hosts} names the hosts to fetch from. Redirects are followed
+ * by hand, at most {@value #MAX_REDIRECTS} of them, checking every hop the same way, and hosts
+ * that resolve to loopback, private or link-local addresses are refused.
+ */
+@Slf4j
+@Service
+public class RecipeImageService {
+    
+    static final long RETRY_AFTER_SECONDS = 60;
+    static final int MAX_REDIRECTS = 3;
+    private static final String EXTENSION = ".jpg";
+    
+    private final RecipeService recipeService;
+    private final DiskLruCache cache;
+    private final Path originDirectory;
+    private final Set<String> allowedHosts;
+    private final long maxSourceBytes;
+    private final long maxSourcePixels;
+    private final float quality;
+    private final Duration fetchTimeout;
+    private final HttpClient httpClient;
+    private final SingleFlight<String, Map<ThumbnailSize, Thumbnail>> thumbnailing = new SingleFlight<>("thumbnails");
+    private final Map<String, Long> failedAt = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public RecipeImageService(RecipeService recipeService,
+                              @Value("${flavorhub.images.cache-dir:${java.io.tmpdir}/flavorhub-thumbnails}") Path cacheDirectory,
+                              @Value("${flavorhub.images.max-cache-mb:256}") long maxCacheMegabytes,
+                              @Value("${flavorhub.images.file-retention-seconds:60}") long fileRetentionSeconds,
+                              @Value("${flavorhub.images.origin-dir:}") String originDirectory,
+                              @Value("${flavorhub.images.allowed-hosts:}") List<String> allowedHosts,
+                              @Value("${flavorhub.images.max-source-mb:10}") long maxSourceMegabytes,
+                              @Value("${flavorhub.images.max-source-megapixels:25}") long maxSourceMegapixels,
+                              @Value("${flavorhub.images.quality:0.8}") float quality,
+                              @Value("${flavorhub.images.fetch-timeout-ms:5000}") long fetchTimeoutMillis) {
+        this.recipeService = recipeService;
+        this.cache = new DiskLruCache(cacheDirectory, maxCacheMegabytes * 1024 * 1024,
+                Duration.ofSeconds(fileRetentionSeconds));
+        this.originDirectory = originDirectory.isBlank() ? null : Path.of(originDirectory).toAbsolutePath().normalize();
+        this.allowedHosts = allowedHosts.stream()
+                .map(host -> host.strip().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxSourceBytes = maxSourceMegabytes * 1024 * 1024;
+        this.maxSourcePixels = maxSourceMegapixels * 1_000_000;
+        this.quality = quality;
+        this.fetchTimeout = Duration.ofMillis(fetchTimeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(fetchTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+    
+    /**
+     * @return the recipe's image at the given size, as a cached file or, when it was just made,
+     *         in memory; empty if the recipe does not exist or has no image
+     * @throws UncheckedIOException if the image could not be read or is not an image
+     */
+    public Optional<Thumbnail> getThumbnail(Long recipeId, ThumbnailSize size) {
+        Optional<Recipe> recipe = recipeService.getRecipeById(recipeId);
+        if (recipe.isEmpty() || !hasImage(recipe.get())) {
+            return Optional.empty();
+        }
+        String imageUrl = recipe.get().getImageUrl();
+        String version = version(imageUrl);
+        Path file = cache.get(name(recipeId, size, version));
+        if (file == null || !Files.exists(file)) {
+            return Optional.of(thumbnailing.execute(recipeId + "/" + version,
+                    () -> thumbnail(recipeId, imageUrl, version)).get(size));
+        }
+        return Optional.of(new Thumbnail(file, null, version));
+    }
+    
+    /**
+     * @return a short hash of the image URL, which changes when the recipe's image does; pages
+     *         add it to thumbnail URLs so browsers can cache each one for good
+     */
+    public static String imageVersion(Recipe recipe) {
+        return hasImage(recipe) ? version(recipe.getImageUrl()) : null;
+    }
+    
+    /**
+     * @return the recipe's {@link #imageVersion} if this service can read its image, else null;
+     *         pages link other images as they are, since their thumbnails would only fail
+     */
+    public String thumbnailVersion(Recipe recipe) {
+        return hasImage(recipe) && canRead(recipe.getImageUrl()) ? version(recipe.getImageUrl()) : null;
+    }
+    
+    /**
+     * Delete the thumbnails a recipe no longer uses
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        String prefix = event.recipeId() + "/";
+        String current = event.isDeletion() ? null : imageVersion(event.recipe());
+        cache.removeIf(name -> name.startsWith(prefix) && (current == null || !name.endsWith("-" + current + EXTENSION)));
+    }
+    
+    private Map<ThumbnailSize, Thumbnail> thumbnail(Long recipeId, String imageUrl, String version) {
+        String key = recipeId + "/" + version;
+        Long failed = failedAt.get(key);
+        if (failed != null && System.nanoTime() - failed < Duration.ofSeconds(RETRY_AFTER_SECONDS).toNanos()) {
+            throw new UncheckedIOException(new IOException("Image of recipe " + recipeId + " failed recently"));
+        }
+        try {
+            BufferedImage image = Thumbnails.read(readSource(imageUrl), maxSourcePixels);
+            Map<ThumbnailSize, Thumbnail> thumbnails = new EnumMap<>(ThumbnailSize.class);
+            for (ThumbnailSize size : ThumbnailSize.values()) {
+                byte[] content = Thumbnails.thumbnail(image, size.maxPixels(), quality);
+                thumbnails.put(size, new Thumbnail(cache.put(name(recipeId, size, version), content), content, version));
+            }
+            failedAt.remove(key);
+            return thumbnails;
+        } catch (IOException e) {
+            failedAt.put(key, System.nanoTime());
+            log.warn("Cannot make thumbnails of recipe {} from {}: {}", recipeId, imageUrl, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private byte[] readSource(String imageUrl) throws IOException {
+        String location = imageUrl.strip();
+        String scheme = location.contains(":") ? location.substring(0, location.indexOf(':')).toLowerCase(Locale.ROOT) : "";
+        if (scheme.equals("http") || scheme.equals("https")) {
+            try {
+                return fetch(URI.create(location));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(location + " is not a valid URL", e);
+            }
+        }
+        if (originDirectory == null) {
+            throw new IOException("No flavorhub.images.origin-dir to read " + location + " from");
+        }
+        Path file = originDirectory.resolve(location.replaceFirst("^/+", "")).normalize();
+        if (!file.startsWith(originDirectory)) {
+            throw new IOException(location + " is outside the image directory");
+        }
+        if (Files.size(file) > maxSourceBytes) {
+            throw new IOException(location + " is larger than " + maxSourceBytes + " bytes");
+        }
+        return Files.readAllBytes(file);
+    }
+    
+    private byte[] fetch(URI uri) throws IOException {
+        for (int hop = 0; hop <= MAX_REDIRECTS; hop++) {
+            checkRemote(uri);
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(fetchTimeout).GET().build();
+            HttpResponse<InputStream> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while fetching " + uri, e);
+            }
+            try (InputStream body = response.body()) {
+                int status = response.statusCode();
+                if (status == 301 || status == 302 || status == 303 || status == 307 || status == 308) {
+                    String location = response.headers().firstValue("Location").orElse(null);
+                    if (location == null) {
+                        throw new IOException(uri + " redirected without a Location");
+                    }
+                    try {
+                        uri = uri.resolve(location);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(uri + " redirected to an invalid URL", e);
+                    }
+                    continue;
+                }
+                if (status != 200) {
+                    throw new IOException(uri + " answered " + status);
+                }
+                byte[] bytes = body.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxSourceBytes + 1));
+                if (bytes.length > maxSourceBytes) {
+                    throw new IOException(uri + " is larger than " + maxSourceBytes + " bytes");
+                }
+                return bytes;
+            }
+        }
+        throw new IOException("More than " + MAX_REDIRECTS + " redirects fetching " + uri);
+    }
+    
+    /**
+     * @throws IOException unless the URL is http(s) on an allowed host that resolves to public
+     *         addresses only
+     */
+    private void checkRemote(URI uri) throws IOException {
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            throw new IOException(uri + " is not an http(s) URL");
+        }
+        if (allowedHosts.isEmpty()) {
+            throw new IOException("Remote images are off; set flavorhub.images.allowed-hosts to fetch " + uri);
+        }
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+        if (!allowedHosts.contains(host)) {
+            throw new IOException(host + " is not in flavorhub.images.allowed-hosts");
+        }
+        for (InetAddress address : InetAddress.getAllByName(host)) {
+            if (address.isLoopbackAddress() || address.isSiteLocalAddress() || address.isLinkLocalAddress()
+                    || address.isAnyLocalAddress() || address.isMulticastAddress() || isUniqueLocal(address)) {
+                throw new IOException(host + " resolves to the non-public address " + address.getHostAddress());
+            }
+        }
+    }
+    
+    private boolean canRead(String imageUrl) {
+        String location = imageUrl.strip();
+        String scheme = location.contains(":") ? location.substring(0, location.indexOf(':')).toLowerCase(Locale.ROOT) : "";
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return originDirectory != null;
+        }
+        try {
+            String host = URI.create(location).getHost();
+            return host != null && allowedHosts.contains(host.toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private static boolean isUniqueLocal(InetAddress address) {
+        // fc00::/7, the IPv6 counterpart of the private IPv4 ranges
+        return address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc;
+    }
+    
+    private static boolean hasImage(Recipe recipe) {
+        return recipe.getImageUrl() != null && !recipe.getImageUrl().isBlank();
+    }
+    
+    private static String name(Long recipeId, ThumbnailSize size, String version) {
+        return recipeId + "/" + size.key() + "-" + version + EXTENSION;
+    }
+    
+    private static String version(String imageUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(imageUrl.strip().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * A thumbnail
+     *
+     * @param file the JPEG on disk
+     * @param content the JPEG itself if it was just made, else null; send it rather than the
+     *                file, which later thumbnails may already have evicted
+     * @param version the {@link #imageVersion} of the image URL it was made from
+     */
+    public record Thumbnail(Path file, byte[] content, String version) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory bitset of the ingredients each recipe uses.
+ *
+ * Every distinct ingredient name (case-insensitive) is given a bit number the first time a
+ * recipe uses it; bit numbers are never reused, so a bitset stays valid while new names
+ * are added. Each recipe maps to an immutable {@code long[]} with one bit per ingredient,
+ * which lets plan searches compare ingredient coverage with word-wide AND/OR and
+ * {@link Long#bitCount(long)} instead of walking ingredient lists.
+ *
+ * Loaded once the application is ready and kept current from {@link RecipeChangedEvent}s,
+ * like {@link RecipeCatalog}. A reload fills a new map and swaps it in, so readers never
+ * see a half-loaded index, and {@link RebuildableSnapshot} replays changes that arrive
+ * during the reload.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeIngredientIndex {
+    
+    private static final long[] NO_BITS = new long[0];
+    
+    private final RecipeRepository recipeRepository;
+    
+    private final Map<String, Integer> bitsByName = new ConcurrentHashMap<>();
+    private final RebuildableSnapshot<Map<Long, long[]>, RecipeChangedEvent> bitsByRecipe =
+            new RebuildableSnapshot<>(this::load, this::apply);
+    
+    /**
+     * Reload the index from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, long[]> fresh = bitsByRecipe.rebuild();
+        log.debug("Recipe ingredient index rebuilt with {} recipes and {} ingredients",
+                fresh.size(), bitsByName.size());
+    }
+    
+    /**
+     * Apply a committed recipe change to the index
+     * @param event the change published by {@link RecipeService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        bitsByRecipe.apply(event);
+    }
+    
+    /**
+     * @param recipeId a recipe id
+     * @return the recipe's ingredient bits (do not modify), or an empty array if unknown
+     */
+    public long[] bitsOf(long recipeId) {
+        return bitsByRecipe.get().getOrDefault(recipeId, NO_BITS);
+    }
+    
+    /**
+     * Encode ingredient names without assigning new bits; names no recipe uses are skipped
+     * since they cannot overlap with any recipe anyway
+     * @param names ingredient names in any letter case
+     * @return the bitset of the known names
+     */
+    public long[] bitsOfNames(Collection<String> names) {
+        bitsByRecipe.get(); // loading assigns the bits of every name a recipe uses
+        long[] bits = new long[words()];
+        for (String name : names) {
+            Integer bit = name == null ? null : bitsByName.get(key(name));
+            if (bit != null && bit < bits.length * 64) {
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return bits;
+    }
+    
+    /**
+     * @return the number of {@code long} words needed to hold every bit assigned so far
+     */
+    public int words() {
+        return (bitsByName.size() + 63) >>> 6;
+    }
+    
+    private Map<Long, long[]> load() {
+        Map<Long, long[]> bits = new ConcurrentHashMap<>();
+        for (Recipe recipe : recipeRepository.findAllWithIngredients()) {
+            bits.put(recipe.getId(), encode(recipe));
+        }
+        return bits;
+    }
+    
+    private Map<Long, long[]> apply(Map<Long, long[]> bits, RecipeChangedEvent event) {
+        if (event.isDeletion()) {
+            bits.remove(event.recipeId());
+        } else {
+            bits.put(event.recipeId(), encode(event.recipe()));
+        }
+        return bits;
+    }
+    
+    private long[] encode(Recipe recipe) {
+        long[] bits = NO_BITS;
+        for (RecipeIngredient line : recipe.getIngredients()) {
+            if (line == null || line.getIngredientName() == null) {
+                continue;
+            }
+            int bit = bitOf(line.getIngredientName());
+            if (bit >>> 6 >= bits.length) {
+                bits = Arrays.copyOf(bits, (bit >>> 6) + 1);
+            }
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        return bits;
+    }
+    
+    private int bitOf(String name) {
+        String key = key(name);
+        Integer bit = bitsByName.get(key);
+        if (bit != null) {
+            return bit;
+        }
+        synchronized (bitsByName) {
+            return bitsByName.computeIfAbsent(key, k -> bitsByName.size());
+        }
+    }
+    
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,23 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+
+import java.util.List;
+
+/**
+ * One page of the recipes matching a filter
+ *
+ * @param recipes the recipes on this page
+ * @param page zero-based page number
+ * @param size the page size asked for
+ * @param total how many recipes match on all pages
+ */
+public record RecipePage(List<Recipe> recipes, int page, int size, int total) {
+    
+    public static final int DEFAULT_SIZE = 12;
+    public static final int MAX_SIZE = 100;
+    
+    public boolean hasNext() {
+        return (long) (page + 1) * size < total;
+    }
+}
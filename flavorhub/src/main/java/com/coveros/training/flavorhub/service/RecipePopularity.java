@@ -0,0 +1,140 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.RecipeStats;
+import com.coveros.training.flavorhub.repository.RecipeStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * View and cook counts per recipe, and which recipes are trending.
+ *
+ * Counting happens in memory on {@link LongAdder}s, which spread concurrent increments over
+ * several cells instead of contending on one, so a popular recipe does not serialize its
+ * readers. A background job adds what was counted to {@code recipe_stats} every
+ * {@code flush-interval-ms}, in one JDBC batch; a crash loses at most one interval of counts.
+ * Counters are reset as they are read, cell by cell, so an increment racing with a flush
+ * lands in this flush or the next one, never in neither.
+ *
+ * Trending recipes come from a {@link TrendingSketch} over the last {@code window-minutes},
+ * where a cook counts as much as {@value #COOK_WEIGHT} views.
+ */
+@Slf4j
+@Service
+public class RecipePopularity {
+    
+    static final int COOK_WEIGHT = 5;
+    static final int MAX_TRENDING = 50;
+    private static final int WINDOW_SLOTS = 12;
+    
+    private final RecipeStatsRepository recipeStatsRepository;
+    private final TrendingSketch trending;
+    private final Map<Long, Counters> pending = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public RecipePopularity(RecipeStatsRepository recipeStatsRepository,
+                            @Value("${flavorhub.recipe-stats.trending-window-minutes:60}") long windowMinutes) {
+        this(recipeStatsRepository, Duration.ofMinutes(windowMinutes).toMillis(), System::currentTimeMillis);
+    }
+    
+    RecipePopularity(RecipeStatsRepository recipeStatsRepository, long windowMillis, LongSupplier clock) {
+        this.recipeStatsRepository = recipeStatsRepository;
+        this.trending = new TrendingSketch(4 * MAX_TRENDING, windowMillis, WINDOW_SLOTS, clock);
+    }
+    
+    public void recordView(Long recipeId) {
+        counters(recipeId).views.increment();
+        trending.record(recipeId, 1);
+    }
+    
+    public void recordCook(Long recipeId) {
+        counters(recipeId).cooks.increment();
+        trending.record(recipeId, COOK_WEIGHT);
+    }
+    
+    /**
+     * @param limit how many recipes to return, at most {@value #MAX_TRENDING}
+     * @return ids of the recipes most viewed and cooked within the window, most first
+     */
+    public long[] trendingIds(int limit) {
+        return trending.top(Math.min(limit, MAX_TRENDING)).stream()
+                .mapToLong(TrendingSketch.Ranked::key)
+                .toArray();
+    }
+    
+    /**
+     * Write the counts gathered since the last flush. If the write fails they are added back
+     * for the next one.
+     * @return number of recipes whose counts were written
+     */
+    @Scheduled(fixedDelayString = "${flavorhub.recipe-stats.flush-interval-ms:5000}")
+    public int flush() {
+        List<RecipeStats> batch = new ArrayList<>();
+        pending.forEach((recipeId, counters) -> {
+            long views = counters.views.sumThenReset();
+            long cooks = counters.cooks.sumThenReset();
+            if (views != 0 || cooks != 0) {
+                batch.add(new RecipeStats(recipeId, views, cooks));
+            }
+        });
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            recipeStatsRepository.addCounts(batch);
+        } catch (RuntimeException e) {
+            for (RecipeStats counts : batch) {
+                Counters counters = counters(counts.getRecipeId());
+                counters.views.add(counts.getViewCount());
+                counters.cooks.add(counts.getCookCount());
+            }
+            log.error("Recipe stats flush failed, {} recipes' counts requeued", batch.size(), e);
+            return 0;
+        }
+        log.debug("Flushed view and cook counts of {} recipes", batch.size());
+        return batch.size();
+    }
+    
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+    
+    /**
+     * Drop a deleted recipe's counts
+     * @param event the change published by {@link RecipeService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.isDeletion()) {
+            pending.remove(event.recipeId());
+            trending.forget(event.recipeId());
+            recipeStatsRepository.deleteById(event.recipeId());
+        }
+    }
+    
+    private Counters counters(Long recipeId) {
+        return pending.computeIfAbsent(recipeId, id -> new Counters());
+    }
+    
+    /**
+     * Counts not yet written. Entries stay in the map once created (one per recipe), so an
+     * increment can never go to a counter that a flush has already dropped.
+     */
+    private static final class Counters {
+        final LongAdder views = new LongAdder();
+        final LongAdder cooks = new LongAdder();
+    }
+}
@@ -0,0 +1,54 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The {@link SingleFlight}s in front of the hottest recipe reads, so that identical
+ * concurrent requests share one database load.
+ *
+ * A recipe change makes later callers start new loads rather than join ones that may have
+ * read the recipe before the change committed.
+ */
+@Component
+public class RecipeReadCoalescer {
+    
+    private final SingleFlight<Long, Optional<Recipe>> byId = new SingleFlight<>("recipe-by-id");
+    private final SingleFlight<String, List<Recipe>> search = new SingleFlight<>("recipe-search");
+    private final SingleFlight<LocalDate, Recipe> recipeOfTheDay = new SingleFlight<>("recipe-of-the-day");
+    
+    public Optional<Recipe> byId(Long id, Supplier<Optional<Recipe>> loader) {
+        return byId.execute(id, loader);
+    }
+    
+    /**
+     * @param normalizedTerm the search term in the form that decides the result (e.g. lower case)
+     */
+    public List<Recipe> search(String normalizedTerm, Supplier<List<Recipe>> loader) {
+        return search.execute(normalizedTerm, loader);
+    }
+    
+    public Recipe recipeOfTheDay(LocalDate day, Supplier<Recipe> loader) {
+        return recipeOfTheDay.execute(day, loader);
+    }
+    
+    /**
+     * @return how many reads were collapsed into another caller's load, per kind of read
+     */
+    public List<SingleFlight.Stats> stats() {
+        return List.of(byId.stats(), search.stats(), recipeOfTheDay.stats());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        byId.forgetAll();
+        search.forgetAll();
+        recipeOfTheDay.forgetAll();
+    }
+}
@@ -0,0 +1,13 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+
+/**
+ * A recipe recommended from a user's pantry
+ *
+ * @param recipe the recipe
+ * @param matchedIngredients how many of its ingredients the pantry has
+ * @param totalIngredients how many distinct ingredients it uses
+ */
+public record RecipeRecommendation(Recipe recipe, int matchedIngredients, int totalIngredients) {
+}
@@ -1,16 +1,31 @@
 package com.coveros.training.flavorhub.service;
 
+import com.coveros.training.flavorhub.model.CodeDimension;
 import com.coveros.training.flavorhub.model.Recipe;
 import com.coveros.training.flavorhub.repository.RecipeRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing recipes
+ *
+ * The hottest reads (by id, search, recipe of the day) go through the
+ * {@link RecipeReadCoalescer}: identical concurrent calls share one database load. The shared recipes have their
+ * collections loaded before they are handed out, so no caller lazily loads through another
+ * request's session.
  */
 @Service
 @RequiredArgsConstructor
@@ -18,33 +33,160 @@ import java.util.Optional;
 public class RecipeService {
     
     private final RecipeRepository recipeRepository;
+    private final CodeDictionary codeDictionary;
+    private final RecipeCatalog recipeCatalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecipeReadCoalescer readCoalescer;
+    private final RecipeSimilarityIndex similarityIndex;
+    private final RecipePopularity recipePopularity;
     
+    @Transactional(readOnly = true)
     public List<Recipe> getAllRecipes() {
         return recipeRepository.findAll();
     }
     
+    @Transactional(readOnly = true)
     public Optional<Recipe> getRecipeById(Long id) {
-        return recipeRepository.findById(id);
+        return readCoalescer.byId(id, () -> recipeRepository.findById(id).map(RecipeService::initialized));
     }
     
+    @Transactional(readOnly = true)
     public List<Recipe> getRecipesByDifficulty(String difficultyLevel) {
-        return recipeRepository.findByDifficultyLevel(difficultyLevel);
+        // Resolve the stored spelling first so unknown values never reach the converter
+        return codeDictionary.canonical(CodeDimension.DIFFICULTY, difficultyLevel)
+                .map(recipeRepository::findByDifficultyLevel)
+                .orElseGet(List::of);
     }
     
+    @Transactional(readOnly = true)
     public List<Recipe> getRecipesByCuisine(String cuisineType) {
-        return recipeRepository.findByCuisineType(cuisineType);
+        return codeDictionary.canonical(CodeDimension.CUISINE, cuisineType)
+                .map(recipeRepository::findByCuisineType)
+                .orElseGet(List::of);
+    }
+    
+    /**
+     * Find recipes matching all of the given optional filters.
+     * The filter runs against the in-memory {@link RecipeCatalog}; only the matching
+     * recipes are loaded from the database, by primary key.
+     * @param filter the filter criteria
+     * @return the matching recipes, ordered by id or by total time as requested
+     */
+    @Transactional(readOnly = true)
+    public List<Recipe> findRecipes(RecipeFilter filter) {
+        return getRecipesByIds(recipeCatalog.findIds(filter));
+    }
+    
+    /**
+     * Find one page of the recipes matching a filter, in the same order as {@link #findRecipes}.
+     * Only the recipes on the page are loaded from the database.
+     * @param filter the filter criteria
+     * @param page zero-based page number
+     * @param size recipes per page, at most {@link RecipePage#MAX_SIZE}
+     * @return the page; past the last page it is empty
+     * @throws IllegalArgumentException if the page or size is out of range
+     */
+    @Transactional(readOnly = true)
+    public RecipePage findRecipePage(RecipeFilter filter, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > RecipePage.MAX_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + RecipePage.MAX_SIZE);
+        }
+        long[] ids = recipeCatalog.findIds(filter);
+        int from = (int) Math.min((long) page * size, ids.length);
+        int to = Math.min(from + size, ids.length);
+        return new RecipePage(getRecipesByIds(Arrays.copyOfRange(ids, from, to)), page, size, ids.length);
+    }
+    
+    /**
+     * @return the difficulty levels recipes can be filtered by
+     */
+    public List<String> getDifficultyLevels() {
+        return codeDictionary.values(CodeDimension.DIFFICULTY);
+    }
+    
+    /**
+     * @return the cuisine types recipes can be filtered by
+     */
+    public List<String> getCuisineTypes() {
+        return codeDictionary.values(CodeDimension.CUISINE);
     }
     
+    /**
+     * Count the recipes per filter value, given the filters already chosen
+     * @param filter the filters currently chosen
+     * @return the counts, from the in-memory catalog
+     */
+    public RecipeFacets getFacets(RecipeFilter filter) {
+        return recipeCatalog.facets(filter);
+    }
+    
+    /**
+     * @param limit how many recipes to return at most
+     * @return the recipes viewed and cooked most within the trending window, most popular first
+     */
+    @Transactional(readOnly = true)
+    public List<Recipe> getTrendingRecipes(int limit) {
+        return getRecipesByIds(recipePopularity.trendingIds(limit));
+    }
+    
+    /**
+     * Load recipes by id, keeping the order of the given ids
+     * @param ids recipe ids
+     * @return the recipes that still exist, in the same order
+     */
+    @Transactional(readOnly = true)
+    public List<Recipe> getRecipesByIds(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> idList = Arrays.stream(ids).boxed().toList();
+        Map<Long, Recipe> byId = recipeRepository.findAllById(idList).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        return idList.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    /**
+     * Find the recipes most similar to a recipe by ingredients and cuisine, using the
+     * {@link RecipeSimilarityIndex} instead of comparing with every recipe
+     * @param id the recipe to compare with
+     * @param limit how many recipes to return at most
+     * @return the similar recipes, most similar first, or empty if the recipe does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<Recipe>> getSimilarRecipes(Long id, int limit) {
+        if (!recipeRepository.existsById(id)) {
+            return Optional.empty();
+        }
+        long[] ids = similarityIndex.similarTo(id, limit).stream()
+                .mapToLong(RecipeSimilarityIndex.Neighbor::recipeId)
+                .toArray();
+        return Optional.of(getRecipesByIds(ids));
+    }
+    
+    @Transactional(readOnly = true)
     public List<Recipe> searchRecipes(String searchTerm) {
-        return recipeRepository.findByNameContainingIgnoreCase(searchTerm);
+        // The search ignores case, so the key can too
+        return readCoalescer.search(searchTerm.toLowerCase(Locale.ROOT), () ->
+                recipeRepository.findByNameContainingIgnoreCase(searchTerm).stream()
+                        .map(RecipeService::initialized)
+                        .toList());
     }
     
     public Recipe saveRecipe(Recipe recipe) {
-        return recipeRepository.save(recipe);
+        Recipe saved = recipeRepository.save(recipe);
+        eventPublisher.publishEvent(new RecipeChangedEvent(saved.getId(), saved));
+        return saved;
     }
     
     public void deleteRecipe(Long id) {
         recipeRepository.deleteById(id);
+        eventPublisher.publishEvent(new RecipeChangedEvent(id, null));
     }
     
     /**
@@ -53,11 +195,20 @@ public class RecipeService {
      */
     @Transactional(readOnly = true)
     public Recipe getRecipeOfTheDay() {
-        List<Recipe> allRecipes = recipeRepository.findAll();
-        if (allRecipes.isEmpty()) return null;
-        int dayOfYear = java.time.LocalDate.now().getDayOfYear();
-        int idx = dayOfYear % allRecipes.size();
-        return allRecipes.get(idx);
+        LocalDate today = LocalDate.now();
+        return readCoalescer.recipeOfTheDay(today, () -> {
+            List<Recipe> allRecipes = recipeRepository.findAll();
+            if (allRecipes.isEmpty()) return null;
+            int dayOfYear = today.getDayOfYear();
+            int idx = dayOfYear % allRecipes.size();
+            return initialized(allRecipes.get(idx));
+        });
+    }
+    
+    private static Recipe initialized(Recipe recipe) {
+        Hibernate.initialize(recipe.getIngredients());
+        Hibernate.initialize(recipe.getInstructions());
+        return recipe;
     }
     /**
      * Find recipes that can be made based on available ingredients in the pantry
@@ -0,0 +1,238 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds recipes with similar ingredients without comparing against every recipe.
+ *
+ * Each recipe is reduced to a set of tokens (its ingredient names, case-insensitive, plus its
+ * cuisine) and a MinHash signature of {@link #BANDS} x {@link #ROWS} hash minimums; two
+ * recipes agree on any one minimum with probability equal to the Jaccard similarity of their
+ * token sets. The signature is cut into bands, and recipes that agree on a whole band share
+ * a locality-sensitive hashing bucket. A lookup only scores the recipes in its own buckets,
+ * which with 32 bands of 2 rows finds most neighbours from about 0.2 similarity up.
+ * Candidates are ranked by their exact Jaccard similarity.
+ *
+ * Built in parallel once the application is ready and kept current from
+ * {@link RecipeChangedEvent}s, like {@link RecipeIngredientIndex}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeSimilarityIndex {
+    
+    static final int BANDS = 32;
+    static final int ROWS = 2;
+    private static final long[] SEEDS = new long[BANDS * ROWS];
+    
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < SEEDS.length; i++) {
+            seed = mix(seed);
+            SEEDS[i] = seed;
+        }
+    }
+    
+    private final RecipeRepository recipeRepository;
+    
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Map<Long, Set<Long>>> buckets = new ArrayList<>();
+    private volatile boolean loaded;
+    
+    {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.add(new ConcurrentHashMap<>());
+        }
+    }
+    
+    /**
+     * Reload the index from the database, computing signatures in parallel
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Recipe> recipes = recipeRepository.findAllWithIngredients();
+        Map<Long, Entry> fresh = new ConcurrentHashMap<>();
+        recipes.parallelStream().forEach(recipe -> fresh.put(recipe.getId(), Entry.of(recipe)));
+        entries.clear();
+        buckets.forEach(Map::clear);
+        fresh.forEach(this::add);
+        loaded = true;
+        log.debug("Recipe similarity index rebuilt with {} recipes", entries.size());
+    }
+    
+    /**
+     * Apply a committed recipe change to the index
+     * @param event the change published by {@link RecipeService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        ensureLoaded();
+        remove(event.recipeId());
+        if (!event.isDeletion()) {
+            add(event.recipeId(), Entry.of(event.recipe()));
+        }
+    }
+    
+    /**
+     * The recipes most similar to one recipe
+     * @param recipeId the recipe to compare with
+     * @param limit how many to return at most
+     * @return ids and similarities of the best matches, most similar first; empty for an unknown recipe
+     */
+    public List<Neighbor> similarTo(long recipeId, int limit) {
+        ensureLoaded();
+        Entry entry = entries.get(recipeId);
+        if (entry == null || entry.tokens.length == 0) {
+            return List.of();
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            candidates.addAll(buckets.get(band).getOrDefault(entry.bandKeys[band], Set.of()));
+        }
+        candidates.remove(recipeId);
+        List<Neighbor> neighbors = new ArrayList<>(candidates.size());
+        for (Long candidate : candidates) {
+            Entry other = entries.get(candidate);
+            if (other != null) {
+                neighbors.add(new Neighbor(candidate, jaccard(entry.tokens, other.tokens)));
+            }
+        }
+        return neighbors.stream()
+                .sorted(Comparator.comparingDouble(Neighbor::similarity).reversed()
+                        .thenComparingLong(Neighbor::recipeId))
+                .limit(limit)
+                .toList();
+    }
+    
+    private void add(long recipeId, Entry entry) {
+        entries.put(recipeId, entry);
+        if (entry.tokens.length == 0) {
+            return; // nothing to be similar by; would otherwise share buckets with every empty recipe
+        }
+        for (int band = 0; band < BANDS; band++) {
+            buckets.get(band).computeIfAbsent(entry.bandKeys[band], key -> ConcurrentHashMap.newKeySet()).add(recipeId);
+        }
+    }
+    
+    private void remove(long recipeId) {
+        Entry old = entries.remove(recipeId);
+        if (old == null || old.tokens.length == 0) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            buckets.get(band).computeIfPresent(old.bandKeys[band], (key, members) -> {
+                members.remove(recipeId);
+                return members.isEmpty() ? null : members;
+            });
+        }
+    }
+    
+    private void ensureLoaded() {
+        if (!loaded) {
+            // A request arrived before the application was ready
+            rebuild();
+        }
+    }
+    
+    /**
+     * Jaccard similarity of two sorted, duplicate-free token arrays
+     */
+    static double jaccard(long[] a, long[] b) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+    
+    /**
+     * SplitMix64 finalizer
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    private static long tokenHash(String token) {
+        // String.hashCode is only 32 bits, so mix in the length as well before spreading
+        return mix(((long) token.length() << 32) ^ (token.hashCode() & 0xFFFFFFFFL));
+    }
+    
+    /**
+     * A similar recipe
+     *
+     * @param recipeId its id
+     * @param similarity Jaccard similarity of the two recipes' ingredients and cuisine, 0 to 1
+     */
+    public record Neighbor(long recipeId, double similarity) {
+    }
+    
+    /**
+     * A recipe's sorted token hashes and the bucket key of each band of its signature
+     */
+    private record Entry(long[] tokens, long[] bandKeys) {
+        
+        static Entry of(Recipe recipe) {
+            Set<String> names = new HashSet<>();
+            for (RecipeIngredient line : recipe.getIngredients()) {
+                if (line != null && line.getIngredientName() != null && !line.getIngredientName().isBlank()) {
+                    names.add(line.getIngredientName().trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            if (names.isEmpty()) {
+                return new Entry(new long[0], new long[BANDS]);
+            }
+            if (recipe.getCuisineType() != null && !recipe.getCuisineType().isBlank()) {
+                // Not a legal ingredient name, so it cannot collide with one
+                names.add("\u0000cuisine:" + recipe.getCuisineType().trim().toLowerCase(Locale.ROOT));
+            }
+            long[] tokens = names.stream().mapToLong(RecipeSimilarityIndex::tokenHash).sorted().distinct().toArray();
+            
+            long[] signature = new long[SEEDS.length];
+            Arrays.fill(signature, Long.MAX_VALUE);
+            for (long token : tokens) {
+                for (int i = 0; i < SEEDS.length; i++) {
+                    signature[i] = Math.min(signature[i], mix(token ^ SEEDS[i]));
+                }
+            }
+            long[] bandKeys = new long[BANDS];
+            for (int band = 0; band < BANDS; band++) {
+                long key = band;
+                for (int row = 0; row < ROWS; row++) {
+                    key = mix(key ^ signature[band * ROWS + row]);
+                }
+                bandKeys[band] = key;
+            }
+            return new Entry(tokens, bandKeys);
+        }
+    }
+}
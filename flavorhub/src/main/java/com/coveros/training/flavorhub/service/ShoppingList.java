@@ -0,0 +1,13 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.List;
+
+/**
+ * Ingredients to buy for a user's meal plan
+ *
+ * @param userId the plan owner
+ * @param recipeCount number of planned recipes the list covers
+ * @param items the ingredients still needed, ordered by category and name
+ */
+public record ShoppingList(Long userId, int recipeCount, List<ShoppingListItem> items) {
+}
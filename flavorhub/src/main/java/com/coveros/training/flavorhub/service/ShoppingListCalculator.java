@@ -0,0 +1,150 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sums the ingredient lines of planned recipes and subtracts what the pantry already holds.
+ *
+ * Every line is reduced to a single {@code long} key, the ingredient id in the high bits
+ * and a per-calculation unit number in the low 16, and its quantity (converted to the
+ * unit's base by {@link UnitNormalizer}) is added to a {@link QuantityAccumulator}. The
+ * recipes are walked once, the pantry once, and objects are only created for the lines of
+ * the final list. Quantities in units that cannot be converted into each other (e.g.
+ * "whole" and "cups") stay on separate lines.
+ *
+ * Pure computation: callers load the recipes, ingredients and pantry up front.
+ */
+final class ShoppingListCalculator {
+    
+    private static final int UNIT_BITS = 16;
+    private static final int MAX_UNITS = 1 << UNIT_BITS;
+    private static final double EPSILON = 1e-9;
+    
+    private final Map<String, Ingredient> ingredientsByName = new HashMap<>();
+    private final Map<Long, Ingredient> ingredientsById = new HashMap<>();
+    // Recipe lines naming an ingredient that is not in the catalog get negative ids
+    private final Map<String, Long> unknownIds = new HashMap<>();
+    private final List<String> unknownNames = new ArrayList<>();
+    private final Map<String, Integer> unitNumbers = new HashMap<>();
+    private final List<String> baseUnits = new ArrayList<>();
+    
+    private ShoppingListCalculator(Collection<Ingredient> ingredients) {
+        for (Ingredient ingredient : ingredients) {
+            ingredientsByName.put(nameKey(ingredient.getName()), ingredient);
+            ingredientsById.put(ingredient.getId(), ingredient);
+        }
+    }
+    
+    /**
+     * Calculate what needs to be bought to cook the planned recipes
+     * @param recipes planned recipes with their ingredient lines; a recipe planned twice appears twice
+     * @param ingredients catalog ingredients named by the recipe lines
+     * @param pantry the user's pantry items with their ingredients
+     * @return the items still needed, ordered by category and name
+     */
+    static List<ShoppingListItem> calculate(List<Recipe> recipes, Collection<Ingredient> ingredients,
+                                            List<UserPantry> pantry) {
+        return new ShoppingListCalculator(ingredients).calculate(recipes, pantry);
+    }
+    
+    private List<ShoppingListItem> calculate(List<Recipe> recipes, List<UserPantry> pantry) {
+        QuantityAccumulator required = new QuantityAccumulator(recipes.size() * 8);
+        for (Recipe recipe : recipes) {
+            for (RecipeIngredient line : recipe.getIngredients()) {
+                if (line == null || line.getIngredientName() == null || line.getQuantity() == null) {
+                    continue;
+                }
+                UnitNormalizer.Unit unit = UnitNormalizer.normalize(line.getUnit());
+                required.add(key(ingredientId(line.getIngredientName()), unit), line.getQuantity() * unit.factor());
+            }
+        }
+        
+        QuantityAccumulator onHand = new QuantityAccumulator(pantry.size());
+        for (UserPantry item : pantry) {
+            if (item.getIngredient() == null || item.getIngredient().getId() == null || item.getQuantity() == null) {
+                continue;
+            }
+            UnitNormalizer.Unit unit = UnitNormalizer.normalize(item.getUnit());
+            onHand.add(key(item.getIngredient().getId(), unit), item.getQuantity() * unit.factor());
+        }
+        
+        List<ShoppingListItem> items = new ArrayList<>();
+        for (int slot = 0; slot < required.slots(); slot++) {
+            if (!required.isOccupied(slot)) {
+                continue;
+            }
+            long key = required.keyAt(slot);
+            double needed = required.valueAt(slot);
+            double available = onHand.get(key);
+            if (needed - available > EPSILON) {
+                items.add(item(key, needed, available));
+            }
+        }
+        items.sort(Comparator.comparing(ShoppingListItem::category, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(ShoppingListItem::ingredientName, String.CASE_INSENSITIVE_ORDER));
+        return items;
+    }
+    
+    private ShoppingListItem item(long key, double needed, double available) {
+        long ingredientId = key >> UNIT_BITS;
+        String base = baseUnits.get((int) (key & (MAX_UNITS - 1)));
+        UnitNormalizer.Unit display = UnitNormalizer.displayUnit(base, needed - available);
+        
+        String name;
+        String category = null;
+        if (ingredientId < 0) {
+            name = unknownNames.get((int) (-ingredientId - 1));
+        } else {
+            Ingredient ingredient = ingredientsById.get(ingredientId);
+            name = ingredient.getName();
+            category = ingredient.getCategory();
+        }
+        return new ShoppingListItem(name, category,
+                round((needed - available) / display.factor()), display.name(),
+                round(needed / display.factor()), round(available / display.factor()));
+    }
+    
+    private long ingredientId(String name) {
+        String nameKey = nameKey(name);
+        Ingredient ingredient = ingredientsByName.get(nameKey);
+        if (ingredient != null) {
+            return ingredient.getId();
+        }
+        return unknownIds.computeIfAbsent(nameKey, k -> {
+            unknownNames.add(name.trim());
+            return (long) -unknownNames.size();
+        });
+    }
+    
+    private long key(long ingredientId, UnitNormalizer.Unit unit) {
+        Integer number = unitNumbers.get(unit.base());
+        if (number == null) {
+            if (baseUnits.size() == MAX_UNITS) {
+                throw new IllegalStateException("Too many distinct units");
+            }
+            number = baseUnits.size();
+            baseUnits.add(unit.base());
+            unitNumbers.put(unit.base(), number);
+        }
+        return (ingredientId << UNIT_BITS) | number;
+    }
+    
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
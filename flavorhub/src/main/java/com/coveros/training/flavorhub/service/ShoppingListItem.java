@@ -0,0 +1,19 @@
+package com.coveros.training.flavorhub.service;
+
+/**
+ * One line of a shopping list. All quantities are expressed in {@code unit}.
+ *
+ * @param ingredientName the ingredient to buy
+ * @param category the ingredient category, or null if the ingredient is not in the catalog
+ * @param quantity how much to buy (required minus in pantry)
+ * @param unit the unit of all three quantities
+ * @param required how much the planned recipes need in total
+ * @param inPantry how much of it the pantry already holds
+ */
+public record ShoppingListItem(String ingredientName,
+                               String category,
+                               double quantity,
+                               String unit,
+                               double required,
+                               double inPantry) {
+}
@@ -0,0 +1,98 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical reads into one.
+ *
+ * The first caller for a key runs the load; callers arriving with the same key while it is
+ * running wait for it and get the same result (or exception) instead of loading again.
+ * Nothing is cached: once the load finishes the next caller starts a new one. Results are
+ * shared between threads, so callers must not modify them.
+ *
+ * @param <K> the normalized request key
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+    
+    private final String name;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    
+    /**
+     * @param name identifies these reads in {@link #stats()}
+     */
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Load a value, or wait for the identical load already in progress
+     * @param key the normalized key; equal keys must mean equal results
+     * @param loader the load, run by at most one caller per key at a time
+     * @return the loaded value
+     */
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            collapsed.increment();
+            return await(running);
+        }
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+    
+    /**
+     * Let callers from now on start new loads instead of joining the ones in progress, e.g.
+     * because the data changed and those loads may have read the old version
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+    
+    public Stats stats() {
+        return new Stats(name, calls.sum(), collapsed.sum(), inFlight.size());
+    }
+    
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // Rethrow the leader's exception as it was
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Coalescing counters since startup
+     *
+     * @param name which reads these are
+     * @param calls all calls
+     * @param collapsed calls that joined another caller's load instead of loading
+     * @param inFlight loads running right now
+     */
+    public record Stats(String name, long calls, long collapsed, int inFlight) {
+    }
+}
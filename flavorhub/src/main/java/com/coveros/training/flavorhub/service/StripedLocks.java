@@ -0,0 +1,47 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks shared out by key hash.
+ *
+ * Work on the same key always takes the same lock, so it runs one at a time; work on
+ * different keys usually takes different locks and runs in parallel. Memory stays constant
+ * however many keys there are, at the cost of two keys occasionally sharing a stripe.
+ */
+final class StripedLocks {
+    
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Run an action while holding the lock for a key
+     */
+    <T> T withLock(long key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    ReentrantLock lockFor(long key) {
+        int hash = Long.hashCode(key) * 0x9E3779B9; // spread sequential ids across stripes
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,41 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The sizes recipe images are served at. An image is scaled down, keeping its proportions,
+ * until it fits a square of {@link #maxPixels()}; smaller images are not enlarged.
+ */
+public enum ThumbnailSize {
+    
+    SMALL(320),
+    CARD(640),
+    LARGE(1280);
+    
+    private final int maxPixels;
+    
+    ThumbnailSize(int maxPixels) {
+        this.maxPixels = maxPixels;
+    }
+    
+    public int maxPixels() {
+        return maxPixels;
+    }
+    
+    /**
+     * @return the size's name in URLs and file names, e.g. {@code card}
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+    
+    public static Optional<ThumbnailSize> fromKey(String key) {
+        for (ThumbnailSize size : values()) {
+            if (size.key().equals(key)) {
+                return Optional.of(size);
+            }
+        }
+        return Optional.empty();
+    }
+}
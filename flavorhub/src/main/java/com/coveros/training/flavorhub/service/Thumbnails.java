@@ -0,0 +1,112 @@
+package com.coveros.training.flavorhub.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Scales images down and writes them as JPEG.
+ *
+ * Scaling halves the image repeatedly with bilinear interpolation before the last step,
+ * which looks close to an area-averaging filter at a fraction of its cost; one bilinear step
+ * from a large photo to a thumbnail would drop most of its pixels and alias. Transparent
+ * areas become white, as JPEG has no transparency.
+ */
+final class Thumbnails {
+    
+    private Thumbnails() {
+    }
+    
+    /**
+     * Decode an image, checking its size first: a few kilobytes of compressed PNG can
+     * declare an image that would not fit in the heap once decoded
+     * @param maxPixels the most pixels (width times height) to decode
+     * @return the image in a format ImageIO reads (JPEG, PNG, GIF, BMP, WBMP)
+     * @throws IOException if the bytes are not such an image or it has more than {@code maxPixels}
+     */
+    static BufferedImage read(byte[] source, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Not an image in a supported format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Image is " + width + "x" + height + ", more than " + maxPixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * @param maxPixels the longest side of the result; smaller images keep their size
+     * @param quality JPEG quality from 0 to 1
+     * @return the scaled image as a JPEG
+     */
+    static byte[] thumbnail(BufferedImage image, int maxPixels, float quality) throws IOException {
+        return jpeg(scale(image, maxPixels), quality);
+    }
+    
+    static BufferedImage scale(BufferedImage image, int maxPixels) {
+        double ratio = Math.min(1.0, (double) maxPixels / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage scaled = image;
+        int stepWidth = image.getWidth();
+        int stepHeight = image.getHeight();
+        do {
+            stepWidth = Math.max(width, stepWidth / 2);
+            stepHeight = Math.max(height, stepHeight / 2);
+            scaled = draw(scaled, stepWidth, stepHeight);
+        } while (stepWidth != width || stepHeight != height);
+        return scaled;
+    }
+    
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+    
+    private static byte[] jpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam parameters = writer.getDefaultWriteParam();
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parameters.setCompressionQuality(quality);
+            parameters.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
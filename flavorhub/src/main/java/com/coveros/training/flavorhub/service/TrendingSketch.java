@@ -0,0 +1,202 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate top-K of recipe events over a sliding time window.
+ *
+ * Counts go into a count-min sketch: {@link #DEPTH} rows of {@link #WIDTH} counters, each row
+ * with its own hash, and an estimate is the smallest of a key's counters. Estimates can only
+ * be too high, by a small fraction of all events, never too low. The window is a ring of
+ * per-slot sketches plus their running sum; when the oldest slot expires its counters are
+ * taken out of the sum and the slot is reused for the newest events.
+ *
+ * The sketch cannot list its keys, so a bounded set of candidates is kept beside it: a key
+ * joins once its estimate beats the weakest candidate, which it then replaces. Recording an
+ * event is lock-free unless it changes the candidates or rolls the window over.
+ */
+final class TrendingSketch {
+    
+    static final int DEPTH = 4;
+    static final int WIDTH = 1 << 11;
+    
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+    
+    private final int maxCandidates;
+    private final long slotMillis;
+    private final LongSupplier clock;
+    private final AtomicLongArray[] slots;
+    private final AtomicLongArray window = new AtomicLongArray(DEPTH * WIDTH);
+    private final Map<Long, Boolean> candidates = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private volatile int current;
+    private volatile long currentEndsAt;
+    private volatile long candidateFloor; // weakest candidate's estimate once the set is full
+    
+    /**
+     * @param maxCandidates keys tracked for the top-K; a few times the largest K asked for
+     * @param windowMillis how far back events count
+     * @param slotCount slots the window is split into; events leave the window one slot at a time
+     * @param clock current time in milliseconds
+     */
+    TrendingSketch(int maxCandidates, long windowMillis, int slotCount, LongSupplier clock) {
+        this.maxCandidates = maxCandidates;
+        this.slotMillis = Math.max(1, windowMillis / slotCount);
+        this.clock = clock;
+        this.slots = new AtomicLongArray[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new AtomicLongArray(DEPTH * WIDTH);
+        }
+        this.currentEndsAt = clock.getAsLong() + slotMillis;
+    }
+    
+    /**
+     * Count events for a key
+     * @param key the recipe id
+     * @param count how many events
+     */
+    void record(long key, long count) {
+        advance();
+        AtomicLongArray slot = slots[current];
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int cell = cell(row, key);
+            slot.addAndGet(cell, count);
+            estimate = Math.min(estimate, window.addAndGet(cell, count));
+        }
+        if (!candidates.containsKey(key) && (candidates.size() < maxCandidates || estimate > candidateFloor)) {
+            admit(key, estimate);
+        }
+    }
+    
+    /**
+     * @return estimated events for a key within the window
+     */
+    long estimate(long key) {
+        advance();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, window.get(cell(row, key)));
+        }
+        return estimate;
+    }
+    
+    /**
+     * @param limit how many keys to return at most
+     * @return the keys with the most events in the window, most first, ties by key
+     */
+    List<Ranked> top(int limit) {
+        advance();
+        Comparator<Ranked> order = Comparator.comparingLong(Ranked::count).reversed().thenComparingLong(Ranked::key);
+        // Min-heap on the same order, so the weakest of the best so far is at the head
+        PriorityQueue<Ranked> best = new PriorityQueue<>(order.reversed());
+        for (Long key : candidates.keySet()) {
+            long count = estimate(key);
+            if (count > 0) {
+                best.add(new Ranked(key, count));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Ranked> result = new ArrayList<>(best);
+        result.sort(order);
+        return result;
+    }
+    
+    /**
+     * Stop tracking a key, e.g. because the recipe was deleted. Its counts stay in the sketch
+     * until they leave the window.
+     */
+    void forget(long key) {
+        candidates.remove(key);
+    }
+    
+    private void admit(long key, long estimate) {
+        lock.lock();
+        try {
+            if (candidates.containsKey(key)) {
+                return;
+            }
+            if (candidates.size() >= maxCandidates) {
+                Long weakest = null;
+                long weakestEstimate = Long.MAX_VALUE;
+                for (Long candidate : candidates.keySet()) {
+                    long candidateEstimate = estimate(candidate);
+                    if (candidateEstimate < weakestEstimate) {
+                        weakest = candidate;
+                        weakestEstimate = candidateEstimate;
+                    }
+                }
+                if (weakest == null || weakestEstimate >= estimate) {
+                    candidateFloor = weakestEstimate;
+                    return;
+                }
+                candidates.remove(weakest);
+            }
+            candidates.put(key, Boolean.TRUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Expire slots whose time is up. The expiring slot becomes the current one, so an event
+     * recorded into it during the switch stays in both the slot and the window sum.
+     */
+    private void advance() {
+        long now = clock.getAsLong();
+        if (now < currentEndsAt) {
+            return;
+        }
+        lock.lock();
+        try {
+            long expired = 0;
+            while (now >= currentEndsAt && expired < slots.length) {
+                int next = (current + 1) % slots.length;
+                AtomicLongArray oldest = slots[next];
+                for (int cell = 0; cell < oldest.length(); cell++) {
+                    long count = oldest.getAndSet(cell, 0);
+                    if (count != 0) {
+                        window.addAndGet(cell, -count);
+                    }
+                }
+                current = next;
+                currentEndsAt += slotMillis;
+                expired++;
+            }
+            if (now >= currentEndsAt) {
+                // Idle for more than a whole window: everything has expired already
+                currentEndsAt = now + slotMillis;
+            }
+            candidateFloor = 0;
+            candidates.keySet().removeIf(key -> estimate(key) == 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private static int cell(int row, long key) {
+        long hash = key ^ SEEDS[row];
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return row * WIDTH + (int) (hash & (WIDTH - 1));
+    }
+    
+    /**
+     * A key and its estimated events in the window
+     */
+    record Ranked(long key, long count) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.coveros.training.flavorhub.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converts recipe and pantry quantities to a common base unit so they can be summed.
+ *
+ * Volumes are converted to teaspoons and weights to grams. Count-like units (whole,
+ * cloves, slices, ...) have no conversion and are only comparable with themselves;
+ * their spelling is normalized so "clove" and "Cloves" still add up.
+ */
+final class UnitNormalizer {
+    
+    static final String TEASPOONS = "teaspoons";
+    static final String GRAMS = "grams";
+    
+    private static final Map<String, Unit> UNITS = new HashMap<>();
+    
+    // Units used to present a base quantity, largest first
+    private static final List<Unit> VOLUME_DISPLAY = List.of(
+            new Unit("cups", TEASPOONS, 48), new Unit("tablespoons", TEASPOONS, 3), new Unit(TEASPOONS, TEASPOONS, 1));
+    private static final List<Unit> WEIGHT_DISPLAY = List.of(
+            new Unit("pounds", GRAMS, 453.59237), new Unit("ounces", GRAMS, 28.349523125), new Unit(GRAMS, GRAMS, 1));
+    
+    static {
+        volume(1, TEASPOONS, "teaspoon", "tsp");
+        volume(3, "tablespoons", "tablespoon", "tbsp", "tbs");
+        volume(6, "fluid ounces", "fluid ounce", "fl oz");
+        volume(48, "cups", "cup", "c");
+        volume(96, "pints", "pint", "pt");
+        volume(192, "quarts", "quart", "qt");
+        volume(768, "gallons", "gallon", "gal");
+        volume(0.202884136, "milliliters", "milliliter", "millilitres", "millilitre", "ml");
+        volume(202.884136, "liters", "liter", "litres", "litre", "l");
+        weight(1, GRAMS, "gram", "g");
+        weight(1000, "kilograms", "kilogram", "kg");
+        weight(28.349523125, "ounces", "ounce", "oz");
+        weight(453.59237, "pounds", "pound", "lbs", "lb");
+        count("whole", "each", "piece", "pieces", "");
+        count("cloves", "clove");
+        count("slices", "slice");
+        count("heads", "head");
+        count("stalks", "stalk");
+        count("cans", "can");
+    }
+    
+    private UnitNormalizer() {
+    }
+    
+    /**
+     * Look up how a unit converts to its base unit
+     * @param unit the unit as written (any case, may be null)
+     * @return the conversion; unknown units convert 1:1 to their own lower-cased spelling
+     */
+    static Unit normalize(String unit) {
+        String key = unit == null ? "" : unit.trim().toLowerCase(Locale.ROOT);
+        Unit known = UNITS.get(key);
+        return known != null ? known : new Unit(key, key, 1);
+    }
+    
+    /**
+     * Pick a readable unit for a quantity expressed in a base unit:
+     * the largest unit of which there is at least one whole measure
+     * @param base the base unit ({@link #TEASPOONS}, {@link #GRAMS} or a count unit)
+     * @param amount the quantity in the base unit
+     * @return the unit to display the quantity in
+     */
+    static Unit displayUnit(String base, double amount) {
+        List<Unit> ladder = TEASPOONS.equals(base) ? VOLUME_DISPLAY : GRAMS.equals(base) ? WEIGHT_DISPLAY : null;
+        if (ladder == null) {
+            return new Unit(base, base, 1);
+        }
+        for (Unit candidate : ladder) {
+            if (amount >= candidate.factor()) {
+                return candidate;
+            }
+        }
+        return ladder.get(ladder.size() - 1);
+    }
+    
+    private static void volume(double teaspoons, String name, String... aliases) {
+        register(new Unit(name, TEASPOONS, teaspoons), aliases);
+    }
+    
+    private static void weight(double grams, String name, String... aliases) {
+        register(new Unit(name, GRAMS, grams), aliases);
+    }
+    
+    private static void count(String name, String... aliases) {
+        register(new Unit(name, name, 1), aliases);
+    }
+    
+    private static void register(Unit unit, String... aliases) {
+        UNITS.put(unit.name(), unit);
+        for (String alias : aliases) {
+            UNITS.put(alias, unit);
+        }
+    }
+    
+    /**
+     * A unit and its size in a base unit
+     *
+     * @param name canonical unit name
+     * @param base the base unit quantities are summed in
+     * @param factor how many base units make one of this unit
+     */
+    record Unit(String name, String base, double factor) {
+    }
+}
@@ -2,43 +2,202 @@ package com.coveros.training.flavorhub.service;
 
 import lombok.RequiredArgsConstructor;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.MealPlan;
 import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.MealPlanRepository;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for managing user meal plans.
- * Handles business logic related to creating, updating, and retrieving meal plans for users.
- * // TODO: Implement methods for meal plan management when entity and repository are available.
+ * Handles business logic related to creating, updating, and retrieving meal plans for users,
+ * and turning a plan into a shopping list.
  */
 @Service
 @RequiredArgsConstructor
 public class UserMealPlanService {
 
-    // TODO: Inject required repositories when meal plan entity is created
+    static final int DEFAULT_RECIPE_COUNT = 7;
+    static final int MAX_RECIPE_COUNT = 21;
+    static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+    static final long MAX_TIME_BUDGET_MILLIS = 2_000;
+
+    private final MealPlanRepository mealPlanRepository;
+    private final RecipeRepository recipeRepository;
+    private final IngredientDictionary ingredientDictionary;
+    private final UserPantryRepository userPantryRepository;
+    private final RecipeCatalog recipeCatalog;
+    private final RecipeIngredientIndex recipeIngredientIndex;
 
     /**
-     * Creates a meal plan for a user.
+     * Creates a meal plan for a user, replacing any existing plan.
      * @param userId the user ID
      * @param mealPlanData a list of recipes that define the meal plan
+     * @throws IllegalArgumentException if a recipe has not been saved
      */
     @Transactional
     public void createMealPlan(Long userId, List<Recipe> mealPlanData) {
-        // TODO: Implement meal plan creation logic
-        throw new UnsupportedOperationException("Not yet implemented");
+        List<Long> recipeIds = mealPlanData.stream()
+                .map(recipe -> {
+                    if (recipe.getId() == null) {
+                        throw new IllegalArgumentException("Recipes must be saved before they can be planned");
+                    }
+                    return recipe.getId();
+                })
+                .toList();
+        saveMealPlan(userId, recipeIds);
+    }
+
+    /**
+     * Creates a meal plan for a user from recipe ids, replacing any existing plan.
+     * @param userId the user ID
+     * @param recipeIds the planned recipe ids in order; an id may repeat
+     * @return the planned recipes in plan order
+     * @throws IllegalArgumentException if a recipe does not exist
+     */
+    @Transactional
+    public List<Recipe> saveMealPlan(Long userId, List<Long> recipeIds) {
+        Map<Long, Recipe> recipesById = recipeRepository.findAllById(new HashSet<>(recipeIds)).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        List<Long> unknown = recipeIds.stream().filter(id -> !recipesById.containsKey(id)).distinct().toList();
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Recipes not found: " + unknown);
+        }
+
+        MealPlan mealPlan = mealPlanRepository.findByUserId(userId)
+                .orElseGet(() -> new MealPlan(userId, List.of()));
+        mealPlan.getRecipeIds().clear();
+        mealPlan.getRecipeIds().addAll(recipeIds);
+        mealPlanRepository.save(mealPlan);
+        return recipeIds.stream().map(recipesById::get).toList();
     }
 
     /**
      * Retrieves a user's meal plan.
+     * Recipes deleted since the plan was saved are left out.
      * @param userId the user ID
-     * @return the meal plan as a list of recipes
+     * @return the meal plan as a list of recipes, empty if the user has no plan
      */
+    @Transactional(readOnly = true)
     public List<Recipe> getMealPlanForUser(Long userId) {
-        // TODO: Implement retrieval logic
-        throw new UnsupportedOperationException("Not yet implemented");
+        List<Long> recipeIds = getPlannedRecipeIds(userId);
+        if (recipeIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Recipe> recipesById = recipeRepository.findAllById(new HashSet<>(recipeIds)).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        return recipeIds.stream().map(recipesById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Calculates what the user still needs to buy to cook every recipe in their plan:
+     * the summed, unit-normalized ingredient quantities minus what is already in the pantry.
+     *
+     * Runs a fixed number of bulk queries however long the plan is: the plan, the planned
+     * recipes with their ingredient lines, and the pantry. The ingredients the lines name,
+     * like the pantry's, come from the {@link IngredientDictionary}.
+     * @param userId the user ID
+     * @return the shopping list, empty if the user has no plan
+     */
+    @Transactional(readOnly = true)
+    public ShoppingList getShoppingList(Long userId) {
+        List<Long> recipeIds = getPlannedRecipeIds(userId);
+        if (recipeIds.isEmpty()) {
+            return new ShoppingList(userId, 0, List.of());
+        }
+
+        Map<Long, Recipe> recipesById = recipeRepository.findAllWithIngredientsByIdIn(new HashSet<>(recipeIds)).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        List<Recipe> planned = recipeIds.stream().map(recipesById::get).filter(Objects::nonNull).toList();
+
+        Set<String> ingredientNames = planned.stream()
+                .flatMap(recipe -> recipe.getIngredients().stream())
+                .filter(Objects::nonNull)
+                .map(RecipeIngredient::getIngredientName)
+                .filter(Objects::nonNull)
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        List<Ingredient> ingredients = ingredientNames.isEmpty()
+                ? List.of()
+                : ingredientDictionary.getByNames(ingredientNames);
+        List<UserPantry> pantry = userPantryRepository.findByUserId(userId);
+
+        return new ShoppingList(userId, planned.size(), ShoppingListCalculator.calculate(planned, ingredients, pantry));
     }
 
-    // Add more methods as needed for meal plan management
-}
\ No newline at end of file
+    /**
+     * Chooses recipes for a user automatically, favouring plans that use up what is in the
+     * pantry and need few other ingredients. Candidates are the recipes matching the
+     * request's constraints; the search itself runs on in-memory ingredient bitsets
+     * (see {@link MealPlanOptimizer}) and stops when the time budget is spent.
+     * @param userId the user ID
+     * @param request how many recipes to plan and which recipes qualify
+     * @return the best plan found
+     * @throws IllegalArgumentException if the recipe count or time budget is out of range
+     */
+    @Transactional
+    public GeneratedMealPlan generateMealPlan(Long userId, MealPlanRequest request) {
+        int recipeCount = request.recipeCount() != null ? request.recipeCount() : DEFAULT_RECIPE_COUNT;
+        long budgetMillis = request.timeBudgetMillis() != null ? request.timeBudgetMillis() : DEFAULT_TIME_BUDGET_MILLIS;
+        if (recipeCount < 1 || recipeCount > MAX_RECIPE_COUNT) {
+            throw new IllegalArgumentException("Recipe count must be between 1 and " + MAX_RECIPE_COUNT);
+        }
+        if (budgetMillis < 1 || budgetMillis > MAX_TIME_BUDGET_MILLIS) {
+            throw new IllegalArgumentException("Time budget must be between 1 and " + MAX_TIME_BUDGET_MILLIS + " ms");
+        }
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000;
+
+        long[] candidateIds = recipeCatalog.findIds(RecipeFilter.builder()
+                .difficulty(request.difficulty())
+                .cuisine(request.cuisine())
+                .maxTotalTime(request.maxTotalTime())
+                .build());
+        if (candidateIds.length == 0) {
+            return new GeneratedMealPlan(List.of(), 0, 0, 0, true, false);
+        }
+        long[][] candidateBits = new long[candidateIds.length][];
+        for (int i = 0; i < candidateIds.length; i++) {
+            candidateBits[i] = recipeIngredientIndex.bitsOf(candidateIds[i]);
+        }
+        List<String> pantryNames = userPantryRepository.findByUserId(userId).stream()
+                .filter(item -> item.getQuantity() == null || item.getQuantity() > 0)
+                .map(item -> item.getIngredient().getName())
+                .toList();
+        long[] pantryBits = recipeIngredientIndex.bitsOfNames(pantryNames);
+
+        MealPlanOptimizer.Result result = MealPlanOptimizer.optimize(candidateBits, pantryBits, recipeCount, deadline);
+
+        List<Long> chosenIds = Arrays.stream(result.recipes()).mapToObj(i -> candidateIds[i]).toList();
+        List<Recipe> recipes;
+        if (request.save()) {
+            recipes = saveMealPlan(userId, chosenIds);
+        } else {
+            Map<Long, Recipe> recipesById = recipeRepository.findAllById(chosenIds).stream()
+                    .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+            recipes = chosenIds.stream().map(recipesById::get).filter(Objects::nonNull).toList();
+        }
+        return new GeneratedMealPlan(recipes, result.pantryItemsUsed(), result.itemsToBuy(),
+                candidateIds.length, result.complete(), request.save());
+    }
+
+    private List<Long> getPlannedRecipeIds(Long userId) {
+        return mealPlanRepository.findByUserId(userId)
+                .map(MealPlan::getRecipeIds)
+                .orElseGet(List::of);
+    }
+}
@@ -1,56 +1,271 @@
 package com.coveros.training.flavorhub.service;
 
 import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
 import com.coveros.training.flavorhub.model.UserPantry;
 import com.coveros.training.flavorhub.repository.IngredientRepository;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
 import com.coveros.training.flavorhub.repository.UserPantryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * Service for managing user pantry
+ * Service for managing user pantry.
+ *
+ * Every change to a user's pantry, whether cooking, restocking, updating or deleting, runs
+ * under that user's in-memory lock until it has been written, so changes for one user never
+ * overwrite each other while other users proceed in parallel. Pantry rows live in the shard
+ * databases, which have their own transactions, so these methods do not open one.
  */
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class UserPantryService {
     
+    private static final double EPSILON = 1e-9;
+    private static final int LOCK_STRIPES = 64;
+    
     private final UserPantryRepository userPantryRepository;
     private final IngredientRepository ingredientRepository;
+    private final RecipeRepository recipeRepository;
+    private final PantryWriteBehindBuffer writeBehindBuffer;
+    private final PantryRecommendations recommendations;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private final StripedLocks userLocks = new StripedLocks(LOCK_STRIPES);
     
+    /**
+     * Get a user's pantry, including their quantity changes that are not yet flushed
+     */
+    @Transactional(readOnly = true)
     public List<UserPantry> getUserPantry(Long userId) {
-        return userPantryRepository.findByUserId(userId);
+        if (!writeBehindBuffer.isEnabled()) {
+            return userPantryRepository.findByUserId(userId);
+        }
+        return writeBehindBuffer.withPending(() -> userPantryRepository.findByUserId(userId));
     }
     
+    @Transactional(readOnly = true)
     public Optional<UserPantry> getPantryItemById(Long id) {
-        return userPantryRepository.findById(id);
+        if (!writeBehindBuffer.isEnabled()) {
+            return userPantryRepository.findById(id);
+        }
+        return writeBehindBuffer.withPending(() -> userPantryRepository.findById(id).stream().toList())
+            .stream()
+            .findFirst();
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserPantry addPantryItem(UserPantry pantryItem) {
-        return userPantryRepository.save(pantryItem);
+        return userLocks.withLock(pantryItem.getUserId(), () -> {
+            // An item with an id may replace one holding another ingredient
+            boolean replacing = pantryItem.getId() != null;
+            UserPantry saved = userPantryRepository.save(pantryItem);
+            eventPublisher.publishEvent(replacing || saved.getIngredient() == null
+                    ? PantryChangedEvent.wholePantry(saved.getUserId())
+                    : new PantryChangedEvent(saved.getUserId(), saved.getIngredient().getName(), true));
+            return saved;
+        });
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserPantry updatePantryItem(Long id, UserPantry updatedPantryItem) {
-        return userPantryRepository.findById(id)
+        Long userId = userPantryRepository.findById(id)
+            .map(UserPantry::getUserId)
+            .orElseThrow(() -> new RuntimeException("Pantry item not found with id: " + id));
+        // Read again under the lock: a cook or delete may have changed the item meanwhile
+        return userLocks.withLock(userId, () -> userPantryRepository.findById(id)
             .map(existing -> {
+                if (writeBehindBuffer.isEnabled()) {
+                    // The new quantity replaces any deltas queued before it
+                    writeBehindBuffer.discard(existing.getUserId(), existing.getIngredient().getId());
+                }
                 existing.setQuantity(updatedPantryItem.getQuantity());
                 existing.setUnit(updatedPantryItem.getUnit());
                 existing.setNotes(updatedPantryItem.getNotes());
                 return userPantryRepository.save(existing);
             })
-            .orElseThrow(() -> new RuntimeException("Pantry item not found with id: " + id));
+            .orElseThrow(() -> new RuntimeException("Pantry item not found with id: " + id)));
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deletePantryItem(Long id) {
-        userPantryRepository.deleteById(id);
+        userPantryRepository.findById(id).ifPresent(found -> userLocks.withLock(found.getUserId(), () -> {
+            userPantryRepository.findById(id).ifPresent(item -> {
+                if (writeBehindBuffer.isEnabled()) {
+                    writeBehindBuffer.discard(item.getUserId(), item.getIngredient().getId());
+                }
+                userPantryRepository.deleteById(id);
+                eventPublisher.publishEvent(new PantryChangedEvent(item.getUserId(), item.getIngredient().getName(), false));
+            });
+            return null;
+        }));
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void clearUserPantry(Long userId) {
-        userPantryRepository.deleteByUserId(userId);
+        userLocks.withLock(userId, () -> {
+            if (writeBehindBuffer.isEnabled()) {
+                writeBehindBuffer.discardUser(userId);
+            }
+            userPantryRepository.deleteByUserId(userId);
+            eventPublisher.publishEvent(PantryChangedEvent.wholePantry(userId));
+            return null;
+        });
+    }
+    
+    /**
+     * Recommend recipes by how much of them the user's pantry covers. Match counts are kept
+     * up to date by {@link PantryRecommendations} as pantries and recipes change, so this
+     * does not compare the pantry with every recipe.
+     * @param userId the user ID
+     * @param limit how many recipes to return at most
+     * @return the recipes covered best first, with how many of their ingredients are in the pantry
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeRecommendation> getRecommendations(Long userId, int limit) {
+        List<PantryRecommendations.Match> matches = recommendations.recommend(userId, limit);
+        Map<Long, Recipe> recipes = recipeRepository.findAllById(matches.stream().map(PantryRecommendations.Match::recipeId).toList())
+                .stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        return matches.stream()
+                .filter(match -> recipes.containsKey(match.recipeId()))
+                .map(match -> new RecipeRecommendation(recipes.get(match.recipeId()),
+                        match.matchedIngredients(), match.totalIngredients()))
+                .toList();
+    }
+    
+    /**
+     * Change the quantity of an ingredient in a user's pantry by a relative amount.
+     * Quantities never go below zero.
+     *
+     * With write-behind enabled the change is queued and coalesced with other changes to
+     * the same item, and written within one flush interval; otherwise it is written now
+     * with a single UPDATE.
+     * @param userId the user ID
+     * @param ingredientId the ingredient ID
+     * @param delta amount to add (negative to use up)
+     * @return true if the change was queued, false if it has already been written
+     * @throws IllegalArgumentException if the change is written now and the user has no such item
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean adjustQuantity(Long userId, Long ingredientId, double delta) {
+        return userLocks.withLock(userId, () -> {
+            if (writeBehindBuffer.isEnabled()) {
+                writeBehindBuffer.add(userId, ingredientId, delta);
+                return true;
+            }
+            if (userPantryRepository.addToQuantity(userId, ingredientId, delta) == 0) {
+                throw new IllegalArgumentException("Pantry item not found for ingredient id: " + ingredientId);
+            }
+            return false;
+        });
+    }
+    
+    /**
+     * Take everything a recipe needs out of a user's pantry in one step.
+     *
+     * Recipe quantities are converted to each pantry item's unit; an item never goes below
+     * zero, and ingredients the pantry cannot cover are reported rather than failing the
+     * whole operation. All deductions are written in one transaction on the user's shard (as
+     * one JDBC batch), or queued together when write-behind is enabled.
+     *
+     * Cooking and every other pantry change for the same user take the same in-memory lock
+     * until they have been written, so they run one at a time and never work from a stale
+     * pantry; other users are not blocked.
+     * @param userId the user ID
+     * @param recipeId the recipe to cook
+     * @return what was deducted, or empty if the recipe does not exist
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<CookResult> cookRecipe(Long userId, Long recipeId) {
+        return userLocks.withLock(userId, () -> cook(userId, recipeId));
+    }
+    
+    private Optional<CookResult> cook(Long userId, Long recipeId) {
+        List<Recipe> found = recipeRepository.findAllWithIngredientsByIdIn(List.of(recipeId));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Recipe recipe = found.get(0);
+        List<UserPantry> pantry = writeBehindBuffer.isEnabled()
+            ? writeBehindBuffer.withPending(() -> userPantryRepository.findByUserId(userId))
+            : userPantryRepository.findByUserId(userId);
+        Map<String, UserPantry> pantryByName = new HashMap<>();
+        Map<Long, UserPantry> pantryById = new HashMap<>();
+        for (UserPantry item : pantry) {
+            pantryByName.putIfAbsent(nameKey(item.getIngredient().getName()), item);
+            pantryById.put(item.getId(), item);
+        }
+        
+        // Remaining quantity per pantry item, in its own unit, as the recipe lines are applied
+        Map<Long, Double> remaining = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (RecipeIngredient line : recipe.getIngredients()) {
+            if (line == null || line.getIngredientName() == null || line.getQuantity() == null) {
+                continue;
+            }
+            UserPantry item = pantryByName.get(nameKey(line.getIngredientName()));
+            if (item == null) {
+                missing.add(line.getIngredientName());
+                continue;
+            }
+            UnitNormalizer.Unit needed = UnitNormalizer.normalize(line.getUnit());
+            UnitNormalizer.Unit held = UnitNormalizer.normalize(item.getUnit());
+            if (!needed.base().equals(held.base())) {
+                missing.add(line.getIngredientName());
+                continue;
+            }
+            double amount = line.getQuantity() * needed.factor() / held.factor();
+            double available = remaining.computeIfAbsent(item.getId(),
+                    id -> item.getQuantity() != null ? item.getQuantity() : 0.0);
+            if (amount > available + EPSILON) {
+                missing.add(line.getIngredientName());
+            }
+            remaining.put(item.getId(), Math.max(0, available - amount));
+        }
+        
+        List<CookResult.PantryDeduction> deductions = new ArrayList<>();
+        List<UserPantry> changed = new ArrayList<>();
+        remaining.forEach((itemId, left) -> {
+            UserPantry item = pantryById.get(itemId);
+            double before = item.getQuantity() != null ? item.getQuantity() : 0.0;
+            if (before - left <= EPSILON) {
+                return;
+            }
+            if (writeBehindBuffer.isEnabled()) {
+                writeBehindBuffer.add(userId, item.getIngredient().getId(), left - before);
+            } else {
+                item.setQuantity(left);
+                changed.add(item);
+            }
+            deductions.add(new CookResult.PantryDeduction(item.getIngredient().getName(),
+                    before - left, item.getUnit(), left));
+        });
+        if (!changed.isEmpty()) {
+            userPantryRepository.saveAll(userId, changed);
+        }
+        return Optional.of(new CookResult(recipe.getId(), recipe.getName(), deductions, List.copyOf(missing)));
+    }
+    
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
     }
     
     /**
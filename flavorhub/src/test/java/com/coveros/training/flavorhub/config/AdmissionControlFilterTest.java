@@ -0,0 +1,62 @@
+package com.coveros.training.flavorhub.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for holding admission slots until the response is complete
+ */
+class AdmissionControlFilterTest {
+    
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, clock::get);
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(limiter);
+    
+    @Test
+    void testDoFilter_WhenResponseIsAsync_ThenReleasesTheSlotWhenTheBodyIsWritten() throws Exception {
+        // Arrange
+        int limit = limiter.limit(EndpointClass.HEAVY);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/meal-plans/generate");
+        request.setAsyncSupported(true);
+        
+        // Act: the controller returns at once and the streamed body takes two seconds
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        int limitWhileStreaming = limiter.limit(EndpointClass.HEAVY);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        request.getAsyncContext().complete();
+        
+        // Assert: the slow response was sampled when it ended, not when the controller returned
+        assertEquals(limit, limitWhileStreaming);
+        assertEquals((int) (limit * ConcurrencyLimiter.BACKOFF), limiter.limit(EndpointClass.HEAVY));
+    }
+    
+    @Test
+    void testDoFilter_WhenAsyncResponseTimesOutAndCompletes_ThenReleasesTheSlotOnce() throws Exception {
+        // Arrange
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/meal-plans/generate");
+        first.setAsyncSupported(true);
+        filter.doFilter(first, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        MockAsyncContext context = (MockAsyncContext) first.getAsyncContext();
+        
+        // Act
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onTimeout(new AsyncEvent(context));
+        }
+        context.complete();
+        
+        // Assert: every slot of the class is free again, none was released twice
+        for (int i = 0; i < limiter.limit(EndpointClass.HEAVY); i++) {
+            assertTrue(limiter.acquire(EndpointClass.HEAVY).admitted());
+        }
+        assertFalse(limiter.acquire(EndpointClass.HEAVY).admitted());
+    }
+}
@@ -0,0 +1,121 @@
+package com.coveros.training.flavorhub.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for admission control limits and endpoint classes
+ */
+class ConcurrencyLimiterTest {
+    
+    private AtomicLong clock;
+    private ConcurrencyLimiter limiter;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_000_000_000L);
+        limiter = new ConcurrencyLimiter(10, clock::get);
+    }
+    
+    @Test
+    void testOf_WhenApiPaths_ThenClassifiesByCost() {
+        assertEquals(EndpointClass.DETAIL, EndpointClass.of("GET", "/api/recipes/42"));
+        assertEquals(EndpointClass.DETAIL, EndpointClass.of("GET", "/api/pantry"));
+        assertEquals(EndpointClass.PANTRY_WRITE, EndpointClass.of("PATCH", "/api/pantry/ingredients/3"));
+        assertEquals(EndpointClass.LIST, EndpointClass.of("GET", "/api/recipes"));
+        assertEquals(EndpointClass.LIST, EndpointClass.of("GET", "/api/recipes/search"));
+        assertEquals(EndpointClass.HEAVY, EndpointClass.of("POST", "/api/meal-plans/generate"));
+        assertEquals(EndpointClass.GENERAL, EndpointClass.of("PUT", "/api/recipes/42"));
+        assertNull(EndpointClass.of("GET", "/"));
+        assertNull(EndpointClass.of("POST", "/api/admin/pantry-shards/1/drain"));
+    }
+    
+    @Test
+    void testRelease_WhenResponsesAreSlow_ThenLimitBacksOffOncePerWindow() {
+        // Arrange
+        List<ConcurrencyLimiter.Permit> permits = acquire(EndpointClass.HEAVY, 4);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        
+        // Act: four slow responses at the same moment are one congestion signal
+        permits.forEach(ConcurrencyLimiter.Permit::release);
+        
+        // Assert
+        assertEquals((int) (4 * ConcurrencyLimiter.BACKOFF), limiter.limit(EndpointClass.HEAVY));
+    }
+    
+    @Test
+    void testRelease_WhenBusyAndFast_ThenLimitGrowsAdditively() {
+        // Arrange
+        limiter = new ConcurrencyLimiter(100, clock::get);
+        
+        // Act: three rounds of fast responses at the full limit of 16
+        for (int round = 0; round < 3; round++) {
+            acquire(EndpointClass.LIST, 16).forEach(ConcurrencyLimiter.Permit::release);
+        }
+        
+        // Assert: +1/limit per response while at least half the limit is in use
+        assertEquals(17, limiter.limit(EndpointClass.LIST));
+    }
+    
+    @Test
+    void testAcquire_WhenEndpointClassIsFull_ThenRejectsWithEndpointLimit() {
+        // Arrange
+        acquire(EndpointClass.HEAVY, 4);
+        
+        // Act
+        ConcurrencyLimiter.Admission admission = limiter.acquire(EndpointClass.HEAVY);
+        
+        // Assert
+        assertFalse(admission.admitted());
+        assertEquals(ConcurrencyLimiter.Rejection.ENDPOINT_LIMIT, admission.rejection());
+        assertTrue(admission.retryAfterSeconds() >= 1);
+        assertTrue(limiter.acquire(EndpointClass.DETAIL).admitted(), "other classes are unaffected");
+    }
+    
+    @Test
+    void testAcquire_WhenServerIsHalfFull_ThenShedsOnlyLowPriority() {
+        // Arrange: degradable classes may use half of the 10 server slots
+        acquire(EndpointClass.LIST, 5);
+        
+        // Act
+        ConcurrencyLimiter.Admission list = limiter.acquire(EndpointClass.LIST);
+        ConcurrencyLimiter.Admission detail = limiter.acquire(EndpointClass.DETAIL);
+        
+        // Assert
+        assertEquals(ConcurrencyLimiter.Rejection.SERVER_LIMIT, list.rejection());
+        assertTrue(detail.admitted());
+    }
+    
+    @Test
+    void testAcquire_WhenSlotFreedWhileWaiting_ThenAdmitsQueuedRequest() throws Exception {
+        // Arrange
+        List<ConcurrencyLimiter.Permit> permits = acquire(EndpointClass.DETAIL, 10);
+        CompletableFuture<ConcurrencyLimiter.Admission> queued =
+                CompletableFuture.supplyAsync(() -> limiter.acquire(EndpointClass.DETAIL));
+        Thread.sleep(50);
+        
+        // Act
+        permits.get(0).release();
+        
+        // Assert
+        assertTrue(queued.get(1, TimeUnit.SECONDS).admitted());
+    }
+    
+    private List<ConcurrencyLimiter.Permit> acquire(EndpointClass endpointClass, int count) {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ConcurrencyLimiter.Admission admission = limiter.acquire(endpointClass);
+            assertTrue(admission.admitted());
+            permits.add(admission.permit());
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,52 @@
+package com.coveros.training.flavorhub.config;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FlightRecorderProfiler
+ */
+class FlightRecorderProfilerTest {
+    
+    private final FlightRecorderProfiler profiler = new FlightRecorderProfiler("default", 60);
+    
+    @Test
+    void testRecord_WhenEventsHappen_ThenFileHoldsThem() throws Exception {
+        // Arrange
+        CompletableFuture<Path> recording = CompletableFuture.supplyAsync(() -> {
+            try {
+                return profiler.record(Duration.ofSeconds(2));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .noneMatch(running -> running.getState() == RecordingState.RUNNING)) {
+            Thread.sleep(10);
+        }
+        
+        // Act
+        new JfrEvents.RepositoryCall("RecipeRepository", "findAll").commit();
+        IllegalStateException busy = assertThrows(IllegalStateException.class, () -> profiler.record(Duration.ofMillis(100)));
+        Path file = recording.get();
+        
+        // Assert
+        try {
+            assertTrue(RecordingFile.readAllEvents(file).stream()
+                    .anyMatch(event -> event.getEventType().getName().equals("flavorhub.RepositoryCall")
+                            && event.getString("repository").equals("RecipeRepository")));
+        } finally {
+            Files.delete(file);
+        }
+        assertEquals("A recording is already running", busy.getMessage());
+    }
+}
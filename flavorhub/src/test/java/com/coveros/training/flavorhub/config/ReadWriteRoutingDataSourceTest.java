@@ -0,0 +1,126 @@
+package com.coveros.training.flavorhub.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for read/write routing and replica lag checks
+ */
+class ReadWriteRoutingDataSourceTest {
+    
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+    private Connection primaryConnection;
+    private Connection replica1Connection;
+    private Connection replica2Connection;
+    private ReadWriteRoutingDataSource router;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica1 = mock(DataSource.class);
+        replica2 = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replica1Connection = mock(Connection.class);
+        replica2Connection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        router = new ReadWriteRoutingDataSource(primary, List.of(replica1, replica2));
+        router.setUsable("replica-1", true);
+        router.setUsable("replica-2", true);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+    
+    @Test
+    void testGetConnection_WhenNotReadOnly_ThenUsesPrimary() throws SQLException {
+        assertSame(primaryConnection, router.getConnection());
+    }
+    
+    @Test
+    void testGetConnection_WhenReadOnly_ThenAlternatesReplicas() throws SQLException {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // Act
+        Connection first = router.getConnection();
+        Connection second = router.getConnection();
+        
+        // Assert
+        assertNotSame(first, second);
+        assertTrue(Set.of(replica1Connection, replica2Connection).containsAll(List.of(first, second)));
+    }
+    
+    @Test
+    void testGetConnection_WhenReplicasLag_ThenFallsBackToPrimary() throws SQLException {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        router.setUsable("replica-1", false);
+        router.setUsable("replica-2", false);
+        
+        // Act & Assert
+        assertSame(primaryConnection, router.getConnection());
+    }
+    
+    @Test
+    void testGetConnection_WhenReplicaRefuses_ThenUsesPrimaryAndTakesReplicaOutOfRotation() throws SQLException {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        router.setUsable("replica-2", false);
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        
+        // Act
+        Connection connection = router.getConnection();
+        
+        // Assert
+        assertSame(primaryConnection, connection);
+        assertFalse(router.isUsable("replica-1"));
+    }
+    
+    @Test
+    void testCheck_WhenReplicaHeartbeatIsOld_ThenReplicaIsNotUsed() {
+        // Arrange: the replica is a separate database whose heartbeat we control
+        DataSource primaryDb = new DriverManagerDataSource("jdbc:h2:mem:lag-primary;DB_CLOSE_DELAY=-1", "sa", "");
+        DataSource replicaDb = new DriverManagerDataSource("jdbc:h2:mem:lag-replica;DB_CLOSE_DELAY=-1", "sa", "");
+        DataSource missingTableDb = new DriverManagerDataSource("jdbc:h2:mem:lag-empty;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replicaDb);
+        replicaJdbc.execute("CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)");
+        replicaJdbc.update("INSERT INTO replication_heartbeat VALUES (1, 90000)");
+        ReadWriteRoutingDataSource lagRouter = new ReadWriteRoutingDataSource(primaryDb, List.of(replicaDb, missingTableDb));
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(lagRouter, primaryDb, 5_000, () -> 100_000L);
+        
+        // Act
+        monitor.check();
+        
+        // Assert
+        assertFalse(lagRouter.isUsable("replica-1"), "10 s behind with 5 s tolerance");
+        assertFalse(lagRouter.isUsable("replica-2"), "heartbeat cannot be read");
+        assertEquals(100_000L, new JdbcTemplate(primaryDb).queryForObject(
+                "SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class));
+        
+        // Act: the replica catches up
+        replicaJdbc.update("UPDATE replication_heartbeat SET beat_millis = 99000");
+        monitor.check();
+        
+        // Assert
+        assertTrue(lagRouter.isUsable("replica-1"));
+    }
+}
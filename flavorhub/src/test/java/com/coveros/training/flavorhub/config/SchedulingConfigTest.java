@@ -0,0 +1,31 @@
+package com.coveros.training.flavorhub.config;
+
+import com.coveros.training.flavorhub.controller.AdminController;
+import com.coveros.training.flavorhub.service.PantryWriteBehindBuffer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SchedulingConfig
+ */
+class SchedulingConfigTest {
+    
+    private final LazyInitializationExcludeFilter filter = SchedulingConfig.scheduledBeansStayEager();
+    
+    @Test
+    void testScheduledBeansStayEager_WhenBeanHasScheduledMethod_ThenExcludedFromLazyInitialization() {
+        // Act & Assert
+        assertTrue(filter.isExcluded("pantryWriteBehindBuffer", new RootBeanDefinition(), PantryWriteBehindBuffer.class));
+        assertTrue(filter.isExcluded("replicaLagMonitor", new RootBeanDefinition(), ReplicaLagMonitor.class));
+    }
+    
+    @Test
+    void testScheduledBeansStayEager_WhenBeanHasNoScheduledMethod_ThenMayBeLazy() {
+        // Act & Assert
+        assertFalse(filter.isExcluded("adminController", new RootBeanDefinition(), AdminController.class));
+        assertFalse(filter.isExcluded("unknown", new RootBeanDefinition(), null));
+    }
+}
@@ -0,0 +1,94 @@
+package com.coveros.training.flavorhub.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SqlStats, SqlFingerprint and SqlStatsDataSource
+ */
+class SqlStatsTest {
+    
+    @AfterEach
+    void tearDown() {
+        SqlStats.attributeTo(null);
+    }
+    
+    @Test
+    void testFingerprint_WhenStatementsDifferOnlyInValues_ThenSameShape() {
+        // Arrange
+        String first = "SELECT r.id FROM recipes r\n  WHERE r.name = 'Pasta' AND r.prep_time < 30 AND r.id IN (?, ?, ?)";
+        String second = "select r.id from recipes r where r.name = 'Tom''s soup' and r.prep_time < 5 and r.id in (?)";
+        
+        // Act
+        String firstShape = SqlFingerprint.of(first);
+        String secondShape = SqlFingerprint.of(second);
+        String rows = SqlFingerprint.of("insert into t1 (a, b) values (?, ?), (?, ?) /* batch */");
+        
+        // Assert
+        assertEquals("select r.id from recipes r where r.name = ? and r.prep_time < ? and r.id in (?...)", firstShape);
+        assertEquals(firstShape, secondShape);
+        assertEquals("insert into t1 (a, b) values (?...)", rows);
+    }
+    
+    @Test
+    void testWrap_WhenStatementsRun_ThenCountedPerShapeAndEndpoint() {
+        // Arrange
+        SqlStats stats = new SqlStats(true, 10_000, 100);
+        JdbcTemplate jdbc = new JdbcTemplate(stats.wrap(new DriverManagerDataSource("jdbc:h2:mem:sqlstats1;DB_CLOSE_DELAY=-1", "sa", "")));
+        jdbc.execute("create table items (id int primary key, name varchar(20))");
+        
+        // Act
+        SqlStats.attributeTo("ItemController.addItem");
+        jdbc.update("insert into items (id, name) values (?, ?)", 1, "Salt");
+        jdbc.update("insert into items (id, name) values (?, ?)", 2, "Pepper");
+        SqlStats.attributeTo(null);
+        jdbc.queryForList("select name from items where id = ?", String.class, 1);
+        List<SqlStats.Fingerprint> byCount = stats.top(10, SqlStats.Order.COUNT);
+        
+        // Assert
+        SqlStats.Fingerprint inserts = byCount.get(0);
+        assertEquals("insert into items (id, name) values (?...)", inserts.sql());
+        assertEquals("ItemController.addItem", inserts.endpoint());
+        assertEquals(2, inserts.count());
+        assertTrue(inserts.maxMillis() <= inserts.totalMillis());
+        assertTrue(byCount.stream().anyMatch(fingerprint -> fingerprint.endpoint().equals(SqlStats.BACKGROUND)
+                && fingerprint.sql().equals("select name from items where id = ?")));
+    }
+    
+    @Test
+    void testRecord_WhenTooManyShapes_ThenCountsNewOnesAsOther() {
+        // Arrange
+        SqlStats stats = new SqlStats(true, 10_000, 2);
+        
+        // Act
+        stats.record("select a from t1", 1_000, List.of());
+        stats.record("select b from t1", 1_000, List.of());
+        stats.record("select c from t1", 1_000, List.of());
+        stats.record("select d from t1", 1_000, List.of());
+        stats.record("select a from t1", 1_000, List.of());
+        List<SqlStats.Fingerprint> byCount = stats.top(10, SqlStats.Order.COUNT);
+        
+        // Assert
+        assertEquals(3, byCount.size());
+        assertEquals(2, byCount.stream().filter(fingerprint -> fingerprint.sql().equals(SqlStats.OTHER)).findFirst().orElseThrow().count());
+        assertEquals(2, byCount.stream().filter(fingerprint -> fingerprint.sql().equals("select a from t1")).findFirst().orElseThrow().count());
+    }
+    
+    @Test
+    void testWrap_WhenDisabled_ThenReturnsDataSourceItself() {
+        // Arrange
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:sqlstats2", "sa", "");
+        
+        // Act
+        Object wrapped = new SqlStats(false, 100, 100).wrap(dataSource);
+        
+        // Assert
+        assertSame(dataSource, wrapped);
+    }
+}
@@ -0,0 +1,118 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.config.JfrEvents;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.service.RecipeChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RecipeJsonCache
+ */
+class RecipeJsonCacheTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new BlackbirdModule())
+            .enable(SerializationFeature.INDENT_OUTPUT);
+    private final RecipeJsonCache jsonCache = new RecipeJsonCache(objectMapper);
+    
+    @Test
+    void testArray_WhenRecipesCached_ThenWritesSameJsonAsJackson() throws Exception {
+        // Arrange
+        List<Recipe> recipes = List.of(recipe(1L, "Pasta"), recipe(2L, "Soup"));
+        jsonCache.json(recipes.get(0), jsonCache.generation());
+        
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonCache.array(recipes, jsonCache.generation()).writeTo(out);
+        
+        // Assert
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(recipes)), objectMapper.readTree(out.toByteArray()));
+    }
+    
+    @Test
+    void testJson_WhenRecipeChanged_ThenSerializesNewVersion() {
+        // Arrange
+        Recipe recipe = recipe(1L, "Pasta");
+        byte[] first = jsonCache.json(recipe, jsonCache.generation());
+        
+        // Act
+        byte[] cached = jsonCache.json(recipe(1L, "Not looked at"), jsonCache.generation());
+        Recipe changed = recipe(1L, "Pasta al forno");
+        jsonCache.onRecipeChanged(new RecipeChangedEvent(1L, changed));
+        byte[] afterChange = jsonCache.json(changed, jsonCache.generation());
+        
+        // Assert
+        assertSame(first, cached);
+        assertTrue(new String(afterChange).contains("Pasta al forno"));
+    }
+    
+    @Test
+    void testJson_WhenLoadedBeforeChange_ThenNotStored() {
+        // Arrange
+        long loadedAt = jsonCache.generation();
+        Recipe stale = recipe(1L, "Pasta");
+        jsonCache.onRecipeChanged(new RecipeChangedEvent(1L, recipe(1L, "Pasta al forno")));
+        
+        // Act
+        byte[] staleJson = jsonCache.json(stale, loadedAt);
+        byte[] fresh = jsonCache.json(recipe(1L, "Pasta al forno"), jsonCache.generation());
+        
+        // Assert
+        assertTrue(new String(staleJson).contains("\"Pasta\""));
+        assertTrue(new String(fresh).contains("Pasta al forno"));
+    }
+    
+    @Test
+    void testJson_WhenRecording_ThenRecordsLookupsAndSerialization() throws Exception {
+        // Arrange
+        Recipe recipe = recipe(1L, "Pasta");
+        Path file = Files.createTempFile("recipe-json-cache", ".jfr");
+        
+        // Act
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrEvents.CacheLookup.class);
+            recording.enable(JfrEvents.Serialization.class);
+            recording.start();
+            jsonCache.json(recipe, jsonCache.generation());
+            jsonCache.json(recipe, jsonCache.generation());
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        
+        // Assert
+        List<Boolean> hits = events.stream()
+                .filter(event -> event.getEventType().getName().equals("flavorhub.CacheLookup"))
+                .map(event -> event.getBoolean("hit"))
+                .toList();
+        RecordedEvent serialization = events.stream()
+                .filter(event -> event.getEventType().getName().equals("flavorhub.Serialization"))
+                .findFirst().orElseThrow();
+        assertEquals(List.of(false, true), hits);
+        assertEquals(1, serialization.getInt("items"));
+        assertTrue(serialization.getLong("bytes") > 0);
+    }
+    
+    private static Recipe recipe(Long id, String name) {
+        Recipe recipe = new Recipe(name, "A " + name, 10, 20, 4, "Easy", "Italian");
+        recipe.setId(id);
+        recipe.getIngredients().add(new RecipeIngredient("Garlic", 2.0, "cloves", "minced"));
+        recipe.getInstructions().add("Cook the " + name);
+        return recipe;
+    }
+}
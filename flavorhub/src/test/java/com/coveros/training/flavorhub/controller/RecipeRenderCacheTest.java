@@ -0,0 +1,173 @@
+package com.coveros.training.flavorhub.controller;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.service.RecipeChangedEvent;
+import com.coveros.training.flavorhub.service.RecipeImageService;
+import com.coveros.training.flavorhub.service.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RecipeRenderCache
+ */
+class RecipeRenderCacheTest {
+    
+    private final ITemplateEngine templateEngine = mock(ITemplateEngine.class);
+    private final RecipeRenderCache renderCache = new RecipeRenderCache(templateEngine, mock(RecipeImageService.class),
+            new MockServletContext());
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final AtomicInteger renders = new AtomicInteger();
+    
+    RecipeRenderCacheTest() {
+        when(templateEngine.process(eq("fragments/recipe-card"), anySet(), any(IContext.class)))
+                .thenAnswer(invocation -> {
+                    Recipe recipe = (Recipe) invocation.<IContext>getArgument(2).getVariable("recipe");
+                    return "<div>" + recipe.getName() + " #" + renders.incrementAndGet() + "</div>";
+                });
+    }
+    
+    @Test
+    void testCard_WhenRecipeUnchanged_ThenRendersOnce() {
+        // Arrange
+        Recipe recipe = recipe(1L, "Pasta");
+        
+        // Act
+        String first = renderCache.card(recipe, renderCache.generation(), request, response);
+        String second = renderCache.card(recipe, renderCache.generation(), request, response);
+        
+        // Assert
+        assertEquals("<div>Pasta #1</div>", first);
+        assertSame(first, second);
+        verify(templateEngine, times(1)).process(eq("fragments/recipe-card"), eq(Set.of("recipe-card")), any(IContext.class));
+    }
+    
+    @Test
+    void testCard_WhenRecipeChanged_ThenRendersNewVersion() {
+        // Arrange
+        Recipe recipe = recipe(1L, "Pasta");
+        Recipe other = recipe(2L, "Soup");
+        renderCache.card(recipe, renderCache.generation(), request, response);
+        String otherCard = renderCache.card(other, renderCache.generation(), request, response);
+        
+        // Act
+        recipe.setName("Better Pasta");
+        renderCache.onRecipeChanged(new RecipeChangedEvent(1L, recipe));
+        String changed = renderCache.card(recipe, renderCache.generation(), request, response);
+        
+        // Assert
+        assertEquals("<div>Better Pasta #3</div>", changed);
+        assertSame(otherCard, renderCache.card(other, renderCache.generation(), request, response));
+    }
+    
+    @Test
+    void testCard_WhenRecipeChangesDuringRender_ThenResultIsNotCached() {
+        // Arrange
+        Recipe recipe = recipe(1L, "Pasta");
+        long loadedAt = renderCache.generation();
+        
+        // Act - another recipe changes after this one was loaded
+        renderCache.onRecipeChanged(new RecipeChangedEvent(2L, null));
+        renderCache.card(recipe, loadedAt, request, response);
+        String next = renderCache.card(recipe, renderCache.generation(), request, response);
+        
+        // Assert
+        assertEquals("<div>Pasta #2</div>", next);
+    }
+    
+    @Test
+    void testHomePage_WhenAnonymous_ThenReusedUntilRecipeChanges() {
+        // Arrange
+        AtomicInteger pages = new AtomicInteger();
+        
+        // Act
+        String first = renderCache.homePage(renderCache.generation(), request, () -> "page " + pages.incrementAndGet());
+        String second = renderCache.homePage(renderCache.generation(), request, () -> "page " + pages.incrementAndGet());
+        renderCache.onRecipeChanged(new RecipeChangedEvent(1L, null));
+        String third = renderCache.homePage(renderCache.generation(), request, () -> "page " + pages.incrementAndGet());
+        
+        // Assert
+        assertEquals("page 1", first);
+        assertEquals("page 1", second);
+        assertEquals("page 2", third);
+    }
+    
+    @Test
+    void testHomePage_WhenRequestHasSession_ThenAlwaysRendered() {
+        // Arrange
+        AtomicInteger pages = new AtomicInteger();
+        renderCache.homePage(renderCache.generation(), request, () -> "page " + pages.incrementAndGet());
+        MockHttpServletRequest withSession = new MockHttpServletRequest();
+        withSession.getSession(true);
+        
+        // Act
+        String page = renderCache.homePage(renderCache.generation(), withSession, () -> "page " + pages.incrementAndGet());
+        
+        // Assert
+        assertEquals("page 2", page);
+        assertEquals("page 1", renderCache.homePage(renderCache.generation(), request, () -> "page " + pages.incrementAndGet()));
+    }
+    
+    @Test
+    void testCard_WhenImageServiceCannotReadTheImage_ThenLinksTheImageUrlItself(@TempDir Path cacheDirectory) {
+        // Arrange: the default image properties allow no remote hosts and set no origin directory
+        RecipeRenderCache defaults = realCards(new RecipeImageService(mock(RecipeService.class), cacheDirectory,
+                256, 60, "", List.of(), 10, 25, 0.8f, 5000));
+        RecipeRenderCache allowingTheHost = realCards(new RecipeImageService(mock(RecipeService.class), cacheDirectory,
+                256, 60, "", List.of("images.example.com"), 10, 25, 0.8f, 5000));
+        Recipe remote = recipe(1L, "Pasta");
+        remote.setImageUrl("https://images.example.com/pasta.jpg");
+        Recipe local = recipe(2L, "Soup");
+        local.setImageUrl("soup.jpg");
+        
+        // Act
+        String remoteCard = defaults.card(remote, defaults.generation(), request, response);
+        String localCard = defaults.card(local, defaults.generation(), request, response);
+        String thumbnailCard = allowingTheHost.card(remote, allowingTheHost.generation(), request, response);
+        String noImageCard = defaults.card(recipe(3L, "Salad"), defaults.generation(), request, response);
+        
+        // Assert
+        assertTrue(remoteCard.contains("src=\"https://images.example.com/pasta.jpg\""), remoteCard);
+        assertFalse(remoteCard.contains("/img/"));
+        assertTrue(localCard.contains("src=\"soup.jpg\""));
+        assertFalse(localCard.contains("/img/"));
+        assertTrue(thumbnailCard.contains("/img/1/card?v="));
+        assertFalse(thumbnailCard.contains("src=\"https://images.example.com"));
+        assertTrue(noImageCard.contains("recipe-card-image-placeholder"));
+        assertFalse(noImageCard.contains("<img"));
+    }
+    
+    private static RecipeRenderCache realCards(RecipeImageService recipeImageService) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return new RecipeRenderCache(engine, recipeImageService, new MockServletContext());
+    }
+    
+    private static Recipe recipe(Long id, String name) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setName(name);
+        return recipe;
+    }
+}
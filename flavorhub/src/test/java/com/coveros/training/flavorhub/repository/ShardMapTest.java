@@ -0,0 +1,83 @@
+package com.coveros.training.flavorhub.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ShardMap
+ */
+class ShardMapTest {
+    
+    private static final int USERS = 30_000;
+    
+    @Test
+    void testShardFor_WhenManyUsers_ThenSpreadsThemEvenly() {
+        // Arrange
+        ShardMap map = ShardMap.of(List.of(0, 1, 2));
+        int[] users = new int[3];
+        
+        // Act
+        for (long userId = 1; userId <= USERS; userId++) {
+            users[map.shardFor(userId)]++;
+        }
+        
+        // Assert
+        for (int count : users) {
+            assertEquals(USERS / 3.0, count, USERS * 0.05);
+        }
+    }
+    
+    @Test
+    void testShardFor_WhenFewSmallUserIds_ThenStillUsesEveryShard() {
+        // Arrange
+        ShardMap map = ShardMap.of(List.of(0, 1, 2));
+        Set<Integer> used = new HashSet<>();
+        
+        // Act
+        for (long userId = 1; userId <= 30; userId++) {
+            used.add(map.shardFor(userId));
+        }
+        
+        // Assert
+        assertEquals(Set.of(0, 1, 2), used);
+    }
+    
+    @Test
+    void testWith_WhenShardAdded_ThenOnlyItsShareOfUsersMoveAndOnlyToIt() {
+        // Arrange
+        ShardMap before = ShardMap.of(List.of(0, 1, 2));
+        ShardMap after = before.with(3);
+        int moved = 0;
+        
+        // Act
+        for (long userId = 1; userId <= USERS; userId++) {
+            int to = after.shardFor(userId);
+            if (to != before.shardFor(userId)) {
+                assertEquals(3, to);
+                moved++;
+            }
+        }
+        
+        // Assert
+        assertEquals(USERS / 4.0, moved, USERS * 0.05);
+    }
+    
+    @Test
+    void testWithout_WhenShardRemoved_ThenOnlyItsUsersMove() {
+        // Arrange
+        ShardMap before = ShardMap.of(List.of(0, 1, 2));
+        ShardMap after = before.without(1);
+        
+        // Act & Assert
+        assertEquals(Set.of(0, 2), after.shards());
+        for (long userId = 1; userId <= USERS; userId++) {
+            int from = before.shardFor(userId);
+            assertEquals(from == 1, after.shardFor(userId) != from);
+        }
+    }
+}
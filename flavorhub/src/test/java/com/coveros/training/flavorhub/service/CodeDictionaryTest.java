@@ -0,0 +1,121 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.CodeDimension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the code dictionary, with two instances sharing one in-memory H2 database
+ */
+class CodeDictionaryTest {
+    
+    private DriverManagerDataSource dataSource;
+    private CodeDictionary instanceA;
+    private CodeDictionary instanceB;
+    
+    @BeforeEach
+    void setUp() {
+        dataSource = spy(new DriverManagerDataSource("jdbc:h2:mem:codes-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        new JdbcTemplate(dataSource).execute("CREATE TABLE dictionary_codes ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, dimension VARCHAR(16) NOT NULL, code SMALLINT NOT NULL, "
+                + "lookup_key VARCHAR(255) NOT NULL, display_value VARCHAR(255) NOT NULL, "
+                + "CONSTRAINT uk_dictionary_codes_code UNIQUE (dimension, code), "
+                + "CONSTRAINT uk_dictionary_codes_lookup_key UNIQUE (dimension, lookup_key))");
+        instanceA = new CodeDictionary(dataSource);
+        instanceB = new CodeDictionary(dataSource);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+    }
+    
+    @Test
+    void testEncode_WhenValuesRegistered_ThenDecodeReturnsTheFirstSpelling() {
+        // Act
+        int italian = instanceA.encode(CodeDimension.CUISINE, " Italian ");
+        int again = instanceA.encode(CodeDimension.CUISINE, "ITALIAN");
+        int mexican = instanceA.encode(CodeDimension.CUISINE, "Mexican");
+        int cups = instanceA.encode(CodeDimension.UNIT, "cups");
+        
+        // Assert
+        assertEquals(1, italian);
+        assertEquals(italian, again);
+        assertEquals(2, mexican);
+        assertEquals(1, cups, "each dimension numbers its own codes");
+        assertEquals("Italian", instanceA.decode(CodeDimension.CUISINE, italian));
+        assertNull(instanceA.decode(CodeDimension.CUISINE, CodeDictionary.NO_CODE));
+        assertEquals(List.of("Italian", "Mexican"), instanceA.values(CodeDimension.CUISINE));
+        assertEquals("Italian", instanceB.canonical(CodeDimension.CUISINE, "italian").orElseThrow());
+        assertEquals(CodeDictionary.NO_CODE, instanceB.codeOf(CodeDimension.CUISINE, "Thai"));
+    }
+    
+    @Test
+    void testEncode_WhenAnotherInstanceTookTheNextCode_ThenRegistersUnderTheFollowingOne() {
+        // Arrange: both instances have loaded the table and both think code 1 is free
+        instanceA.values(CodeDimension.CUISINE);
+        instanceB.values(CodeDimension.CUISINE);
+        int italian = instanceA.encode(CodeDimension.CUISINE, "Italian");
+        
+        // Act
+        int mexican = instanceB.encode(CodeDimension.CUISINE, "Mexican");
+        int italianOnB = instanceB.encode(CodeDimension.CUISINE, "italian");
+        
+        // Assert
+        assertEquals(1, italian);
+        assertEquals(2, mexican);
+        assertEquals(italian, italianOnB);
+        assertEquals("Mexican", instanceA.decode(CodeDimension.CUISINE, mexican));
+        assertEquals("Italian", instanceB.decode(CodeDimension.CUISINE, italian));
+    }
+    
+    @Test
+    void testEncode_WhenAnotherInstanceRegisteredTheSameValue_ThenUsesItsCode() {
+        // Arrange
+        instanceB.values(CodeDimension.DIFFICULTY);
+        instanceA.encode(CodeDimension.DIFFICULTY, "Easy");
+        instanceA.encode(CodeDimension.DIFFICULTY, "Hard");
+        
+        // Act
+        int hard = instanceB.encode(CodeDimension.DIFFICULTY, "HARD");
+        
+        // Assert
+        assertEquals(2, hard);
+        assertEquals(List.of("Easy", "Hard"), instanceB.values(CodeDimension.DIFFICULTY));
+    }
+    
+    @Test
+    void testDecode_WhenCodeIsUnknown_ThenReloadsOnceAndFails() throws Exception {
+        // Arrange
+        instanceA.encode(CodeDimension.UNIT, "cups");
+        clearInvocations(dataSource);
+        
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> instanceA.decode(CodeDimension.UNIT, 42));
+        assertThrows(IllegalStateException.class, () -> instanceA.decode(CodeDimension.UNIT, 42));
+        assertThrows(IllegalStateException.class, () -> instanceA.decode(CodeDimension.UNIT, 42));
+        verify(dataSource, times(1)).getConnection();
+    }
+    
+    @Test
+    void testDecode_WhenAnotherInstanceRegisteredTheCode_ThenReloadsAndFindsIt() {
+        // Arrange
+        instanceA.values(CodeDimension.UNIT);
+        int grams = instanceB.encode(CodeDimension.UNIT, "grams");
+        
+        // Act
+        String decoded = instanceA.decode(CodeDimension.UNIT, grams);
+        
+        // Assert
+        assertEquals("grams", decoded);
+    }
+}
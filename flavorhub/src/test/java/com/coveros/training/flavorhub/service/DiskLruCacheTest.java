@@ -0,0 +1,173 @@
+package com.coveros.training.flavorhub.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the size-bounded disk cache
+ */
+class DiskLruCacheTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void testPut_WhenOverTheLimit_ThenRemovesLeastRecentlyUsed() throws Exception {
+        // Arrange
+        DiskLruCache cache = new DiskLruCache(directory, 30);
+        cache.put("1/card.jpg", new byte[10]);
+        cache.put("2/card.jpg", new byte[10]);
+        cache.put("3/card.jpg", new byte[10]);
+        cache.get("1/card.jpg");
+        
+        // Act
+        cache.put("4/card.jpg", new byte[10]);
+        
+        // Assert
+        assertNotNull(cache.get("1/card.jpg"));
+        assertNull(cache.get("2/card.jpg"));
+        assertFalse(Files.exists(directory.resolve("2/card.jpg")));
+        assertEquals(30, cache.totalBytes());
+    }
+    
+    @Test
+    void testPut_WhenEntryAloneIsOverTheLimit_ThenKeepsItUntilTheNextPut() throws Exception {
+        // Arrange
+        DiskLruCache cache = new DiskLruCache(directory, 30);
+        cache.put("1/card.jpg", new byte[10]);
+        
+        // Act
+        Path large = cache.put("2/large.jpg", new byte[50]);
+        cache.put("3/card.jpg", new byte[10]);
+        
+        // Assert
+        assertEquals(directory.resolve("2/large.jpg"), large);
+        assertNull(cache.get("1/card.jpg"));
+        assertNull(cache.get("2/large.jpg"));
+        assertNotNull(cache.get("3/card.jpg"));
+    }
+    
+    @Test
+    void testNew_WhenDirectoryHasFiles_ThenTakesThemOverOldestFirst() throws Exception {
+        // Arrange
+        Files.createDirectories(directory.resolve("1"));
+        Files.write(directory.resolve("1/old.jpg"), new byte[20]);
+        Files.write(directory.resolve("1/new.jpg"), new byte[20]);
+        Files.write(directory.resolve("1/partial.jpg123.tmp"), new byte[5]);
+        Files.setLastModifiedTime(directory.resolve("1/old.jpg"), FileTime.from(Instant.parse("2024-01-01T00:00:00Z")));
+        
+        // Act
+        DiskLruCache cache = new DiskLruCache(directory, 30);
+        
+        // Assert
+        assertNull(cache.get("1/old.jpg"));
+        assertNotNull(cache.get("1/new.jpg"));
+        assertFalse(Files.exists(directory.resolve("1/partial.jpg123.tmp")));
+        assertEquals(20, cache.totalBytes());
+    }
+    
+    @Test
+    void testGet_WhenPutsEvictWhileReadsAreInFlight_ThenReturnedFilesStayReadable() throws Exception {
+        // Arrange
+        DiskLruCache cache = new DiskLruCache(directory, 100, Duration.ofMinutes(1));
+        cache.put("0/card.jpg", new byte[10]);
+        AtomicInteger written = new AtomicInteger(1);
+        AtomicInteger reads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        
+        // Act
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 3; reader++) {
+                readers.add(executor.submit(() -> {
+                    while (written.get() < 500) {
+                        Path file = cache.get((written.get() - 1) + "/card.jpg");
+                        if (file != null) {
+                            Thread.yield();
+                            assertEquals(10, Files.readAllBytes(file).length);
+                            reads.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 1; i < 500; i++) {
+                    cache.put(i + "/card.jpg", new byte[10]);
+                    written.incrementAndGet();
+                }
+                return null;
+            });
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // Assert
+        assertTrue(reads.get() > 0);
+        assertEquals(100, cache.totalBytes());
+        assertNull(cache.get("0/card.jpg"));
+        assertTrue(Files.exists(directory.resolve("0/card.jpg")));
+    }
+    
+    @Test
+    void testPut_WhenRetentionHasPassed_ThenDeletesEvictedFiles() throws Exception {
+        // Arrange
+        DiskLruCache cache = new DiskLruCache(directory, 20, Duration.ofMillis(50));
+        Path first = cache.put("1/card.jpg", new byte[10]);
+        cache.put("2/card.jpg", new byte[10]);
+        cache.put("3/card.jpg", new byte[10]);
+        boolean keptAfterEviction = Files.exists(first);
+        
+        // Act
+        Thread.sleep(100);
+        cache.put("4/card.jpg", new byte[10]);
+        cache.put("2/card.jpg", new byte[10]);
+        Thread.sleep(100);
+        cache.put("5/card.jpg", new byte[10]);
+        
+        // Assert
+        assertTrue(keptAfterEviction);
+        assertFalse(Files.exists(first));
+        assertFalse(Files.exists(directory.resolve("3/card.jpg")));
+        assertNotNull(cache.get("2/card.jpg"));
+        assertTrue(Files.exists(directory.resolve("2/card.jpg")));
+    }
+    
+    @Test
+    void testRemoveIf_WhenNamesMatch_ThenDeletesTheirFiles() throws Exception {
+        // Arrange
+        DiskLruCache cache = new DiskLruCache(directory, 100);
+        cache.put("1/card-a.jpg", new byte[10]);
+        cache.put("1/card-b.jpg", new byte[10]);
+        cache.put("12/card-a.jpg", new byte[10]);
+        
+        // Act
+        int removed = cache.removeIf(name -> name.startsWith("1/"));
+        
+        // Assert
+        assertEquals(2, removed);
+        assertEquals(10, cache.totalBytes());
+        assertFalse(Files.exists(directory.resolve("1/card-a.jpg")));
+        assertNotNull(cache.get("12/card-a.jpg"));
+        assertThrows(IllegalArgumentException.class, () -> cache.put("../escape.jpg", new byte[1]));
+    }
+}
@@ -0,0 +1,108 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the in-memory ingredient dictionary
+ */
+class IngredientDictionaryTest {
+    
+    private IngredientRepository ingredientRepository;
+    private IngredientDictionary ingredientDictionary;
+    
+    @BeforeEach
+    void setUp() {
+        ingredientRepository = mock(IngredientRepository.class);
+        when(ingredientRepository.findAll()).thenReturn(List.of(
+                new Ingredient(3L, "Milk", "Dairy", "cups"),
+                new Ingredient(1L, "Eggs", "Dairy", "whole"),
+                new Ingredient(2L, "Jalapeño", "Vegetable", "whole")));
+        ingredientDictionary = new IngredientDictionary(ingredientRepository);
+        ingredientDictionary.rebuild();
+    }
+    
+    @Test
+    void testLookups_WhenLoaded_ThenAnswersFromTheIndexesWithoutQueries() {
+        // Act & Assert
+        assertEquals(List.of("Eggs", "Jalapeño", "Milk"), names(ingredientDictionary.getAll()));
+        assertEquals("Milk", ingredientDictionary.getById(3L).orElseThrow().getName());
+        assertEquals(2L, ingredientDictionary.getByName("JALAPEÑO").orElseThrow().getId());
+        assertEquals(List.of("Eggs", "Milk"), names(ingredientDictionary.getByCategory("Dairy")));
+        assertTrue(ingredientDictionary.getByCategory("dairy").isEmpty());
+        assertTrue(ingredientDictionary.getById(99L).isEmpty());
+        Map<Long, Ingredient> byIds = ingredientDictionary.getByIds(List.of(1L, 99L));
+        assertEquals(Set.of(1L), byIds.keySet());
+        assertEquals("Eggs", byIds.get(1L).getName());
+        assertEquals(List.of("Milk", "Eggs"), names(ingredientDictionary.getByNames(List.of("milk", "eggs", "EGGS", "flour"))));
+        verify(ingredientRepository, times(1)).findAll();
+        verifyNoMoreInteractions(ingredientRepository);
+    }
+    
+    @Test
+    void testOnIngredientChanged_WhenSavedOrDeleted_ThenSwapsInANewSnapshot() {
+        // Arrange
+        List<Ingredient> before = ingredientDictionary.getByCategory("Dairy");
+        Ingredient renamed = new Ingredient(1L, "Free Range Eggs", "Protein", "whole");
+        
+        // Act
+        ingredientDictionary.onIngredientChanged(new IngredientChangedEvent(1L, renamed));
+        ingredientDictionary.onIngredientChanged(new IngredientChangedEvent(4L, new Ingredient(4L, "Cream", "Dairy", "cups")));
+        ingredientDictionary.onIngredientChanged(new IngredientChangedEvent(3L, null));
+        
+        // Assert
+        assertTrue(ingredientDictionary.getByName("eggs").isEmpty());
+        assertEquals(1L, ingredientDictionary.getByName("free range eggs").orElseThrow().getId());
+        assertEquals(List.of("Cream"), names(ingredientDictionary.getByCategory("Dairy")));
+        assertEquals(List.of("Free Range Eggs"), names(ingredientDictionary.getByCategory("Protein")));
+        assertTrue(ingredientDictionary.getById(3L).isEmpty());
+        assertEquals(List.of("Eggs", "Milk"), names(before));
+        verify(ingredientRepository, times(1)).findAll();
+    }
+    
+    @Test
+    void testLookups_WhenCallerChangesTheResult_ThenDictionaryIsUnaffected() {
+        // Arrange
+        Ingredient saved = new Ingredient(5L, "Butter", "Dairy", "tablespoons");
+        ingredientDictionary.onIngredientChanged(new IngredientChangedEvent(5L, saved));
+        
+        // Act
+        saved.setName("Margarine");
+        ingredientDictionary.getById(1L).orElseThrow().setName("Duck Eggs");
+        ingredientDictionary.getAll().get(1).setCategory("Fruit");
+        
+        // Assert
+        assertEquals("Butter", ingredientDictionary.getById(5L).orElseThrow().getName());
+        assertEquals("Eggs", ingredientDictionary.getById(1L).orElseThrow().getName());
+        assertEquals("Vegetable", ingredientDictionary.getById(2L).orElseThrow().getCategory());
+    }
+    
+    @Test
+    void testLookups_WhenNotYetLoaded_ThenLoadsOnFirstUse() {
+        // Arrange
+        IngredientDictionary fresh = new IngredientDictionary(ingredientRepository);
+        when(ingredientRepository.findAll()).thenReturn(List.of(
+                new Ingredient(3L, "Milk", "Dairy", "cups"),
+                new Ingredient(1L, "Eggs", "Dairy", "whole")));
+        
+        // Act: a change before the first load is left to the load, which reads it
+        fresh.onIngredientChanged(new IngredientChangedEvent(2L, null));
+        
+        // Assert
+        assertEquals(List.of("Eggs", "Milk"), names(fresh.getAll()));
+        verify(ingredientRepository, times(2)).findAll();
+    }
+    
+    private static List<String> names(List<Ingredient> ingredients) {
+        return ingredients.stream().map(Ingredient::getName).toList();
+    }
+}
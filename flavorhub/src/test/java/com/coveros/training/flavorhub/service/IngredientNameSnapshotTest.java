@@ -0,0 +1,101 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the typo-tolerant ingredient name index
+ */
+class IngredientNameSnapshotTest {
+    
+    private static final List<String> NAMES = List.of("Tomato", "Tomato Sauce", "Tomatoes (Canned)", "Jalapeño",
+            "Mozzarella Cheese", "Cheese", "Rice", "Lime", "Lime Juice", "Salt", "Onion", "Olive Oil");
+    
+    private final IngredientNameSnapshot snapshot = IngredientNameSnapshot.of(ingredients(NAMES));
+    
+    @Test
+    void testSearch_WhenQueryHasTypo_ThenFindsCloseNames() {
+        // Act & Assert
+        // "tomatoe" is also the start of "tomatoes", and a prefix beats a typo
+        assertEquals(List.of("Tomatoes (Canned)", "Tomato", "Tomato Sauce"), names(snapshot.search("tomatoe")));
+        assertEquals(List.of("Tomato", "Tomato Sauce"), names(snapshot.search("tomatto")));
+        assertEquals(List.of("Mozzarella Cheese"), names(snapshot.search("mozarella")));
+        assertEquals(List.of("Mozzarella Cheese"), names(snapshot.search("mozzarela chese")));
+        assertEquals(List.of("Olive Oil"), names(snapshot.search("olvie")));
+    }
+    
+    @Test
+    void testSearch_WhenQueryLacksAccentsOrCase_ThenStillMatches() {
+        // Act & Assert
+        assertEquals(List.of("Jalapeño"), names(snapshot.search("jalapeno")));
+        assertEquals(List.of("Jalapeño"), names(snapshot.search("JALAPEÑO")));
+        assertEquals(List.of("Tomatoes (Canned)"), names(snapshot.search("tomatoes (canned)")));
+    }
+    
+    @Test
+    void testSearch_WhenSubstringMatches_ThenRanksExactThenPrefixesThenContains() {
+        // Act
+        List<String> result = names(snapshot.search("che"));
+        
+        // Assert
+        assertEquals(List.of("Cheese", "Mozzarella Cheese"), result);
+        assertEquals(List.of("Lime", "Lime Juice"), names(snapshot.search("lime")));
+        assertEquals(List.of("Onion"), names(snapshot.search("nio")));
+    }
+    
+    @Test
+    void testSearch_WhenQueryIsShort_ThenNoTyposAllowed() {
+        // Act & Assert
+        assertEquals(List.of("Rice"), names(snapshot.search("ric")));
+        assertTrue(names(snapshot.search("rco")).isEmpty());
+        assertEquals(NAMES.size(), snapshot.search(" ").length);
+    }
+    
+    @Test
+    void testWithIngredient_WhenAddedRenamedAndRemoved_ThenSearchFollows() {
+        // Act
+        IngredientNameSnapshot added = snapshot.withIngredient(100L, "Crème Fraîche");
+        IngredientNameSnapshot renamed = added.withIngredient(1L, "Cherry Tomato");
+        IngredientNameSnapshot removed = renamed.withoutIngredient(100L);
+        
+        // Assert
+        assertArrayEquals(new long[] {100L}, added.search("creme fraiche"));
+        assertArrayEquals(new long[0], snapshot.search("creme fraiche"));
+        assertEquals(1L, renamed.search("cherry tomatoe")[0]);
+        assertArrayEquals(new long[0], removed.search("fraiche"));
+        assertSame(removed, removed.withoutIngredient(999L));
+    }
+    
+    @Test
+    void testDistance_WhenOverLimit_ThenStopsAtLimitPlusOne() {
+        // Act & Assert
+        assertEquals(0, IngredientNameSnapshot.distance("basil", "basil", 2));
+        assertEquals(1, IngredientNameSnapshot.distance("basli", "basil", 2));
+        assertEquals(1, IngredientNameSnapshot.distance("tomatoe", "tomato", 2));
+        assertEquals(2, IngredientNameSnapshot.distance("mozarela", "mozzarella", 2));
+        assertEquals(3, IngredientNameSnapshot.distance("pepper", "paprika", 2));
+    }
+    
+    private static List<Ingredient> ingredients(List<String> names) {
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            Ingredient ingredient = new Ingredient(names.get(i), "Vegetable", "whole");
+            ingredient.setId(i + 1L);
+            ingredients.add(ingredient);
+        }
+        return ingredients;
+    }
+    
+    private static List<String> names(long[] ids) {
+        List<String> names = new ArrayList<>();
+        for (long id : ids) {
+            names.add(id > NAMES.size() ? String.valueOf(id) : NAMES.get((int) id - 1));
+        }
+        return names;
+    }
+}
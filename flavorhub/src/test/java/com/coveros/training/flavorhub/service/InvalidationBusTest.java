@@ -0,0 +1,154 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import com.coveros.training.flavorhub.service.InvalidationMessage.EntityType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for cross-instance invalidation, with two instances on an in-JVM transport
+ */
+class InvalidationBusTest {
+    
+    private RecipeRepository recipeRepository;
+    private IngredientRepository ingredientRepository;
+    private ApplicationEventPublisher publisherA;
+    private ApplicationEventPublisher publisherB;
+    private InvalidationBus busA;
+    private InvalidationBus busB;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        String channel = "test-" + UUID.randomUUID();
+        recipeRepository = mock(RecipeRepository.class);
+        ingredientRepository = mock(IngredientRepository.class);
+        publisherA = mock(ApplicationEventPublisher.class);
+        publisherB = mock(ApplicationEventPublisher.class);
+        busA = new InvalidationBus(new LocalInvalidationTransport(channel), "a", recipeRepository,
+                ingredientRepository, publisherA);
+        busB = new InvalidationBus(new LocalInvalidationTransport(channel), "b", recipeRepository,
+                ingredientRepository, publisherB);
+        // B's listeners include its bus, as they would in the application context
+        doAnswer(invocation -> {
+            busB.onRecipeChanged(invocation.getArgument(0));
+            return null;
+        }).when(publisherB).publishEvent(any(RecipeChangedEvent.class));
+        busA.start();
+        busB.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        busA.stop();
+        busB.stop();
+    }
+    
+    @Test
+    void testOnRecipeChanged_WhenChangedOnOneInstance_ThenOtherReloadsItWithoutSendingItBack() {
+        // Arrange
+        Recipe reloaded = recipe(1L, "Pasta Carbonara");
+        when(recipeRepository.findAllWithIngredientsByIdIn(List.of(1L))).thenReturn(List.of(reloaded));
+        
+        // Act
+        busA.onRecipeChanged(new RecipeChangedEvent(1L, recipe(1L, "Pasta")));
+        
+        // Assert
+        verify(publisherB, timeout(2000)).publishEvent(new RecipeChangedEvent(1L, reloaded));
+        verify(publisherA, after(200).never()).publishEvent(any(Object.class));
+    }
+    
+    @Test
+    void testReceive_WhenMessagesArriveLateOrTwice_ThenAppliesOnlyNewerOnesPerInstance() {
+        // Arrange
+        when(recipeRepository.findAllWithIngredientsByIdIn(List.of(1L))).thenReturn(List.of(recipe(1L, "Pasta")));
+        
+        // Act
+        busB.receive(new InvalidationMessage("a", 5, EntityType.RECIPE, 1L).encode());
+        busB.receive(new InvalidationMessage("a", 4, EntityType.RECIPE, 1L).encode());
+        busB.receive(new InvalidationMessage("a", 5, EntityType.RECIPE, 1L).encode());
+        busB.receive(new InvalidationMessage("c", 1, EntityType.RECIPE, 1L).encode());
+        busB.receive(new InvalidationMessage("a", 6, EntityType.RECIPE, 1L).encode());
+        busB.receive(new InvalidationMessage("b", 7, EntityType.RECIPE, 1L).encode());
+        
+        // Assert
+        verify(recipeRepository, times(3)).findAllWithIngredientsByIdIn(List.of(1L));
+    }
+    
+    @Test
+    void testReceive_WhenEntitiesDeletedOrPantryChanged_ThenPublishesLocalEvents() {
+        // Arrange
+        when(recipeRepository.findAllWithIngredientsByIdIn(List.of(2L))).thenReturn(List.of());
+        when(ingredientRepository.findById(3L)).thenReturn(Optional.empty());
+        Ingredient garlic = new Ingredient();
+        garlic.setId(4L);
+        garlic.setName("Garlic");
+        when(ingredientRepository.findById(4L)).thenReturn(Optional.of(garlic));
+        
+        // Act
+        busB.receive(new InvalidationMessage("a", 1, EntityType.RECIPE, 2L).encode());
+        busB.receive(new InvalidationMessage("a", 2, EntityType.INGREDIENT, 3L).encode());
+        busB.receive(new InvalidationMessage("a", 3, EntityType.INGREDIENT, 4L).encode());
+        busB.receive(new InvalidationMessage("a", 4, EntityType.PANTRY, 5L).encode());
+        
+        // Assert
+        verify(publisherB).publishEvent(new RecipeChangedEvent(2L, null));
+        verify(publisherB).publishEvent(new IngredientChangedEvent(3L, null));
+        verify(publisherB).publishEvent(new IngredientChangedEvent(4L, garlic));
+        verify(publisherB).publishEvent(PantryChangedEvent.wholePantry(5L));
+    }
+    
+    @Test
+    void testOnRecipeChanged_WhenTransportIsNotStartedOrFails_ThenDoesNotFailTheCaller() throws Exception {
+        // Arrange
+        InvalidationTransport failing = mock(InvalidationTransport.class);
+        doThrow(new IllegalStateException("socket gone")).when(failing).send(any());
+        InvalidationBus failingBus = new InvalidationBus(failing, "c", recipeRepository, ingredientRepository, publisherA);
+        InvalidationBus unstartedBus = new InvalidationBus(
+                new MulticastInvalidationTransport(InetAddress.getByName("239.255.42.99"), 45599, null, 1),
+                "d", recipeRepository, ingredientRepository, publisherA);
+        
+        // Act & Assert
+        assertDoesNotThrow(() -> failingBus.onRecipeChanged(new RecipeChangedEvent(1L, recipe(1L, "Pasta"))));
+        assertDoesNotThrow(() -> unstartedBus.onRecipeChanged(new RecipeChangedEvent(1L, recipe(1L, "Pasta"))));
+        verify(failing).send(any());
+    }
+    
+    @Test
+    void testDecode_WhenNotAnInvalidation_ThenReturnsNull() {
+        // Arrange
+        InvalidationMessage message = new InvalidationMessage("a", 42, EntityType.PANTRY, 7L);
+        
+        // Act
+        InvalidationMessage decoded = InvalidationMessage.decode(message.encode());
+        InvalidationMessage foreign = InvalidationMessage.decode("M-SEARCH * HTTP/1.1".getBytes(StandardCharsets.UTF_8));
+        InvalidationMessage unknownType = InvalidationMessage.decode(
+                "flavorhub-invalidation/1 a 1 MEAL_PLAN 7".getBytes(StandardCharsets.UTF_8));
+        
+        // Assert
+        assertEquals(message, decoded);
+        assertNull(foreign);
+        assertNull(unknownType);
+    }
+    
+    private static Recipe recipe(Long id, String name) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setName(name);
+        return recipe;
+    }
+}
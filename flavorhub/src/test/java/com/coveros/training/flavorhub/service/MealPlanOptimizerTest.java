@@ -0,0 +1,128 @@
+package com.coveros.training.flavorhub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the meal plan search: exactness where the beam is exhaustive, the time budget and parallel runs
+ */
+class MealPlanOptimizerTest {
+    
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+    
+    @Test
+    void testOptimize_WhenBeamCoversAllPairs_ThenFindsBestPair() {
+        // Arrange: with 20 candidates every pair survives the beam, so the result is exact
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            long[][] recipes = randomRecipes(random, 20, 2);
+            long[] pantry = {random.nextLong(), random.nextLong()};
+            
+            // Act
+            MealPlanOptimizer.Result result = MealPlanOptimizer.optimize(recipes, pantry, 2, deadlineIn(NO_DEADLINE));
+            
+            // Assert
+            int best = Integer.MIN_VALUE;
+            for (int a = 0; a < recipes.length; a++) {
+                for (int b = a + 1; b < recipes.length; b++) {
+                    best = Math.max(best, score(pantry, recipes[a], recipes[b]));
+                }
+            }
+            assertEquals(2, result.recipes().length);
+            assertEquals(best, result.pantryItemsUsed() - result.itemsToBuy());
+            assertTrue(result.complete());
+        }
+    }
+    
+    @Test
+    void testOptimize_WhenPantryCoversSomeRecipes_ThenPrefersThem() {
+        // Arrange: bits 0-2 are in the pantry
+        long[] pantry = {0b0111};
+        long[][] recipes = {
+                {0b1000_0000},       // nothing from the pantry
+                {0b0011},            // all from the pantry
+                {0b0110},            // all from the pantry
+                {0b1_0000_0001}};    // half and half
+        
+        // Act
+        MealPlanOptimizer.Result result = MealPlanOptimizer.optimize(recipes, pantry, 2, deadlineIn(NO_DEADLINE));
+        
+        // Assert
+        assertArrayEquals(new int[] {1, 2}, result.recipes());
+        assertEquals(3, result.pantryItemsUsed());
+        assertEquals(0, result.itemsToBuy());
+    }
+    
+    @Test
+    void testOptimize_WhenDeadlineHasPassed_ThenStillReturnsFullPlan() {
+        // Arrange
+        long[][] recipes = randomRecipes(new Random(3), 500, 4);
+        
+        // Act
+        MealPlanOptimizer.Result result = MealPlanOptimizer.optimize(recipes, new long[4], 7, System.nanoTime() - 1);
+        
+        // Assert
+        assertEquals(7, Arrays.stream(result.recipes()).distinct().count());
+        assertFalse(result.complete());
+    }
+    
+    @Test
+    void testOptimize_WhenFewerCandidatesThanPlanSize_ThenPlansThemAll() {
+        // Act
+        MealPlanOptimizer.Result result = MealPlanOptimizer.optimize(
+                new long[][] {{0b01}, {0b10, 0b1}}, new long[] {0b01}, 7, deadlineIn(NO_DEADLINE));
+        
+        // Assert
+        assertArrayEquals(new int[] {0, 1}, result.recipes());
+        assertEquals(1, result.pantryItemsUsed());
+        assertEquals(2, result.itemsToBuy());
+    }
+    
+    @Test
+    void testOptimize_WhenCatalogIsLarge_ThenParallelSearchReturnsConsistentScore() {
+        // Arrange
+        Random random = new Random(11);
+        long[][] recipes = randomRecipes(random, 3_000, 4);
+        long[] pantry = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+        
+        // Act
+        MealPlanOptimizer.Result result = MealPlanOptimizer.optimize(recipes, pantry, 7, deadlineIn(2_000_000_000L));
+        
+        // Assert
+        int[] chosen = result.recipes();
+        assertEquals(7, Arrays.stream(chosen).distinct().count());
+        long[][] plan = Arrays.stream(chosen).mapToObj(i -> recipes[i]).toArray(long[][]::new);
+        assertEquals(score(pantry, plan), result.pantryItemsUsed() - result.itemsToBuy());
+    }
+    
+    private static long[][] randomRecipes(Random random, int count, int words) {
+        long[][] recipes = new long[count][words];
+        for (long[] recipe : recipes) {
+            for (int i = 0; i < 8; i++) {
+                int bit = random.nextInt(words * 64);
+                recipe[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return recipes;
+    }
+    
+    private static int score(long[] pantry, long[]... plan) {
+        int score = 0;
+        for (int w = 0; w < pantry.length; w++) {
+            long union = 0;
+            for (long[] recipe : plan) {
+                union |= recipe[w];
+            }
+            score += Long.bitCount(union & pantry[w]) - Long.bitCount(union & ~pantry[w]);
+        }
+        return score;
+    }
+    
+    private static long deadlineIn(long nanos) {
+        return System.nanoTime() + nanos;
+    }
+}
@@ -0,0 +1,131 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the incrementally maintained pantry recommendations
+ */
+class PantryRecommendationsTest {
+    
+    private static final Long USER_ID = 1L;
+    
+    private RecipeRepository recipeRepository;
+    private UserPantryRepository userPantryRepository;
+    private PantryRecommendations recommendations;
+    
+    @BeforeEach
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        userPantryRepository = mock(UserPantryRepository.class);
+        recommendations = new PantryRecommendations(recipeRepository, userPantryRepository);
+        when(recipeRepository.findAllWithIngredients()).thenReturn(List.of(
+                recipe(1L, "Pasta", "Tomato", "Garlic", "Basil"),
+                recipe(2L, "Pasta", "Garlic"),
+                recipe(3L, "Rice", "Beans")));
+        recommendations.rebuild();
+    }
+    
+    @Test
+    void testRecommend_WhenPantryHoldsIngredients_ThenRanksByCoverage() {
+        // Arrange
+        pantry("pasta", "Garlic ", "Tomato");
+        
+        // Act
+        List<PantryRecommendations.Match> result = recommendations.recommend(USER_ID, 10);
+        
+        // Assert
+        assertEquals(List.of(
+                new PantryRecommendations.Match(2L, 2, 2),
+                new PantryRecommendations.Match(1L, 3, 4)), result);
+    }
+    
+    @Test
+    void testOnPantryChanged_WhenIngredientAddedAndRemoved_ThenAdjustsOnlyItsRecipes() {
+        // Arrange
+        pantry("Pasta");
+        recommendations.recommend(USER_ID, 10);
+        
+        // Act
+        recommendations.onPantryChanged(new PantryChangedEvent(USER_ID, "Rice", true));
+        recommendations.onPantryChanged(new PantryChangedEvent(USER_ID, "Garlic", true));
+        List<PantryRecommendations.Match> afterAdd = recommendations.recommend(USER_ID, 10);
+        recommendations.onPantryChanged(new PantryChangedEvent(USER_ID, "Pasta", false));
+        List<PantryRecommendations.Match> afterRemove = recommendations.recommend(USER_ID, 10);
+        
+        // Assert
+        assertEquals(List.of(
+                new PantryRecommendations.Match(2L, 2, 2),
+                new PantryRecommendations.Match(1L, 2, 4),
+                new PantryRecommendations.Match(3L, 1, 2)), afterAdd);
+        assertEquals(List.of(
+                new PantryRecommendations.Match(2L, 1, 2),
+                new PantryRecommendations.Match(3L, 1, 2),
+                new PantryRecommendations.Match(1L, 1, 4)), afterRemove);
+        verify(userPantryRepository, times(1)).findByUserId(USER_ID);
+    }
+    
+    @Test
+    void testOnPantryChanged_WhenIngredientAlreadyHeld_ThenCountsOnce() {
+        // Arrange
+        pantry("Garlic");
+        recommendations.recommend(USER_ID, 10);
+        
+        // Act
+        recommendations.onPantryChanged(new PantryChangedEvent(USER_ID, "garlic", true));
+        List<PantryRecommendations.Match> result = recommendations.recommend(USER_ID, 10);
+        
+        // Assert
+        assertEquals(List.of(
+                new PantryRecommendations.Match(2L, 1, 2),
+                new PantryRecommendations.Match(1L, 1, 4)), result);
+    }
+    
+    @Test
+    void testOnRecipeChanged_WhenRecipeChanges_ThenRecountsItForUsersHoldingItsIngredients() {
+        // Arrange
+        pantry("Beans", "Garlic");
+        recommendations.recommend(USER_ID, 10);
+        
+        // Act
+        recommendations.onRecipeChanged(new RecipeChangedEvent(3L, recipe(3L, "Beans", "Garlic", "Onion")));
+        recommendations.onRecipeChanged(new RecipeChangedEvent(4L, recipe(4L, "Flour", "Sugar")));
+        recommendations.onRecipeChanged(new RecipeChangedEvent(2L, null));
+        List<PantryRecommendations.Match> result = recommendations.recommend(USER_ID, 10);
+        
+        // Assert
+        assertEquals(List.of(
+                new PantryRecommendations.Match(3L, 2, 3),
+                new PantryRecommendations.Match(1L, 1, 4)), result);
+        verify(userPantryRepository, times(1)).findByUserId(USER_ID);
+    }
+    
+    private void pantry(String... ingredientNames) {
+        List<UserPantry> items = new ArrayList<>();
+        for (String name : ingredientNames) {
+            items.add(new UserPantry(USER_ID, new Ingredient(name, "Other", "cups"), 1.0, "cups"));
+        }
+        when(userPantryRepository.findByUserId(USER_ID)).thenReturn(items);
+    }
+    
+    private static Recipe recipe(Long id, String... ingredientNames) {
+        Recipe recipe = new Recipe("Recipe " + id, "", 10, 10, 2, "Easy", null);
+        recipe.setId(id);
+        for (String name : ingredientNames) {
+            recipe.getIngredients().add(new RecipeIngredient(name, 1.0, "cups", ""));
+        }
+        return recipe;
+    }
+}
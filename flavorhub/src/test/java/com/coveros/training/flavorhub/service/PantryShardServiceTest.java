@@ -0,0 +1,184 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.CodeDimension;
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import com.coveros.training.flavorhub.repository.PantryShards;
+import com.coveros.training.flavorhub.repository.ShardedUserPantryRepository;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for pantry sharding and rebalancing over three in-memory H2 databases
+ */
+class PantryShardServiceTest {
+    
+    private static final int USERS = 60;
+    
+    private PantryShards shards;
+    private UserPantryRepository userPantryRepository;
+    private PantryShardService pantryShardService;
+    private Ingredient eggs;
+    
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        List<DriverManagerDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            dataSources.add(new DriverManagerDataSource("jdbc:h2:mem:shard" + i + "-" + run + ";DB_CLOSE_DELAY=-1"));
+        }
+        shards = new PantryShards(dataSources, 2, dataSources.get(0));
+        eggs = new Ingredient(10L, "Eggs", "Dairy", "whole");
+        eggs.setId(10L);
+        IngredientRepository ingredientRepository = mock(IngredientRepository.class);
+        when(ingredientRepository.findAll()).thenReturn(List.of(eggs));
+        CodeDictionary codeDictionary = mock(CodeDictionary.class);
+        when(codeDictionary.encode(eq(CodeDimension.UNIT), anyString())).thenReturn(1);
+        when(codeDictionary.decode(eq(CodeDimension.UNIT), anyInt())).thenReturn("whole");
+        userPantryRepository = new ShardedUserPantryRepository(shards, new IngredientDictionary(ingredientRepository),
+                codeDictionary);
+        pantryShardService = new PantryShardService(shards, userPantryRepository);
+        for (long userId = 1; userId <= USERS; userId++) {
+            userPantryRepository.save(new UserPantry(userId, eggs, (double) userId, "whole"));
+        }
+    }
+    
+    @AfterEach
+    void tearDown() {
+        for (PantryShards.Shard shard : shards.all()) {
+            shard.jdbc().execute("SHUTDOWN");
+        }
+    }
+    
+    @Test
+    void testSave_WhenUsersAdded_ThenSpreadsThemOverActiveShardsOnly() {
+        // Act
+        PantryShardStatus status = pantryShardService.status();
+        
+        // Assert
+        assertEquals(USERS, userPantryRepository.count());
+        assertTrue(status.shards().get(0).users() > 0);
+        assertTrue(status.shards().get(1).users() > 0);
+        assertEquals(0, status.shards().get(2).items());
+        assertEquals(List.of(true, true, false), status.shards().stream().map(PantryShardStatus.Shard::active).toList());
+    }
+    
+    @Test
+    void testActivate_WhenShardAdded_ThenMovesItsUsersAndKeepsEveryPantry() {
+        // Act
+        RebalanceResult result = pantryShardService.activate(2);
+        
+        // Assert
+        assertEquals(Set.of(0, 1, 2), result.activeShards());
+        assertTrue(result.usersMoved() > 0 && result.usersMoved() < USERS);
+        assertEquals(result.usersMoved(), pantryShardService.status().shards().get(2).users());
+        assertEquals(USERS, userPantryRepository.count());
+        for (long userId = 1; userId <= USERS; userId++) {
+            List<UserPantry> pantry = userPantryRepository.findByUserId(userId);
+            assertEquals(1, pantry.size());
+            assertEquals((double) userId, pantry.get(0).getQuantity());
+        }
+    }
+    
+    @Test
+    void testDrain_WhenShardRemoved_ThenMovesAllItsUsersAway() {
+        // Act
+        pantryShardService.drain(0);
+        
+        // Assert
+        PantryShardStatus status = pantryShardService.status();
+        assertEquals(0, status.shards().get(0).items());
+        assertEquals(USERS, status.shards().get(1).items());
+        long firstItem = userPantryRepository.findByUserId(1L).get(0).getId();
+        assertEquals(1L, userPantryRepository.findById(firstItem).orElseThrow().getUserId());
+    }
+    
+    @Test
+    void testDrain_WhenLastActiveShard_ThenRefuses() {
+        // Arrange
+        pantryShardService.drain(1);
+        
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> pantryShardService.drain(0));
+        assertThrows(IllegalArgumentException.class, () -> pantryShardService.activate(3));
+    }
+    
+    @Test
+    void testSaveAll_WhenItemsUpdated_ThenWritesThemOnTheUsersShard() {
+        // Arrange
+        UserPantry item = userPantryRepository.findByUserId(7L).get(0);
+        item.setQuantity(0.5);
+        UserPantry added = new UserPantry(7L, eggs, 3.0, "whole");
+        
+        // Act
+        userPantryRepository.saveAll(7L, List.of(item, added));
+        userPantryRepository.addToQuantity(7L, 10L, -1.0);
+        
+        // Assert
+        assertNotNull(added.getId());
+        assertEquals(List.of(0.0, 2.0), userPantryRepository.findByUserId(7L).stream().map(UserPantry::getQuantity).toList());
+        assertThrows(IllegalArgumentException.class, () -> userPantryRepository.saveAll(8L, List.of(item)));
+    }
+    
+    @Test
+    void testSave_WhenIngredientDoesNotExist_ThenRefusesIt() {
+        // Arrange
+        Ingredient unknown = new Ingredient(99L, "Unicorn Tears", "Other", "cups");
+        UserPantry item = new UserPantry(7L, unknown, 1.0, "cups");
+        
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userPantryRepository.save(item));
+        assertNull(item.getId());
+        assertEquals(1, userPantryRepository.findByUserId(7L).size());
+        assertEquals(USERS, userPantryRepository.count());
+    }
+    
+    @Test
+    void testSave_WhenGivenOnlyTheIngredientId_ThenReturnsTheStoredItemWithItsIngredient() {
+        // Arrange
+        Ingredient byId = new Ingredient();
+        byId.setId(10L);
+        UserPantry item = new UserPantry(61L, byId, 2.0, "whole");
+        
+        // Act
+        UserPantry saved = userPantryRepository.save(item);
+        
+        // Assert
+        assertNotSame(item, saved);
+        assertEquals(item.getId(), saved.getId());
+        assertEquals("Eggs", saved.getIngredient().getName());
+        assertEquals("whole", saved.getUnit());
+    }
+    
+    @Test
+    void testSaveAll_WhenItemWasDeletedMeanwhile_ThenFailsWithoutRevivingIt() {
+        // Arrange
+        UserPantry item = userPantryRepository.findByUserId(7L).get(0);
+        Long id = item.getId();
+        userPantryRepository.deleteById(id);
+        item.setQuantity(0.5);
+        UserPantry added = new UserPantry(7L, eggs, 3.0, "whole");
+        
+        // Act & Assert
+        assertThrows(JdbcUpdateAffectedIncorrectNumberOfRowsException.class,
+                () -> userPantryRepository.saveAll(7L, List.of(item, added)));
+        assertEquals(id, item.getId());
+        assertTrue(userPantryRepository.findByUserId(7L).isEmpty());
+        assertEquals(USERS - 1, userPantryRepository.count());
+    }
+}
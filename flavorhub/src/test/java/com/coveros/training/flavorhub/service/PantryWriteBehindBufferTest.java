@@ -0,0 +1,128 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PantryWriteBehindBuffer
+ */
+class PantryWriteBehindBufferTest {
+    
+    private UserPantryRepository userPantryRepository;
+    private PantryWriteBehindBuffer buffer;
+    private UserPantry eggs;
+    private UserPantry milk;
+    
+    @BeforeEach
+    void setUp() {
+        userPantryRepository = mock(UserPantryRepository.class);
+        buffer = new PantryWriteBehindBuffer(userPantryRepository, true, 100);
+        eggs = new UserPantry(1L, new Ingredient(10L, "Eggs", "Dairy", "whole"), 12.0, "whole");
+        milk = new UserPantry(1L, new Ingredient(11L, "Milk", "Dairy", "cups"), 2.0, "cups");
+    }
+    
+    @Test
+    void testFlush_WhenSameItemChangedRepeatedly_ThenWritesOneCoalescedUpdate() {
+        // Arrange
+        buffer.add(1L, 10L, -2);
+        buffer.add(1L, 10L, -3);
+        buffer.add(1L, 10L, 1);
+        buffer.add(1L, 11L, 0.5);
+        when(userPantryRepository.findByUserIdAndIngredientIdIn(1L, Set.of(10L, 11L))).thenReturn(List.of(eggs, milk));
+        
+        // Act
+        int updated = buffer.flush();
+        
+        // Assert
+        assertEquals(2, updated);
+        assertEquals(8.0, eggs.getQuantity());
+        assertEquals(2.5, milk.getQuantity());
+        assertEquals(0, buffer.pendingCount());
+        verify(userPantryRepository, times(1)).findByUserIdAndIngredientIdIn(anyLong(), anyCollection());
+        verify(userPantryRepository, times(1)).saveAll(1L, List.of(eggs, milk));
+    }
+    
+    @Test
+    void testWithPending_WhenDeltasQueued_ThenReturnsUpdatedCopies() {
+        // Arrange
+        buffer.add(1L, 10L, -20);
+        
+        // Act
+        List<UserPantry> items = buffer.withPending(() -> List.of(eggs, milk));
+        
+        // Assert
+        assertEquals(0.0, items.get(0).getQuantity());
+        assertSame(milk, items.get(1));
+        assertEquals(12.0, eggs.getQuantity(), "the loaded entity must not change before the flush");
+    }
+    
+    @Test
+    void testWithPending_WhenDeltasBelongToAnotherUser_ThenIgnoresThem() {
+        // Arrange
+        buffer.add(2L, 10L, 5);
+        
+        // Act
+        List<UserPantry> items = buffer.withPending(() -> List.of(eggs));
+        
+        // Assert
+        assertSame(eggs, items.get(0));
+    }
+    
+    @Test
+    void testFlush_WhenWriteFails_ThenKeepsDeltasForNextFlush() {
+        // Arrange
+        buffer.add(1L, 10L, 4);
+        when(userPantryRepository.findByUserIdAndIngredientIdIn(anyLong(), anyCollection()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of(eggs));
+        
+        // Act
+        assertEquals(0, buffer.flush());
+        int retried = buffer.flush();
+        
+        // Assert
+        assertEquals(1, retried);
+        assertEquals(16.0, eggs.getQuantity());
+    }
+    
+    @Test
+    void testDiscard_WhenItemOverwritten_ThenPendingDeltaIsDropped() {
+        // Arrange
+        buffer.add(1L, 10L, 4);
+        buffer.add(1L, 11L, 1);
+        
+        // Act
+        buffer.discard(1L, 10L);
+        
+        // Assert
+        assertEquals(1, buffer.pendingCount());
+        assertSame(eggs, buffer.withPending(() -> List.of(eggs)).get(0));
+    }
+    
+    @Test
+    void testAdd_WhenMaxPendingReached_ThenFlushesImmediately() {
+        // Arrange
+        buffer = new PantryWriteBehindBuffer(userPantryRepository, true, 2);
+        when(userPantryRepository.findByUserIdAndIngredientIdIn(anyLong(), anyCollection())).thenReturn(List.of(eggs, milk));
+        
+        // Act
+        buffer.add(1L, 10L, 1);
+        buffer.add(1L, 11L, 1);
+        
+        // Assert
+        assertEquals(0, buffer.pendingCount());
+        assertEquals(13.0, eggs.getQuantity());
+        verify(userPantryRepository).saveAll(1L, List.of(eggs, milk));
+    }
+}
@@ -0,0 +1,76 @@
+package com.coveros.training.flavorhub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for reloading a snapshot while changes keep arriving
+ */
+class RebuildableSnapshotTest {
+    
+    private final AtomicReference<Map<String, Integer>> database = new AtomicReference<>(Map.of("eggs", 1));
+    
+    @Test
+    void testRebuild_WhenChangeCommitsDuringTheRead_ThenKeepsTheChange() throws Exception {
+        // Arrange
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        RebuildableSnapshot<Map<String, Integer>, Map.Entry<String, Integer>> snapshot = new RebuildableSnapshot<>(() -> {
+            Map<String, Integer> read = database.get();
+            reading.countDown();
+            await(committed);
+            return read;
+        }, RebuildableSnapshotTest::apply);
+        CompletableFuture<Map<String, Integer>> first = CompletableFuture.supplyAsync(snapshot::rebuild);
+        await(reading);
+        
+        // Act: the write commits after the read and its event arrives before the reload ends
+        database.set(Map.of("eggs", 1, "milk", 2));
+        snapshot.apply(Map.entry("milk", 2));
+        committed.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        
+        // Assert
+        assertEquals(Map.of("eggs", 1, "milk", 2), snapshot.get());
+    }
+    
+    @Test
+    void testApply_WhenNoRebuildRuns_ThenChangesTheCurrentSnapshotOnly() {
+        // Arrange
+        RebuildableSnapshot<Map<String, Integer>, Map.Entry<String, Integer>> snapshot =
+                new RebuildableSnapshot<>(database::get, RebuildableSnapshotTest::apply);
+        
+        // Act
+        snapshot.apply(Map.entry("milk", 2)); // nothing loaded yet: the load reads it instead
+        Map<String, Integer> loaded = snapshot.get();
+        snapshot.apply(Map.entry("flour", 3));
+        snapshot.rebuild();
+        
+        // Assert
+        assertEquals(Map.of("eggs", 1), loaded);
+        assertEquals(Map.of("eggs", 1), snapshot.get(), "changes applied between reloads are not replayed");
+    }
+    
+    private static Map<String, Integer> apply(Map<String, Integer> current, Map.Entry<String, Integer> change) {
+        Map<String, Integer> changed = new HashMap<>(current);
+        changed.put(change.getKey(), change.getValue());
+        return changed;
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
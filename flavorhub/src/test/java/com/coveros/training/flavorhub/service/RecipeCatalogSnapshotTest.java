@@ -0,0 +1,263 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.CodeDimension;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the columnar recipe snapshot: filtering, incremental updates and the parallel scan
+ */
+class RecipeCatalogSnapshotTest {
+
+    private static final int EASY = 1;
+    private static final int HARD = 2;
+    private static final int ITALIAN = 1;
+    private static final int ASIAN = 2;
+
+    private CodeDictionary codeDictionary;
+
+    @BeforeEach
+    void setUp() {
+        codeDictionary = mock(CodeDictionary.class);
+        when(codeDictionary.codeOf(CodeDimension.DIFFICULTY, "Easy")).thenReturn(EASY);
+        when(codeDictionary.codeOf(CodeDimension.DIFFICULTY, "Hard")).thenReturn(HARD);
+        when(codeDictionary.codeOf(CodeDimension.CUISINE, "Italian")).thenReturn(ITALIAN);
+        when(codeDictionary.codeOf(CodeDimension.CUISINE, "Asian")).thenReturn(ASIAN);
+    }
+
+    @Test
+    void testSelect_WhenFilteringByCodesAndTimes_ThenReturnsMatchingIdsInOrder() {
+        // Arrange
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(List.of(
+                recipe(3L, "Risotto", 15, 35, 4, "Hard", "Italian"),
+                recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian"),
+                recipe(2L, "Stir-Fry", 10, 10, 3, "Easy", "Asian")), codeDictionary);
+
+        // Act
+        long[] easy = snapshot.select(criteria(EASY, 0, null, Integer.MAX_VALUE, 0));
+        long[] italianQuick = snapshot.select(new RecipeCatalogSnapshot.Criteria(0, ITALIAN, null, Integer.MAX_VALUE, 20, 0, Integer.MAX_VALUE, false));
+        long[] forFour = snapshot.select(criteria(0, 0, null, Integer.MAX_VALUE, 4));
+
+        // Assert
+        assertArrayEquals(new long[] {1L, 2L}, easy);
+        assertArrayEquals(new long[] {1L}, italianQuick);
+        assertArrayEquals(new long[] {1L, 3L}, forFour);
+    }
+
+    @Test
+    void testSelect_WhenSearching_ThenMatchesNameOrDescriptionIgnoringCase() {
+        // Arrange
+        Recipe withDescription = recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian");
+        withDescription.setDescription("Creamy Roman pasta");
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(List.of(
+                withDescription, recipe(2L, "Pad Thai", 25, 15, 4, "Easy", "Asian")), codeDictionary);
+
+        // Act
+        long[] byDescription = snapshot.select(criteria(0, 0, "roman", Integer.MAX_VALUE, 0));
+        long[] byName = snapshot.select(criteria(0, 0, "thai", Integer.MAX_VALUE, 0));
+
+        // Assert
+        assertArrayEquals(new long[] {1L}, byDescription);
+        assertArrayEquals(new long[] {2L}, byName);
+    }
+    
+    @Test
+    void testSelect_WhenBoundingTotalTime_ThenReturnsPrefixQuickestFirstOrById() {
+        // Arrange
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(List.of(
+                recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian"),
+                recipe(2L, "Stir-Fry", 10, 10, 3, "Easy", "Asian"),
+                recipe(3L, "Risotto", 15, 35, 4, "Hard", "Italian"),
+                recipe(4L, "Salad", 5, 0, 2, "Easy", "Asian")), codeDictionary);
+        
+        // Act
+        long[] quickestFirst = snapshot.select(totalTime(0, 30, true));
+        long[] byId = snapshot.select(totalTime(0, 30, false));
+        long[] sortedOnly = snapshot.select(totalTime(0, Integer.MAX_VALUE, true));
+        long[] easyUnderTwenty = snapshot.select(totalTime(EASY, 20, true));
+        long[] none = snapshot.select(totalTime(0, 4, true));
+        
+        // Assert
+        assertArrayEquals(new long[] {4L, 2L, 1L}, quickestFirst);
+        assertArrayEquals(new long[] {1L, 2L, 4L}, byId);
+        assertArrayEquals(new long[] {4L, 2L, 1L, 3L}, sortedOnly);
+        assertArrayEquals(new long[] {4L, 2L}, easyUnderTwenty);
+        assertArrayEquals(new long[0], none);
+    }
+    
+    @Test
+    void testWithRecipe_WhenUpdatingTimes_ThenTotalTimeIndexFollows() {
+        // Arrange
+        RecipeCatalogSnapshot original = RecipeCatalogSnapshot.of(List.of(
+                recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian"),
+                recipe(2L, "Stir-Fry", 10, 10, 3, "Easy", "Asian")), codeDictionary);
+        
+        // Act
+        RecipeCatalogSnapshot updated = original.withRecipe(recipe(1L, "Carbonara", 5, 5, 4, "Easy", "Italian"), codeDictionary);
+        RecipeCatalogSnapshot removed = updated.withoutRecipe(2L);
+        
+        // Assert
+        assertArrayEquals(new long[] {2L, 1L}, original.select(totalTime(0, 60, true)));
+        assertArrayEquals(new long[] {1L, 2L}, updated.select(totalTime(0, 60, true)));
+        assertArrayEquals(new long[] {1L}, removed.select(totalTime(0, 10, true)));
+    }
+
+    @Test
+    void testWithRecipe_WhenAddingUpdatingAndRemoving_ThenOriginalSnapshotIsUnchanged() {
+        // Arrange
+        RecipeCatalogSnapshot original = RecipeCatalogSnapshot.of(List.of(
+                recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian"),
+                recipe(3L, "Risotto", 15, 35, 4, "Hard", "Italian")), codeDictionary);
+
+        // Act
+        RecipeCatalogSnapshot added = original.withRecipe(recipe(2L, "Stir-Fry", 10, 10, 3, "Easy", "Asian"), codeDictionary);
+        RecipeCatalogSnapshot updated = added.withRecipe(recipe(3L, "Risotto", 15, 35, 4, "Easy", "Italian"), codeDictionary);
+        RecipeCatalogSnapshot removed = updated.withoutRecipe(1L);
+
+        // Assert
+        RecipeCatalogSnapshot.Criteria easy = criteria(EASY, 0, null, Integer.MAX_VALUE, 0);
+        assertArrayEquals(new long[] {1L}, original.select(easy));
+        assertArrayEquals(new long[] {1L, 2L}, added.select(easy));
+        assertArrayEquals(new long[] {1L, 2L, 3L}, updated.select(easy));
+        assertArrayEquals(new long[] {2L, 3L}, removed.select(easy));
+        assertSame(removed, removed.withoutRecipe(42L));
+    }
+
+    @Test
+    void testSelect_WhenCatalogIsLargerThanParallelThreshold_ThenMatchesSequentialResult() {
+        // Arrange
+        int size = RecipeCatalogSnapshot.PARALLEL_THRESHOLD * 3 + 17;
+        List<Recipe> recipes = new ArrayList<>(size);
+        List<Long> expected = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            boolean hard = id % 7 == 0;
+            recipes.add(recipe(id, "Recipe " + id, (int) (id % 60), 10, 2, hard ? "Hard" : "Easy", "Italian"));
+            if (hard && id % 60 <= 30) {
+                expected.add(id);
+            }
+        }
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(recipes, codeDictionary);
+
+        // Act
+        long[] result = snapshot.select(new RecipeCatalogSnapshot.Criteria(HARD, ITALIAN, null, 30, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, false));
+
+        // Assert
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), result);
+    }
+
+    @Test
+    void testSelect_WhenTotalTimePrefixIsLargerThanParallelThreshold_ThenReturnsQuickestFirst() {
+        // Arrange
+        int size = RecipeCatalogSnapshot.PARALLEL_THRESHOLD * 3 + 17;
+        List<Recipe> recipes = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            recipes.add(recipe(id, "Recipe " + id, (int) (id % 90), 0, 2, id % 3 == 0 ? "Hard" : "Easy", "Italian"));
+        }
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(recipes, codeDictionary);
+        
+        // Act
+        long[] result = snapshot.select(totalTime(HARD, 80, true));
+        
+        // Assert
+        long[] expected = recipes.stream()
+                .filter(recipe -> recipe.getId() % 3 == 0 && recipe.getPrepTime() <= 80)
+                .sorted(Comparator.comparing(Recipe::getPrepTime).thenComparing(Recipe::getId))
+                .mapToLong(Recipe::getId)
+                .toArray();
+        assertArrayEquals(expected, result);
+    }
+    
+    @Test
+    void testFacets_WhenFiltering_ThenEachDimensionIgnoresItsOwnFilter() {
+        // Arrange
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(List.of(
+                recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian"),
+                recipe(2L, "Stir-Fry", 10, 10, 3, "Easy", "Asian"),
+                recipe(3L, "Risotto", 15, 35, 4, "Hard", "Italian"),
+                recipe(4L, "Salad", 5, 5, 2, "Easy", "Asian")), codeDictionary);
+        
+        // Act - Easy Italian recipes of at most 30 minutes
+        RecipeCatalogSnapshot.FacetCounts counts = snapshot.facets(
+                new RecipeCatalogSnapshot.Criteria(EASY, ITALIAN, null, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 30, false));
+        
+        // Assert
+        assertEquals(1, counts.total());
+        assertEquals(1, counts.difficulties()[EASY]);    // Risotto is Hard but also too slow
+        assertEquals(0, counts.difficulties()[HARD]);
+        assertEquals(1, counts.cuisines()[ITALIAN]);
+        assertEquals(2, counts.cuisines()[ASIAN]);       // Easy Asian recipes under 30 minutes
+        assertArrayEquals(new int[] {0, 1, 1}, counts.totalTimes()); // Easy Italian, any time
+    }
+    
+    @Test
+    void testFacets_WhenRecipesUseCategorizedIngredients_ThenCountsEachCategoryOncePerRecipe() {
+        // Arrange
+        int dairy = 3;
+        int vegetable = 4;
+        Recipe carbonara = recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian");
+        carbonara.getIngredients().add(new RecipeIngredient("Parmesan", 1.0, "cups", null));
+        carbonara.getIngredients().add(new RecipeIngredient("Butter", 1.0, "cups", null));
+        Recipe stirFry = recipe(2L, "Stir-Fry", 10, 10, 3, "Easy", "Asian");
+        stirFry.getIngredients().add(new RecipeIngredient("broccoli", 1.0, "cups", null));
+        stirFry.getIngredients().add(new RecipeIngredient("Unknown Sauce", 1.0, "cups", null));
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(List.of(carbonara, stirFry), codeDictionary,
+                Map.of("parmesan", dairy, "butter", dairy, "broccoli", vegetable));
+        
+        // Act
+        RecipeCatalogSnapshot.FacetCounts all = snapshot.facets(criteria(0, 0, null, Integer.MAX_VALUE, 0));
+        RecipeCatalogSnapshot.FacetCounts asian = snapshot.facets(criteria(0, ASIAN, null, Integer.MAX_VALUE, 0));
+        
+        // Assert
+        assertEquals(1, all.categories()[dairy]);
+        assertEquals(1, all.categories()[vegetable]);
+        assertEquals(0, asian.categories()[dairy]);
+        assertEquals(1, asian.categories()[vegetable]);
+    }
+    
+    @Test
+    void testFacets_WhenSnapshotChanges_ThenNewSnapshotCountsAfresh() {
+        // Arrange
+        RecipeCatalogSnapshot snapshot = RecipeCatalogSnapshot.of(List.of(
+                recipe(1L, "Carbonara", 15, 15, 4, "Easy", "Italian")), codeDictionary);
+        RecipeCatalogSnapshot.Criteria any = criteria(0, 0, null, Integer.MAX_VALUE, 0);
+        RecipeCatalogSnapshot.FacetCounts before = snapshot.facets(any);
+        
+        // Act
+        RecipeCatalogSnapshot updated = snapshot.withRecipe(recipe(2L, "Risotto", 15, 35, 4, "Hard", "Italian"), codeDictionary);
+        
+        // Assert
+        assertSame(before, snapshot.facets(any));
+        assertSame(before, snapshot.facets(totalTime(0, Integer.MAX_VALUE, true))); // sort order is not part of the key
+        assertEquals(1, before.total());
+        assertEquals(2, updated.facets(any).total());
+        assertEquals(1, updated.facets(any).difficulties()[HARD]);
+    }
+    
+    private static RecipeCatalogSnapshot.Criteria criteria(int difficultyCode, int cuisineCode, String search,
+                                                           int maxPrepTime, int minServings) {
+        return new RecipeCatalogSnapshot.Criteria(difficultyCode, cuisineCode, search,
+                maxPrepTime, Integer.MAX_VALUE, minServings, Integer.MAX_VALUE, false);
+    }
+    
+    private static RecipeCatalogSnapshot.Criteria totalTime(int difficultyCode, int maxTotalTime, boolean sort) {
+        return new RecipeCatalogSnapshot.Criteria(difficultyCode, 0, null,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, 0, maxTotalTime, sort);
+    }
+
+    private static Recipe recipe(Long id, String name, int prepTime, int cookTime, int servings,
+                                 String difficulty, String cuisine) {
+        Recipe recipe = new Recipe(name, null, prepTime, cookTime, servings, difficulty, cuisine);
+        recipe.setId(id);
+        return recipe;
+    }
+}
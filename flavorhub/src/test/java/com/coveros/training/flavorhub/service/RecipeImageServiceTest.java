@@ -0,0 +1,217 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for recipe thumbnails, with a local directory standing in for the image origin
+ */
+class RecipeImageServiceTest {
+    
+    @TempDir
+    Path origin;
+    
+    @TempDir
+    Path cacheDirectory;
+    
+    private RecipeService recipeService;
+    private RecipeImageService recipeImageService;
+    
+    @BeforeEach
+    void setUp() {
+        recipeService = mock(RecipeService.class);
+        recipeImageService = new RecipeImageService(recipeService, cacheDirectory, 16, 0, origin.toString(), List.of(),
+                10, 25, 0.8f, 1000);
+    }
+    
+    @Test
+    void testGetThumbnail_WhenImageIsLarge_ThenScalesEverySizeFromOneRead() throws Exception {
+        // Arrange
+        image("photos/pasta.png", 2000, 1000);
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(recipe(1L, "/photos/pasta.png")));
+        
+        // Act
+        Path card = recipeImageService.getThumbnail(1L, ThumbnailSize.CARD).orElseThrow().file();
+        Files.delete(origin.resolve("photos/pasta.png"));
+        Path small = recipeImageService.getThumbnail(1L, ThumbnailSize.SMALL).orElseThrow().file();
+        
+        // Assert
+        BufferedImage cardImage = ImageIO.read(card.toFile());
+        assertEquals(640, cardImage.getWidth());
+        assertEquals(320, cardImage.getHeight());
+        assertEquals(320, ImageIO.read(small.toFile()).getWidth());
+        assertTrue(card.startsWith(cacheDirectory));
+    }
+    
+    @Test
+    void testGetThumbnail_WhenImageIsSmall_ThenKeepsItsSize() throws Exception {
+        // Arrange
+        image("tiny.png", 100, 80);
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(recipe(1L, "tiny.png")));
+        
+        // Act
+        Path large = recipeImageService.getThumbnail(1L, ThumbnailSize.LARGE).orElseThrow().file();
+        
+        // Assert
+        BufferedImage image = ImageIO.read(large.toFile());
+        assertEquals(100, image.getWidth());
+        assertEquals(80, image.getHeight());
+    }
+    
+    @Test
+    void testGetThumbnail_WhenNoImageOrUnreadable_ThenEmptyOrFails() throws Exception {
+        // Arrange
+        Files.writeString(origin.resolve("notes.txt"), "not an image");
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(recipe(1L, null)));
+        when(recipeService.getRecipeById(2L)).thenReturn(Optional.of(recipe(2L, "notes.txt")));
+        when(recipeService.getRecipeById(3L)).thenReturn(Optional.of(recipe(3L, "../outside.png")));
+        when(recipeService.getRecipeById(4L)).thenReturn(Optional.empty());
+        
+        // Act & Assert
+        assertTrue(recipeImageService.getThumbnail(1L, ThumbnailSize.CARD).isEmpty());
+        assertThrows(UncheckedIOException.class, () -> recipeImageService.getThumbnail(2L, ThumbnailSize.CARD));
+        assertThrows(UncheckedIOException.class, () -> recipeImageService.getThumbnail(3L, ThumbnailSize.CARD));
+        assertTrue(recipeImageService.getThumbnail(4L, ThumbnailSize.CARD).isEmpty());
+    }
+    
+    @Test
+    void testGetThumbnail_WhenCacheCannotHoldEverySize_ThenReturnsWhatWasJustMade() throws Exception {
+        // Arrange
+        RecipeImageService smallCache = new RecipeImageService(recipeService, cacheDirectory, 1, 60, origin.toString(),
+                List.of(), 10, 25, 1.0f, 1000);
+        noise("noise.png", 1400, 1400);
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(recipe(1L, "noise.png")));
+        
+        // Act
+        RecipeImageService.Thumbnail small = smallCache.getThumbnail(1L, ThumbnailSize.SMALL).orElseThrow();
+        
+        // Assert
+        assertNotNull(small.content());
+        assertEquals(320, ImageIO.read(new ByteArrayInputStream(small.content())).getWidth());
+        assertTrue(Files.exists(small.file()));
+    }
+    
+    @Test
+    void testGetThumbnail_WhenImageDeclaresTooManyPixels_ThenRefusesToDecodeIt() throws Exception {
+        // Arrange: a few bytes of PNG claiming 50000x50000 pixels, about 10 GB once decoded
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), "png", png);
+        ByteBuffer bytes = ByteBuffer.wrap(png.toByteArray());
+        bytes.putInt(16, 50_000).putInt(20, 50_000); // IHDR width and height
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array(), 12, 17); // IHDR chunk type and data
+        bytes.putInt(29, (int) crc.getValue());
+        Files.write(origin.resolve("bomb.png"), bytes.array());
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(recipe(1L, "bomb.png")));
+        
+        // Act
+        String failure = failure(recipeImageService, 1L);
+        
+        // Assert
+        assertTrue(failure.contains("50000x50000"), failure);
+    }
+    
+    @Test
+    void testGetThumbnail_WhenRemoteHostNotAllowedOrPrivate_ThenRefusesToFetch() {
+        // Arrange
+        RecipeImageService allowingLocalhost = new RecipeImageService(recipeService, cacheDirectory, 16, 0, "",
+                List.of("localhost"), 10, 25, 0.8f, 1000);
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(recipe(1L, "http://169.254.169.254/latest/meta-data")));
+        when(recipeService.getRecipeById(2L)).thenReturn(Optional.of(recipe(2L, "http://localhost:8080/photo.png")));
+        
+        // Act & Assert
+        assertTrue(failure(recipeImageService, 1L).contains("Remote images are off"));
+        assertTrue(failure(recipeImageService, 2L).contains("Remote images are off"));
+        assertTrue(failure(allowingLocalhost, 1L).contains("not in flavorhub.images.allowed-hosts"));
+        assertTrue(failure(allowingLocalhost, 2L).contains("non-public address"));
+    }
+    
+    @Test
+    void testThumbnailVersion_WhenSourceCannotBeRead_ThenNull() {
+        // Arrange: the default properties allow no remote hosts and set no origin directory
+        RecipeImageService defaults = new RecipeImageService(recipeService, cacheDirectory, 256, 60, "", List.of(),
+                10, 25, 0.8f, 5000);
+        RecipeImageService allowingTheHost = new RecipeImageService(recipeService, cacheDirectory, 256, 60, "",
+                List.of("Images.Example.com"), 10, 25, 0.8f, 5000);
+        Recipe remote = recipe(1L, "https://images.example.com/pasta.jpg");
+        Recipe local = recipe(2L, "pasta.jpg");
+        
+        // Act & Assert
+        assertNull(defaults.thumbnailVersion(remote));
+        assertNull(defaults.thumbnailVersion(local));
+        assertNull(defaults.thumbnailVersion(recipe(3L, null)));
+        assertNull(recipeImageService.thumbnailVersion(remote));
+        assertEquals(RecipeImageService.imageVersion(local), recipeImageService.thumbnailVersion(local));
+        assertEquals(RecipeImageService.imageVersion(remote), allowingTheHost.thumbnailVersion(remote));
+        assertNull(allowingTheHost.thumbnailVersion(recipe(4L, "https://elsewhere.example.com/pasta.jpg")));
+    }
+    
+    @Test
+    void testOnRecipeChanged_WhenImageReplaced_ThenDeletesOldThumbnails() throws Exception {
+        // Arrange
+        image("old.png", 400, 400);
+        image("new.png", 400, 400);
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(recipe(1L, "old.png")));
+        RecipeImageService.Thumbnail old = recipeImageService.getThumbnail(1L, ThumbnailSize.CARD).orElseThrow();
+        Recipe changed = recipe(1L, "new.png");
+        when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(changed));
+        
+        // Act
+        recipeImageService.onRecipeChanged(new RecipeChangedEvent(1L, changed));
+        RecipeImageService.Thumbnail replaced = recipeImageService.getThumbnail(1L, ThumbnailSize.CARD).orElseThrow();
+        
+        // Assert
+        assertFalse(Files.exists(old.file()));
+        assertTrue(Files.exists(replaced.file()));
+        assertNotEquals(old.version(), replaced.version());
+        assertEquals(RecipeImageService.imageVersion(changed), replaced.version());
+    }
+    
+    private static String failure(RecipeImageService service, Long recipeId) {
+        return assertThrows(UncheckedIOException.class, () -> service.getThumbnail(recipeId, ThumbnailSize.CARD))
+                .getCause().getMessage();
+    }
+    
+    private void image(String name, int width, int height) throws Exception {
+        Path file = origin.resolve(name);
+        Files.createDirectories(file.getParent());
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", file.toFile());
+    }
+    
+    private void noise(String name, int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        ImageIO.write(image, "png", origin.resolve(name).toFile());
+    }
+    
+    private static Recipe recipe(Long id, String imageUrl) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setName("Recipe " + id);
+        recipe.setImageUrl(imageUrl);
+        return recipe;
+    }
+}
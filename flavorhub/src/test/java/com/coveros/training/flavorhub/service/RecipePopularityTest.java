@@ -0,0 +1,157 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.RecipeStats;
+import com.coveros.training.flavorhub.repository.RecipeStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the in-memory view/cook counters, their batched flush and the trending window
+ */
+class RecipePopularityTest {
+    
+    private static final long WINDOW_MILLIS = 60_000;
+    
+    private RecipeStatsRepository recipeStatsRepository;
+    private AtomicLong now;
+    private RecipePopularity popularity;
+    
+    @BeforeEach
+    void setUp() {
+        recipeStatsRepository = mock(RecipeStatsRepository.class);
+        now = new AtomicLong(1_000_000);
+        popularity = new RecipePopularity(recipeStatsRepository, WINDOW_MILLIS, now::get);
+    }
+    
+    @Test
+    void testFlush_WhenManyThreadsCount_ThenWritesEveryCountOnceInOneBatch() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    popularity.recordView(1L + i % 2);
+                    if (i % 100 == 0) {
+                        popularity.flush(); // flushes racing with increments must not lose any
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        popularity.recordCook(2L);
+        
+        // Act
+        popularity.flush();
+        
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<RecipeStats>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(recipeStatsRepository, atLeastOnce()).addCounts(batches.capture());
+        long views = batches.getAllValues().stream().flatMap(Collection::stream).mapToLong(RecipeStats::getViewCount).sum();
+        long cooks = batches.getAllValues().stream().flatMap(Collection::stream).mapToLong(RecipeStats::getCookCount).sum();
+        assertEquals(80_000, views);
+        assertEquals(1, cooks);
+        assertEquals(0, popularity.flush());
+    }
+    
+    @Test
+    void testFlush_WhenWriteFails_ThenCountsAreKeptForTheNextFlush() {
+        // Arrange
+        popularity.recordView(1L);
+        popularity.recordView(1L);
+        doThrow(new IllegalStateException("database down")).when(recipeStatsRepository).addCounts(any());
+        
+        // Act
+        int failed = popularity.flush();
+        doNothing().when(recipeStatsRepository).addCounts(any());
+        popularity.recordView(1L);
+        int written = popularity.flush();
+        
+        // Assert
+        assertEquals(0, failed);
+        assertEquals(1, written);
+        verify(recipeStatsRepository).addCounts(List.of(new RecipeStats(1L, 3, 0)));
+    }
+    
+    @Test
+    void testTrendingIds_WhenCooksAndViews_ThenRanksByWeightedCountWithinWindow() {
+        // Arrange - recipe 1 was popular a while ago, recipes 2 and 3 are popular now
+        for (int i = 0; i < 50; i++) {
+            popularity.recordView(1L);
+        }
+        now.addAndGet(WINDOW_MILLIS / 2);
+        for (int i = 0; i < 20; i++) {
+            popularity.recordView(2L);
+        }
+        for (int i = 0; i < 6; i++) {
+            popularity.recordCook(3L);
+        }
+        
+        // Act
+        long[] withinWindow = popularity.trendingIds(10);
+        now.addAndGet(WINDOW_MILLIS / 2 + WINDOW_MILLIS / 12);
+        long[] afterOldestExpired = popularity.trendingIds(10);
+        now.addAndGet(2 * WINDOW_MILLIS);
+        long[] afterAllExpired = popularity.trendingIds(10);
+        
+        // Assert
+        assertArrayEquals(new long[] {1L, 3L, 2L}, withinWindow);
+        assertArrayEquals(new long[] {3L, 2L}, afterOldestExpired);
+        assertArrayEquals(new long[0], afterAllExpired);
+    }
+    
+    @Test
+    void testTop_WhenFarMoreKeysThanCandidates_ThenFindsTheHeavyHitters() {
+        // Arrange - 20,000 one-off keys interleaved with 5 keys seen 200 times each
+        TrendingSketch sketch = new TrendingSketch(20, WINDOW_MILLIS, 12, now::get);
+        for (int i = 0; i < 20_000; i++) {
+            sketch.record(1_000 + i, 1);
+            if (i % 20 == 0) {
+                for (long heavy = 1; heavy <= 5; heavy++) {
+                    sketch.record(heavy, 1);
+                }
+            }
+        }
+        
+        // Act
+        List<TrendingSketch.Ranked> top = sketch.top(5);
+        
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), top.stream().map(TrendingSketch.Ranked::key).sorted().toList());
+        for (TrendingSketch.Ranked ranked : top) {
+            assertTrue(ranked.count() >= 1_000, "estimates are never below the true count");
+        }
+    }
+    
+    @Test
+    void testOnRecipeChanged_WhenDeleted_ThenDropsItsCountsAndStats() {
+        // Arrange
+        popularity.recordView(4L);
+        
+        // Act
+        popularity.onRecipeChanged(new RecipeChangedEvent(4L, null));
+        
+        // Assert
+        assertEquals(0, popularity.flush());
+        assertArrayEquals(new long[0], popularity.trendingIds(10));
+        verify(recipeStatsRepository).deleteById(4L);
+    }
+}
@@ -1,5 +1,6 @@
 package com.coveros.training.flavorhub.service;
 
+import com.coveros.training.flavorhub.model.CodeDimension;
 import com.coveros.training.flavorhub.model.Recipe;
 import com.coveros.training.flavorhub.repository.RecipeRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,7 +8,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,6 +32,24 @@ class RecipeServiceTest {
     @Mock
     private RecipeRepository recipeRepository;
 
+    @Mock
+    private CodeDictionary codeDictionary;
+
+    @Mock
+    private RecipeCatalog recipeCatalog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private RecipeReadCoalescer recipeReadCoalescer = new RecipeReadCoalescer();
+
+    @Mock
+    private RecipeSimilarityIndex similarityIndex;
+
+    @Mock
+    private RecipePopularity recipePopularity;
+
     @InjectMocks
     private RecipeService recipeService;
 
@@ -145,6 +166,7 @@ class RecipeServiceTest {
     void testGetRecipesByDifficulty_WhenRecipesExist_ThenReturnsFilteredRecipes() {
         // Arrange
         List<Recipe> easyRecipes = Arrays.asList(testRecipe, testRecipe3);
+        when(codeDictionary.canonical(CodeDimension.DIFFICULTY, "Easy")).thenReturn(Optional.of("Easy"));
         when(recipeRepository.findByDifficultyLevel("Easy")).thenReturn(easyRecipes);
 
         // Act
@@ -160,6 +182,7 @@ class RecipeServiceTest {
     @Test
     void testGetRecipesByDifficulty_WhenNoRecipesMatch_ThenReturnsEmptyList() {
         // Arrange
+        when(codeDictionary.canonical(CodeDimension.DIFFICULTY, "Hard")).thenReturn(Optional.of("Hard"));
         when(recipeRepository.findByDifficultyLevel("Hard")).thenReturn(new ArrayList<>());
 
         // Act
@@ -179,6 +202,7 @@ class RecipeServiceTest {
     void testGetRecipesByCuisine_WhenRecipesExist_ThenReturnsFilteredRecipes() {
         // Arrange
         List<Recipe> italianRecipes = Arrays.asList(testRecipe, testRecipe3);
+        when(codeDictionary.canonical(CodeDimension.CUISINE, "Italian")).thenReturn(Optional.of("Italian"));
         when(recipeRepository.findByCuisineType("Italian")).thenReturn(italianRecipes);
 
         // Act
@@ -194,6 +218,7 @@ class RecipeServiceTest {
     @Test
     void testGetRecipesByCuisine_WhenNoRecipesMatch_ThenReturnsEmptyList() {
         // Arrange
+        when(codeDictionary.canonical(CodeDimension.CUISINE, "Mexican")).thenReturn(Optional.of("Mexican"));
         when(recipeRepository.findByCuisineType("Mexican")).thenReturn(new ArrayList<>());
 
         // Act
@@ -205,6 +230,141 @@ class RecipeServiceTest {
         verify(recipeRepository).findByCuisineType("Mexican");
     }
 
+    @Test
+    void testGetRecipesByCuisine_WhenCuisineIsUnknown_ThenReturnsEmptyWithoutQuery() {
+        // Arrange
+        when(codeDictionary.canonical(CodeDimension.CUISINE, "Klingon")).thenReturn(Optional.empty());
+
+        // Act
+        List<Recipe> result = recipeService.getRecipesByCuisine("Klingon");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(recipeRepository);
+    }
+
+    // =====================================================
+    // findRecipes() Tests
+    // =====================================================
+
+    @Test
+    void testFindRecipes_WhenCatalogMatches_ThenReturnsRecipesInCatalogOrder() {
+        // Arrange
+        RecipeFilter filter = RecipeFilter.builder().difficulty("easy").cuisine("ITALIAN").build();
+        when(recipeCatalog.findIds(filter)).thenReturn(new long[] {1L, 3L});
+        when(recipeRepository.findAllById(List.of(1L, 3L))).thenReturn(Arrays.asList(testRecipe3, testRecipe));
+
+        // Act
+        List<Recipe> result = recipeService.findRecipes(filter);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("Pasta Carbonara", result.get(0).getName());
+        assertEquals("Spaghetti Bolognese", result.get(1).getName());
+    }
+
+    @Test
+    void testFindRecipes_WhenCatalogHasNoMatches_ThenDoesNotQueryDatabase() {
+        // Arrange
+        RecipeFilter filter = RecipeFilter.builder().cuisine("Klingon").build();
+        when(recipeCatalog.findIds(filter)).thenReturn(new long[0]);
+
+        // Act
+        List<Recipe> result = recipeService.findRecipes(filter);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    void testFindRecipePage_WhenMoreMatchesThanPageSize_ThenLoadsOnlyThatPage() {
+        // Arrange
+        RecipeFilter filter = RecipeFilter.builder().build();
+        when(recipeCatalog.findIds(filter)).thenReturn(new long[] {1L, 2L, 3L});
+        when(recipeRepository.findAllById(List.of(3L))).thenReturn(List.of(testRecipe3));
+
+        // Act
+        RecipePage result = recipeService.findRecipePage(filter, 1, 2);
+
+        // Assert
+        assertEquals(List.of(testRecipe3), result.recipes());
+        assertEquals(3, result.total());
+        assertFalse(result.hasNext());
+        assertTrue(recipeService.findRecipePage(filter, 5, 2).recipes().isEmpty());
+    }
+
+    @Test
+    void testFindRecipePage_WhenSizeOutOfRange_ThenThrowsException() {
+        // Arrange
+        RecipeFilter filter = RecipeFilter.builder().build();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> recipeService.findRecipePage(filter, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> recipeService.findRecipePage(filter, 0, RecipePage.MAX_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> recipeService.findRecipePage(filter, -1, 10));
+        verifyNoInteractions(recipeCatalog);
+    }
+
+    @Test
+    void testGetRecipesByIds_WhenRecipeWasDeleted_ThenSkipsIt() {
+        // Arrange
+        when(recipeRepository.findAllById(List.of(2L, 99L))).thenReturn(List.of(testRecipe2));
+
+        // Act
+        List<Recipe> result = recipeService.getRecipesByIds(new long[] {2L, 99L});
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("Pad Thai", result.get(0).getName());
+    }
+
+    // =====================================================
+    // getSimilarRecipes() Tests
+    // =====================================================
+
+    @Test
+    void testGetSimilarRecipes_WhenIndexHasNeighbors_ThenReturnsThemMostSimilarFirst() {
+        // Arrange
+        when(recipeRepository.existsById(1L)).thenReturn(true);
+        when(similarityIndex.similarTo(1L, 5)).thenReturn(List.of(
+                new RecipeSimilarityIndex.Neighbor(3L, 0.8), new RecipeSimilarityIndex.Neighbor(2L, 0.25)));
+        when(recipeRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(testRecipe2, testRecipe3));
+
+        // Act
+        Optional<List<Recipe>> result = recipeService.getSimilarRecipes(1L, 5);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(List.of(testRecipe3, testRecipe2), result.get());
+    }
+
+    @Test
+    void testGetSimilarRecipes_WhenRecipeDoesNotExist_ThenReturnsEmpty() {
+        // Arrange
+        when(recipeRepository.existsById(99L)).thenReturn(false);
+
+        // Act
+        Optional<List<Recipe>> result = recipeService.getSimilarRecipes(99L, 5);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(similarityIndex);
+    }
+
+    @Test
+    void testGetTrendingRecipes_WhenRecipesAreTrending_ThenReturnsThemMostPopularFirst() {
+        // Arrange
+        when(recipePopularity.trendingIds(2)).thenReturn(new long[] {2L, 1L});
+        when(recipeRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(testRecipe, testRecipe2));
+
+        // Act
+        List<Recipe> result = recipeService.getTrendingRecipes(2);
+
+        // Assert
+        assertEquals(List.of(testRecipe2, testRecipe), result);
+    }
+
     // =====================================================
     // searchRecipes() Tests
     // =====================================================
@@ -276,6 +436,7 @@ class RecipeServiceTest {
         assertNotNull(result);
         assertEquals("Pasta Carbonara", result.getName());
         verify(recipeRepository).save(eq(newRecipe));
+        verify(eventPublisher).publishEvent(new RecipeChangedEvent(1L, testRecipe));
     }
 
     @Test
@@ -330,6 +491,7 @@ class RecipeServiceTest {
 
         // Assert
         verify(recipeRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new RecipeChangedEvent(1L, null));
     }
 
     @Test
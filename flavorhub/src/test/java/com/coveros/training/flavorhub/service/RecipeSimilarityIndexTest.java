@@ -0,0 +1,112 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the MinHash/LSH similar-recipe index
+ */
+class RecipeSimilarityIndexTest {
+    
+    private RecipeRepository recipeRepository;
+    private RecipeSimilarityIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        index = new RecipeSimilarityIndex(recipeRepository);
+    }
+    
+    @Test
+    void testSimilarTo_WhenRecipesShareIngredients_ThenRanksByJaccardSimilarity() {
+        // Arrange
+        when(recipeRepository.findAllWithIngredients()).thenReturn(List.of(
+                recipe(1L, "Italian", "Pasta", "Tomato", "Garlic", "Basil", "Olive Oil"),
+                recipe(2L, "Italian", "Pasta", "Tomato", "Garlic", "Basil", "Parmesan"),
+                recipe(3L, "Italian", "Pasta", "Garlic", "Olive Oil", "Chili Flakes", "Parsley"),
+                recipe(4L, "Asian", "Rice", "Soy Sauce", "Ginger", "Scallions", "Sesame Oil")));
+        index.rebuild();
+        
+        // Act
+        List<RecipeSimilarityIndex.Neighbor> result = index.similarTo(1L, 5);
+        
+        // Assert
+        assertEquals(2L, result.get(0).recipeId());
+        assertEquals(5.0 / 7, result.get(0).similarity(), 1e-9);
+        assertTrue(result.stream().noneMatch(neighbor -> neighbor.recipeId() == 4L || neighbor.recipeId() == 1L));
+    }
+    
+    @Test
+    void testSimilarTo_WhenRecipeChanges_ThenBucketsFollow() {
+        // Arrange
+        when(recipeRepository.findAllWithIngredients()).thenReturn(List.of(
+                recipe(1L, null, "Rice", "Beans", "Salsa", "Cumin"),
+                recipe(2L, null, "Rice", "Beans", "Salsa", "Cumin", "Cheese")));
+        index.rebuild();
+        
+        // Act
+        index.onRecipeChanged(new RecipeChangedEvent(2L, recipe(2L, null, "Flour", "Sugar", "Butter", "Eggs")));
+        List<RecipeSimilarityIndex.Neighbor> afterChange = index.similarTo(1L, 5);
+        index.onRecipeChanged(new RecipeChangedEvent(3L, recipe(3L, null, "Rice", "Beans", "Salsa", "Cumin")));
+        index.onRecipeChanged(new RecipeChangedEvent(2L, null));
+        List<RecipeSimilarityIndex.Neighbor> afterAdd = index.similarTo(1L, 5);
+        
+        // Assert
+        assertTrue(afterChange.isEmpty());
+        assertEquals(List.of(new RecipeSimilarityIndex.Neighbor(3L, 1.0)), afterAdd);
+        assertTrue(index.similarTo(2L, 5).isEmpty());
+    }
+    
+    @Test
+    void testSimilarTo_WhenManyRecipes_ThenFindsCloseVariantsAmongThem() {
+        // Arrange - 2000 recipes of random ingredients plus a near copy of recipe 1
+        List<Recipe> recipes = new ArrayList<>();
+        Random random = new Random(42);
+        for (long id = 1; id <= 2000; id++) {
+            String[] names = new String[8];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = "ingredient " + random.nextInt(500);
+            }
+            recipes.add(recipe(id, null, names));
+        }
+        List<String> variant = new ArrayList<>(recipes.get(0).getIngredients().stream()
+                .map(RecipeIngredient::getIngredientName).toList());
+        variant.set(0, "something else");
+        recipes.add(recipe(2001L, null, variant.toArray(String[]::new)));
+        when(recipeRepository.findAllWithIngredients()).thenReturn(recipes);
+        index.rebuild();
+        
+        // Act
+        List<RecipeSimilarityIndex.Neighbor> result = index.similarTo(1L, 3);
+        
+        // Assert
+        assertEquals(2001L, result.get(0).recipeId());
+        assertTrue(result.get(0).similarity() > 0.7);
+    }
+    
+    @Test
+    void testJaccard_WhenArraysOverlap_ThenSharedOverUnion() {
+        // Act & Assert
+        assertEquals(0.5, RecipeSimilarityIndex.jaccard(new long[] {1, 2, 3}, new long[] {2, 3, 4}), 1e-9);
+        assertEquals(0.0, RecipeSimilarityIndex.jaccard(new long[0], new long[0]), 1e-9);
+    }
+    
+    private static Recipe recipe(Long id, String cuisine, String... ingredientNames) {
+        Recipe recipe = new Recipe("Recipe " + id, "", 10, 10, 2, "Easy", cuisine);
+        recipe.setId(id);
+        for (String name : ingredientNames) {
+            recipe.getIngredients().add(new RecipeIngredient(name, 1.0, "cups", ""));
+        }
+        return recipe;
+    }
+}
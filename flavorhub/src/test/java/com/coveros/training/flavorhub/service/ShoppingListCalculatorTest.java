@@ -0,0 +1,125 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the shopping list aggregation: unit normalization, pantry subtraction and the accumulator
+ */
+class ShoppingListCalculatorTest {
+    
+    private static final Ingredient OLIVE_OIL = new Ingredient(1L, "Olive Oil", "Condiment", "tablespoons");
+    private static final Ingredient EGGS = new Ingredient(2L, "Eggs", "Dairy", "whole");
+    private static final Ingredient CHICKEN = new Ingredient(3L, "Chicken Breast", "Protein", "pounds");
+    private static final List<Ingredient> CATALOG = List.of(OLIVE_OIL, EGGS, CHICKEN);
+    
+    @Test
+    void testCalculate_WhenUnitsDifferWithinDimension_ThenSumsInCommonUnit() {
+        // Arrange
+        List<Recipe> recipes = List.of(
+                recipe(new RecipeIngredient("Olive Oil", 2.0, "tablespoons", "")),
+                recipe(new RecipeIngredient("olive oil", 0.25, "cup", ""),
+                        new RecipeIngredient("Olive Oil", 6.0, "tsp", "")));
+        
+        // Act
+        List<ShoppingListItem> items = ShoppingListCalculator.calculate(recipes, CATALOG, List.of());
+        
+        // Assert: 6 + 12 + 6 = 24 teaspoons = 8 tablespoons
+        assertEquals(List.of(new ShoppingListItem("Olive Oil", "Condiment", 8.0, "tablespoons", 8.0, 0.0)), items);
+    }
+    
+    @Test
+    void testCalculate_WhenPantryHasSome_ThenSubtractsAndDropsCoveredItems() {
+        // Arrange
+        List<Recipe> recipes = List.of(
+                recipe(new RecipeIngredient("Eggs", 4.0, "whole", ""),
+                        new RecipeIngredient("Chicken Breast", 16.0, "ounces", "")),
+                recipe(new RecipeIngredient("Eggs", 3.0, "whole", ""),
+                        new RecipeIngredient("Chicken Breast", 1.0, "pounds", "")));
+        List<UserPantry> pantry = List.of(
+                new UserPantry(1L, EGGS, 12.0, "whole"),
+                new UserPantry(1L, CHICKEN, 0.5, "pounds"));
+        
+        // Act
+        List<ShoppingListItem> items = ShoppingListCalculator.calculate(recipes, CATALOG, pantry);
+        
+        // Assert
+        assertEquals(List.of(new ShoppingListItem("Chicken Breast", "Protein", 1.5, "pounds", 2.0, 0.5)), items);
+    }
+    
+    @Test
+    void testCalculate_WhenUnitsAreIncompatible_ThenKeepsSeparateLines() {
+        // Arrange
+        List<Recipe> recipes = List.of(recipe(
+                new RecipeIngredient("Eggs", 2.0, "whole", ""),
+                new RecipeIngredient("Eggs", 0.5, "cups", "beaten")));
+        List<UserPantry> pantry = List.of(new UserPantry(1L, EGGS, 1.0, "whole"));
+        
+        // Act
+        List<ShoppingListItem> items = ShoppingListCalculator.calculate(recipes, CATALOG, pantry);
+        
+        // Assert
+        assertEquals(2, items.size());
+        assertTrue(items.contains(new ShoppingListItem("Eggs", "Dairy", 1.0, "whole", 2.0, 1.0)));
+        assertTrue(items.contains(new ShoppingListItem("Eggs", "Dairy", 8.0, "tablespoons", 8.0, 0.0)));
+    }
+    
+    @Test
+    void testCalculate_WhenIngredientNotInCatalog_ThenListsItWithoutCategoryLast() {
+        // Arrange
+        List<Recipe> recipes = List.of(recipe(
+                new RecipeIngredient("Saffron", 1.0, "pinch", ""),
+                new RecipeIngredient("saffron ", 2.0, "Pinch", ""),
+                new RecipeIngredient("Eggs", 1.0, "whole", ""),
+                new RecipeIngredient("Salt", null, "teaspoons", "to taste")));
+        
+        // Act
+        List<ShoppingListItem> items = ShoppingListCalculator.calculate(recipes, CATALOG, List.of());
+        
+        // Assert
+        assertEquals(List.of(
+                new ShoppingListItem("Eggs", "Dairy", 1.0, "whole", 1.0, 0.0),
+                new ShoppingListItem("Saffron", null, 3.0, "pinch", 3.0, 0.0)), items);
+    }
+    
+    @Test
+    void testQuantityAccumulator_WhenManyKeysAdded_ThenGrowsAndKeepsTotals() {
+        // Arrange
+        QuantityAccumulator accumulator = new QuantityAccumulator(4);
+        
+        // Act
+        for (int round = 0; round < 3; round++) {
+            for (long key = -500; key < 500; key++) {
+                accumulator.add(key << 16 | (key & 7), 0.5);
+            }
+        }
+        
+        // Assert
+        assertEquals(1000, accumulator.size());
+        assertEquals(1.5, accumulator.get(-500L << 16 | 4), 1e-9);
+        assertEquals(1.5, accumulator.get(499L << 16 | 3), 1e-9);
+        assertEquals(0.0, accumulator.get(12345L), 1e-9);
+        List<Long> keys = new ArrayList<>();
+        for (int slot = 0; slot < accumulator.slots(); slot++) {
+            if (accumulator.isOccupied(slot)) {
+                keys.add(accumulator.keyAt(slot));
+            }
+        }
+        assertEquals(1000, keys.size());
+        assertThrows(IllegalArgumentException.class, () -> accumulator.add(Long.MIN_VALUE, 1));
+    }
+    
+    private static Recipe recipe(RecipeIngredient... lines) {
+        Recipe recipe = new Recipe("Test", null, 10, 10, 2, "Easy", "Italian");
+        recipe.getIngredients().addAll(List.of(lines));
+        return recipe;
+    }
+}
@@ -0,0 +1,116 @@
+package com.coveros.training.flavorhub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SingleFlight
+ */
+class SingleFlightTest {
+    
+    private final SingleFlight<String, String> flights = new SingleFlight<>("test");
+    
+    @Test
+    void testExecute_WhenIdenticalCallsOverlap_ThenLoadsOnceAndSharesResult() throws Exception {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.execute("pasta", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "result";
+        }));
+        waitUntilInFlight();
+        
+        // Act
+        List<CompletableFuture<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(CompletableFuture.supplyAsync(() -> flights.execute("pasta", () -> {
+                loads.incrementAndGet();
+                return "second load";
+            })));
+        }
+        waitUntil(() -> flights.stats().collapsed() == 5);
+        release.countDown();
+        
+        // Assert
+        assertEquals("result", leader.get(1, TimeUnit.SECONDS));
+        for (CompletableFuture<String> follower : followers) {
+            assertEquals("result", follower.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(new SingleFlight.Stats("test", 6, 5, 0), flights.stats());
+    }
+    
+    @Test
+    void testExecute_WhenLoadFails_ThenWaitersGetSameException() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.execute("pasta", () -> {
+            await(release);
+            throw new IllegalStateException("database unavailable");
+        }));
+        waitUntilInFlight();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flights.execute("pasta", () -> "unused"));
+        waitUntil(() -> flights.stats().collapsed() == 1);
+        
+        // Act
+        release.countDown();
+        
+        // Assert
+        Exception failure = assertThrows(Exception.class, () -> follower.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertThrows(Exception.class, () -> leader.get(1, TimeUnit.SECONDS));
+        assertEquals("fresh", flights.execute("pasta", () -> "fresh"), "failures are not remembered");
+    }
+    
+    @Test
+    void testForgetAll_WhenLoadInProgress_ThenNextCallerLoadsAgain() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() -> flights.execute("pasta", () -> {
+            await(release);
+            return "old";
+        }));
+        waitUntilInFlight();
+        
+        // Act
+        flights.forgetAll();
+        String fresh = flights.execute("pasta", () -> "new");
+        release.countDown();
+        
+        // Assert
+        assertEquals("new", fresh);
+        assertEquals("old", stale.get(1, TimeUnit.SECONDS));
+        assertEquals(0, flights.stats().collapsed());
+    }
+    
+    private void waitUntilInFlight() throws InterruptedException {
+        waitUntil(() -> flights.stats().inFlight() == 1);
+    }
+    
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
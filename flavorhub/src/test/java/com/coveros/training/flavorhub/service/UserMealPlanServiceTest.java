@@ -4,52 +4,105 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.MealPlan;
 import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import com.coveros.training.flavorhub.repository.MealPlanRepository;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
 
 /**
  * Unit tests for UserMealPlanService.
- * Contract-first: positive and negative tests, even if not implemented yet.
+ * Repositories are mocked; the meal plan repository keeps saved plans in a map.
  */
 class UserMealPlanServiceTest {
 
 	private UserMealPlanService userMealPlanService;
+	private MealPlanRepository mealPlanRepository;
+	private RecipeRepository recipeRepository;
+	private IngredientRepository ingredientRepository;
+	private IngredientDictionary ingredientDictionary;
+	private UserPantryRepository userPantryRepository;
+	private RecipeCatalog recipeCatalog;
+	private RecipeIngredientIndex recipeIngredientIndex;
+	private final Map<Long, MealPlan> savedPlans = new HashMap<>();
 
 	@BeforeEach
 	void setUp() {
-		userMealPlanService = new UserMealPlanService();
+		mealPlanRepository = mock(MealPlanRepository.class);
+		recipeRepository = mock(RecipeRepository.class);
+		ingredientRepository = mock(IngredientRepository.class);
+		ingredientDictionary = new IngredientDictionary(ingredientRepository);
+		userPantryRepository = mock(UserPantryRepository.class);
+		recipeCatalog = mock(RecipeCatalog.class);
+		recipeIngredientIndex = mock(RecipeIngredientIndex.class);
+		when(mealPlanRepository.findByUserId(anyLong()))
+				.thenAnswer(invocation -> Optional.ofNullable(savedPlans.get(invocation.<Long>getArgument(0))));
+		when(mealPlanRepository.save(any(MealPlan.class))).thenAnswer(invocation -> {
+			MealPlan plan = invocation.getArgument(0);
+			savedPlans.put(plan.getUserId(), plan);
+			return plan;
+		});
+		userMealPlanService = new UserMealPlanService(mealPlanRepository, recipeRepository,
+				ingredientDictionary, userPantryRepository, recipeCatalog, recipeIngredientIndex);
 	}
 
 	@Test
-	void testCreateMealPlan_ThrowsUnsupportedOperationException() {
+	void testCreateMealPlan_WhenRecipeNotSaved_ThenThrowsIllegalArgumentException() {
 		Long userId = 1L;
-		List<Recipe> mealPlanData = new ArrayList<>();
-		assertThrows(UnsupportedOperationException.class, () ->
+		List<Recipe> mealPlanData = new ArrayList<>(List.of(new Recipe()));
+		assertThrows(IllegalArgumentException.class, () ->
 				userMealPlanService.createMealPlan(userId, mealPlanData));
+		verify(mealPlanRepository, never()).save(any());
 	}
 
 	@Test
-	void testGetMealPlanForUser_ThrowsUnsupportedOperationException() {
-		Long userId = 1L;
-		assertThrows(UnsupportedOperationException.class, () ->
-				userMealPlanService.getMealPlanForUser(userId));
+	void testSaveMealPlan_WhenRecipeDoesNotExist_ThenThrowsIllegalArgumentException() {
+		when(recipeRepository.findAllById(anyCollection())).thenReturn(List.of(recipe(1L)));
+		assertThrows(IllegalArgumentException.class, () ->
+				userMealPlanService.saveMealPlan(1L, List.of(1L, 404L)));
+		verify(mealPlanRepository, never()).save(any());
 	}
 
-	// Positive contract tests (will fail until implemented)
 	@Test
 	void testCreateAndGetMealPlan_Positive() {
 		Long userId = 42L;
-		Recipe recipe1 = new Recipe();
-		Recipe recipe2 = new Recipe();
-		List<Recipe> mealPlan = Arrays.asList(recipe1, recipe2);
+		Recipe recipe1 = recipe(1L);
+		Recipe recipe2 = recipe(2L);
+		when(recipeRepository.findAllById(anyCollection())).thenReturn(List.of(recipe1, recipe2));
+		List<Recipe> mealPlan = Arrays.asList(recipe2, recipe1, recipe2);
 		userMealPlanService.createMealPlan(userId, mealPlan);
 		List<Recipe> result = userMealPlanService.getMealPlanForUser(userId);
 		assertEquals(mealPlan, result);
 	}
 
+	@Test
+	void testSaveMealPlan_WhenPlanExists_ThenReplacesRecipes() {
+		when(recipeRepository.findAllById(anyCollection())).thenReturn(List.of(recipe(1L), recipe(2L)));
+		userMealPlanService.saveMealPlan(7L, List.of(1L, 2L));
+		MealPlan first = savedPlans.get(7L);
+
+		userMealPlanService.saveMealPlan(7L, List.of(2L));
+
+		assertSame(first, savedPlans.get(7L));
+		assertEquals(List.of(2L), savedPlans.get(7L).getRecipeIds());
+	}
+
 	@Test
 	void testGetMealPlanForUser_EmptyIfNone() {
 		Long userId = 99L;
@@ -57,4 +110,98 @@ class UserMealPlanServiceTest {
 		assertNotNull(result);
 		assertTrue(result.isEmpty());
 	}
+
+	@Test
+	void testGetMealPlanForUser_WhenRecipeWasDeleted_ThenSkipsIt() {
+		savedPlans.put(5L, new MealPlan(5L, List.of(1L, 2L)));
+		when(recipeRepository.findAllById(anyCollection())).thenReturn(List.of(recipe(2L)));
+		assertEquals(List.of(recipe(2L)), userMealPlanService.getMealPlanForUser(5L));
+	}
+
+	@Test
+	void testGetShoppingList_WhenNoPlan_ThenEmptyWithoutQueryingRecipes() {
+		ShoppingList result = userMealPlanService.getShoppingList(99L);
+		assertEquals(0, result.recipeCount());
+		assertTrue(result.items().isEmpty());
+		verifyNoInteractions(recipeRepository, ingredientRepository, userPantryRepository);
+	}
+
+	@Test
+	void testGetShoppingList_WhenPlanHasManyRecipes_ThenUsesOneBulkQueryPerTableAndNoneForIngredients() {
+		Long userId = 3L;
+		List<Long> recipeIds = new ArrayList<>();
+		List<Recipe> recipes = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) {
+			recipeIds.add(id);
+			Recipe recipe = recipe(id);
+			recipe.getIngredients().add(new RecipeIngredient("Eggs", 2.0, "whole", ""));
+			recipes.add(recipe);
+		}
+		savedPlans.put(userId, new MealPlan(userId, recipeIds));
+		Ingredient eggs = new Ingredient(10L, "Eggs", "Dairy", "whole");
+		when(recipeRepository.findAllWithIngredientsByIdIn(anyCollection())).thenReturn(recipes);
+		when(ingredientRepository.findAll()).thenReturn(List.of(eggs));
+		ingredientDictionary.rebuild();
+		clearInvocations(ingredientRepository);
+		when(userPantryRepository.findByUserId(userId))
+				.thenReturn(List.of(new UserPantry(userId, eggs, 12.0, "whole")));
+
+		ShoppingList result = userMealPlanService.getShoppingList(userId);
+
+		assertEquals(50, result.recipeCount());
+		assertEquals(List.of(new ShoppingListItem("Eggs", "Dairy", 88.0, "whole", 100.0, 12.0)), result.items());
+		verify(recipeRepository, times(1)).findAllWithIngredientsByIdIn(anyCollection());
+		verify(userPantryRepository, times(1)).findByUserId(userId);
+		verifyNoMoreInteractions(recipeRepository, ingredientRepository, userPantryRepository);
+	}
+
+	@Test
+	void testGenerateMealPlan_WhenSaving_ThenPicksRecipesUsingPantryAndStoresPlan() {
+		Long userId = 8L;
+		Ingredient eggs = new Ingredient(1L, "Eggs", "Dairy", "whole");
+		when(recipeCatalog.findIds(RecipeFilter.builder().difficulty("Easy").build()))
+				.thenReturn(new long[] {1L, 2L, 3L});
+		// bit 0 = eggs, bit 1 = saffron, bit 2 = lobster
+		when(recipeIngredientIndex.bitsOf(1L)).thenReturn(new long[] {0b001});
+		when(recipeIngredientIndex.bitsOf(2L)).thenReturn(new long[] {0b110});
+		when(recipeIngredientIndex.bitsOf(3L)).thenReturn(new long[] {0b011});
+		when(userPantryRepository.findByUserId(userId))
+				.thenReturn(List.of(new UserPantry(userId, eggs, 6.0, "whole")));
+		when(recipeIngredientIndex.bitsOfNames(List.of("Eggs"))).thenReturn(new long[] {0b001});
+		when(recipeRepository.findAllById(anyCollection())).thenReturn(List.of(recipe(1L), recipe(3L)));
+
+		GeneratedMealPlan result = userMealPlanService.generateMealPlan(userId,
+				MealPlanRequest.builder().recipeCount(2).difficulty("Easy").save(true).build());
+
+		assertEquals(List.of(recipe(1L), recipe(3L)), result.recipes());
+		assertEquals(1, result.pantryItemsUsed());
+		assertEquals(1, result.itemsToBuy());
+		assertEquals(3, result.candidates());
+		assertTrue(result.saved());
+		assertEquals(List.of(1L, 3L), savedPlans.get(userId).getRecipeIds());
+	}
+
+	@Test
+	void testGenerateMealPlan_WhenNoRecipeMatches_ThenReturnsEmptyPlan() {
+		when(recipeCatalog.findIds(any())).thenReturn(new long[0]);
+
+		GeneratedMealPlan result = userMealPlanService.generateMealPlan(1L, MealPlanRequest.builder().build());
+
+		assertTrue(result.recipes().isEmpty());
+		verifyNoInteractions(recipeIngredientIndex, userPantryRepository);
+	}
+
+	@Test
+	void testGenerateMealPlan_WhenRecipeCountOutOfRange_ThenThrowsIllegalArgumentException() {
+		assertThrows(IllegalArgumentException.class, () ->
+				userMealPlanService.generateMealPlan(1L, MealPlanRequest.builder().recipeCount(0).build()));
+		assertThrows(IllegalArgumentException.class, () ->
+				userMealPlanService.generateMealPlan(1L, MealPlanRequest.builder().timeBudgetMillis(60_000L).build()));
+	}
+
+	private static Recipe recipe(Long id) {
+		Recipe recipe = new Recipe("Recipe " + id, null, 10, 10, 2, "Easy", "Italian");
+		recipe.setId(id);
+		return recipe;
+	}
 }
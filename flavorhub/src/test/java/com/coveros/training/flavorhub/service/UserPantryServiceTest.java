@@ -0,0 +1,174 @@
+package com.coveros.training.flavorhub.service;
+
+import com.coveros.training.flavorhub.model.Ingredient;
+import com.coveros.training.flavorhub.model.Recipe;
+import com.coveros.training.flavorhub.model.RecipeIngredient;
+import com.coveros.training.flavorhub.model.UserPantry;
+import com.coveros.training.flavorhub.repository.IngredientRepository;
+import com.coveros.training.flavorhub.repository.RecipeRepository;
+import com.coveros.training.flavorhub.repository.UserPantryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserPantryService
+ */
+class UserPantryServiceTest {
+    
+    private UserPantryRepository userPantryRepository;
+    private RecipeRepository recipeRepository;
+    private PantryWriteBehindBuffer writeBehindBuffer;
+    private UserPantryService userPantryService;
+    private UserPantry eggs;
+    private UserPantry milk;
+    
+    @BeforeEach
+    void setUp() {
+        userPantryRepository = mock(UserPantryRepository.class);
+        recipeRepository = mock(RecipeRepository.class);
+        writeBehindBuffer = mock(PantryWriteBehindBuffer.class);
+        userPantryService = new UserPantryService(userPantryRepository, mock(IngredientRepository.class),
+                recipeRepository, writeBehindBuffer, mock(PantryRecommendations.class), mock(ApplicationEventPublisher.class));
+        
+        eggs = new UserPantry(1L, new Ingredient(10L, "Eggs", "Dairy", "whole"), 1.0, "whole");
+        eggs.setId(100L);
+        milk = new UserPantry(1L, new Ingredient(11L, "Milk", "Dairy", "cups"), 2.0, "cups");
+        milk.setId(101L);
+        Recipe pancakes = new Recipe("Pancakes", null, 5, 10, 2, "Easy", "American");
+        pancakes.setId(7L);
+        pancakes.getIngredients().add(new RecipeIngredient("eggs", 2.0, "whole", ""));
+        pancakes.getIngredients().add(new RecipeIngredient("Milk", 4.0, "tablespoons", ""));
+        pancakes.getIngredients().add(new RecipeIngredient("Saffron", 1.0, "pinch", ""));
+        when(recipeRepository.findAllWithIngredientsByIdIn(List.of(7L))).thenReturn(List.of(pancakes));
+        when(userPantryRepository.findByUserId(anyLong())).thenReturn(List.of(eggs, milk));
+    }
+    
+    @Test
+    void testCookRecipe_WhenPantryHasIngredients_ThenDeductsInPantryUnits() {
+        // Act
+        CookResult result = userPantryService.cookRecipe(1L, 7L).orElseThrow();
+        
+        // Assert
+        assertEquals(0.0, eggs.getQuantity());
+        assertEquals(1.75, milk.getQuantity(), 1e-9);
+        assertEquals(List.of(
+                new CookResult.PantryDeduction("Eggs", 1.0, "whole", 0.0),
+                new CookResult.PantryDeduction("Milk", 0.25, "cups", 1.75)), result.deductions());
+        assertEquals(List.of("eggs", "Saffron"), result.missingIngredients());
+        verify(userPantryRepository).saveAll(1L, List.of(eggs, milk));
+    }
+    
+    @Test
+    void testCookRecipe_WhenWriteBehindEnabled_ThenQueuesDeductions() {
+        // Arrange
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+        when(writeBehindBuffer.withPending(any())).thenAnswer(invocation ->
+                invocation.<Supplier<List<UserPantry>>>getArgument(0).get());
+        
+        // Act
+        userPantryService.cookRecipe(1L, 7L);
+        
+        // Assert
+        verify(writeBehindBuffer).add(1L, 10L, -1.0);
+        verify(writeBehindBuffer).add(eq(1L), eq(11L), doubleThat(delta -> Math.abs(delta + 0.25) < 1e-9));
+        assertEquals(1.0, eggs.getQuantity(), "items are left to the flush");
+        verify(userPantryRepository, never()).saveAll(anyLong(), anyCollection());
+    }
+    
+    @Test
+    void testCookRecipe_WhenRecipeDoesNotExist_ThenReturnsEmpty() {
+        // Arrange
+        when(recipeRepository.findAllWithIngredientsByIdIn(anyCollection())).thenReturn(List.of());
+        
+        // Act
+        Optional<CookResult> result = userPantryService.cookRecipe(1L, 404L);
+        
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(userPantryRepository);
+    }
+    
+    @Test
+    void testCookRecipe_WhenSameUserCooksConcurrently_ThenRunsOneAtATime() throws Exception {
+        // Arrange
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(userPantryRepository.findByUserId(anyLong())).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return List.of();
+        });
+        
+        // Act
+        CompletableFuture<?>[] cooks = new CompletableFuture<?>[4];
+        for (int i = 0; i < cooks.length; i++) {
+            cooks[i] = CompletableFuture.runAsync(() -> userPantryService.cookRecipe(1L, 7L));
+        }
+        CompletableFuture.allOf(cooks).get(5, TimeUnit.SECONDS);
+        
+        // Assert
+        assertEquals(1, maxActive.get());
+    }
+    
+    @Test
+    void testCookRecipe_WhenDifferentUsersCook_ThenRunInParallel() throws Exception {
+        // Arrange: both cooks must be inside the pantry read at the same time to pass the barrier
+        CyclicBarrier bothInside = new CyclicBarrier(2);
+        when(userPantryRepository.findByUserId(anyLong())).thenAnswer(invocation -> {
+            bothInside.await(2, TimeUnit.SECONDS);
+            return List.of();
+        });
+        
+        // Act
+        CompletableFuture<?> first = CompletableFuture.runAsync(() -> userPantryService.cookRecipe(1L, 7L));
+        CompletableFuture<?> second = CompletableFuture.runAsync(() -> userPantryService.cookRecipe(2L, 7L));
+        
+        // Assert
+        assertDoesNotThrow(() -> CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void testAddPantryItem_WhenSameUserIsCooking_ThenWaitsForTheCook() throws Exception {
+        // Arrange
+        CountDownLatch cooking = new CountDownLatch(1);
+        AtomicBoolean cookWritten = new AtomicBoolean();
+        AtomicBoolean restockedAfterCook = new AtomicBoolean();
+        doAnswer(invocation -> {
+            cooking.countDown();
+            Thread.sleep(100);
+            cookWritten.set(true);
+            return List.of();
+        }).when(userPantryRepository).saveAll(eq(1L), anyCollection());
+        when(userPantryRepository.save(any())).thenAnswer(invocation -> {
+            restockedAfterCook.set(cookWritten.get());
+            return invocation.getArgument(0);
+        });
+        UserPantry restock = new UserPantry(1L, new Ingredient(10L, "Eggs", "Dairy", "whole"), 12.0, "whole");
+        
+        // Act
+        CompletableFuture<?> cook = CompletableFuture.runAsync(() -> userPantryService.cookRecipe(1L, 7L));
+        assertTrue(cooking.await(5, TimeUnit.SECONDS));
+        userPantryService.addPantryItem(restock);
+        cook.get(5, TimeUnit.SECONDS);
+        
+        // Assert
+        assertTrue(restockedAfterCook.get());
+    }
+}